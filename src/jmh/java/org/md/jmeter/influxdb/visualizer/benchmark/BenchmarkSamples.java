@@ -0,0 +1,58 @@
+package org.md.jmeter.influxdb.visualizer.benchmark;
+
+import org.apache.jmeter.assertions.AssertionResult;
+import org.apache.jmeter.samplers.SampleResult;
+
+/**
+ * The samples used by the benchmarks.
+ */
+final class BenchmarkSamples {
+
+    /**
+     * The labels of the typical test plan, some of them need escaping.
+     */
+    static final String[] LABELS = {
+            "Home Page", "Login", "Search, step=1", "Product Details", "Add To Cart", "Checkout", "Payment", "Logout"
+    };
+
+    private BenchmarkSamples() {
+    }
+
+    /**
+     * Creates the successful sample.
+     * @param label the sample label.
+     * @return the {@link SampleResult}.
+     */
+    static SampleResult createOkSample(String label) {
+        SampleResult sampleResult = SampleResult.createTestSample(System.currentTimeMillis() - 120, System.currentTimeMillis());
+        sampleResult.setSampleLabel(label);
+        sampleResult.setResponseCode("200");
+        sampleResult.setSuccessful(true);
+        sampleResult.setLatency(80);
+        sampleResult.setConnectTime(10);
+        sampleResult.setBytes(2048L);
+        sampleResult.setSentBytes(512L);
+        return sampleResult;
+    }
+
+    /**
+     * Creates the sample failed by the assertion, with the response body and headers.
+     * @param label the sample label.
+     * @return the {@link SampleResult}.
+     */
+    static SampleResult createErrorSample(String label) {
+        SampleResult sampleResult = createOkSample(label);
+        sampleResult.setResponseCode("500");
+        sampleResult.setSuccessful(false);
+        sampleResult.setResponseHeaders("HTTP/1.1 500 Internal Server Error\nContent-Type: application/json\nContent-Length: 96\n");
+        sampleResult.setRequestHeaders("Accept: application/json\nUser-Agent: Apache-HttpClient/4.5.13\n");
+        sampleResult.setResponseData("{\"error\":\"Internal Server Error\",\"message\":\"Connection to the database has been lost, retry later\"}", "UTF-8");
+        sampleResult.setSamplerData("GET https://shop.example.com/api/products?page=1");
+
+        AssertionResult assertionResult = new AssertionResult("Response Assertion");
+        assertionResult.setFailure(true);
+        assertionResult.setFailureMessage("Test failed: code expected to equal 200");
+        sampleResult.addAssertionResult(assertionResult);
+        return sampleResult;
+    }
+}
@@ -0,0 +1,91 @@
+package org.md.jmeter.influxdb.visualizer.benchmark;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.visualizers.backend.BackendListenerContext;
+import org.md.jmeter.influxdb.visualizer.InfluxDatabaseBackendListenerClient;
+import org.md.jmeter.influxdb.visualizer.influxdb.client.InfluxDatabaseClient;
+import org.md.jmeter.influxdb.visualizer.influxdb.client.LineProtocolTransport;
+import org.md.jmeter.influxdb.visualizer.influxdb.client.OverflowPolicy;
+import org.md.jmeter.influxdb.visualizer.config.InfluxDBConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The same path as {@link ListenerBenchmark} with the single listener called by the concurrent consumer threads,
+ * compares the single write buffer with the striped one. The score is per sample of all the threads.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+public class ConcurrentListenerBenchmark {
+
+    private static final int SAMPLES_PER_CALL = 100;
+
+    /**
+     * The number of the write buffer stripes.
+     */
+    @Param({"1", "4"})
+    public int writeStripes;
+
+    private InfluxDatabaseBackendListenerClient listener;
+    private BackendListenerContext context;
+
+    /**
+     * The samples of the consumer thread.
+     */
+    @State(Scope.Thread)
+    public static class ThreadSamples {
+        private final List<SampleResult> sampleResults = new ArrayList<>();
+
+        @Setup
+        public void setup() {
+            for (int i = 0; i < SAMPLES_PER_CALL; i++) {
+                this.sampleResults.add(BenchmarkSamples.createOkSample(BenchmarkSamples.LABELS[i % BenchmarkSamples.LABELS.length]));
+            }
+        }
+    }
+
+    @Setup
+    public void setup() {
+        this.listener = new InfluxDatabaseBackendListenerClient() {
+            @Override
+            protected InfluxDatabaseClient createInfluxDatabaseClient(BackendListenerContext context) {
+                return new InfluxDatabaseClient(context, LoggerFactory.getLogger(ConcurrentListenerBenchmark.class)) {
+                    @Override
+                    protected LineProtocolTransport createTransport() {
+                        return new NullLineProtocolTransport();
+                    }
+                };
+            }
+        };
+
+        Map<String, String> parameters = new HashMap<>();
+        this.listener.getDefaultParameters().getArgumentsAsMap().forEach(parameters::put);
+        parameters.put(InfluxDBConfig.KEY_OVERFLOW_POLICY, OverflowPolicy.BLOCK.getName());
+        parameters.put(InfluxDBConfig.KEY_WRITE_STRIPES, Integer.toString(this.writeStripes));
+        this.context = new BackendListenerContext(parameters);
+        this.listener.setupTest(this.context);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        this.listener.teardownTest(this.context);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES_PER_CALL)
+    public void handleSampleResults(ThreadSamples samples) {
+        this.listener.handleSampleResults(samples.sampleResults, this.context);
+    }
+}
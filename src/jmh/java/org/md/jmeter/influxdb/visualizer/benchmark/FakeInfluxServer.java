@@ -0,0 +1,282 @@
+package org.md.jmeter.influxdb.visualizer.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.md.jmeter.influxdb.visualizer.config.RequestMeasurement;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolScanner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The in-process Influx DB 1.x endpoint: '/ping', '/query' and '/write'. The written points are counted, not stored;
+ * the lag of the {@link RequestMeasurement} points is the time between the point timestamp and its arrival.
+ * The write latency and the failures are injected to see how the listener copes with the slow or failing database.
+ */
+class FakeInfluxServer implements AutoCloseable {
+
+    private static final byte[] REQUEST_MEASUREMENT = (RequestMeasurement.MEASUREMENT_NAME + ",").getBytes(StandardCharsets.UTF_8);
+    private static final String EMPTY_QUERY_RESULT = "{\"results\":[{\"statement_id\":0}]}";
+    private static final String DATABASES_QUERY_RESULT = "{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"databases\",\"columns\":[\"name\"],\"values\":[[\"%s\"]]}]}]}";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final String database;
+
+    private volatile long writeLatency;
+    private volatile double writeFailureRatio;
+    private volatile double pingFailureRatio;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failedRequests = new LongAdder();
+    private final LongAdder receivedBytes = new LongAdder();
+    private final LongAdder points = new LongAdder();
+    private final LongAdder requestPoints = new LongAdder();
+    private final LongAdder lagSum = new LongAdder();
+    private final LongAccumulator lagMax = new LongAccumulator(Math::max, 0);
+    private final AtomicLong lastWrite = new AtomicLong();
+
+    /**
+     * Creates and starts the server on the ephemeral port of the loopback address.
+     * @param database the database reported by 'SHOW DATABASES'.
+     * @param threads the number of the request handling threads.
+     * @throws IOException if the server cannot be started.
+     */
+    FakeInfluxServer(String database, int threads) throws IOException {
+        this.database = database;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "fake-influxdb");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/ping", this::ping);
+        this.server.createContext("/query", this::query);
+        this.server.createContext("/write", this::write);
+        this.server.start();
+    }
+
+    /**
+     * @return the port of the server.
+     */
+    int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Sets the time every write request is delayed by.
+     * @param writeLatency the latency in milliseconds.
+     */
+    void setWriteLatency(long writeLatency) {
+        this.writeLatency = writeLatency;
+    }
+
+    /**
+     * Sets the share of the write requests answered by 503.
+     * @param writeFailureRatio the ratio from 0 to 1.
+     */
+    void setWriteFailureRatio(double writeFailureRatio) {
+        this.writeFailureRatio = writeFailureRatio;
+    }
+
+    /**
+     * Sets the share of the ping requests answered by 503.
+     * @param pingFailureRatio the ratio from 0 to 1.
+     */
+    void setPingFailureRatio(double pingFailureRatio) {
+        this.pingFailureRatio = pingFailureRatio;
+    }
+
+    /**
+     * Takes the statistics since the previous call.
+     * @return the {@link Statistics}.
+     */
+    Statistics takeStatistics() {
+        Statistics statistics = new Statistics();
+        statistics.requests = this.requests.sumThenReset();
+        statistics.failedRequests = this.failedRequests.sumThenReset();
+        statistics.receivedBytes = this.receivedBytes.sumThenReset();
+        statistics.points = this.points.sumThenReset();
+        statistics.requestPoints = this.requestPoints.sumThenReset();
+        statistics.lagSum = this.lagSum.sumThenReset();
+        statistics.lagMax = this.lagMax.getThenReset();
+        return statistics;
+    }
+
+    /**
+     * @return the time of the last accepted write request in milliseconds, 0 if none.
+     */
+    long getLastWrite() {
+        return this.lastWrite.get();
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    private void ping(HttpExchange exchange) throws IOException {
+        // the influx db client checks the version header only
+        if (ThreadLocalRandom.current().nextDouble() >= this.pingFailureRatio) {
+            exchange.getResponseHeaders().add("X-Influxdb-Version", "1.8.10");
+            this.respond(exchange, 204, null);
+        } else {
+            this.respond(exchange, 503, null);
+        }
+    }
+
+    private void query(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        String query = exchange.getRequestURI().getQuery();
+        boolean showDatabases = query != null && query.toUpperCase().contains("SHOW DATABASES");
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        this.respond(exchange, 200, showDatabases ? String.format(DATABASES_QUERY_RESULT, this.database) : EMPTY_QUERY_RESULT);
+    }
+
+    private void write(HttpExchange exchange) throws IOException {
+        long received = System.currentTimeMillis();
+        byte[] body;
+        try (InputStream input = exchange.getRequestBody()) {
+            byte[] data = input.readAllBytes();
+            this.receivedBytes.add(data.length);
+            body = "gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))
+                    ? new GZIPInputStream(new ByteArrayInputStream(data)).readAllBytes()
+                    : data;
+        }
+
+        if (this.writeLatency > 0) {
+            try {
+                Thread.sleep(this.writeLatency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        this.requests.increment();
+        if (ThreadLocalRandom.current().nextDouble() < this.writeFailureRatio) {
+            this.failedRequests.increment();
+            this.respond(exchange, 503, "{\"error\":\"injected failure\"}");
+            return;
+        }
+
+        this.count(body, received, getPrecisionMillis(exchange.getRequestURI().getQuery()));
+        this.lastWrite.set(System.currentTimeMillis());
+        this.respond(exchange, 204, null);
+    }
+
+    /**
+     * Counts the points of the body and the lag of the request points by their timestamps, the last value of the line.
+     */
+    private void count(byte[] body, long received, double precisionMillis) {
+        long points = 0;
+        long requestPoints = 0;
+        long lagSum = 0;
+        long lagMax = 0;
+
+        int lineStart = 0;
+        while (lineStart < body.length) {
+            int i = LineProtocolScanner.findLineEnd(body, lineStart, body.length);
+            if (i < 0) {
+                i = body.length;
+            }
+
+            if (i > lineStart) {
+                points++;
+                if (startsWith(body, lineStart, REQUEST_MEASUREMENT)) {
+                    int timestampStart = i;
+                    while (timestampStart > lineStart && body[timestampStart - 1] != ' ') {
+                        timestampStart--;
+                    }
+                    long lag = Math.max(0, received - (long) (parseLong(body, timestampStart, i) * precisionMillis));
+                    requestPoints++;
+                    lagSum += lag;
+                    lagMax = Math.max(lagMax, lag);
+                }
+            }
+            lineStart = i + 1;
+        }
+
+        this.points.add(points);
+        this.requestPoints.add(requestPoints);
+        this.lagSum.add(lagSum);
+        this.lagMax.accumulate(lagMax);
+    }
+
+    private void respond(HttpExchange exchange, int code, String body) throws IOException {
+        byte[] data = body == null ? null : body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(code, data == null ? -1 : data.length);
+        if (data != null) {
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(data);
+            }
+        }
+        exchange.close();
+    }
+
+    private static double getPrecisionMillis(String query) {
+        String precision = "ns";
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith("precision=")) {
+                    precision = parameter.substring("precision=".length());
+                }
+            }
+        }
+
+        switch (precision) {
+            case "s": return 1000;
+            case "ms": return 1;
+            case "u":
+            case "us": return 0.001;
+            default: return 0.000001;
+        }
+    }
+
+    private static boolean startsWith(byte[] data, int offset, byte[] prefix) {
+        if (data.length - offset < prefix.length) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parseLong(byte[] data, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end && data[i] >= '0' && data[i] <= '9'; i++) {
+            value = value * 10 + data[i] - '0';
+        }
+        return value;
+    }
+
+    /**
+     * The write statistics of the interval.
+     */
+    static final class Statistics {
+        long requests;
+        long failedRequests;
+        long receivedBytes;
+        long points;
+        long requestPoints;
+        long lagSum;
+        long lagMax;
+    }
+}
@@ -0,0 +1,22 @@
+package org.md.jmeter.influxdb.visualizer.benchmark;
+
+import org.md.jmeter.influxdb.visualizer.influxdb.client.InfluxDatabaseUtility;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Escaping of the tag values, with and without the chars to escape.
+ */
+@State(Scope.Thread)
+public class InfluxDatabaseUtilityBenchmark {
+
+    @Param({"ProductDetails", "Search, step=1 of the catalog"})
+    public String value;
+
+    @Benchmark
+    public String getEscapedString() {
+        return InfluxDatabaseUtility.getEscapedString(this.value);
+    }
+}
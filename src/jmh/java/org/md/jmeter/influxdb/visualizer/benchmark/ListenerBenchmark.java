@@ -0,0 +1,80 @@
+package org.md.jmeter.influxdb.visualizer.benchmark;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.visualizers.backend.BackendListenerContext;
+import org.md.jmeter.influxdb.visualizer.InfluxDatabaseBackendListenerClient;
+import org.md.jmeter.influxdb.visualizer.influxdb.client.InfluxDatabaseClient;
+import org.md.jmeter.influxdb.visualizer.influxdb.client.LineProtocolTransport;
+import org.md.jmeter.influxdb.visualizer.influxdb.client.OverflowPolicy;
+import org.md.jmeter.influxdb.visualizer.config.InfluxDBConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The full path from {@link InfluxDatabaseBackendListenerClient#handleSampleResults(List, BackendListenerContext)}
+ * to the write of the encoded batch, the batches are discarded by the stub transport. The score is per sample.
+ */
+@State(Scope.Thread)
+public class ListenerBenchmark {
+
+    private static final int SAMPLES_PER_CALL = 100;
+
+    /**
+     * The share of the failed samples in percent.
+     */
+    @Param({"0", "10"})
+    public int errorPercent;
+
+    private InfluxDatabaseBackendListenerClient listener;
+    private BackendListenerContext context;
+    private final List<SampleResult> sampleResults = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        this.listener = new InfluxDatabaseBackendListenerClient() {
+            @Override
+            protected InfluxDatabaseClient createInfluxDatabaseClient(BackendListenerContext context) {
+                return new InfluxDatabaseClient(context, LoggerFactory.getLogger(ListenerBenchmark.class)) {
+                    @Override
+                    protected LineProtocolTransport createTransport() {
+                        return new NullLineProtocolTransport();
+                    }
+                };
+            }
+        };
+
+        Map<String, String> parameters = new HashMap<>();
+        this.listener.getDefaultParameters().getArgumentsAsMap().forEach(parameters::put);
+        // the benchmark measures the listener, not the drops of the full buffer
+        parameters.put(InfluxDBConfig.KEY_OVERFLOW_POLICY, OverflowPolicy.BLOCK.getName());
+        this.context = new BackendListenerContext(parameters);
+        this.listener.setupTest(this.context);
+
+        for (int i = 0; i < SAMPLES_PER_CALL; i++) {
+            String label = BenchmarkSamples.LABELS[i % BenchmarkSamples.LABELS.length];
+            this.sampleResults.add(i % 100 < this.errorPercent ? BenchmarkSamples.createErrorSample(label) : BenchmarkSamples.createOkSample(label));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        this.listener.teardownTest(this.context);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES_PER_CALL)
+    public void handleSampleResults() {
+        this.listener.handleSampleResults(this.sampleResults, this.context);
+    }
+}
@@ -0,0 +1,19 @@
+package org.md.jmeter.influxdb.visualizer.benchmark;
+
+import org.md.jmeter.influxdb.visualizer.influxdb.client.LineProtocolTransport;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+
+/**
+ * The transport which discards the batches, so the benchmarks measure the listener without the network.
+ */
+class NullLineProtocolTransport implements LineProtocolTransport {
+
+    @Override
+    public int send(LineProtocolBuilder batch) {
+        return batch.getSize();
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,90 @@
+package org.md.jmeter.influxdb.visualizer.benchmark;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.SeriesKeyCache;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.TagValueCache;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.WritePrecision;
+import org.md.jmeter.influxdb.visualizer.result.ErrorBodyCache;
+import org.md.jmeter.influxdb.visualizer.result.SampleResultPointContext;
+import org.md.jmeter.influxdb.visualizer.result.SampleResultPointProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of the single request point for the successful and the failed samples.
+ */
+@State(Scope.Thread)
+public class SampleResultPointProviderBenchmark {
+
+    private static final int LARGE_BODY_SIZE = 1024 * 1024;
+
+    /**
+     * The number of the remembered error bodies, 0 writes the body of every failure.
+     */
+    @Param({"0", "1000"})
+    public int errorBodyCacheSize;
+
+    private final LineProtocolBuilder builder = new LineProtocolBuilder(64 * 1024, WritePrecision.NANOSECONDS);
+    private SampleResultPointContext context;
+    private SampleResultPointProvider provider;
+    private SampleResult okSample;
+    private SampleResult errorSample;
+    private SampleResult largeErrorSample;
+    private byte[] largeBody;
+
+    @Setup
+    public void setup() {
+        this.context = new SampleResultPointContext();
+        this.context.setNodeName("Test-Node");
+        this.context.setRunId("R001");
+        this.context.setTestName("Test");
+        this.context.setPrecisionToSet(TimeUnit.NANOSECONDS);
+        this.context.setErrorBodyToBeSaved(true);
+        this.context.setErrorDetailsMaxSize(4096);
+        this.context.setErrorBodyCache(new ErrorBodyCache(this.errorBodyCacheSize));
+        this.context.setTagValueCache(new TagValueCache(10000));
+        this.context.setSeriesKeyCache(new SeriesKeyCache(10000));
+        this.provider = new SampleResultPointProvider(this.context);
+
+        this.okSample = BenchmarkSamples.createOkSample("Search, step=1");
+        this.errorSample = BenchmarkSamples.createErrorSample("Search, step=1");
+        this.largeErrorSample = BenchmarkSamples.createErrorSample("Search, step=1");
+        this.largeBody = new byte[LARGE_BODY_SIZE];
+        for (int i = 0; i < LARGE_BODY_SIZE; i++) {
+            this.largeBody[i] = (byte) ('a' + i % 26);
+        }
+    }
+
+    @Benchmark
+    public int okPoint() {
+        return this.writePoint(this.okSample);
+    }
+
+    @Benchmark
+    public int errorPoint() {
+        return this.writePoint(this.errorSample);
+    }
+
+    /**
+     * The failure with the 1 MB error page, the body is set again so the sample does not keep the body decoded by the previous call.
+     */
+    @Benchmark
+    public int largeErrorPoint() {
+        this.largeErrorSample.setResponseData(this.largeBody);
+        return this.writePoint(this.largeErrorSample);
+    }
+
+    private int writePoint(SampleResult sampleResult) {
+        this.builder.reset();
+        this.context.setSampleResult(sampleResult);
+        this.context.setTimeToSet(sampleResult.getEndTime());
+        this.provider.writeTo(this.builder);
+        return this.builder.getSize();
+    }
+}
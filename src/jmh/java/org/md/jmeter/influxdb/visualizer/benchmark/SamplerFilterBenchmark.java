@@ -0,0 +1,44 @@
+package org.md.jmeter.influxdb.visualizer.benchmark;
+
+import org.md.jmeter.influxdb.visualizer.result.SamplerFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The sampler filtering done for every sample by the listener.
+ */
+@State(Scope.Thread)
+public class SamplerFilterBenchmark {
+
+    /**
+     * The filter configuration: all the samplers, the include and exclude regular expressions or the list of the labels.
+     */
+    @Param({"all", "regex", "list"})
+    public String filter;
+
+    private SamplerFilter samplerFilter;
+    private int next;
+
+    @Setup
+    public void setup() {
+        switch (this.filter) {
+            case "regex":
+                this.samplerFilter = new SamplerFilter("^(Home|Login|Search|Product|Checkout).*", ".*Details$", true);
+                break;
+            case "list":
+                this.samplerFilter = new SamplerFilter("Home Page;Login;Search, step=1;Checkout;Payment", "", false);
+                break;
+            default:
+                this.samplerFilter = new SamplerFilter(".*", "", true);
+        }
+    }
+
+    @Benchmark
+    public boolean accept() {
+        String label = BenchmarkSamples.LABELS[this.next++ & (BenchmarkSamples.LABELS.length - 1)];
+        return this.samplerFilter.accept(label);
+    }
+}
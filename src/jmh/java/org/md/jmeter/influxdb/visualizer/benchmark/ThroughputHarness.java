@@ -0,0 +1,282 @@
+package org.md.jmeter.influxdb.visualizer.benchmark;
+
+import com.sun.management.OperatingSystemMXBean;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.visualizers.backend.BackendListenerContext;
+import org.md.jmeter.influxdb.visualizer.InfluxDatabaseBackendListenerClient;
+import org.md.jmeter.influxdb.visualizer.config.InfluxDBConfig;
+import org.md.jmeter.influxdb.visualizer.monitoring.ListenerMetricsMBean;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The end-to-end throughput harness: the consumer threads feed the listener with the synthetic samples at the given rate,
+ * the listener writes to the {@link FakeInfluxServer}. Every second it prints the generated and the delivered points,
+ * the lag between the sample end and its arrival, the points lost by the listener, the CPU and the heap, e.g.:
+ * <pre>
+ * gradlew throughputHarness -Pargs="rate=100000 threads=4 labels=200 errorRatio=0.01 duration=60 writeLatency=20"
+ * </pre>
+ * The arguments are 'key=value': the harness keys below and the listener parameters, which override its defaults.
+ * <ul>
+ * <li>rate - the samples per second of all the threads, 0 for as fast as possible; the default is 50000.</li>
+ * <li>threads - the consumer threads calling the listener; the default is 4.</li>
+ * <li>batch - the samples per handleSampleResults call; the default is 100.</li>
+ * <li>labels - the number of the distinct sample labels; the default is 50.</li>
+ * <li>errorRatio - the share of the failed samples with the response body; the default is 0.</li>
+ * <li>duration - the measured generation time in seconds; the default is 30.</li>
+ * <li>warmup - the generation time before the measurement in seconds, it covers the start of the listener and the JIT; the default is 5.</li>
+ * <li>writeLatency - the delay of every write request in milliseconds; the default is 0.</li>
+ * <li>writeFailureRatio - the share of the write requests answered by 503; the default is 0.</li>
+ * <li>pingFailureRatio - the share of the ping requests answered by 503; the default is 0.</li>
+ * </ul>
+ * The rate is sustained if the delivered points keep up with the generated ones, the lag stays flat and nothing is lost.
+ */
+public final class ThroughputHarness {
+
+    private static final String KEY_RATE = "rate";
+    private static final String KEY_THREADS = "threads";
+    private static final String KEY_BATCH = "batch";
+    private static final String KEY_LABELS = "labels";
+    private static final String KEY_ERROR_RATIO = "errorRatio";
+    private static final String KEY_DURATION = "duration";
+    private static final String KEY_WARMUP = "warmup";
+    private static final String KEY_WRITE_LATENCY = "writeLatency";
+    private static final String KEY_WRITE_FAILURE_RATIO = "writeFailureRatio";
+    private static final String KEY_PING_FAILURE_RATIO = "pingFailureRatio";
+
+    private static final String DATABASE = "jmeter";
+
+    private final int rate;
+    private final int threads;
+    private final int batch;
+    private final String[] labels;
+    private final double errorRatio;
+    private final int duration;
+    private final int warmup;
+
+    private final LongAdder generatedSamples = new LongAdder();
+    private final LongAdder generatorCpuTime = new LongAdder();
+    private volatile boolean running = true;
+
+    private ThroughputHarness(Map<String, String> parameters) {
+        this.rate = Integer.parseInt(parameters.getOrDefault(KEY_RATE, "50000"));
+        this.threads = Integer.parseInt(parameters.getOrDefault(KEY_THREADS, "4"));
+        this.batch = Integer.parseInt(parameters.getOrDefault(KEY_BATCH, "100"));
+        this.errorRatio = Double.parseDouble(parameters.getOrDefault(KEY_ERROR_RATIO, "0"));
+        this.duration = Integer.parseInt(parameters.getOrDefault(KEY_DURATION, "30"));
+        this.warmup = Integer.parseInt(parameters.getOrDefault(KEY_WARMUP, "5"));
+
+        this.labels = new String[Integer.parseInt(parameters.getOrDefault(KEY_LABELS, "50"))];
+        for (int i = 0; i < this.labels.length; i++) {
+            this.labels[i] = BenchmarkSamples.LABELS[i % BenchmarkSamples.LABELS.length] + " " + i;
+        }
+    }
+
+    /**
+     * Runs the harness.
+     * @param args the harness and listener parameters ('key=value').
+     * @throws Exception if the listener or the server fails.
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> parameters = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                System.err.println("Usage: " + ThroughputHarness.class.getName() + " [rate=50000] [threads=4] [batch=100] [labels=50] [errorRatio=0]"
+                        + " [duration=30] [warmup=5] [writeLatency=0] [writeFailureRatio=0] [pingFailureRatio=0] [listener parameters]");
+                System.exit(2);
+            }
+            parameters.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        new ThroughputHarness(parameters).run(parameters);
+        System.exit(0);
+    }
+
+    private void run(Map<String, String> parameters) throws Exception {
+        try (FakeInfluxServer server = new FakeInfluxServer(DATABASE, 4)) {
+            server.setWriteLatency(Long.parseLong(parameters.getOrDefault(KEY_WRITE_LATENCY, "0")));
+            server.setWriteFailureRatio(Double.parseDouble(parameters.getOrDefault(KEY_WRITE_FAILURE_RATIO, "0")));
+            server.setPingFailureRatio(Double.parseDouble(parameters.getOrDefault(KEY_PING_FAILURE_RATIO, "0")));
+
+            InfluxDatabaseBackendListenerClient listener = new InfluxDatabaseBackendListenerClient();
+            Map<String, String> listenerParameters = new HashMap<>();
+            listener.getDefaultParameters().getArgumentsAsMap().forEach(listenerParameters::put);
+            listenerParameters.put(InfluxDBConfig.KEY_INFLUX_DB_HOST, "localhost");
+            listenerParameters.put(InfluxDBConfig.KEY_INFLUX_DB_PORT, Integer.toString(server.getPort()));
+            listenerParameters.put(InfluxDBConfig.KEY_INFLUX_DB_DATABASE, DATABASE);
+            parameters.forEach(listenerParameters::put);
+            BackendListenerContext context = new BackendListenerContext(listenerParameters);
+            listener.setupTest(context);
+
+            List<Thread> generators = new ArrayList<>();
+            for (int i = 0; i < this.threads; i++) {
+                Thread generator = new Thread(() -> this.generate(listener, context), "generator-" + i);
+                generators.add(generator);
+                generator.start();
+            }
+
+            // the statistics of the warmup are discarded
+            Thread.sleep(TimeUnit.SECONDS.toMillis(this.warmup));
+            Report report = new Report(server, this.findListenerMetrics(), this.generatedSamples.sumThenReset());
+            report.printHeader();
+            for (int second = 0; second < this.duration; second++) {
+                Thread.sleep(1000);
+                report.print(this.generatedSamples.sumThenReset());
+            }
+
+            this.running = false;
+            for (Thread generator : generators) {
+                generator.join();
+            }
+
+            // the points are delivered by the teardown, it waits for the pending batches
+            long teardownStart = System.currentTimeMillis();
+            listener.teardownTest(context);
+            report.print(this.generatedSamples.sumThenReset());
+            report.printSummary(System.currentTimeMillis() - teardownStart);
+
+        }
+    }
+
+    /**
+     * Feeds the listener at the thread share of the rate, the next call is scheduled from the start, so the slow calls are caught up.
+     */
+    private void generate(InfluxDatabaseBackendListenerClient listener, BackendListenerContext context) {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        long cpuStart = threadMXBean.getCurrentThreadCpuTime();
+        long interval = this.rate > 0 ? TimeUnit.SECONDS.toNanos(1) * this.batch * this.threads / this.rate : 0;
+        long start = System.nanoTime();
+        List<SampleResult> sampleResults = new ArrayList<>(this.batch);
+
+        for (long call = 0; this.running; call++) {
+            long delay = start + call * interval - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+
+            sampleResults.clear();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < this.batch; i++) {
+                String label = this.labels[random.nextInt(this.labels.length)];
+                sampleResults.add(random.nextDouble() < this.errorRatio ? BenchmarkSamples.createErrorSample(label) : BenchmarkSamples.createOkSample(label));
+            }
+
+            listener.handleSampleResults(sampleResults, context);
+            this.generatedSamples.add(this.batch);
+        }
+
+        this.generatorCpuTime.add(threadMXBean.getCurrentThreadCpuTime() - cpuStart);
+    }
+
+    private ListenerMetricsMBean findListenerMetrics() throws Exception {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        Set<ObjectName> names = mBeanServer.queryNames(new ObjectName("org.md.jmeter.influxdb.visualizer:type=ListenerMetrics,*"), null);
+        return names.isEmpty() ? null : JMX.newMBeanProxy(mBeanServer, names.iterator().next(), ListenerMetricsMBean.class);
+    }
+
+    /**
+     * Prints the statistics of every second and the summary.
+     */
+    private final class Report {
+
+        private final FakeInfluxServer server;
+        private final ListenerMetricsMBean listenerMetrics;
+        private final OperatingSystemMXBean operatingSystem = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final long startTime = System.currentTimeMillis();
+        private final long startCpuTime = this.operatingSystem.getProcessCpuTime();
+
+        private long seconds;
+        private long totalGenerated;
+        private long totalDelivered;
+        private long totalRequests;
+        private long totalFailedRequests;
+        private long totalReceivedBytes;
+        private long totalLagSum;
+        private long maxLag;
+        private long maxHeap;
+        private long lostPoints;
+        private final long startLostPoints;
+        private long lastCpuTime = this.startCpuTime;
+        private long lastTime = System.nanoTime();
+
+        private Report(FakeInfluxServer server, ListenerMetricsMBean listenerMetrics, long warmupSamples) {
+            this.server = server;
+            this.listenerMetrics = listenerMetrics;
+
+            // the warmup samples still in the listener buffer are delivered in the first seconds
+            this.startLostPoints = this.getLostPoints();
+            this.totalGenerated = warmupSamples - server.takeStatistics().requestPoints - this.startLostPoints;
+        }
+
+        private void printHeader() {
+            System.out.println(String.format("%6s %12s %12s %10s %10s %8s %8s %10s %8s %10s", "time", "generated/s", "delivered/s", "points/s",
+                    "lag avg ms", "lag max", "lost", "failed req", "cpu %", "heap MB"));
+        }
+
+        private void print(long generated) {
+            FakeInfluxServer.Statistics statistics = this.server.takeStatistics();
+            long heap = this.memory.getHeapMemoryUsage().getUsed();
+            long cpuTime = this.operatingSystem.getProcessCpuTime();
+            long time = System.nanoTime();
+            double cpu = (cpuTime - this.lastCpuTime) * 100d / (time - this.lastTime) / Runtime.getRuntime().availableProcessors();
+            this.lastCpuTime = cpuTime;
+            this.lastTime = time;
+
+            this.seconds++;
+            this.totalGenerated += generated;
+            this.totalDelivered += statistics.requestPoints;
+            this.totalRequests += statistics.requests;
+            this.totalFailedRequests += statistics.failedRequests;
+            this.totalReceivedBytes += statistics.receivedBytes;
+            this.totalLagSum += statistics.lagSum;
+            this.maxLag = Math.max(this.maxLag, statistics.lagMax);
+            this.maxHeap = Math.max(this.maxHeap, heap);
+
+            System.out.println(String.format("%6d %12d %12d %10d %10d %8d %8d %10d %8.1f %10d", this.seconds, generated, statistics.requestPoints,
+                    statistics.points, statistics.requestPoints > 0 ? statistics.lagSum / statistics.requestPoints : 0, statistics.lagMax,
+                    this.getLostPoints() - this.startLostPoints, statistics.failedRequests, cpu, heap >> 20));
+        }
+
+        private void printSummary(long teardownTime) {
+            double elapsed = (System.currentTimeMillis() - this.startTime) / 1000d;
+            System.out.println();
+            System.out.println(String.format("generated samples:   %d (%.0f/s)", this.totalGenerated, this.totalGenerated / elapsed));
+            System.out.println(String.format("delivered samples:   %d (%.0f/s), %d missing", this.totalDelivered, this.totalDelivered / elapsed,
+                    this.totalGenerated - this.totalDelivered));
+            System.out.println(String.format("lost by listener:    %d points", this.getLostPoints() - this.startLostPoints));
+            System.out.println(String.format("end-to-end lag:      %d ms avg, %d ms max", this.totalDelivered > 0 ? this.totalLagSum / this.totalDelivered : 0, this.maxLag));
+            System.out.println(String.format("write requests:      %d, %d failed, %d bytes", this.totalRequests, this.totalFailedRequests, this.totalReceivedBytes));
+            System.out.println(String.format("teardown:            %d ms", teardownTime));
+            System.out.println(String.format("process cpu:         %.1f s, generator threads %.1f s", (this.operatingSystem.getProcessCpuTime() - this.startCpuTime) / 1e9,
+                    generatorCpuTime.sum() / 1e9));
+            System.out.println(String.format("heap:                %d MB max used", this.maxHeap >> 20));
+        }
+
+        private long getLostPoints() {
+            try {
+                if (this.listenerMetrics != null) {
+                    this.lostPoints = this.listenerMetrics.getTotalLostPoints();
+                }
+            } catch (RuntimeException e) {
+                // the MBean is unregistered by the teardown, the last value is kept
+            }
+            return this.lostPoints;
+        }
+    }
+}
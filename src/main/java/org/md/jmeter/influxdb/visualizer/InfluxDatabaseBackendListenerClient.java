@@ -1,11 +1,21 @@
 package org.md.jmeter.influxdb.visualizer;
 
+import java.lang.management.ManagementFactory;
 import java.util.*;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import org.md.jmeter.influxdb.visualizer.aggregation.HistogramAggregator;
+import org.md.jmeter.influxdb.visualizer.aggregation.HistogramPointProvider;
+import org.md.jmeter.influxdb.visualizer.aggregation.RequestAggregator;
+import org.md.jmeter.influxdb.visualizer.aggregation.RequestWindow;
+import org.md.jmeter.influxdb.visualizer.aggregation.RequestWindowPointProvider;
+import org.md.jmeter.influxdb.visualizer.aggregation.ResponseTimeHistogram;
 import org.md.jmeter.influxdb.visualizer.influxdb.client.InfluxDatabaseClient;
+import org.md.jmeter.influxdb.visualizer.influxdb.client.OverflowPolicy;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.SeriesKeyCache;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.TagValueCache;
 import org.md.jmeter.influxdb.visualizer.config.InfluxDBConfig;
 import org.md.jmeter.influxdb.visualizer.config.TestStartEndMeasurement;
 import org.md.jmeter.influxdb.visualizer.config.VirtualUsersMeasurement;
@@ -16,11 +26,22 @@ import org.apache.jmeter.threads.JMeterContextService.ThreadCounts;
 import org.apache.jmeter.visualizers.backend.AbstractBackendListenerClient;
 import org.apache.jmeter.visualizers.backend.BackendListenerContext;
 
-import org.influxdb.dto.Point;
+import org.md.jmeter.influxdb.visualizer.monitoring.GeneratorHealth;
+import org.md.jmeter.influxdb.visualizer.monitoring.GeneratorHealthPointProvider;
+import org.md.jmeter.influxdb.visualizer.monitoring.ListenerMetrics;
+import org.md.jmeter.influxdb.visualizer.monitoring.ListenerMetricsPointProvider;
+import org.md.jmeter.influxdb.visualizer.result.AdaptiveSampler;
+import org.md.jmeter.influxdb.visualizer.result.ErrorBodyCache;
 import org.md.jmeter.influxdb.visualizer.result.SampleResultPointContext;
 import org.md.jmeter.influxdb.visualizer.result.SampleResultPointProvider;
+import org.md.jmeter.influxdb.visualizer.result.SampleResultTraversal;
+import org.md.jmeter.influxdb.visualizer.result.SampleResultVisitor;
+import org.md.jmeter.influxdb.visualizer.result.SampleTimestampGenerator;
+import org.md.jmeter.influxdb.visualizer.result.SamplerFilter;
 import org.slf4j.LoggerFactory;
 
+import javax.management.ObjectName;
+
 
 /**
  * Backend listener that writes JMeter metrics to influxDB directly.
@@ -43,17 +64,38 @@ public class InfluxDatabaseBackendListenerClient extends AbstractBackendListener
     private static final String KEY_TEST_NAME = "testName";
     private static final String KEY_RUN_ID = "runId";
     private static final String KEY_INCLUDE_BODY_OF_FAILURES = "saveResponseBodyOfFailures";
+    private static final String KEY_ERROR_DETAILS_MAX_SIZE = "errorDetailsMaxSize";
+    private static final String KEY_ERROR_BODY_CACHE_SIZE = "errorBodyCacheSize";
     private static final String KEY_NODE_NAME = "nodeName";
     private static final String KEY_SAMPLERS_LIST = "samplersList";
+    private static final String KEY_SAMPLERS_EXCLUDE_LIST = "samplersExcludeList";
     private static final String KEY_RECORD_SUB_SAMPLES = "recordSubSamples";
+    private static final String KEY_SUB_SAMPLES_MAX_DEPTH = "subSamplesMaxDepth";
+    private static final String KEY_RECORD_RAW_SAMPLES = "recordRawSamples";
+    private static final String KEY_AGGREGATE_SAMPLES = "aggregateSamples";
+    private static final String KEY_AGGREGATION_WINDOW = "aggregationWindow";
+    private static final String KEY_RECORD_HISTOGRAMS = "recordHistograms";
+    private static final String KEY_TIMESTAMP_SOURCE = "timestampSource";
+    private static final String KEY_GENERATOR_HEALTH_INTERVAL = "generatorHealthInterval";
+    private static final String KEY_RAW_SAMPLES_BUDGET = "rawSamplesBudget";
+    private static final String KEY_RAW_SAMPLES_OUTLIER_PERCENTILE = "rawSamplesOutlierPercentile";
 
     private InfluxDatabaseClient influxDatabaseClient;
 
     /**
      * Constants.
      */
-    private static final String SEPARATOR = ";";
-    private static final int ONE_MS_IN_NANOSECONDS = 1000000;
+    private static final String TIMESTAMP_SOURCE_START = "start";
+    private static final String TIMESTAMP_SOURCE_END = "end";
+    private static final int DEFAULT_AGGREGATION_WINDOW = 5;
+    private static final int DEFAULT_SUB_SAMPLES_MAX_DEPTH = 1;
+    private static final int DEFAULT_GENERATOR_HEALTH_INTERVAL = 5;
+    private static final int DEFAULT_ERROR_DETAILS_MAX_SIZE = 4096;
+    private static final int DEFAULT_ERROR_BODY_CACHE_SIZE = 1000;
+    private static final double DEFAULT_RAW_SAMPLES_OUTLIER_PERCENTILE = 99;
+    private static final int MAX_CACHED_TAG_VALUES = 10000;
+    private static final int MAX_CACHED_SERIES_KEYS = 10000;
+    private static final String JMX_DOMAIN = "org.md.jmeter.influxdb.visualizer";
 
     /**
      * Scheduler for periodic metric aggregation.
@@ -77,62 +119,133 @@ public class InfluxDatabaseBackendListenerClient extends AbstractBackendListener
     private String nodeName;
 
     /**
-     * Regex if samplers are defined through regular expression.
+     * Filter of the samplers to record.
      */
-    private String regexForSamplerList;
+    private SamplerFilter samplerFilter;
 
     /**
-     * Set of samplers to record.
+     * Generates the unique timestamps of the samples.
      */
-    private Set<String> samplersToFilter;
+    private SampleTimestampGenerator timestampGenerator;
 
     /**
-     * Random number generator.
+     * The listener own metrics, also exposed by JMX.
      */
-    private Random randomNumberGenerator;
+    private ListenerMetrics listenerMetrics;
 
     /**
-     * Indicates whether to record Sub samples.
+     * Creates the points of the listener own metrics.
      */
-    private boolean recordSubSamples;
+    private ListenerMetricsPointProvider listenerMetricsPointProvider;
 
     /**
-     * Processes sampler results.
+     * The JMX name of the listener metrics, null if they have not been registered.
      */
-    public void handleSampleResults(List<SampleResult> sampleResults, BackendListenerContext context) {
+    private ObjectName listenerMetricsName;
 
+    /**
+     * The health of the load generator JVM, null if it is not recorded.
+     */
+    private GeneratorHealth generatorHealth;
 
-        // Gather all the listeners
-        List<SampleResult> allSampleResults = new ArrayList<>();
-        for (SampleResult sampleResult : sampleResults) {
-            allSampleResults.add(sampleResult);
+    /**
+     * Creates the points of the load generator health.
+     */
+    private GeneratorHealthPointProvider generatorHealthPointProvider;
 
-            if (recordSubSamples) {
-                Collections.addAll(allSampleResults, sampleResult.getSubResults());
-            }
-        }
+    /**
+     * The depth of the deepest recorded sub samples, 0 if the sub samples are not recorded.
+     */
+    private int subSamplesDepth;
+
+    /**
+     * Indicates whether to write one point per sample to the requests measurement.
+     */
+    private boolean recordRawSamples;
+
+    /**
+     * Downsamples the raw samples to the budget, null if every raw sample is written.
+     */
+    private AdaptiveSampler rawSampler;
+
+    /**
+     * Aggregates samples per window, null if the aggregation is disabled.
+     */
+    private RequestAggregator requestAggregator;
+
+    /**
+     * Indicates whether the samples are aggregated only when the write buffer rejects them.
+     */
+    private boolean aggregateRejectedSamples;
+
+    /**
+     * Creates the points of the aggregated windows.
+     */
+    private RequestWindowPointProvider requestWindowPointProvider;
+
+    /**
+     * Collects the response time histograms per window, null if the histograms are not recorded.
+     */
+    private HistogramAggregator histogramAggregator;
 
-        for (SampleResult sampleResult : allSampleResults) {
-            getUserMetrics().add(sampleResult);
+    /**
+     * Creates the points of the response time histograms.
+     */
+    private HistogramPointProvider histogramPointProvider;
+
+    /**
+     * Indicates whether to save the failure details.
+     */
+    private boolean errorBodyToBeSaved;
 
-            if ((null != regexForSamplerList && sampleResult.getSampleLabel().matches(regexForSamplerList))
-                    || samplersToFilter.contains(sampleResult.getSampleLabel())) {
+    /**
+     * The maximum size of the failure details fields.
+     */
+    private int errorDetailsMaxSize;
 
-                SampleResultPointContext sampleResultContext = new SampleResultPointContext();
-                sampleResultContext.setRunId(this.runId);
-                sampleResultContext.setTestName(this.testName);
-                sampleResultContext.setNodeName(this.nodeName);
-                sampleResultContext.setSampleResult(sampleResult);
-                sampleResultContext.setTimeToSet(System.currentTimeMillis() * ONE_MS_IN_NANOSECONDS + this.getUniqueNumberForTheSamplerThread());
-                sampleResultContext.setPrecisionToSet(TimeUnit.NANOSECONDS);
-                sampleResultContext.setErrorBodyToBeSaved(context.getBooleanParameter(KEY_INCLUDE_BODY_OF_FAILURES, false));
+    /**
+     * The error bodies written recently, shared by the consumer threads.
+     */
+    private ErrorBodyCache errorBodyCache;
 
-                var sampleResultPointProvider = new SampleResultPointProvider(sampleResultContext);
+    /**
+     * The escaped tag values, shared by the consumer threads.
+     */
+    private TagValueCache tagValueCache;
 
-                Point resultPoint = sampleResultPointProvider.getPoint();
-                this.influxDatabaseClient.write(resultPoint);
+    /**
+     * The encoded series keys, shared by the consumer threads.
+     */
+    private SeriesKeyCache seriesKeyCache;
+
+    /**
+     * Handles the samples, one instance with its own {@link SampleResultPointContext} per consumer thread.
+     */
+    private ThreadLocal<SampleResultHandler> sampleResultHandler;
+
+    /**
+     * Adds the visited samples to the user metrics.
+     */
+    private final SampleResultVisitor userMetricsVisitor = (sampleResult, parent, depth) -> getUserMetrics().add(sampleResult);
+
+    /**
+     * Processes sampler results, can be called by the concurrent consumer threads.
+     * The samples and their sub samples are visited in place down to the configured depth.
+     */
+    public void handleSampleResults(List<SampleResult> sampleResults, BackendListenerContext context) {
+
+        // the user metrics are not thread safe, they are updated for the whole batch under the lock
+        synchronized (getUserMetrics()) {
+            for (SampleResult sampleResult : sampleResults) {
+                SampleResultTraversal.traverse(sampleResult, this.subSamplesDepth, this.userMetricsVisitor);
             }
         }
+
+        SampleResultHandler sampleResultHandler = this.sampleResultHandler.get();
+        sampleResultHandler.processingTime = System.currentTimeMillis();
+        for (SampleResult sampleResult : sampleResults) {
+            SampleResultTraversal.traverse(sampleResult, this.subSamplesDepth, sampleResultHandler);
+        }
     }
 
     @Override
@@ -147,10 +260,51 @@ public class InfluxDatabaseBackendListenerClient extends AbstractBackendListener
         arguments.addArgument(InfluxDBConfig.KEY_INFLUX_DB_PASSWORD, "");
         arguments.addArgument(InfluxDBConfig.KEY_INFLUX_DB_DATABASE, InfluxDBConfig.DEFAULT_DATABASE);
         arguments.addArgument(InfluxDBConfig.KEY_RETENTION_POLICY, InfluxDBConfig.DEFAULT_RETENTION_POLICY);
+        arguments.addArgument(InfluxDBConfig.KEY_TRANSPORT, InfluxDBConfig.HTTP_TRANSPORT);
+        arguments.addArgument(InfluxDBConfig.KEY_UDP_PORT, Integer.toString(InfluxDBConfig.DEFAULT_UDP_PORT));
+        arguments.addArgument(InfluxDBConfig.KEY_UDP_MTU, Integer.toString(InfluxDBConfig.DEFAULT_UDP_MTU));
+        arguments.addArgument(InfluxDBConfig.KEY_FILE_DIRECTORY, "");
+        arguments.addArgument(InfluxDBConfig.KEY_FILE_MAX_SIZE, Integer.toString(InfluxDBConfig.DEFAULT_FILE_MAX_SIZE));
+        arguments.addArgument(InfluxDBConfig.KEY_BATCH_SIZE, Integer.toString(InfluxDBConfig.DEFAULT_BATCH_SIZE));
+        arguments.addArgument(InfluxDBConfig.KEY_FLUSH_INTERVAL, Integer.toString(InfluxDBConfig.DEFAULT_FLUSH_INTERVAL));
+        arguments.addArgument(InfluxDBConfig.KEY_BUFFER_CAPACITY, Integer.toString(InfluxDBConfig.DEFAULT_BUFFER_CAPACITY));
+        arguments.addArgument(InfluxDBConfig.KEY_OVERFLOW_POLICY, InfluxDBConfig.DEFAULT_OVERFLOW_POLICY);
+        arguments.addArgument(InfluxDBConfig.KEY_SPILL_DIRECTORY, "");
+        arguments.addArgument(InfluxDBConfig.KEY_SPILL_MAX_SIZE, Integer.toString(InfluxDBConfig.DEFAULT_SPILL_MAX_SIZE));
+        arguments.addArgument(InfluxDBConfig.KEY_SPILL_SEGMENT_SIZE, Integer.toString(InfluxDBConfig.DEFAULT_SPILL_SEGMENT_SIZE));
+        arguments.addArgument(InfluxDBConfig.KEY_SPILL_REPLAY_RATE, Integer.toString(InfluxDBConfig.DEFAULT_SPILL_REPLAY_RATE));
+        arguments.addArgument(InfluxDBConfig.KEY_GZIP, "false");
+        arguments.addArgument(InfluxDBConfig.KEY_CONNECT_TIMEOUT, Integer.toString(InfluxDBConfig.DEFAULT_TIMEOUT));
+        arguments.addArgument(InfluxDBConfig.KEY_READ_TIMEOUT, Integer.toString(InfluxDBConfig.DEFAULT_TIMEOUT));
+        arguments.addArgument(InfluxDBConfig.KEY_WRITE_TIMEOUT, Integer.toString(InfluxDBConfig.DEFAULT_TIMEOUT));
+        arguments.addArgument(InfluxDBConfig.KEY_MAX_IDLE_CONNECTIONS, Integer.toString(InfluxDBConfig.DEFAULT_MAX_IDLE_CONNECTIONS));
+        arguments.addArgument(InfluxDBConfig.KEY_KEEP_ALIVE, Integer.toString(InfluxDBConfig.DEFAULT_KEEP_ALIVE));
+        arguments.addArgument(InfluxDBConfig.KEY_MAX_REQUESTS, Integer.toString(InfluxDBConfig.DEFAULT_MAX_REQUESTS));
+        arguments.addArgument(InfluxDBConfig.KEY_WRITE_STRIPES, Integer.toString(InfluxDBConfig.DEFAULT_WRITE_STRIPES));
+        arguments.addArgument(InfluxDBConfig.KEY_CIRCUIT_BREAKER_FAILURES, Integer.toString(InfluxDBConfig.DEFAULT_CIRCUIT_BREAKER_FAILURES));
+        arguments.addArgument(InfluxDBConfig.KEY_CIRCUIT_BREAKER_BACKOFF, Integer.toString(InfluxDBConfig.DEFAULT_CIRCUIT_BREAKER_BACKOFF));
+        arguments.addArgument(InfluxDBConfig.KEY_CIRCUIT_BREAKER_MAX_BACKOFF, Integer.toString(InfluxDBConfig.DEFAULT_CIRCUIT_BREAKER_MAX_BACKOFF));
+        arguments.addArgument(InfluxDBConfig.KEY_CIRCUIT_BREAKER_FALLBACK, InfluxDBConfig.DEFAULT_CIRCUIT_BREAKER_FALLBACK);
+        arguments.addArgument(InfluxDBConfig.KEY_ERROR_LOG_INTERVAL, Integer.toString(InfluxDBConfig.DEFAULT_ERROR_LOG_INTERVAL));
+        arguments.addArgument(InfluxDBConfig.KEY_SHARDS, "");
+        arguments.addArgument(InfluxDBConfig.KEY_SHARD_ROUTING, InfluxDBConfig.DEFAULT_SHARD_ROUTING);
         arguments.addArgument(KEY_SAMPLERS_LIST, ".*");
+        arguments.addArgument(KEY_SAMPLERS_EXCLUDE_LIST, "");
         arguments.addArgument(KEY_USE_REGEX_FOR_SAMPLER_LIST, "true");
         arguments.addArgument(KEY_RECORD_SUB_SAMPLES, "true");
+        arguments.addArgument(KEY_SUB_SAMPLES_MAX_DEPTH, Integer.toString(DEFAULT_SUB_SAMPLES_MAX_DEPTH));
         arguments.addArgument(KEY_INCLUDE_BODY_OF_FAILURES, "true");
+        arguments.addArgument(KEY_ERROR_DETAILS_MAX_SIZE, Integer.toString(DEFAULT_ERROR_DETAILS_MAX_SIZE));
+        arguments.addArgument(KEY_ERROR_BODY_CACHE_SIZE, Integer.toString(DEFAULT_ERROR_BODY_CACHE_SIZE));
+        arguments.addArgument(KEY_RECORD_RAW_SAMPLES, "true");
+        arguments.addArgument(KEY_RAW_SAMPLES_BUDGET, "0");
+        arguments.addArgument(KEY_RAW_SAMPLES_OUTLIER_PERCENTILE, Double.toString(DEFAULT_RAW_SAMPLES_OUTLIER_PERCENTILE));
+        arguments.addArgument(KEY_AGGREGATE_SAMPLES, "false");
+        arguments.addArgument(KEY_AGGREGATION_WINDOW, Integer.toString(DEFAULT_AGGREGATION_WINDOW));
+        arguments.addArgument(KEY_RECORD_HISTOGRAMS, "false");
+        arguments.addArgument(KEY_TIMESTAMP_SOURCE, TIMESTAMP_SOURCE_END);
+        arguments.addArgument(KEY_GENERATOR_HEALTH_INTERVAL, Integer.toString(DEFAULT_GENERATOR_HEALTH_INTERVAL));
+        arguments.addArgument(InfluxDBConfig.KEY_PRECISION, InfluxDBConfig.DEFAULT_PRECISION);
 
         return arguments;
     }
@@ -159,27 +313,41 @@ public class InfluxDatabaseBackendListenerClient extends AbstractBackendListener
     public void setupTest(BackendListenerContext context) {
         this.testName = context.getParameter(KEY_TEST_NAME, "Test");
         this.runId = context.getParameter(KEY_RUN_ID, "R001"); //Will be used to compare performance of R001, R002, etc of 'Test'
-        this.randomNumberGenerator = new Random();
         this.nodeName = context.getParameter(KEY_NODE_NAME, "Test-Node");
 
         this.setupInfluxClient(context);
 
-        Point setupPoint = Point.measurement(TestStartEndMeasurement.MEASUREMENT_NAME).time(System.currentTimeMillis(), TimeUnit.MILLISECONDS)
-                .tag(TestStartEndMeasurement.Tags.TYPE, TestStartEndMeasurement.Values.STARTED)
+        long startTime = System.currentTimeMillis();
+        this.influxDatabaseClient.write(builder -> builder.measurement(TestStartEndMeasurement.MEASUREMENT_NAME)
                 .tag(TestStartEndMeasurement.Tags.NODE_NAME, this.nodeName)
                 .tag(TestStartEndMeasurement.Tags.TEST_NAME, this.testName)
-                .addField(TestStartEndMeasurement.Fields.PLACEHOLDER, "1")
-                .build();
-
-        this.influxDatabaseClient.write(setupPoint);
+                .tag(TestStartEndMeasurement.Tags.TYPE, TestStartEndMeasurement.Values.STARTED)
+                .field(TestStartEndMeasurement.Fields.PLACEHOLDER, "1")
+                .timestamp(TimeUnit.MILLISECONDS.toNanos(startTime)));
+
+        this.timestampGenerator = new SampleTimestampGenerator(this.influxDatabaseClient.getPrecision().getTimeUnit(), this.isStartTimeUsed(context));
+        this.listenerMetrics = new ListenerMetrics();
+        this.listenerMetricsPointProvider = new ListenerMetricsPointProvider(this.runId, this.testName, this.nodeName);
+        this.registerListenerMetrics();
+        this.errorBodyToBeSaved = context.getBooleanParameter(KEY_INCLUDE_BODY_OF_FAILURES, false);
+        this.errorDetailsMaxSize = Math.max(0, context.getIntParameter(KEY_ERROR_DETAILS_MAX_SIZE, DEFAULT_ERROR_DETAILS_MAX_SIZE));
+        this.errorBodyCache = new ErrorBodyCache(Math.max(0, context.getIntParameter(KEY_ERROR_BODY_CACHE_SIZE, DEFAULT_ERROR_BODY_CACHE_SIZE)));
+        this.tagValueCache = new TagValueCache(MAX_CACHED_TAG_VALUES);
+        this.seriesKeyCache = new SeriesKeyCache(MAX_CACHED_SERIES_KEYS);
+        this.sampleResultHandler = ThreadLocal.withInitial(() -> new SampleResultHandler(this.createSampleResultPointProvider()));
 
         this.parseSamplers(context);
         this.scheduler = Executors.newScheduledThreadPool(1);
 
         this.scheduler.scheduleAtFixedRate(this, 1, 1, TimeUnit.SECONDS);
+        this.setupGeneratorHealth(context);
 
         // Indicates whether to write sub sample records to the database
-        this.recordSubSamples = Boolean.parseBoolean(context.getParameter(KEY_RECORD_SUB_SAMPLES, "false"));
+        this.subSamplesDepth = Boolean.parseBoolean(context.getParameter(KEY_RECORD_SUB_SAMPLES, "false")) ? this.getSubSamplesMaxDepth(context) : 0;
+
+        this.setupRawSampling(context);
+        this.setupAggregation(context);
+        this.setupHistograms(context);
     }
 
     @Override
@@ -187,27 +355,41 @@ public class InfluxDatabaseBackendListenerClient extends AbstractBackendListener
         LOGGER.info("Shutting down influxDB scheduler...");
         this.scheduler.shutdown();
 
+        // the running periodic task writes to the client, so the client is closed once the scheduler has terminated
+        try {
+            if (this.scheduler.awaitTermination(30, TimeUnit.SECONDS)) {
+                LOGGER.info("influxDB scheduler terminated!");
+            } else {
+                LOGGER.warn("influxDB scheduler has not terminated in 30 seconds");
+            }
+        } catch (InterruptedException e) {
+            LOGGER.error("Error waiting for end of scheduler " + e);
+        }
+
+        this.flushAggregatedSamples();
+        this.flushHistograms();
+
         addVirtualUsersMetrics(0, 0, 0, 0, JMeterContextService.getThreadCounts().finishedThreads);
 
-        Point teardownPoint = Point.measurement(TestStartEndMeasurement.MEASUREMENT_NAME).time(System.currentTimeMillis(), TimeUnit.MILLISECONDS)
-                .tag(TestStartEndMeasurement.Tags.TYPE, TestStartEndMeasurement.Values.FINISHED)
+        long finishTime = System.currentTimeMillis();
+        this.influxDatabaseClient.write(builder -> builder.measurement(TestStartEndMeasurement.MEASUREMENT_NAME)
                 .tag(TestStartEndMeasurement.Tags.NODE_NAME, this.nodeName)
                 .tag(TestStartEndMeasurement.Tags.RUN_ID, this.runId)
                 .tag(TestStartEndMeasurement.Tags.TEST_NAME, this.testName)
-                .addField(TestStartEndMeasurement.Fields.PLACEHOLDER, "1")
-                .build();
-
-        this.influxDatabaseClient.write(teardownPoint);
-        this.influxDatabaseClient.disableBatch();
-
-        try {
-            this.scheduler.awaitTermination(30, TimeUnit.SECONDS);
-            LOGGER.info("influxDB scheduler terminated!");
-        } catch (InterruptedException e) {
-            LOGGER.error("Error waiting for end of scheduler " + e);
+                .tag(TestStartEndMeasurement.Tags.TYPE, TestStartEndMeasurement.Values.FINISHED)
+                .field(TestStartEndMeasurement.Fields.PLACEHOLDER, "1")
+                .timestamp(TimeUnit.MILLISECONDS.toNanos(finishTime)));
+        this.influxDatabaseClient.close();
+
+        this.samplerFilter.clear();
+        this.timestampGenerator.clear();
+        if (this.rawSampler != null) {
+            this.rawSampler.clear();
         }
-
-        this.samplersToFilter.clear();
+        this.unregisterListenerMetrics();
+        this.errorBodyCache.clear();
+        this.tagValueCache.clear();
+        this.seriesKeyCache.clear();
         super.teardownTest(context);
     }
 
@@ -222,6 +404,61 @@ public class InfluxDatabaseBackendListenerClient extends AbstractBackendListener
                 getUserMetrics().getMaxActiveThreads(),
                 tc.startedThreads,
                 tc.finishedThreads);
+
+        this.addListenerMetrics();
+    }
+
+    /**
+     * Creates the encoder of the samples for the consumer thread, the caches are shared by all the threads.
+     *
+     * @return the {@link SampleResultPointProvider}.
+     */
+    private SampleResultPointProvider createSampleResultPointProvider() {
+        SampleResultPointContext sampleResultContext = new SampleResultPointContext();
+        sampleResultContext.setRunId(this.runId);
+        sampleResultContext.setTestName(this.testName);
+        sampleResultContext.setNodeName(this.nodeName);
+        sampleResultContext.setPrecisionToSet(this.timestampGenerator.getPrecision());
+        sampleResultContext.setErrorBodyToBeSaved(this.errorBodyToBeSaved);
+        sampleResultContext.setErrorDetailsMaxSize(this.errorDetailsMaxSize);
+        sampleResultContext.setErrorBodyCache(this.errorBodyCache);
+        sampleResultContext.setTagValueCache(this.tagValueCache);
+        sampleResultContext.setSeriesKeyCache(this.seriesKeyCache);
+        return new SampleResultPointProvider(sampleResultContext);
+    }
+
+    /**
+     * Reads the depth of the deepest recorded sub samples.
+     *
+     * @param context {@link BackendListenerContext}.
+     * @return the maximum depth of the sub samples.
+     */
+    private int getSubSamplesMaxDepth(BackendListenerContext context) {
+        int subSamplesMaxDepth = context.getIntParameter(KEY_SUB_SAMPLES_MAX_DEPTH, DEFAULT_SUB_SAMPLES_MAX_DEPTH);
+        if (subSamplesMaxDepth <= 0) {
+            throw new IllegalArgumentException(KEY_SUB_SAMPLES_MAX_DEPTH + " must be greater than 0!");
+        }
+
+        return subSamplesMaxDepth;
+    }
+
+    /**
+     * Reads which sample time the timestamps are taken from.
+     *
+     * @param context {@link BackendListenerContext}.
+     * @return true if the sample start time is used; otherwise false for the end time.
+     */
+    private boolean isStartTimeUsed(BackendListenerContext context) {
+        String timestampSource = context.getParameter(KEY_TIMESTAMP_SOURCE, TIMESTAMP_SOURCE_END);
+        if (TIMESTAMP_SOURCE_START.equalsIgnoreCase(timestampSource)) {
+            return true;
+        }
+
+        if (timestampSource == null || timestampSource.isEmpty() || TIMESTAMP_SOURCE_END.equalsIgnoreCase(timestampSource)) {
+            return false;
+        }
+
+        throw new IllegalArgumentException(KEY_TIMESTAMP_SOURCE + " must be " + TIMESTAMP_SOURCE_START + " or " + TIMESTAMP_SOURCE_END + "!");
     }
 
     /**
@@ -231,11 +468,160 @@ public class InfluxDatabaseBackendListenerClient extends AbstractBackendListener
      */
     private void setupInfluxClient(BackendListenerContext context) {
 
-        this.influxDatabaseClient = new InfluxDatabaseClient(context, LOGGER);
-        this.influxDatabaseClient.setupInfluxClient();
+        this.influxDatabaseClient = this.createInfluxDatabaseClient(context);
+        this.influxDatabaseClient.setupInfluxClient(this.nodeName);
+
+        // the database is created in the background, the points are buffered until influx db is ready
+        this.influxDatabaseClient.startReadinessProbe();
+    }
+
+    /**
+     * Creates influxDB client, can be overridden to use the custom client, e.g. by the benchmarks.
+     *
+     * @param context {@link BackendListenerContext}.
+     * @return the {@link InfluxDatabaseClient}.
+     */
+    protected InfluxDatabaseClient createInfluxDatabaseClient(BackendListenerContext context) {
+        return new InfluxDatabaseClient(context, LOGGER);
+    }
+
+    /**
+     * Setups the periodic recording of the load generator health.
+     *
+     * @param context {@link BackendListenerContext}.
+     */
+    private void setupGeneratorHealth(BackendListenerContext context) {
+        int generatorHealthInterval = context.getIntParameter(KEY_GENERATOR_HEALTH_INTERVAL, DEFAULT_GENERATOR_HEALTH_INTERVAL);
+        if (generatorHealthInterval < 0) {
+            throw new IllegalArgumentException(KEY_GENERATOR_HEALTH_INTERVAL + " must be greater than or equal to 0!");
+        }
+
+        if (generatorHealthInterval == 0) {
+            this.generatorHealth = null;
+            return;
+        }
+
+        this.generatorHealth = new GeneratorHealth();
+        this.generatorHealthPointProvider = new GeneratorHealthPointProvider(this.runId, this.testName, this.nodeName);
+        this.scheduler.scheduleAtFixedRate(this::addGeneratorHealthMetrics, generatorHealthInterval, generatorHealthInterval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Setups the downsampling of the raw samples.
+     *
+     * @param context {@link BackendListenerContext}.
+     */
+    private void setupRawSampling(BackendListenerContext context) {
+        int rawSamplesBudget = context.getIntParameter(KEY_RAW_SAMPLES_BUDGET, 0);
+        if (rawSamplesBudget < 0) {
+            throw new IllegalArgumentException(KEY_RAW_SAMPLES_BUDGET + " must be greater than or equal to 0!");
+        }
+
+        if (rawSamplesBudget == 0) {
+            this.rawSampler = null;
+            return;
+        }
+
+        double outlierPercentile;
+        try {
+            outlierPercentile = Double.parseDouble(context.getParameter(KEY_RAW_SAMPLES_OUTLIER_PERCENTILE,
+                    Double.toString(DEFAULT_RAW_SAMPLES_OUTLIER_PERCENTILE)).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(KEY_RAW_SAMPLES_OUTLIER_PERCENTILE + " must be a number!");
+        }
+
+        if (!(outlierPercentile > 0 && outlierPercentile <= 100)) {
+            throw new IllegalArgumentException(KEY_RAW_SAMPLES_OUTLIER_PERCENTILE + " must be greater than 0 and less than or equal to 100!");
+        }
+
+        this.rawSampler = new AdaptiveSampler(rawSamplesBudget, outlierPercentile);
+        this.scheduler.scheduleAtFixedRate(this.rawSampler::adjust, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Setups the in-listener aggregation of the samples.
+     *
+     * @param context {@link BackendListenerContext}.
+     */
+    private void setupAggregation(BackendListenerContext context) {
+        this.recordRawSamples = context.getBooleanParameter(KEY_RECORD_RAW_SAMPLES, true);
+
+        boolean aggregateSamples = context.getBooleanParameter(KEY_AGGREGATE_SAMPLES, false);
+
+        // the raw samples rejected by the full write buffer are aggregated instead
+        this.aggregateRejectedSamples = !aggregateSamples && this.recordRawSamples
+                && this.influxDatabaseClient.getOverflowPolicy() == OverflowPolicy.AGGREGATE;
+
+        if (!aggregateSamples && !this.aggregateRejectedSamples) {
+            this.requestAggregator = null;
+            return;
+        }
 
-        // create database from the context
-        this.influxDatabaseClient.createDatabaseIfNotExistent();
+        int aggregationWindow = getAggregationWindow(context);
+        this.requestAggregator = new RequestAggregator(this.influxDatabaseClient.getWriteStripes());
+        this.requestWindowPointProvider = new RequestWindowPointProvider(this.runId, this.testName, this.nodeName, aggregationWindow);
+        this.scheduler.scheduleAtFixedRate(this::flushAggregatedSamples, aggregationWindow, aggregationWindow, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Setups the response time histograms of the requests.
+     *
+     * @param context {@link BackendListenerContext}.
+     */
+    private void setupHistograms(BackendListenerContext context) {
+        if (!context.getBooleanParameter(KEY_RECORD_HISTOGRAMS, false)) {
+            this.histogramAggregator = null;
+            return;
+        }
+
+        int aggregationWindow = getAggregationWindow(context);
+        this.histogramAggregator = new HistogramAggregator(this.influxDatabaseClient.getWriteStripes());
+        this.histogramPointProvider = new HistogramPointProvider(this.runId, this.testName, this.nodeName, aggregationWindow);
+        this.scheduler.scheduleAtFixedRate(this::flushHistograms, aggregationWindow, aggregationWindow, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Reads the length of the aggregation window.
+     *
+     * @param context {@link BackendListenerContext}.
+     * @return the length of the aggregation window in seconds.
+     */
+    private static int getAggregationWindow(BackendListenerContext context) {
+        int aggregationWindow = context.getIntParameter(KEY_AGGREGATION_WINDOW, DEFAULT_AGGREGATION_WINDOW);
+        if (aggregationWindow <= 0) {
+            throw new IllegalArgumentException(KEY_AGGREGATION_WINDOW + " must be greater than 0!");
+        }
+
+        return aggregationWindow;
+    }
+
+    /**
+     * Writes one point per request name of the closed histogram window.
+     */
+    private void flushHistograms() {
+        if (this.histogramAggregator == null) {
+            return;
+        }
+
+        long timeMillis = System.currentTimeMillis();
+        for (Map.Entry<String, ResponseTimeHistogram> histogram : this.histogramAggregator.drain().entrySet()) {
+            this.influxDatabaseClient.write(builder -> this.histogramPointProvider.writePoint(builder, histogram.getKey(), histogram.getValue(), timeMillis),
+                    histogram.getKey());
+        }
+    }
+
+    /**
+     * Writes one point per series of the closed aggregation window.
+     */
+    private void flushAggregatedSamples() {
+        if (this.requestAggregator == null) {
+            return;
+        }
+
+        long timeMillis = System.currentTimeMillis();
+        for (RequestWindow window : this.requestAggregator.drain()) {
+            this.influxDatabaseClient.write(builder -> this.requestWindowPointProvider.writePoint(builder, window, timeMillis), window.getRequestName());
+        }
     }
 
     /**
@@ -247,41 +633,139 @@ public class InfluxDatabaseBackendListenerClient extends AbstractBackendListener
 
         //List of samplers to record.
         String samplersList = context.getParameter(KEY_SAMPLERS_LIST, "");
-        this.samplersToFilter = new HashSet<>();
 
-        if (context.getBooleanParameter(KEY_USE_REGEX_FOR_SAMPLER_LIST, false)) {
-            this.regexForSamplerList = samplersList;
-        } else {
-            this.regexForSamplerList = null;
-            String[] samplers = samplersList.split(SEPARATOR);
+        //List of samplers to skip.
+        String samplersExcludeList = context.getParameter(KEY_SAMPLERS_EXCLUDE_LIST, "");
 
-            this.samplersToFilter = new HashSet<>();
-            Collections.addAll(this.samplersToFilter, samplers);
-        }
+        this.samplerFilter = new SamplerFilter(samplersList, samplersExcludeList, context.getBooleanParameter(KEY_USE_REGEX_FOR_SAMPLER_LIST, false));
     }
 
     /**
      * Writes thread metrics.
      */
     private void addVirtualUsersMetrics(int minActiveThreads, int meanActiveThreads, int maxActiveThreads, int startedThreads, int finishedThreads) {
-        Point virtualUsersMetricsPoint = Point.measurement(VirtualUsersMeasurement.MEASUREMENT_NAME).time(System.currentTimeMillis(), TimeUnit.MILLISECONDS)
-        .addField(VirtualUsersMeasurement.Fields.MIN_ACTIVE_THREADS, minActiveThreads)
-        .addField(VirtualUsersMeasurement.Fields.MAX_ACTIVE_THREADS, maxActiveThreads)
-        .addField(VirtualUsersMeasurement.Fields.MEAN_ACTIVE_THREADS, meanActiveThreads)
-        .addField(VirtualUsersMeasurement.Fields.STARTED_THREADS, startedThreads)
-        .addField(VirtualUsersMeasurement.Fields.FINISHED_THREADS, finishedThreads)
+        long time = System.currentTimeMillis();
+        this.influxDatabaseClient.write(builder -> builder.measurement(VirtualUsersMeasurement.MEASUREMENT_NAME)
         .tag(VirtualUsersMeasurement.Tags.NODE_NAME, this.nodeName)
+        .tag(VirtualUsersMeasurement.Tags.RUN_ID, this.runId)
         .tag(VirtualUsersMeasurement.Tags.TEST_NAME, this.testName)
-        .tag(VirtualUsersMeasurement.Tags.RUN_ID, this.runId).build();
+        .field(VirtualUsersMeasurement.Fields.FINISHED_THREADS, finishedThreads)
+        .field(VirtualUsersMeasurement.Fields.MAX_ACTIVE_THREADS, maxActiveThreads)
+        .field(VirtualUsersMeasurement.Fields.MEAN_ACTIVE_THREADS, meanActiveThreads)
+        .field(VirtualUsersMeasurement.Fields.MIN_ACTIVE_THREADS, minActiveThreads)
+        .field(VirtualUsersMeasurement.Fields.STARTED_THREADS, startedThreads)
+        .timestamp(TimeUnit.MILLISECONDS.toNanos(time)));
+    }
 
-        this.influxDatabaseClient.write(virtualUsersMetricsPoint);
+    /**
+     * Writes the listener own metrics of the last interval.
+     */
+    private void addListenerMetrics() {
+        this.listenerMetrics.report(this.influxDatabaseClient.getWriteStatistics(), this.influxDatabaseClient.getQueuedBatches());
+
+        long time = System.currentTimeMillis();
+        this.influxDatabaseClient.write(builder -> this.listenerMetricsPointProvider.writePoint(builder, this.listenerMetrics, time));
     }
 
     /**
-     * Try to get a unique number for the sampler thread.
+     * Writes the load generator health of the last interval.
      */
-    private int getUniqueNumberForTheSamplerThread() {
+    private void addGeneratorHealthMetrics() {
+        this.generatorHealth.update();
+
+        long time = System.currentTimeMillis();
+        this.influxDatabaseClient.write(builder -> this.generatorHealthPointProvider.writePoint(builder, this.generatorHealth, time));
+    }
+
+    /**
+     * Registers the listener metrics MBean, the failure to register does not stop the test.
+     */
+    private void registerListenerMetrics() {
+        try {
+            this.listenerMetricsName = new ObjectName(JMX_DOMAIN + ":type=ListenerMetrics"
+                    + ",node=" + ObjectName.quote(this.nodeName)
+                    + ",test=" + ObjectName.quote(this.testName)
+                    + ",runId=" + ObjectName.quote(this.runId));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this.listenerMetrics, this.listenerMetricsName);
+        } catch (Exception e) {
+            this.listenerMetricsName = null;
+            LOGGER.warn("Failed to register the listener metrics MBean: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Unregisters the listener metrics MBean.
+     */
+    private void unregisterListenerMetrics() {
+        if (this.listenerMetricsName == null) {
+            return;
+        }
 
-        return randomNumberGenerator.nextInt(ONE_MS_IN_NANOSECONDS);
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.listenerMetricsName);
+        } catch (Exception e) {
+            LOGGER.warn("Failed to unregister the listener metrics MBean: " + e.getMessage());
+        }
+        this.listenerMetricsName = null;
+    }
+
+    /**
+     * Filters, aggregates and writes the visited samples of the consumer thread.
+     */
+    private final class SampleResultHandler implements SampleResultVisitor {
+
+        private final SampleResultPointProvider pointProvider;
+        private final SampleResultPointContext sampleResultContext;
+        private long processingTime;
+
+        private SampleResultHandler(SampleResultPointProvider pointProvider) {
+            this.pointProvider = pointProvider;
+            this.sampleResultContext = pointProvider.getSampleResultContext();
+        }
+
+        @Override
+        public void visit(SampleResult sampleResult, SampleResult parent, int depth) {
+            InfluxDatabaseBackendListenerClient listener = InfluxDatabaseBackendListenerClient.this;
+            listener.listenerMetrics.addSampleLag(this.processingTime - sampleResult.getEndTime());
+
+            long filterStart = System.nanoTime();
+            boolean accepted = listener.samplerFilter.accept(sampleResult.getSampleLabel());
+            listener.listenerMetrics.addFilterTime(System.nanoTime() - filterStart);
+
+            if (!accepted) {
+                return;
+            }
+
+            if (listener.requestAggregator != null) {
+                listener.requestAggregator.add(sampleResult);
+            }
+
+            if (listener.histogramAggregator != null) {
+                listener.histogramAggregator.add(sampleResult);
+            }
+
+            if (!listener.recordRawSamples) {
+                return;
+            }
+
+            long weight = listener.rawSampler != null ? listener.rawSampler.sample(sampleResult) : 1;
+            if (weight == 0) {
+                return;
+            }
+
+            this.sampleResultContext.setSampleResult(sampleResult);
+            this.sampleResultContext.setParentLabel(parent != null ? parent.getSampleLabel() : null);
+            this.sampleResultContext.setDepth(depth);
+            this.sampleResultContext.setWeight(weight);
+            this.sampleResultContext.setTimeToSet(listener.timestampGenerator.getTimestamp(sampleResult));
+
+            long writeStart = System.nanoTime();
+            boolean written = listener.influxDatabaseClient.write(this.pointProvider, sampleResult.getSampleLabel());
+            listener.listenerMetrics.addWriteTime(System.nanoTime() - writeStart);
+
+            if (!written && listener.aggregateRejectedSamples) {
+                listener.requestAggregator.add(sampleResult);
+            }
+        }
     }
 }
@@ -0,0 +1,81 @@
+package org.md.jmeter.influxdb.visualizer.aggregation;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collects the {@link ResponseTimeHistogram} of every request name in memory.
+ * The listener threads add samples to the histograms of their stripe, spread by the thread id the same way as the write buffer,
+ * so they rarely contend for the same lock; the scheduler thread drains the closed window of all the stripes,
+ * merges the histograms of the same request name and writes one point per request name.
+ */
+public class HistogramAggregator {
+
+    private final Stripe[] stripes;
+
+    /**
+     * Creates the new instance of the {@link HistogramAggregator}.
+     * @param stripes the number of the stripes the concurrent listener threads are spread to.
+     */
+    public HistogramAggregator(int stripes) {
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Adds the response time of the {@link SampleResult} to the current window of the calling thread stripe.
+     * @param sampleResult the {@link SampleResult}.
+     */
+    public void add(SampleResult sampleResult) {
+        Stripe stripe = this.stripes[(int) (Thread.currentThread().getId() % this.stripes.length)];
+        synchronized (stripe) {
+            ResponseTimeHistogram histogram = stripe.histograms.get(sampleResult.getSampleLabel());
+            if (histogram == null) {
+                histogram = new ResponseTimeHistogram();
+                stripe.histograms.put(sampleResult.getSampleLabel(), histogram);
+            }
+
+            histogram.record(sampleResult.getTime());
+        }
+    }
+
+    /**
+     * Closes the current window and starts the new one.
+     * @return the histograms of the closed window by the request name.
+     */
+    public Map<String, ResponseTimeHistogram> drain() {
+        Map<String, ResponseTimeHistogram> closedHistograms = new HashMap<>();
+        for (Stripe stripe : this.stripes) {
+            Map<String, ResponseTimeHistogram> stripeHistograms;
+            synchronized (stripe) {
+                if (stripe.histograms.isEmpty()) {
+                    continue;
+                }
+
+                stripeHistograms = stripe.histograms;
+                stripe.histograms = new HashMap<>(stripeHistograms.size() * 2);
+            }
+
+            // the stripe histograms are not reachable by the listener threads anymore, they are merged outside the lock
+            for (Map.Entry<String, ResponseTimeHistogram> histogram : stripeHistograms.entrySet()) {
+                ResponseTimeHistogram closedHistogram = closedHistograms.putIfAbsent(histogram.getKey(), histogram.getValue());
+                if (closedHistogram != null) {
+                    closedHistogram.merge(histogram.getValue());
+                }
+            }
+        }
+
+        return closedHistograms;
+    }
+
+    /**
+     * The histograms of the request names added by the listener threads of the stripe.
+     */
+    private static final class Stripe {
+        private Map<String, ResponseTimeHistogram> histograms = new HashMap<>();
+    }
+}
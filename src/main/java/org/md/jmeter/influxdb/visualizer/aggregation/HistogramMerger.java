@@ -0,0 +1,218 @@
+package org.md.jmeter.influxdb.visualizer.aggregation;
+
+import org.md.jmeter.influxdb.visualizer.config.HistogramMeasurement;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Merges the response time histograms written by the nodes to the exact percentiles of the whole test.
+ * <p>
+ * Can be used as the command line tool, reads the CSV exported by the influx CLI from the files or the standard input, e.g.:
+ * <pre>
+ * influx -database jmeter -format csv -execute "SELECT requestName, histogram FROM requestsHistogram WHERE runId = 'R001'" \
+ *   | java -cp jmeter-plugin-influxdb-listener.jar org.md.jmeter.influxdb.visualizer.aggregation.HistogramMerger
+ * </pre>
+ * The histograms are grouped by the {@code requestName} column if it is selected, the last row is the total of all the requests.
+ */
+public class HistogramMerger {
+
+    private static final String TOTAL = "TOTAL";
+    private static final double[] PERCENTILES = {50, 90, 95, 99};
+
+    private final Map<String, ResponseTimeHistogram> histograms = new TreeMap<>();
+    private final ResponseTimeHistogram total = new ResponseTimeHistogram();
+
+    /**
+     * Merges the encoded histograms.
+     * @param encodedHistograms the histograms written to the {@link HistogramMeasurement.Fields#HISTOGRAM} field.
+     * @return the merged {@link ResponseTimeHistogram}.
+     * @throws IllegalArgumentException if the value is not the encoded histogram.
+     */
+    public static ResponseTimeHistogram merge(Iterable<String> encodedHistograms) {
+        ResponseTimeHistogram merged = new ResponseTimeHistogram();
+        for (String encodedHistogram : encodedHistograms) {
+            merged.merge(ResponseTimeHistogram.decode(encodedHistogram));
+        }
+
+        return merged;
+    }
+
+    /**
+     * Adds the encoded histogram of the request.
+     * @param requestName the request name, null if the histograms are not grouped.
+     * @param encodedHistogram the encoded histogram.
+     */
+    public void add(String requestName, String encodedHistogram) {
+        ResponseTimeHistogram histogram = ResponseTimeHistogram.decode(encodedHistogram);
+        if (requestName != null) {
+            this.histograms.computeIfAbsent(requestName, name -> new ResponseTimeHistogram()).merge(histogram);
+        }
+        this.total.merge(histogram);
+    }
+
+    /**
+     * Reads the CSV with the header, the {@link HistogramMeasurement.Fields#HISTOGRAM} column is required.
+     * The file without the header is read as one encoded histogram per line.
+     * @param reader the {@link BufferedReader} of the CSV.
+     * @throws IOException if the CSV can not be read.
+     */
+    public void read(BufferedReader reader) throws IOException {
+        int histogramColumn = 0;
+        int requestNameColumn = -1;
+
+        List<String> columns;
+        boolean firstLine = true;
+        while ((columns = readRecord(reader)) != null) {
+            if (columns.size() == 1 && columns.get(0).trim().isEmpty()) {
+                continue;
+            }
+
+            if (firstLine) {
+                firstLine = false;
+                int headerColumn = indexOf(columns, HistogramMeasurement.Fields.HISTOGRAM);
+                if (headerColumn >= 0) {
+                    histogramColumn = headerColumn;
+                    requestNameColumn = indexOf(columns, HistogramMeasurement.Tags.REQUEST_NAME);
+                    continue;
+                }
+            }
+
+            if (histogramColumn >= columns.size() || columns.get(histogramColumn).isEmpty()) {
+                continue;
+            }
+
+            String requestName = requestNameColumn >= 0 && requestNameColumn < columns.size() ? columns.get(requestNameColumn) : null;
+            this.add(requestName, columns.get(histogramColumn));
+        }
+    }
+
+    /**
+     * Prints the count, the percentiles and the max of every request and the total as CSV.
+     * @param output the {@link PrintStream}.
+     */
+    public void print(PrintStream output) {
+        StringBuilder header = new StringBuilder(HistogramMeasurement.Tags.REQUEST_NAME).append(",count");
+        for (double percentile : PERCENTILES) {
+            header.append(",p").append((int) percentile);
+        }
+        output.println(header.append(",max"));
+
+        for (Map.Entry<String, ResponseTimeHistogram> entry : this.histograms.entrySet()) {
+            print(output, entry.getKey(), entry.getValue());
+        }
+        print(output, TOTAL, this.total);
+    }
+
+    /**
+     * Merges the histograms of the CSV files or the standard input and prints the percentiles.
+     * @param args the CSV files, the standard input is read if there are none.
+     * @throws IOException if the CSV can not be read.
+     */
+    public static void main(String[] args) throws IOException {
+        HistogramMerger merger = new HistogramMerger();
+        if (args.length == 0) {
+            merger.read(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)));
+        }
+
+        for (String file : args) {
+            try (BufferedReader reader = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+                merger.read(reader);
+            }
+        }
+
+        merger.print(System.out);
+    }
+
+    private static void print(PrintStream output, String requestName, ResponseTimeHistogram histogram) {
+        StringBuilder line = new StringBuilder(quote(requestName)).append(',').append(histogram.getCount());
+        for (double percentile : PERCENTILES) {
+            line.append(',').append(histogram.getPercentile(percentile));
+        }
+        output.println(line.append(',').append(histogram.getMax()));
+    }
+
+    /**
+     * Reads the values of the next CSV record. The values with the delimiter, the quote or the line break (e.g. the request names)
+     * are quoted and their quotes are doubled, the quoted value can continue on the next lines.
+     * @param reader the {@link BufferedReader} of the CSV.
+     * @return the unquoted values or null at the end of the CSV.
+     * @throws IOException if the CSV can not be read.
+     */
+    private static List<String> readRecord(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+
+                // the line break inside the quoted value
+                line = reader.readLine();
+                if (line == null) {
+                    throw new IOException("The quoted value is not terminated: " + value);
+                }
+                value.append('\n');
+                i = 0;
+                continue;
+            }
+
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i < line.length() && line.charAt(i) == '"') {
+                    value.append(c);
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+
+        values.add(value.toString());
+        return values;
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static int indexOf(List<String> columns, String name) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (name.equals(columns.get(i).trim())) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
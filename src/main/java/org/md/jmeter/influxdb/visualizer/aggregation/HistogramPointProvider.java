@@ -0,0 +1,51 @@
+package org.md.jmeter.influxdb.visualizer.aggregation;
+
+import org.md.jmeter.influxdb.visualizer.config.HistogramMeasurement;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The provider of the response time histogram line protocol point based on the closed window.
+ */
+public class HistogramPointProvider {
+
+    private final String runId;
+    private final String testName;
+    private final String nodeName;
+    private final int windowSeconds;
+
+    /**
+     * Creates the new instance of the {@link HistogramPointProvider}.
+     * @param runId the run id.
+     * @param testName the test name.
+     * @param nodeName the node name.
+     * @param windowSeconds the length of the aggregation window in seconds.
+     */
+    public HistogramPointProvider(String runId, String testName, String nodeName, int windowSeconds) {
+        this.runId = runId;
+        this.testName = testName;
+        this.nodeName = nodeName;
+        this.windowSeconds = windowSeconds;
+    }
+
+    /**
+     * Writes the point of the closed window, tags and fields are written sorted by the key.
+     * @param builder the {@link LineProtocolBuilder} to write to.
+     * @param requestName the request name.
+     * @param histogram the {@link ResponseTimeHistogram}.
+     * @param timeMillis the time of the window end in milliseconds.
+     */
+    public void writePoint(LineProtocolBuilder builder, String requestName, ResponseTimeHistogram histogram, long timeMillis) {
+        builder.measurement(HistogramMeasurement.MEASUREMENT_NAME)
+                .tag(HistogramMeasurement.Tags.NODE_NAME, this.nodeName)
+                .tag(HistogramMeasurement.Tags.REQUEST_NAME, requestName)
+                .tag(HistogramMeasurement.Tags.RUN_ID, this.runId)
+                .tag(HistogramMeasurement.Tags.TEST_NAME, this.testName)
+                .field(HistogramMeasurement.Fields.REQUEST_COUNT, histogram.getCount())
+                .field(HistogramMeasurement.Fields.HISTOGRAM, histogram.encode())
+                .field(HistogramMeasurement.Fields.RESPONSE_TIME_MAX, histogram.getMax())
+                .field(HistogramMeasurement.Fields.WINDOW, this.windowSeconds)
+                .timestamp(TimeUnit.MILLISECONDS.toNanos(timeMillis));
+    }
+}
@@ -0,0 +1,74 @@
+package org.md.jmeter.influxdb.visualizer.aggregation;
+
+/**
+ * Collects values of the single metric (e.g. response time) during the aggregation window.
+ * The values are recorded to the fixed size {@link ResponseTimeHistogram}, so the memory does not grow with the rate
+ * and the percentiles are within 3.2% (exact below 64); the sum, min and max are exact.
+ */
+public class MetricWindow {
+
+    private final ResponseTimeHistogram histogram = new ResponseTimeHistogram();
+    private long sum;
+    private long min = Long.MAX_VALUE;
+
+    /**
+     * Adds the value to the window.
+     * @param value the metric value.
+     */
+    public void add(long value) {
+        this.histogram.record(value);
+        this.sum += value;
+        this.min = Math.min(this.min, value);
+    }
+
+    /**
+     * Adds the values of the other window.
+     * @param other the {@link MetricWindow} to merge.
+     */
+    public void merge(MetricWindow other) {
+        this.histogram.merge(other.histogram);
+        this.sum += other.sum;
+        this.min = Math.min(this.min, other.min);
+    }
+
+    /**
+     * Gets the number of the values.
+     * @return the number of the values.
+     */
+    public long getCount() {
+        return this.histogram.getCount();
+    }
+
+    /**
+     * Gets the sum of the values.
+     * @return the sum.
+     */
+    public long getSum() {
+        return this.sum;
+    }
+
+    /**
+     * Gets the minimum value.
+     * @return the minimum or 0 if the window is empty.
+     */
+    public long getMin() {
+        return this.getCount() == 0 ? 0 : Math.max(0, this.min);
+    }
+
+    /**
+     * Gets the maximum value.
+     * @return the maximum or 0 if the window is empty.
+     */
+    public long getMax() {
+        return this.histogram.getMax();
+    }
+
+    /**
+     * Gets the percentile using the nearest-rank method.
+     * @param percentile the percentile in range (0, 100].
+     * @return the percentile value or 0 if the window is empty.
+     */
+    public long getPercentile(double percentile) {
+        return this.histogram.getPercentile(percentile);
+    }
+}
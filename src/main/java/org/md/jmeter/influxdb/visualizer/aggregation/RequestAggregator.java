@@ -0,0 +1,105 @@
+package org.md.jmeter.influxdb.visualizer.aggregation;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates sample results per (requestName, responseCode) series in memory.
+ * The listener threads add samples to the window of their stripe, spread by the thread id the same way as the write buffer,
+ * so they rarely contend for the same lock; the scheduler thread drains the closed windows of all the stripes,
+ * merges the windows of the same series and writes one point per series.
+ */
+public class RequestAggregator {
+
+    private final Stripe[] stripes;
+
+    /**
+     * Creates the new instance of the {@link RequestAggregator}.
+     * @param stripes the number of the stripes the concurrent listener threads are spread to.
+     */
+    public RequestAggregator(int stripes) {
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Adds the {@link SampleResult} to the current window of the calling thread stripe.
+     * @param sampleResult the {@link SampleResult}.
+     */
+    public void add(SampleResult sampleResult) {
+        String requestName = sampleResult.getSampleLabel();
+        String responseCode = sampleResult.getResponseCode();
+
+        Stripe stripe = this.stripes[(int) (Thread.currentThread().getId() % this.stripes.length)];
+        synchronized (stripe) {
+            Map<String, RequestWindow> responseCodes = stripe.windows.get(requestName);
+            if (responseCodes == null) {
+                responseCodes = new HashMap<>();
+                stripe.windows.put(requestName, responseCodes);
+            }
+
+            RequestWindow window = responseCodes.get(responseCode);
+            if (window == null) {
+                window = new RequestWindow(requestName, responseCode);
+                responseCodes.put(responseCode, window);
+            }
+
+            window.add(sampleResult);
+        }
+    }
+
+    /**
+     * Closes the current window and starts the new one.
+     * @return the statistics of all series collected in the closed window.
+     */
+    public List<RequestWindow> drain() {
+        Map<String, Map<String, RequestWindow>> closedWindows = new HashMap<>();
+        for (Stripe stripe : this.stripes) {
+            Map<String, Map<String, RequestWindow>> stripeWindows;
+            synchronized (stripe) {
+                if (stripe.windows.isEmpty()) {
+                    continue;
+                }
+
+                stripeWindows = stripe.windows;
+                stripe.windows = new HashMap<>(stripeWindows.size() * 2);
+            }
+
+            // the stripe windows are not reachable by the listener threads anymore, they are merged outside the lock
+            for (Map.Entry<String, Map<String, RequestWindow>> responseCodes : stripeWindows.entrySet()) {
+                Map<String, RequestWindow> closedResponseCodes = closedWindows.get(responseCodes.getKey());
+                if (closedResponseCodes == null) {
+                    closedWindows.put(responseCodes.getKey(), responseCodes.getValue());
+                    continue;
+                }
+
+                for (Map.Entry<String, RequestWindow> window : responseCodes.getValue().entrySet()) {
+                    RequestWindow closedWindow = closedResponseCodes.putIfAbsent(window.getKey(), window.getValue());
+                    if (closedWindow != null) {
+                        closedWindow.merge(window.getValue());
+                    }
+                }
+            }
+        }
+
+        List<RequestWindow> result = new ArrayList<>();
+        for (Map<String, RequestWindow> responseCodes : closedWindows.values()) {
+            result.addAll(responseCodes.values());
+        }
+
+        return result;
+    }
+
+    /**
+     * The windows of the series added by the listener threads of the stripe.
+     */
+    private static final class Stripe {
+        private Map<String, Map<String, RequestWindow>> windows = new HashMap<>();
+    }
+}
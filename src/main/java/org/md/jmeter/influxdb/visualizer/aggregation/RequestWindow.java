@@ -0,0 +1,120 @@
+package org.md.jmeter.influxdb.visualizer.aggregation;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+/**
+ * The statistics of the single (requestName, responseCode) series collected during the aggregation window.
+ */
+public class RequestWindow {
+
+    private final String requestName;
+    private final String responseCode;
+    private final MetricWindow responseTime = new MetricWindow();
+    private final MetricWindow latency = new MetricWindow();
+    private final MetricWindow connectTime = new MetricWindow();
+    private long count;
+    private long errorCount;
+    private long receivedBytes;
+    private long sentBytes;
+
+    /**
+     * Creates the new instance of the {@link RequestWindow}.
+     * @param requestName the sample label.
+     * @param responseCode the response code.
+     */
+    public RequestWindow(String requestName, String responseCode) {
+        this.requestName = requestName;
+        this.responseCode = responseCode;
+    }
+
+    /**
+     * Adds the {@link SampleResult} to the window.
+     * @param sampleResult the {@link SampleResult}.
+     */
+    public void add(SampleResult sampleResult) {
+        this.count += sampleResult.getSampleCount();
+        this.errorCount += sampleResult.getErrorCount();
+        this.receivedBytes += sampleResult.getBytesAsLong();
+        this.sentBytes += sampleResult.getSentBytes();
+        this.responseTime.add(sampleResult.getTime());
+        this.latency.add(sampleResult.getLatency());
+        this.connectTime.add(sampleResult.getConnectTime());
+    }
+
+    /**
+     * Adds the statistics of the other window of the same series.
+     * @param other the {@link RequestWindow} to merge.
+     */
+    public void merge(RequestWindow other) {
+        this.count += other.count;
+        this.errorCount += other.errorCount;
+        this.receivedBytes += other.receivedBytes;
+        this.sentBytes += other.sentBytes;
+        this.responseTime.merge(other.responseTime);
+        this.latency.merge(other.latency);
+        this.connectTime.merge(other.connectTime);
+    }
+
+    /**
+     * @return the sample label.
+     */
+    public String getRequestName() {
+        return this.requestName;
+    }
+
+    /**
+     * @return the response code.
+     */
+    public String getResponseCode() {
+        return this.responseCode;
+    }
+
+    /**
+     * @return the number of the samples.
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * @return the number of the failed samples.
+     */
+    public long getErrorCount() {
+        return this.errorCount;
+    }
+
+    /**
+     * @return the sum of the received bytes.
+     */
+    public long getReceivedBytes() {
+        return this.receivedBytes;
+    }
+
+    /**
+     * @return the sum of the sent bytes.
+     */
+    public long getSentBytes() {
+        return this.sentBytes;
+    }
+
+    /**
+     * @return the response time statistics.
+     */
+    public MetricWindow getResponseTime() {
+        return this.responseTime;
+    }
+
+    /**
+     * @return the latency statistics.
+     */
+    public MetricWindow getLatency() {
+        return this.latency;
+    }
+
+    /**
+     * @return the connect time statistics.
+     */
+    public MetricWindow getConnectTime() {
+        return this.connectTime;
+    }
+}
@@ -0,0 +1,74 @@
+package org.md.jmeter.influxdb.visualizer.aggregation;
+
+import org.md.jmeter.influxdb.visualizer.config.AggregatedRequestMeasurement;
+import org.md.jmeter.influxdb.visualizer.config.AggregatedRequestMeasurement.Fields;
+import org.md.jmeter.influxdb.visualizer.config.AggregatedRequestMeasurement.Statistics;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The provider of the aggregated requests line protocol point based on the closed {@link RequestWindow}.
+ */
+public class RequestWindowPointProvider {
+
+    private final String runId;
+    private final String testName;
+    private final String nodeName;
+    private final int windowSeconds;
+
+    /**
+     * Creates the new instance of the {@link RequestWindowPointProvider}.
+     * @param runId the run id.
+     * @param testName the test name.
+     * @param nodeName the node name.
+     * @param windowSeconds the length of the aggregation window in seconds.
+     */
+    public RequestWindowPointProvider(String runId, String testName, String nodeName, int windowSeconds) {
+        this.runId = runId;
+        this.testName = testName;
+        this.nodeName = nodeName;
+        this.windowSeconds = windowSeconds;
+    }
+
+    /**
+     * Writes the point of the closed window, tags and fields are written sorted by the key.
+     * @param builder the {@link LineProtocolBuilder} to write to.
+     * @param window the {@link RequestWindow}.
+     * @param timeMillis the time of the window end in milliseconds.
+     */
+    public void writePoint(LineProtocolBuilder builder, RequestWindow window, long timeMillis) {
+        builder.measurement(AggregatedRequestMeasurement.MEASUREMENT_NAME)
+                .tag(AggregatedRequestMeasurement.Tags.NODE_NAME, this.nodeName)
+                .tag(AggregatedRequestMeasurement.Tags.REQUEST_NAME, window.getRequestName())
+                .tag(AggregatedRequestMeasurement.Tags.RESULT_CODE, window.getResponseCode())
+                .tag(AggregatedRequestMeasurement.Tags.RUN_ID, this.runId)
+                .tag(AggregatedRequestMeasurement.Tags.TEST_NAME, this.testName);
+
+        writeStatistics(builder, Fields.CONNECT_TIME, window.getConnectTime());
+        builder.field(Fields.REQUEST_COUNT, window.getCount())
+                .field(Fields.ERROR_COUNT, window.getErrorCount());
+        writeStatistics(builder, Fields.LATENCY, window.getLatency());
+        builder.field(Fields.RECEIVED_BYTES, window.getReceivedBytes());
+        writeStatistics(builder, Fields.RESPONSE_TIME, window.getResponseTime());
+        builder.field(Fields.SENT_BYTES, window.getSentBytes())
+                .field(Fields.WINDOW, this.windowSeconds)
+                .timestamp(TimeUnit.MILLISECONDS.toNanos(timeMillis));
+    }
+
+    /**
+     * Writes sum, min, max and percentiles of the metric.
+     * @param builder the {@link LineProtocolBuilder}.
+     * @param prefix the field name prefix.
+     * @param metric the {@link MetricWindow}.
+     */
+    private static void writeStatistics(LineProtocolBuilder builder, String prefix, MetricWindow metric) {
+        builder.field(prefix + Statistics.MAX, metric.getMax())
+                .field(prefix + Statistics.MIN, metric.getMin())
+                .field(prefix + Statistics.P50, metric.getPercentile(50))
+                .field(prefix + Statistics.P90, metric.getPercentile(90))
+                .field(prefix + Statistics.P95, metric.getPercentile(95))
+                .field(prefix + Statistics.P99, metric.getPercentile(99))
+                .field(prefix + Statistics.SUM, metric.getSum());
+    }
+}
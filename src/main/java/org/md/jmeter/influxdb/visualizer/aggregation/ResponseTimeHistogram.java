@@ -0,0 +1,203 @@
+package org.md.jmeter.influxdb.visualizer.aggregation;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * The mergeable log-linear histogram of the response times in milliseconds.
+ * Values below 64 have own buckets, every next power of two is split to 32 buckets, so the percentiles are within 3.2%.
+ * The bucket layout is fixed, so the histograms written by the different nodes are merged by adding the bucket counts
+ * and the percentiles of the merged histogram are the same as if one node had recorded all the values.
+ * <p>
+ * The encoded form is the URL safe Base64 of: the version byte, the varint max and the varint pairs of the index delta and the count
+ * of the non-empty buckets, e.g. a few dozen bytes for the typical window of the request.
+ * The instance is not thread safe.
+ */
+public class ResponseTimeHistogram {
+
+    private static final int VERSION = 1;
+    private static final int LINEAR_BUCKETS = 64;
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int FIRST_EXPONENT = 6;
+    private static final int BUCKETS = LINEAR_BUCKETS + (63 - FIRST_EXPONENT) * SUB_BUCKETS;
+
+    private long[] counts = new long[LINEAR_BUCKETS];
+    private long count;
+    private long max;
+
+    /**
+     * Records the value.
+     * @param value the value, negative values are recorded as 0.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        this.add(getBucket(value), 1);
+        this.max = Math.max(this.max, value);
+    }
+
+    /**
+     * Adds the values of the other histogram.
+     * @param other the {@link ResponseTimeHistogram} to merge.
+     */
+    public void merge(ResponseTimeHistogram other) {
+        for (int i = other.counts.length - 1; i >= 0; i--) {
+            if (other.counts[i] != 0) {
+                this.add(i, other.counts[i]);
+            }
+        }
+
+        this.max = Math.max(this.max, other.max);
+    }
+
+    /**
+     * @return the number of the recorded values.
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * @return the maximum value, 0 if there are no values.
+     */
+    public long getMax() {
+        return this.max;
+    }
+
+    /**
+     * Gets the percentile using the nearest-rank method, the upper bound of the bucket is returned.
+     * @param percentile the percentile in range (0, 100].
+     * @return the percentile value, 0 if there are no values.
+     */
+    public long getPercentile(double percentile) {
+        if (this.count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * this.count));
+        long seen = 0;
+        for (int i = 0; i < this.counts.length; i++) {
+            seen += this.counts[i];
+            if (seen >= rank) {
+                return Math.min(getBucketUpperBound(i), this.max);
+            }
+        }
+
+        return this.max;
+    }
+
+    /**
+     * Encodes the histogram to the compact string.
+     * @return the encoded histogram.
+     */
+    public String encode() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(32);
+        output.write(VERSION);
+        writeVarLong(output, this.max);
+
+        int previous = -1;
+        for (int i = 0; i < this.counts.length; i++) {
+            if (this.counts[i] != 0) {
+                writeVarLong(output, i - previous);
+                writeVarLong(output, this.counts[i]);
+                previous = i;
+            }
+        }
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(output.toByteArray());
+    }
+
+    /**
+     * Decodes the histogram written by {@link #encode()}.
+     * @param encoded the encoded histogram.
+     * @return the {@link ResponseTimeHistogram}.
+     * @throws IllegalArgumentException if the value is not the encoded histogram.
+     */
+    public static ResponseTimeHistogram decode(String encoded) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(encoded.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("The histogram is not Base64 encoded!", e);
+        }
+
+        if (bytes.length == 0 || bytes[0] != VERSION) {
+            throw new IllegalArgumentException("The histogram version is not supported!");
+        }
+
+        ResponseTimeHistogram histogram = new ResponseTimeHistogram();
+        int[] position = {1};
+        histogram.max = readVarLong(bytes, position);
+
+        int bucket = -1;
+        while (position[0] < bytes.length) {
+            bucket += (int) readVarLong(bytes, position);
+            long bucketCount = readVarLong(bytes, position);
+            if (bucket < 0 || bucket >= BUCKETS || bucketCount <= 0) {
+                throw new IllegalArgumentException("The histogram is corrupted!");
+            }
+
+            histogram.add(bucket, bucketCount);
+        }
+
+        return histogram;
+    }
+
+    private void add(int bucket, long bucketCount) {
+        if (bucket >= this.counts.length) {
+            this.counts = Arrays.copyOf(this.counts, Math.min(BUCKETS, Math.max(bucket + 1, this.counts.length << 1)));
+        }
+
+        this.counts[bucket] += bucketCount;
+        this.count += bucketCount;
+    }
+
+    private static int getBucket(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exponent - FIRST_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long getBucketUpperBound(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+
+        int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + FIRST_EXPONENT;
+        long subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream output, long value) {
+        while ((value & ~0x7FL) != 0) {
+            output.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        output.write((int) value);
+    }
+
+    private static long readVarLong(byte[] bytes, int[] position) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position[0] >= bytes.length) {
+                throw new IllegalArgumentException("The histogram is truncated!");
+            }
+
+            byte b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException("The histogram is corrupted!");
+    }
+}
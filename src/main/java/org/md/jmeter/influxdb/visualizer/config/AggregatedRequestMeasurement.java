@@ -0,0 +1,108 @@
+package org.md.jmeter.influxdb.visualizer.config;
+
+/**
+ * Constants (Tag, Field, Measurement) names for the aggregated requests measurement.
+ * One point is written per (requestName, responseCode) series for every aggregation window.
+ */
+public interface AggregatedRequestMeasurement {
+
+	/**
+	 * Measurement name.
+	 */
+	String MEASUREMENT_NAME = "requestsAggregated";
+
+	/**
+	 * Tags.
+	 */
+	interface Tags {
+		/**
+		 * Request name tag.
+		 */
+		String REQUEST_NAME = "requestName";
+
+		/**
+		 * Influx DB tag for a unique identifier for each execution(aka 'run') of a load test.
+		 */
+		String RUN_ID = "runId";
+
+		/**
+		 * Test name tag.
+		 */
+		String TEST_NAME = "testName";
+
+		/**
+		 * Node name tag.
+		 */
+		String NODE_NAME = "nodeName";
+
+		/**
+		 * Response code tag.
+		 */
+		String RESULT_CODE = "responseCode";
+	}
+
+	/**
+	 * Fields.
+	 */
+	interface Fields {
+		/**
+		 * Number of the samples in the window.
+		 */
+		String REQUEST_COUNT = "count";
+
+		/**
+		 * Number of the failed samples in the window.
+		 */
+		String ERROR_COUNT = "errorCount";
+
+		/**
+		 * Length of the window in seconds.
+		 */
+		String WINDOW = "window";
+
+		/**
+		 * Sum of the received bytes.
+		 */
+		String RECEIVED_BYTES = "receivedBytes";
+
+		/**
+		 * Sum of the sent bytes.
+		 */
+		String SENT_BYTES = "sentBytes";
+
+		/**
+		 * Prefix of the response time statistics fields.
+		 */
+		String RESPONSE_TIME = "responseTime";
+
+		/**
+		 * Prefix of the latency statistics fields.
+		 */
+		String LATENCY = "latency";
+
+		/**
+		 * Prefix of the connect time statistics fields.
+		 */
+		String CONNECT_TIME = "connectTime";
+	}
+
+	/**
+	 * Suffixes appended to the response time, latency and connect time prefixes,
+	 * e.g. 'responseTimeSum' or 'latencyP95'.
+	 */
+	interface Statistics {
+		String SUM = "Sum";
+
+		String MIN = "Min";
+
+		String MAX = "Max";
+
+		String P50 = "P50";
+
+		String P90 = "P90";
+
+		String P95 = "P95";
+
+		String P99 = "P99";
+	}
+}
@@ -0,0 +1,83 @@
+package org.md.jmeter.influxdb.visualizer.config;
+
+/**
+ * Constants (Tag, Field, Measurement) names for the load generator health measurement.
+ * The health of the JVM running JMeter tells whether the response times are skewed by the saturated generator.
+ */
+public interface GeneratorMeasurement {
+
+	/**
+	 * Measurement name.
+	 */
+	String MEASUREMENT_NAME = "generatorHealth";
+
+	/**
+	 * Tags.
+	 */
+	interface Tags {
+		/**
+		 * Node name tag.
+		 */
+		String NODE_NAME = "nodeName";
+
+		/**
+		 * Influx DB tag for a unique identifier for each execution(aka 'run') of a load test.
+		 */
+		String RUN_ID = "runId";
+
+		/**
+		 * Test name tag.
+		 */
+		String TEST_NAME = "testName";
+	}
+
+	/**
+	 * Fields.
+	 */
+	interface Fields {
+		/**
+		 * Bytes allocated by the JVM threads per second, -1 if not supported by the JVM.
+		 */
+		String ALLOCATION_RATE = "allocationRate";
+
+		/**
+		 * Number of the garbage collections in the interval.
+		 */
+		String GC_COUNT = "gcCount";
+
+		/**
+		 * Time spent in the garbage collections in the interval in milliseconds.
+		 */
+		String GC_TIME = "gcTime";
+
+		/**
+		 * Committed heap in bytes.
+		 */
+		String HEAP_COMMITTED = "heapCommitted";
+
+		/**
+		 * Maximum heap in bytes, -1 if not defined.
+		 */
+		String HEAP_MAX = "heapMax";
+
+		/**
+		 * Used heap in bytes.
+		 */
+		String HEAP_USED = "heapUsed";
+
+		/**
+		 * CPU usage of the JVM process in percent of all the CPUs, -1 if not supported by the JVM.
+		 */
+		String PROCESS_CPU = "processCpu";
+
+		/**
+		 * CPU usage of the whole system in percent of all the CPUs, -1 if not supported by the JVM.
+		 */
+		String SYSTEM_CPU = "systemCpu";
+
+		/**
+		 * Number of the live JVM threads.
+		 */
+		String THREAD_COUNT = "threadCount";
+	}
+}
@@ -0,0 +1,63 @@
+package org.md.jmeter.influxdb.visualizer.config;
+
+/**
+ * Constants (Tag, Field, Measurement) names for the response time histograms measurement.
+ * One point is written per requestName for every aggregation window, the histograms of the nodes are merged by the {@code HistogramMerger}.
+ */
+public interface HistogramMeasurement {
+
+	/**
+	 * Measurement name.
+	 */
+	String MEASUREMENT_NAME = "requestsHistogram";
+
+	/**
+	 * Tags.
+	 */
+	interface Tags {
+		/**
+		 * Request name tag.
+		 */
+		String REQUEST_NAME = "requestName";
+
+		/**
+		 * Influx DB tag for a unique identifier for each execution(aka 'run') of a load test.
+		 */
+		String RUN_ID = "runId";
+
+		/**
+		 * Test name tag.
+		 */
+		String TEST_NAME = "testName";
+
+		/**
+		 * Node name tag.
+		 */
+		String NODE_NAME = "nodeName";
+	}
+
+	/**
+	 * Fields.
+	 */
+	interface Fields {
+		/**
+		 * Number of the samples in the window.
+		 */
+		String REQUEST_COUNT = "count";
+
+		/**
+		 * The encoded histogram of the response time.
+		 */
+		String HISTOGRAM = "histogram";
+
+		/**
+		 * Maximum response time in the window.
+		 */
+		String RESPONSE_TIME_MAX = "responseTimeMax";
+
+		/**
+		 * Length of the window in seconds.
+		 */
+		String WINDOW = "window";
+	}
+}
@@ -2,6 +2,14 @@ package org.md.jmeter.influxdb.visualizer.config;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.jmeter.visualizers.backend.BackendListenerContext;
+import org.md.jmeter.influxdb.visualizer.influxdb.client.CircuitBreakerFallback;
+import org.md.jmeter.influxdb.visualizer.influxdb.client.OverflowPolicy;
+import org.md.jmeter.influxdb.visualizer.influxdb.client.ShardRouting;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.WritePrecision;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Configuration for influxDB.
@@ -29,6 +37,131 @@ public class InfluxDBConfig {
 	 */
 	public static final int DEFAULT_PORT = 8086;
 
+	/**
+	 * HTTP transport name.
+	 */
+	public static final String HTTP_TRANSPORT = "http";
+
+	/**
+	 * UDP transport name.
+	 */
+	public static final String UDP_TRANSPORT = "udp";
+
+	/**
+	 * File transport name.
+	 */
+	public static final String FILE_TRANSPORT = "file";
+
+	/**
+	 * Default UDP listener port.
+	 */
+	public static final int DEFAULT_UDP_PORT = 8089;
+
+	/**
+	 * Default maximum UDP datagram payload in bytes.
+	 */
+	public static final int DEFAULT_UDP_MTU = 1400;
+
+	/**
+	 * Default size of the file the points are written to by the file transport in megabytes.
+	 */
+	public static final int DEFAULT_FILE_MAX_SIZE = 64;
+
+	/**
+	 * Default number of the points which triggers the write.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
+	/**
+	 * Default interval to write the buffered points in milliseconds.
+	 */
+	public static final int DEFAULT_FLUSH_INTERVAL = 1000;
+
+	/**
+	 * Default maximum number of the buffered points.
+	 */
+	public static final int DEFAULT_BUFFER_CAPACITY = 10000;
+
+	/**
+	 * Default overflow policy name.
+	 */
+	public static final String DEFAULT_OVERFLOW_POLICY = OverflowPolicy.DROP_OLDEST.getName();
+
+	/**
+	 * Default write precision name.
+	 */
+	public static final String DEFAULT_PRECISION = WritePrecision.NANOSECONDS.getName();
+
+	/**
+	 * Default maximum disk usage of the spilled points in megabytes.
+	 */
+	public static final int DEFAULT_SPILL_MAX_SIZE = 1024;
+
+	/**
+	 * Default size of the spill segment file in megabytes.
+	 */
+	public static final int DEFAULT_SPILL_SEGMENT_SIZE = 16;
+
+	/**
+	 * Default maximum number of the spilled points replayed per second.
+	 */
+	public static final int DEFAULT_SPILL_REPLAY_RATE = 20000;
+
+	/**
+	 * Default connect, read and write timeout in milliseconds.
+	 */
+	public static final int DEFAULT_TIMEOUT = 60000;
+
+	/**
+	 * Default maximum number of the idle connections in the pool.
+	 */
+	public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+
+	/**
+	 * Default time to keep the idle connection in the pool in seconds.
+	 */
+	public static final int DEFAULT_KEEP_ALIVE = 300;
+
+	/**
+	 * Default maximum number of the concurrent write requests to the Influx DB instance.
+	 */
+	public static final int DEFAULT_MAX_REQUESTS = 5;
+
+	/**
+	 * Default number of the write buffer stripes, one per CPU up to 16.
+	 */
+	public static final int DEFAULT_WRITE_STRIPES = Math.min(16, Runtime.getRuntime().availableProcessors());
+
+	/**
+	 * Default number of the consecutive failed writes which opens the circuit breaker.
+	 */
+	public static final int DEFAULT_CIRCUIT_BREAKER_FAILURES = 5;
+
+	/**
+	 * Default time the circuit breaker stays open after it opens first in milliseconds.
+	 */
+	public static final int DEFAULT_CIRCUIT_BREAKER_BACKOFF = 1000;
+
+	/**
+	 * Default maximum time the circuit breaker stays open in milliseconds.
+	 */
+	public static final int DEFAULT_CIRCUIT_BREAKER_MAX_BACKOFF = 60000;
+
+	/**
+	 * Default fallback applied while the circuit breaker is open.
+	 */
+	public static final String DEFAULT_CIRCUIT_BREAKER_FALLBACK = CircuitBreakerFallback.BUFFER.getName();
+
+	/**
+	 * Default minimum time between the logged write errors in milliseconds.
+	 */
+	public static final int DEFAULT_ERROR_LOG_INTERVAL = 60000;
+
+	/**
+	 * Default routing of the points to the shards.
+	 */
+	public static final String DEFAULT_SHARD_ROUTING = ShardRouting.REQUEST_NAME.getName();
+
 	/**
 	 * Config key for database name.
 	 */
@@ -64,6 +197,151 @@ public class InfluxDBConfig {
 	 */
 	public static final String KEY_HTTP_SCHEME = "influxHTTPScheme";
 
+	/**
+	 * Config key for the transport, 'http', 'udp' or 'file'.
+	 */
+	public static final String KEY_TRANSPORT = "influxDBTransport";
+
+	/**
+	 * Config key for the UDP listener port.
+	 */
+	public static final String KEY_UDP_PORT = "influxDBUdpPort";
+
+	/**
+	 * Config key for the maximum UDP datagram payload in bytes.
+	 */
+	public static final String KEY_UDP_MTU = "influxDBUdpMtu";
+
+	/**
+	 * Config key for the directory of the files the points are written to by the file transport.
+	 */
+	public static final String KEY_FILE_DIRECTORY = "influxDBFileDirectory";
+
+	/**
+	 * Config key for the size of the file the points are written to by the file transport in megabytes.
+	 */
+	public static final String KEY_FILE_MAX_SIZE = "influxDBFileMaxSize";
+
+	/**
+	 * Config key for the number of the points which triggers the write.
+	 */
+	public static final String KEY_BATCH_SIZE = "influxDBBatchSize";
+
+	/**
+	 * Config key for the interval to write the buffered points.
+	 */
+	public static final String KEY_FLUSH_INTERVAL = "influxDBFlushInterval";
+
+	/**
+	 * Config key for the maximum number of the buffered points.
+	 */
+	public static final String KEY_BUFFER_CAPACITY = "influxDBBufferCapacity";
+
+	/**
+	 * Config key for the overflow policy.
+	 */
+	public static final String KEY_OVERFLOW_POLICY = "influxDBOverflowPolicy";
+
+	/**
+	 * Config key for the precision of the written timestamps: ns, us or ms.
+	 */
+	public static final String KEY_PRECISION = "influxDBPrecision";
+
+	/**
+	 * Config key for the directory of the spilled points, empty to disable the spilling.
+	 */
+	public static final String KEY_SPILL_DIRECTORY = "influxDBSpillDirectory";
+
+	/**
+	 * Config key for the maximum disk usage of the spilled points in megabytes.
+	 */
+	public static final String KEY_SPILL_MAX_SIZE = "influxDBSpillMaxSize";
+
+	/**
+	 * Config key for the size of the spill segment file in megabytes.
+	 */
+	public static final String KEY_SPILL_SEGMENT_SIZE = "influxDBSpillSegmentSize";
+
+	/**
+	 * Config key for the maximum number of the spilled points replayed per second.
+	 */
+	public static final String KEY_SPILL_REPLAY_RATE = "influxDBSpillReplayRate";
+
+	/**
+	 * Config key for the gzip compression of the write requests.
+	 */
+	public static final String KEY_GZIP = "influxDBGzip";
+
+	/**
+	 * Config key for the connect timeout in milliseconds.
+	 */
+	public static final String KEY_CONNECT_TIMEOUT = "influxDBConnectTimeout";
+
+	/**
+	 * Config key for the read timeout in milliseconds.
+	 */
+	public static final String KEY_READ_TIMEOUT = "influxDBReadTimeout";
+
+	/**
+	 * Config key for the write timeout in milliseconds.
+	 */
+	public static final String KEY_WRITE_TIMEOUT = "influxDBWriteTimeout";
+
+	/**
+	 * Config key for the maximum number of the idle connections in the pool.
+	 */
+	public static final String KEY_MAX_IDLE_CONNECTIONS = "influxDBMaxIdleConnections";
+
+	/**
+	 * Config key for the time to keep the idle connection in the pool in seconds.
+	 */
+	public static final String KEY_KEEP_ALIVE = "influxDBKeepAlive";
+
+	/**
+	 * Config key for the maximum number of the concurrent write requests to the Influx DB instance.
+	 */
+	public static final String KEY_MAX_REQUESTS = "influxDBMaxRequests";
+
+	/**
+	 * Config key for the number of the write buffer stripes the concurrent writers are spread to.
+	 */
+	public static final String KEY_WRITE_STRIPES = "influxDBWriteStripes";
+
+	/**
+	 * Config key for the number of the consecutive failed writes which opens the circuit breaker.
+	 */
+	public static final String KEY_CIRCUIT_BREAKER_FAILURES = "influxDBCircuitBreakerFailures";
+
+	/**
+	 * Config key for the time the circuit breaker stays open after it opens first in milliseconds.
+	 */
+	public static final String KEY_CIRCUIT_BREAKER_BACKOFF = "influxDBCircuitBreakerBackoff";
+
+	/**
+	 * Config key for the maximum time the circuit breaker stays open in milliseconds.
+	 */
+	public static final String KEY_CIRCUIT_BREAKER_MAX_BACKOFF = "influxDBCircuitBreakerMaxBackoff";
+
+	/**
+	 * Config key for the fallback applied while the circuit breaker is open.
+	 */
+	public static final String KEY_CIRCUIT_BREAKER_FALLBACK = "influxDBCircuitBreakerFallback";
+
+	/**
+	 * Config key for the minimum time between the logged write errors in milliseconds.
+	 */
+	public static final String KEY_ERROR_LOG_INTERVAL = "influxDBErrorLogInterval";
+
+	/**
+	 * Config key for the comma separated Influx DB shards 'host[:port]', the host and the port are used if empty.
+	 */
+	public static final String KEY_SHARDS = "influxDBShards";
+
+	/**
+	 * Config key for the routing of the points to the shards.
+	 */
+	public static final String KEY_SHARD_ROUTING = "influxDBShardRouting";
+
 	/**
 	 * InfluxDB Host.
 	 */
@@ -100,128 +378,405 @@ public class InfluxDBConfig {
 	private String influxHTTPScheme;
 
 	/**
-	 * Creates the new instance of {@link InfluxDBConfig}
-	 * @param context the {@link BackendListenerContext}
+	 * Transport, 'http', 'udp' or 'file'.
 	 */
-	public InfluxDBConfig(BackendListenerContext context) {
-		String influxDBHost = context.getParameter(KEY_INFLUX_DB_HOST);
-		if (StringUtils.isEmpty(influxDBHost)) {
-			throw new IllegalArgumentException(KEY_INFLUX_DB_HOST + "must not be empty!");
-		}
-		setInfluxDBHost(influxDBHost);
-
-		int influxDBPort = context.getIntParameter(KEY_INFLUX_DB_PORT, InfluxDBConfig.DEFAULT_PORT);
-		setInfluxDBPort(influxDBPort);
+	private String transport;
 
-		String influxUser = context.getParameter(KEY_INFLUX_DB_USER);
-		setInfluxUser(influxUser);
+	/**
+	 * UDP listener port.
+	 */
+	private int udpPort;
 
-		String influxPassword = context.getParameter(KEY_INFLUX_DB_PASSWORD);
-		setInfluxPassword(influxPassword);
+	/**
+	 * Maximum UDP datagram payload in bytes.
+	 */
+	private int udpMtu;
 
-		String influxDatabase = context.getParameter(KEY_INFLUX_DB_DATABASE);
-		if (StringUtils.isEmpty(influxDatabase)) {
-			throw new IllegalArgumentException(KEY_INFLUX_DB_DATABASE + "must not be empty!");
-		}
-		setInfluxDatabase(influxDatabase);
+	/**
+	 * Directory of the files written by the file transport.
+	 */
+	private String fileDirectory;
 
-		String influxRetentionPolicy = context.getParameter(KEY_RETENTION_POLICY, DEFAULT_RETENTION_POLICY);
-		if (StringUtils.isEmpty(influxRetentionPolicy)) {
-			influxRetentionPolicy = DEFAULT_RETENTION_POLICY;
-		}
-		setInfluxRetentionPolicy(influxRetentionPolicy);
+	/**
+	 * Size of the file written by the file transport in megabytes.
+	 */
+	private int fileMaxSize;
 
-		String influxHTTPScheme = context.getParameter(KEY_HTTP_SCHEME, DEFAULT_HTTP_SCHEME);
-		if (StringUtils.isEmpty(influxHTTPScheme)) {
-			influxHTTPScheme = DEFAULT_HTTP_SCHEME;
-		}
-		// TODO: no checks but should be only "http" and "https"
-		setInfluxHTTPScheme(influxHTTPScheme);
-	}
+	/**
+	 * Number of the points which triggers the write.
+	 */
+	private int batchSize;
 
 	/**
-	 * Builds URL to influxDB.
-	 *
-	 * @return influxDB URL.
+	 * Interval to write the buffered points in milliseconds.
 	 */
-	public String getInfluxDBURL() {
-		return influxHTTPScheme + "://" + influxDBHost + ":" + influxDBPort;
-	}
+	private int flushInterval;
 
 	/**
-	 * @return the influxDBHost.
+	 * Maximum number of the buffered points.
 	 */
-	public String getInfluxDBHost() {
-		return influxDBHost;
-	}
+	private int bufferCapacity;
 
 	/**
-	 * @param influxDBHost
-	 *            the influxDBHost to set.
+	 * What happens with the points when the buffer is full.
 	 */
-	public void setInfluxDBHost(String influxDBHost) {
-		this.influxDBHost = influxDBHost;
-	}
+	private OverflowPolicy overflowPolicy;
 
 	/**
-	 * @return the influxUser.
+	 * Precision of the written timestamps.
 	 */
-	public String getInfluxUser() {
-		return influxUser;
-	}
+	private WritePrecision precision;
 
 	/**
-	 * @param influxUser
-	 *            the influxUser to set.
+	 * Directory of the spilled points, empty if the spilling is disabled.
 	 */
-	public void setInfluxUser(String influxUser) {
-		this.influxUser = influxUser;
-	}
+	private String spillDirectory;
 
 	/**
-	 * @return the influxPassword.
+	 * Maximum disk usage of the spilled points in megabytes.
 	 */
-	public String getInfluxPassword() {
-		return influxPassword;
-	}
+	private int spillMaxSize;
 
 	/**
-	 * @param influxPassword
-	 *            the influxPassword to set.
+	 * Size of the spill segment file in megabytes.
 	 */
-	public void setInfluxPassword(String influxPassword) {
-		this.influxPassword = influxPassword;
-	}
+	private int spillSegmentSize;
 
 	/**
-	 * @return the influxDatabase.
+	 * Maximum number of the spilled points replayed per second.
 	 */
-	public String getInfluxDatabase() {
-		return influxDatabase;
-	}
+	private int spillReplayRate;
 
 	/**
-	 * @param influxDatabase
-	 *            the influxDatabase to set.
+	 * Indicates whether the write request bodies are gzip compressed.
 	 */
-	public void setInfluxDatabase(String influxDatabase) {
-		this.influxDatabase = influxDatabase;
-	}
+	private boolean gzipEnabled;
 
 	/**
-	 * @return the influxRetentionPolicy.
+	 * Connect timeout in milliseconds.
 	 */
-	public String getInfluxRetentionPolicy() {
-		return influxRetentionPolicy;
-	}
+	private int connectTimeout;
 
 	/**
-	 * @param influxRetentionPolicy
-	 *            the influxRetentionPolicy to set.
+	 * Read timeout in milliseconds.
 	 */
-	public void setInfluxRetentionPolicy(String influxRetentionPolicy) {
-		this.influxRetentionPolicy = influxRetentionPolicy;
-	}
+	private int readTimeout;
+
+	/**
+	 * Write timeout in milliseconds.
+	 */
+	private int writeTimeout;
+
+	/**
+	 * Maximum number of the idle connections in the pool.
+	 */
+	private int maxIdleConnections;
+
+	/**
+	 * Time to keep the idle connection in the pool in seconds.
+	 */
+	private int keepAlive;
+
+	/**
+	 * Maximum number of the concurrent write requests to the Influx DB instance.
+	 */
+	private int maxRequests;
+
+	/**
+	 * Number of the write buffer stripes.
+	 */
+	private int writeStripes;
+
+	/**
+	 * Number of the consecutive failed writes which opens the circuit breaker.
+	 */
+	private int circuitBreakerFailures;
+
+	/**
+	 * Time the circuit breaker stays open after it opens first in milliseconds.
+	 */
+	private int circuitBreakerBackoff;
+
+	/**
+	 * Maximum time the circuit breaker stays open in milliseconds.
+	 */
+	private int circuitBreakerMaxBackoff;
+
+	/**
+	 * What happens with the points while the circuit breaker is open.
+	 */
+	private CircuitBreakerFallback circuitBreakerFallback;
+
+	/**
+	 * Minimum time between the logged write errors in milliseconds.
+	 */
+	private int errorLogInterval;
+
+	/**
+	 * URLs of the Influx DB shards, empty if the points are not sharded.
+	 */
+	private List<String> shardURLs;
+
+	/**
+	 * How the points are routed to the shards.
+	 */
+	private ShardRouting shardRouting;
+
+	/**
+	 * Creates the new instance of {@link InfluxDBConfig}
+	 * @param context the {@link BackendListenerContext}
+	 */
+	public InfluxDBConfig(BackendListenerContext context) {
+		String influxDBHost = context.getParameter(KEY_INFLUX_DB_HOST);
+		if (StringUtils.isEmpty(influxDBHost)) {
+			throw new IllegalArgumentException(KEY_INFLUX_DB_HOST + "must not be empty!");
+		}
+		setInfluxDBHost(influxDBHost);
+
+		int influxDBPort = context.getIntParameter(KEY_INFLUX_DB_PORT, InfluxDBConfig.DEFAULT_PORT);
+		setInfluxDBPort(influxDBPort);
+
+		String influxUser = context.getParameter(KEY_INFLUX_DB_USER);
+		setInfluxUser(influxUser);
+
+		String influxPassword = context.getParameter(KEY_INFLUX_DB_PASSWORD);
+		setInfluxPassword(influxPassword);
+
+		String influxDatabase = context.getParameter(KEY_INFLUX_DB_DATABASE);
+		if (StringUtils.isEmpty(influxDatabase)) {
+			throw new IllegalArgumentException(KEY_INFLUX_DB_DATABASE + "must not be empty!");
+		}
+		setInfluxDatabase(influxDatabase);
+
+		String influxRetentionPolicy = context.getParameter(KEY_RETENTION_POLICY, DEFAULT_RETENTION_POLICY);
+		if (StringUtils.isEmpty(influxRetentionPolicy)) {
+			influxRetentionPolicy = DEFAULT_RETENTION_POLICY;
+		}
+		setInfluxRetentionPolicy(influxRetentionPolicy);
+
+		String influxHTTPScheme = context.getParameter(KEY_HTTP_SCHEME, DEFAULT_HTTP_SCHEME);
+		if (StringUtils.isEmpty(influxHTTPScheme)) {
+			influxHTTPScheme = DEFAULT_HTTP_SCHEME;
+		}
+		// TODO: no checks but should be only "http" and "https"
+		setInfluxHTTPScheme(influxHTTPScheme);
+
+		String transport = StringUtils.defaultIfEmpty(context.getParameter(KEY_TRANSPORT, HTTP_TRANSPORT), HTTP_TRANSPORT).toLowerCase();
+		if (!HTTP_TRANSPORT.equals(transport) && !UDP_TRANSPORT.equals(transport) && !FILE_TRANSPORT.equals(transport)) {
+			throw new IllegalArgumentException(KEY_TRANSPORT + " must be '" + HTTP_TRANSPORT + "', '" + UDP_TRANSPORT + "' or '" + FILE_TRANSPORT + "'!");
+		}
+		setTransport(transport);
+
+		setUdpPort(context.getIntParameter(KEY_UDP_PORT, DEFAULT_UDP_PORT));
+		setUdpMtu(getPositiveIntParameter(context, KEY_UDP_MTU, DEFAULT_UDP_MTU));
+
+		String fileDirectory = StringUtils.trimToEmpty(context.getParameter(KEY_FILE_DIRECTORY, ""));
+		if (FILE_TRANSPORT.equals(transport) && fileDirectory.isEmpty()) {
+			throw new IllegalArgumentException(KEY_FILE_DIRECTORY + " must not be empty for the '" + FILE_TRANSPORT + "' transport!");
+		}
+		setFileDirectory(fileDirectory);
+		setFileMaxSize(getPositiveIntParameter(context, KEY_FILE_MAX_SIZE, DEFAULT_FILE_MAX_SIZE));
+
+		int batchSize = context.getIntParameter(KEY_BATCH_SIZE, DEFAULT_BATCH_SIZE);
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException(KEY_BATCH_SIZE + " must be greater than 0!");
+		}
+		setBatchSize(batchSize);
+
+		int flushInterval = context.getIntParameter(KEY_FLUSH_INTERVAL, DEFAULT_FLUSH_INTERVAL);
+		if (flushInterval <= 0) {
+			throw new IllegalArgumentException(KEY_FLUSH_INTERVAL + " must be greater than 0!");
+		}
+		setFlushInterval(flushInterval);
+
+		int bufferCapacity = context.getIntParameter(KEY_BUFFER_CAPACITY, DEFAULT_BUFFER_CAPACITY);
+		if (bufferCapacity < batchSize) {
+			throw new IllegalArgumentException(KEY_BUFFER_CAPACITY + " must not be less than " + KEY_BATCH_SIZE + "!");
+		}
+		setBufferCapacity(bufferCapacity);
+
+		String overflowPolicy = context.getParameter(KEY_OVERFLOW_POLICY, DEFAULT_OVERFLOW_POLICY);
+		if (StringUtils.isEmpty(overflowPolicy)) {
+			overflowPolicy = DEFAULT_OVERFLOW_POLICY;
+		}
+		setOverflowPolicy(OverflowPolicy.fromName(overflowPolicy));
+
+		String precision = context.getParameter(KEY_PRECISION, DEFAULT_PRECISION);
+		if (StringUtils.isEmpty(precision)) {
+			precision = DEFAULT_PRECISION;
+		}
+		setPrecision(WritePrecision.fromName(precision));
+
+		setSpillDirectory(StringUtils.trimToEmpty(context.getParameter(KEY_SPILL_DIRECTORY, "")));
+
+		int spillSegmentSize = context.getIntParameter(KEY_SPILL_SEGMENT_SIZE, DEFAULT_SPILL_SEGMENT_SIZE);
+		if (spillSegmentSize <= 0 || spillSegmentSize > 1024) {
+			throw new IllegalArgumentException(KEY_SPILL_SEGMENT_SIZE + " must be in range 1..1024!");
+		}
+		setSpillSegmentSize(spillSegmentSize);
+
+		int spillMaxSize = context.getIntParameter(KEY_SPILL_MAX_SIZE, DEFAULT_SPILL_MAX_SIZE);
+		if (spillMaxSize < spillSegmentSize) {
+			throw new IllegalArgumentException(KEY_SPILL_MAX_SIZE + " must not be less than " + KEY_SPILL_SEGMENT_SIZE + "!");
+		}
+		setSpillMaxSize(spillMaxSize);
+
+		int spillReplayRate = context.getIntParameter(KEY_SPILL_REPLAY_RATE, DEFAULT_SPILL_REPLAY_RATE);
+		if (spillReplayRate <= 0) {
+			throw new IllegalArgumentException(KEY_SPILL_REPLAY_RATE + " must be greater than 0!");
+		}
+		setSpillReplayRate(spillReplayRate);
+
+		setGzipEnabled(context.getBooleanParameter(KEY_GZIP, false));
+		setConnectTimeout(getPositiveIntParameter(context, KEY_CONNECT_TIMEOUT, DEFAULT_TIMEOUT));
+		setReadTimeout(getPositiveIntParameter(context, KEY_READ_TIMEOUT, DEFAULT_TIMEOUT));
+		setWriteTimeout(getPositiveIntParameter(context, KEY_WRITE_TIMEOUT, DEFAULT_TIMEOUT));
+		setMaxIdleConnections(getPositiveIntParameter(context, KEY_MAX_IDLE_CONNECTIONS, DEFAULT_MAX_IDLE_CONNECTIONS));
+		setKeepAlive(getPositiveIntParameter(context, KEY_KEEP_ALIVE, DEFAULT_KEEP_ALIVE));
+		setMaxRequests(getPositiveIntParameter(context, KEY_MAX_REQUESTS, DEFAULT_MAX_REQUESTS));
+		setWriteStripes(getPositiveIntParameter(context, KEY_WRITE_STRIPES, DEFAULT_WRITE_STRIPES));
+		setCircuitBreakerFailures(getPositiveIntParameter(context, KEY_CIRCUIT_BREAKER_FAILURES, DEFAULT_CIRCUIT_BREAKER_FAILURES));
+		setCircuitBreakerBackoff(getPositiveIntParameter(context, KEY_CIRCUIT_BREAKER_BACKOFF, DEFAULT_CIRCUIT_BREAKER_BACKOFF));
+
+		int circuitBreakerMaxBackoff = context.getIntParameter(KEY_CIRCUIT_BREAKER_MAX_BACKOFF, DEFAULT_CIRCUIT_BREAKER_MAX_BACKOFF);
+		if (circuitBreakerMaxBackoff < getCircuitBreakerBackoff()) {
+			throw new IllegalArgumentException(KEY_CIRCUIT_BREAKER_MAX_BACKOFF + " must not be less than " + KEY_CIRCUIT_BREAKER_BACKOFF + "!");
+		}
+		setCircuitBreakerMaxBackoff(circuitBreakerMaxBackoff);
+
+		String circuitBreakerFallback = context.getParameter(KEY_CIRCUIT_BREAKER_FALLBACK, DEFAULT_CIRCUIT_BREAKER_FALLBACK);
+		if (StringUtils.isEmpty(circuitBreakerFallback)) {
+			circuitBreakerFallback = DEFAULT_CIRCUIT_BREAKER_FALLBACK;
+		}
+		setCircuitBreakerFallback(CircuitBreakerFallback.fromName(circuitBreakerFallback));
+
+		setErrorLogInterval(getPositiveIntParameter(context, KEY_ERROR_LOG_INTERVAL, DEFAULT_ERROR_LOG_INTERVAL));
+
+		List<String> shardURLs = new ArrayList<>();
+		for (String shard : StringUtils.split(StringUtils.trimToEmpty(context.getParameter(KEY_SHARDS, "")), ',')) {
+			shard = shard.trim();
+			if (shard.isEmpty()) {
+				continue;
+			}
+
+			int separator = shard.lastIndexOf(':');
+			String port = separator > 0 ? shard.substring(separator + 1) : Integer.toString(influxDBPort);
+			if (separator == 0 || !StringUtils.isNumeric(port)) {
+				throw new IllegalArgumentException(KEY_SHARDS + " must be the comma separated 'host:port' list!");
+			}
+			shardURLs.add(influxHTTPScheme + "://" + (separator > 0 ? shard.substring(0, separator) : shard) + ":" + port);
+		}
+		if (!shardURLs.isEmpty() && !HTTP_TRANSPORT.equals(transport)) {
+			throw new IllegalArgumentException(KEY_SHARDS + " is supported by the '" + HTTP_TRANSPORT + "' transport only!");
+		}
+		setShardURLs(shardURLs);
+
+		String shardRouting = context.getParameter(KEY_SHARD_ROUTING, DEFAULT_SHARD_ROUTING);
+		if (StringUtils.isEmpty(shardRouting)) {
+			shardRouting = DEFAULT_SHARD_ROUTING;
+		}
+		setShardRouting(ShardRouting.fromName(shardRouting));
+	}
+
+	/**
+	 * Gets the integer parameter which must be greater than 0.
+	 * @param context the {@link BackendListenerContext}
+	 * @param key the parameter key.
+	 * @param defaultValue the default value.
+	 * @return the parameter value.
+	 */
+	private static int getPositiveIntParameter(BackendListenerContext context, String key, int defaultValue) {
+		int value = context.getIntParameter(key, defaultValue);
+		if (value <= 0) {
+			throw new IllegalArgumentException(key + " must be greater than 0!");
+		}
+
+		return value;
+	}
+
+	/**
+	 * Builds URL to influxDB.
+	 *
+	 * @return influxDB URL.
+	 */
+	public String getInfluxDBURL() {
+		return influxHTTPScheme + "://" + influxDBHost + ":" + influxDBPort;
+	}
+
+	/**
+	 * @return the influxDBHost.
+	 */
+	public String getInfluxDBHost() {
+		return influxDBHost;
+	}
+
+	/**
+	 * @param influxDBHost
+	 *            the influxDBHost to set.
+	 */
+	public void setInfluxDBHost(String influxDBHost) {
+		this.influxDBHost = influxDBHost;
+	}
+
+	/**
+	 * @return the influxUser.
+	 */
+	public String getInfluxUser() {
+		return influxUser;
+	}
+
+	/**
+	 * @param influxUser
+	 *            the influxUser to set.
+	 */
+	public void setInfluxUser(String influxUser) {
+		this.influxUser = influxUser;
+	}
+
+	/**
+	 * @return the influxPassword.
+	 */
+	public String getInfluxPassword() {
+		return influxPassword;
+	}
+
+	/**
+	 * @param influxPassword
+	 *            the influxPassword to set.
+	 */
+	public void setInfluxPassword(String influxPassword) {
+		this.influxPassword = influxPassword;
+	}
+
+	/**
+	 * @return the influxDatabase.
+	 */
+	public String getInfluxDatabase() {
+		return influxDatabase;
+	}
+
+	/**
+	 * @param influxDatabase
+	 *            the influxDatabase to set.
+	 */
+	public void setInfluxDatabase(String influxDatabase) {
+		this.influxDatabase = influxDatabase;
+	}
+
+	/**
+	 * @return the influxRetentionPolicy.
+	 */
+	public String getInfluxRetentionPolicy() {
+		return influxRetentionPolicy;
+	}
+
+	/**
+	 * @param influxRetentionPolicy
+	 *            the influxRetentionPolicy to set.
+	 */
+	public void setInfluxRetentionPolicy(String influxRetentionPolicy) {
+		this.influxRetentionPolicy = influxRetentionPolicy;
+	}
 
 	/**
 	 * @param influxHTTPScheme
@@ -231,6 +786,95 @@ public class InfluxDBConfig {
 		this.influxHTTPScheme = influxHTTPScheme;
 	}
 
+	/**
+	 * @return the transport, 'http', 'udp' or 'file'.
+	 */
+	public String getTransport() {
+		return transport;
+	}
+
+	/**
+	 * @param transport
+	 *            the transport to set.
+	 */
+	public void setTransport(String transport) {
+		this.transport = transport;
+	}
+
+	/**
+	 * @return true if the points are sent to the UDP listener.
+	 */
+	public boolean isUdpTransport() {
+		return UDP_TRANSPORT.equals(transport);
+	}
+
+	/**
+	 * @return true if the points are written to the local files.
+	 */
+	public boolean isFileTransport() {
+		return FILE_TRANSPORT.equals(transport);
+	}
+
+	/**
+	 * @return the fileDirectory.
+	 */
+	public String getFileDirectory() {
+		return fileDirectory;
+	}
+
+	/**
+	 * @param fileDirectory
+	 *            the fileDirectory to set.
+	 */
+	public void setFileDirectory(String fileDirectory) {
+		this.fileDirectory = fileDirectory;
+	}
+
+	/**
+	 * @return the fileMaxSize.
+	 */
+	public int getFileMaxSize() {
+		return fileMaxSize;
+	}
+
+	/**
+	 * @param fileMaxSize
+	 *            the fileMaxSize to set.
+	 */
+	public void setFileMaxSize(int fileMaxSize) {
+		this.fileMaxSize = fileMaxSize;
+	}
+
+	/**
+	 * @return the udpPort.
+	 */
+	public int getUdpPort() {
+		return udpPort;
+	}
+
+	/**
+	 * @param udpPort
+	 *            the udpPort to set.
+	 */
+	public void setUdpPort(int udpPort) {
+		this.udpPort = udpPort;
+	}
+
+	/**
+	 * @return the maximum UDP datagram payload in bytes.
+	 */
+	public int getUdpMtu() {
+		return udpMtu;
+	}
+
+	/**
+	 * @param udpMtu
+	 *            the maximum UDP datagram payload in bytes.
+	 */
+	public void setUdpMtu(int udpMtu) {
+		this.udpMtu = udpMtu;
+	}
+
 	/**
 	 * @return the influxDBPort.
 	 */
@@ -245,4 +889,372 @@ public class InfluxDBConfig {
 	public void setInfluxDBPort(int influxDBPort) {
 		this.influxDBPort = influxDBPort;
 	}
+
+	/**
+	 * @return the number of the points which triggers the write.
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * @param batchSize
+	 *            the number of the points which triggers the write.
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * @return the interval to write the buffered points in milliseconds.
+	 */
+	public int getFlushInterval() {
+		return flushInterval;
+	}
+
+	/**
+	 * @param flushInterval
+	 *            the interval to write the buffered points in milliseconds.
+	 */
+	public void setFlushInterval(int flushInterval) {
+		this.flushInterval = flushInterval;
+	}
+
+	/**
+	 * @return the maximum number of the buffered points.
+	 */
+	public int getBufferCapacity() {
+		return bufferCapacity;
+	}
+
+	/**
+	 * @param bufferCapacity
+	 *            the maximum number of the buffered points.
+	 */
+	public void setBufferCapacity(int bufferCapacity) {
+		this.bufferCapacity = bufferCapacity;
+	}
+
+	/**
+	 * @return the overflowPolicy.
+	 */
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	/**
+	 * @param overflowPolicy
+	 *            the overflowPolicy to set.
+	 */
+	public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	/**
+	 * @return the precision.
+	 */
+	public WritePrecision getPrecision() {
+		return precision;
+	}
+
+	/**
+	 * @param precision
+	 *            the precision to set.
+	 */
+	public void setPrecision(WritePrecision precision) {
+		this.precision = precision;
+	}
+
+	/**
+	 * @return the spillDirectory, empty if the spilling is disabled.
+	 */
+	public String getSpillDirectory() {
+		return spillDirectory;
+	}
+
+	/**
+	 * @param spillDirectory
+	 *            the spillDirectory to set.
+	 */
+	public void setSpillDirectory(String spillDirectory) {
+		this.spillDirectory = spillDirectory;
+	}
+
+	/**
+	 * @return the maximum disk usage of the spilled points in megabytes.
+	 */
+	public int getSpillMaxSize() {
+		return spillMaxSize;
+	}
+
+	/**
+	 * @param spillMaxSize
+	 *            the maximum disk usage of the spilled points in megabytes.
+	 */
+	public void setSpillMaxSize(int spillMaxSize) {
+		this.spillMaxSize = spillMaxSize;
+	}
+
+	/**
+	 * @return the size of the spill segment file in megabytes.
+	 */
+	public int getSpillSegmentSize() {
+		return spillSegmentSize;
+	}
+
+	/**
+	 * @param spillSegmentSize
+	 *            the size of the spill segment file in megabytes.
+	 */
+	public void setSpillSegmentSize(int spillSegmentSize) {
+		this.spillSegmentSize = spillSegmentSize;
+	}
+
+	/**
+	 * @return the maximum number of the spilled points replayed per second.
+	 */
+	public int getSpillReplayRate() {
+		return spillReplayRate;
+	}
+
+	/**
+	 * @param spillReplayRate
+	 *            the maximum number of the spilled points replayed per second.
+	 */
+	public void setSpillReplayRate(int spillReplayRate) {
+		this.spillReplayRate = spillReplayRate;
+	}
+
+	/**
+	 * @return the gzipEnabled.
+	 */
+	public boolean isGzipEnabled() {
+		return gzipEnabled;
+	}
+
+	/**
+	 * @param gzipEnabled
+	 *            the gzipEnabled to set.
+	 */
+	public void setGzipEnabled(boolean gzipEnabled) {
+		this.gzipEnabled = gzipEnabled;
+	}
+
+	/**
+	 * @return the connectTimeout.
+	 */
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	/**
+	 * @param connectTimeout
+	 *            the connectTimeout to set.
+	 */
+	public void setConnectTimeout(int connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	/**
+	 * @return the readTimeout.
+	 */
+	public int getReadTimeout() {
+		return readTimeout;
+	}
+
+	/**
+	 * @param readTimeout
+	 *            the readTimeout to set.
+	 */
+	public void setReadTimeout(int readTimeout) {
+		this.readTimeout = readTimeout;
+	}
+
+	/**
+	 * @return the writeTimeout.
+	 */
+	public int getWriteTimeout() {
+		return writeTimeout;
+	}
+
+	/**
+	 * @param writeTimeout
+	 *            the writeTimeout to set.
+	 */
+	public void setWriteTimeout(int writeTimeout) {
+		this.writeTimeout = writeTimeout;
+	}
+
+	/**
+	 * @return the maxIdleConnections.
+	 */
+	public int getMaxIdleConnections() {
+		return maxIdleConnections;
+	}
+
+	/**
+	 * @param maxIdleConnections
+	 *            the maxIdleConnections to set.
+	 */
+	public void setMaxIdleConnections(int maxIdleConnections) {
+		this.maxIdleConnections = maxIdleConnections;
+	}
+
+	/**
+	 * @return the keepAlive.
+	 */
+	public int getKeepAlive() {
+		return keepAlive;
+	}
+
+	/**
+	 * @param keepAlive
+	 *            the keepAlive to set.
+	 */
+	public void setKeepAlive(int keepAlive) {
+		this.keepAlive = keepAlive;
+	}
+
+	/**
+	 * @return the maxRequests.
+	 */
+	public int getMaxRequests() {
+		return maxRequests;
+	}
+
+	/**
+	 * @param maxRequests
+	 *            the maxRequests to set.
+	 */
+	public void setMaxRequests(int maxRequests) {
+		this.maxRequests = maxRequests;
+	}
+
+	/**
+	 * @return the writeStripes.
+	 */
+	public int getWriteStripes() {
+		return writeStripes;
+	}
+
+	/**
+	 * @param writeStripes
+	 *            the writeStripes to set.
+	 */
+	public void setWriteStripes(int writeStripes) {
+		this.writeStripes = writeStripes;
+	}
+
+	/**
+	 * @return the circuitBreakerFailures.
+	 */
+	public int getCircuitBreakerFailures() {
+		return circuitBreakerFailures;
+	}
+
+	/**
+	 * @param circuitBreakerFailures
+	 *            the circuitBreakerFailures to set.
+	 */
+	public void setCircuitBreakerFailures(int circuitBreakerFailures) {
+		this.circuitBreakerFailures = circuitBreakerFailures;
+	}
+
+	/**
+	 * @return the circuitBreakerBackoff.
+	 */
+	public int getCircuitBreakerBackoff() {
+		return circuitBreakerBackoff;
+	}
+
+	/**
+	 * @param circuitBreakerBackoff
+	 *            the circuitBreakerBackoff to set.
+	 */
+	public void setCircuitBreakerBackoff(int circuitBreakerBackoff) {
+		this.circuitBreakerBackoff = circuitBreakerBackoff;
+	}
+
+	/**
+	 * @return the circuitBreakerMaxBackoff.
+	 */
+	public int getCircuitBreakerMaxBackoff() {
+		return circuitBreakerMaxBackoff;
+	}
+
+	/**
+	 * @param circuitBreakerMaxBackoff
+	 *            the circuitBreakerMaxBackoff to set.
+	 */
+	public void setCircuitBreakerMaxBackoff(int circuitBreakerMaxBackoff) {
+		this.circuitBreakerMaxBackoff = circuitBreakerMaxBackoff;
+	}
+
+	/**
+	 * @return the circuitBreakerFallback.
+	 */
+	public CircuitBreakerFallback getCircuitBreakerFallback() {
+		return circuitBreakerFallback;
+	}
+
+	/**
+	 * @param circuitBreakerFallback
+	 *            the circuitBreakerFallback to set.
+	 */
+	public void setCircuitBreakerFallback(CircuitBreakerFallback circuitBreakerFallback) {
+		this.circuitBreakerFallback = circuitBreakerFallback;
+	}
+
+	/**
+	 * @return the errorLogInterval.
+	 */
+	public int getErrorLogInterval() {
+		return errorLogInterval;
+	}
+
+	/**
+	 * @param errorLogInterval
+	 *            the errorLogInterval to set.
+	 */
+	public void setErrorLogInterval(int errorLogInterval) {
+		this.errorLogInterval = errorLogInterval;
+	}
+
+	/**
+	 * Gets the URLs the points are written to.
+	 * @return the URLs of the shards or the URL of the single Influx DB if the points are not sharded.
+	 */
+	public List<String> getInfluxDBURLs() {
+		return shardURLs.isEmpty() ? Collections.singletonList(getInfluxDBURL()) : shardURLs;
+	}
+
+	/**
+	 * @return the shardURLs.
+	 */
+	public List<String> getShardURLs() {
+		return shardURLs;
+	}
+
+	/**
+	 * @param shardURLs
+	 *            the shardURLs to set.
+	 */
+	public void setShardURLs(List<String> shardURLs) {
+		this.shardURLs = shardURLs;
+	}
+
+	/**
+	 * @return the shardRouting.
+	 */
+	public ShardRouting getShardRouting() {
+		return shardRouting;
+	}
+
+	/**
+	 * @param shardRouting
+	 *            the shardRouting to set.
+	 */
+	public void setShardRouting(ShardRouting shardRouting) {
+		this.shardRouting = shardRouting;
+	}
 }
@@ -0,0 +1,132 @@
+package org.md.jmeter.influxdb.visualizer.config;
+
+/**
+ * Constants (Tag, Field, Measurement) names for the measurement of the listener own metrics.
+ */
+public interface ListenerMeasurement {
+
+	/**
+	 * Measurement name.
+	 */
+	String MEASUREMENT_NAME = "listenerMetrics";
+
+	/**
+	 * Tags.
+	 */
+	interface Tags {
+		/**
+		 * Node name.
+		 */
+		String NODE_NAME = "nodeName";
+
+		/**
+		 * Run id.
+		 */
+		String RUN_ID = "runId";
+
+		/**
+		 * Test name.
+		 */
+		String TEST_NAME = "testName";
+	}
+
+	/**
+	 * Fields.
+	 */
+	interface Fields {
+		/**
+		 * Number of the sent batches.
+		 */
+		String BATCHES = "batches";
+
+		/**
+		 * Average number of the points per sent batch.
+		 */
+		String BATCH_POINTS_AVG = "batchPointsAvg";
+
+		/**
+		 * Maximum number of the points per sent batch.
+		 */
+		String BATCH_POINTS_MAX = "batchPointsMax";
+
+		/**
+		 * Number of the points dropped by the overflow policy.
+		 */
+		String DROPPED_POINTS = "droppedPoints";
+
+		/**
+		 * Prefix of the point encoding time fields in nanoseconds.
+		 */
+		String ENCODE_TIME = "encodeTime";
+
+		/**
+		 * Number of the points not delivered because of the write errors.
+		 */
+		String FAILED_POINTS = "failedPoints";
+
+		/**
+		 * Prefix of the sampler filter time fields in nanoseconds.
+		 */
+		String FILTER_TIME = "filterTime";
+
+		/**
+		 * Number of the full batches waiting to be sent.
+		 */
+		String QUEUED_BATCHES = "queuedBatches";
+
+		/**
+		 * Number of the points rejected to the aggregation.
+		 */
+		String REJECTED_POINTS = "rejectedPoints";
+
+		/**
+		 * Prefix of the fields of the time between the sample end and its processing in milliseconds.
+		 */
+		String SAMPLE_LAG = "sampleLag";
+
+		/**
+		 * Number of the processed samples.
+		 */
+		String SAMPLES = "samples";
+
+		/**
+		 * Prefix of the write request time fields in nanoseconds.
+		 */
+		String SEND_TIME = "sendTime";
+
+		/**
+		 * Number of the points spilled to the disk.
+		 */
+		String SPILLED_POINTS = "spilledPoints";
+
+		/**
+		 * Prefix of the fields of the time to hand the point over to the write buffer in nanoseconds.
+		 */
+		String WRITE_TIME = "writeTime";
+
+		/**
+		 * Number of the points delivered to Influx DB.
+		 */
+		String WRITTEN_POINTS = "writtenPoints";
+	}
+
+	/**
+	 * Suffixes of the timing fields.
+	 */
+	interface Statistics {
+		/**
+		 * Average.
+		 */
+		String AVG = "Avg";
+
+		/**
+		 * Maximum.
+		 */
+		String MAX = "Max";
+
+		/**
+		 * 99th percentile.
+		 */
+		String P99 = "P99";
+	}
+}
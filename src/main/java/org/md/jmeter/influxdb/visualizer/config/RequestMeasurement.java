@@ -51,29 +51,14 @@ public interface RequestMeasurement {
 		String ERROR_MSG = "errorMessage";
 
 		/**
-		 * Error response body.
+		 * Request name of the parent sample, written for the sub samples only.
 		 */
-		String ERROR_RESPONSE_BODY = "errorResponseBody";
-
-		/**
-		 * Error response headers.
-		 */
-		String ERROR_RESPONSE_HEADERS = "errorResponseHeaders";
-
-		/**
-		 * Error response URL.
-		 */
-		String ERROR_REQUEST_URL = "errorRequestUrl";
-
-		/**
-		 * Error request headers.
-		 */
-		String ERROR_REQUEST_HEADERS = "errorRequestHeaders";
+		String PARENT_REQUEST_NAME = "parentRequestName";
 
 		/**
-		 * Sampler data.
+		 * Depth of the sub sample, written for the sub samples only.
 		 */
-		String SAMPLER_DATA = "samplerData";
+		String DEPTH = "depth";
 	}
 
 	/**
@@ -122,5 +107,40 @@ public interface RequestMeasurement {
 		 * Processing Time field.
 		 */
 		String PROCESSING_TIME = "processingTime";
+
+		/**
+		 * Weight field, the number of the samples the point represents when the raw samples are downsampled.
+		 */
+		String WEIGHT = "weight";
+
+		/**
+		 * Error response body, truncated; not written if the same body has been written recently.
+		 */
+		String ERROR_RESPONSE_BODY = "errorResponseBody";
+
+		/**
+		 * Hash of the truncated error response body, references the point where the body has been written.
+		 */
+		String ERROR_RESPONSE_BODY_HASH = "errorResponseBodyHash";
+
+		/**
+		 * Error response headers, truncated.
+		 */
+		String ERROR_RESPONSE_HEADERS = "errorResponseHeaders";
+
+		/**
+		 * Error response URL, truncated.
+		 */
+		String ERROR_REQUEST_URL = "errorRequestUrl";
+
+		/**
+		 * Error request headers, truncated.
+		 */
+		String ERROR_REQUEST_HEADERS = "errorRequestHeaders";
+
+		/**
+		 * Sampler data, truncated.
+		 */
+		String SAMPLER_DATA = "samplerData";
 	}
 }
@@ -0,0 +1,121 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.client;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The circuit breaker of the writes to Influx DB.
+ * The breaker opens after the number of the consecutive failed writes, the writes are not attempted while it is open.
+ * Once the backoff elapses the breaker lets the writes through to probe the recovery: the first success closes it,
+ * the failure opens it again for the doubled backoff up to the maximum. The backoff is randomized by up to a half (the jitter),
+ * so the load generators restarted together do not probe Influx DB at the same time.
+ */
+public class CircuitBreaker {
+
+    /**
+     * The state of the {@link CircuitBreaker}.
+     */
+    public enum State {
+
+        /**
+         * The writes are attempted.
+         */
+        CLOSED,
+
+        /**
+         * The writes are not attempted until the backoff elapses.
+         */
+        OPEN,
+
+        /**
+         * The backoff has elapsed, the writes are attempted to probe the recovery.
+         */
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long initialBackoff;
+    private final long maxBackoff;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long backoff;
+    private long retryAt;
+
+    /**
+     * Creates the new instance of the {@link CircuitBreaker}.
+     * @param failureThreshold the number of the consecutive failed writes which opens the breaker.
+     * @param initialBackoff the time the breaker stays open after it opens first in milliseconds.
+     * @param maxBackoff the maximum time the breaker stays open in milliseconds.
+     */
+    public CircuitBreaker(int failureThreshold, long initialBackoff, long maxBackoff) {
+        this.failureThreshold = failureThreshold;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = Math.max(initialBackoff, maxBackoff);
+        this.backoff = initialBackoff;
+    }
+
+    /**
+     * Checks whether the write can be attempted, switches the open breaker to {@link State#HALF_OPEN} once the backoff elapses.
+     * @param now the current time in milliseconds.
+     * @return true if the write can be attempted; otherwise false.
+     */
+    public synchronized boolean allowRequest(long now) {
+        if (this.state == State.OPEN && now >= this.retryAt) {
+            this.state = State.HALF_OPEN;
+        }
+
+        return this.state != State.OPEN;
+    }
+
+    /**
+     * Records the successful write, closes the breaker.
+     * @return true if the breaker has been closed by this write; otherwise false.
+     */
+    public synchronized boolean onSuccess() {
+        boolean recovered = this.state != State.CLOSED;
+        this.state = State.CLOSED;
+        this.consecutiveFailures = 0;
+        this.backoff = this.initialBackoff;
+        return recovered;
+    }
+
+    /**
+     * Records the failed write, opens the breaker if the threshold is reached or the recovery probe has failed.
+     * @param now the current time in milliseconds.
+     * @return true if the breaker has been opened by this write; otherwise false.
+     */
+    public synchronized boolean onFailure(long now) {
+        this.consecutiveFailures++;
+        if (this.state == State.HALF_OPEN) {
+            this.backoff = Math.min(this.maxBackoff, this.backoff * 2);
+        } else if (this.state == State.OPEN || this.consecutiveFailures < this.failureThreshold) {
+            return false;
+        }
+
+        this.state = State.OPEN;
+        this.retryAt = now + this.backoff / 2 + ThreadLocalRandom.current().nextLong(this.backoff / 2 + 1);
+        return true;
+    }
+
+    /**
+     * @return the {@link State}.
+     */
+    public synchronized State getState() {
+        return this.state;
+    }
+
+    /**
+     * @return the number of the consecutive failed writes.
+     */
+    public synchronized int getConsecutiveFailures() {
+        return this.consecutiveFailures;
+    }
+
+    /**
+     * @param now the current time in milliseconds.
+     * @return the time left until the writes are attempted again in milliseconds, 0 if the breaker is not open.
+     */
+    public synchronized long getRetryDelay(long now) {
+        return this.state == State.OPEN ? Math.max(0, this.retryAt - now) : 0;
+    }
+}
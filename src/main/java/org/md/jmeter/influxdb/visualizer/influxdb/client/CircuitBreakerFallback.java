@@ -0,0 +1,45 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.client;
+
+/**
+ * Defines what happens with the points while the {@link CircuitBreaker} is open.
+ */
+public enum CircuitBreakerFallback {
+
+    /**
+     * Keeps the points in the write buffer, the {@link OverflowPolicy} and the spilling apply when the buffer is full.
+     */
+    BUFFER("buffer"),
+
+    /**
+     * Drops the points which should have been written and counts them.
+     */
+    DROP("drop");
+
+    private final String name;
+
+    CircuitBreakerFallback(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the name used in the listener parameters.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the fallback by the name used in the listener parameters.
+     * @param name the fallback name.
+     * @return the {@link CircuitBreakerFallback}.
+     */
+    public static CircuitBreakerFallback fromName(String name) {
+        for (CircuitBreakerFallback fallback : values()) {
+            if (fallback.name.equalsIgnoreCase(name)) {
+                return fallback;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown circuit breaker fallback: " + name);
+    }
+}
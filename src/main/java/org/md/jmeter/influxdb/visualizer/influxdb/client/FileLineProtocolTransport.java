@@ -0,0 +1,185 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.client;
+
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.WritePrecision;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes the batches to the local gzip compressed line protocol files instead of Influx DB, the files are loaded later by the
+ * {@link org.md.jmeter.influxdb.visualizer.loader.LineProtocolLoader}.
+ * Every batch is written as the separate gzip member, so the file is readable up to the last complete batch even if the process has been killed.
+ * <p>
+ * The file is written with the {@link #PART_SUFFIX} and renamed when it reaches the maximum size or the transport is closed,
+ * the name carries the precision of the timestamps: 'points-&lt;time&gt;-&lt;pid&gt;-&lt;sequence&gt;.&lt;precision&gt;.lp.gz'.
+ * The part files left by the killed process are completed by the next transport writing to the directory,
+ * the part files of the live processes (e.g. the other JMeter writing to the same directory) are left to them.
+ */
+public class FileLineProtocolTransport implements LineProtocolTransport {
+
+    /**
+     * The suffix of the complete files.
+     */
+    public static final String FILE_SUFFIX = ".lp.gz";
+
+    /**
+     * The suffix of the file being written.
+     */
+    public static final String PART_SUFFIX = ".part";
+
+    private static final String FILE_PREFIX = "points-";
+    private static final DateTimeFormatter FILE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path directory;
+    private final long maxFileSize;
+    private final WritePrecision precision;
+    private final Logger logger;
+    private final GzipCompressor gzipCompressor = new GzipCompressor();
+    private final String filePrefix;
+
+    private FileChannel channel;
+    private Path partFile;
+    private long fileSize;
+    private int sequence;
+
+    /**
+     * Creates the new instance of the {@link FileLineProtocolTransport}, the files left unfinished by the killed runs are completed.
+     * @param directory the directory of the files.
+     * @param maxFileSize the size of the compressed file which triggers the rotation in bytes.
+     * @param precision the {@link WritePrecision} of the timestamps.
+     * @param logger the {@link Logger}.
+     * @throws IOException if the directory cannot be used.
+     */
+    public FileLineProtocolTransport(Path directory, long maxFileSize, WritePrecision precision, Logger logger) throws IOException {
+        this.directory = directory;
+        this.maxFileSize = maxFileSize;
+        this.precision = precision;
+        this.logger = logger;
+        this.filePrefix = FILE_PREFIX + LocalDateTime.now().format(FILE_TIME_FORMAT) + "-" + ProcessHandle.current().pid() + "-";
+
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> partFiles = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX + PART_SUFFIX)) {
+            for (Path partFile : partFiles) {
+                if (isOwnerAlive(partFile)) {
+                    this.logger.debug("The points file " + partFile + " is being written by the live process, it is not completed");
+                } else {
+                    this.complete(partFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the precision of the timestamps of the file.
+     * @param file the file written by the {@link FileLineProtocolTransport}.
+     * @return the {@link WritePrecision} or null if the name does not have the precision.
+     */
+    public static WritePrecision getPrecision(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.endsWith(FILE_SUFFIX)) {
+            return null;
+        }
+
+        name = name.substring(0, name.length() - FILE_SUFFIX.length());
+        int dot = name.lastIndexOf('.');
+        try {
+            return dot >= 0 ? WritePrecision.fromName(name.substring(dot + 1)) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public int send(LineProtocolBuilder batch) throws IOException {
+        int compressedSize = this.gzipCompressor.compress(batch.getBuffer(), batch.getSize());
+        if (this.channel != null && this.fileSize + compressedSize > this.maxFileSize) {
+            this.rotate();
+        }
+
+        if (this.channel == null) {
+            this.open();
+        }
+
+        ByteBuffer data = ByteBuffer.wrap(this.gzipCompressor.getBuffer(), 0, compressedSize);
+        while (data.hasRemaining()) {
+            this.channel.write(data);
+        }
+        this.fileSize += compressedSize;
+
+        return compressedSize;
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.rotate();
+        } catch (IOException e) {
+            this.logger.warn("Failed completing the points file " + this.partFile, e);
+        }
+
+        this.gzipCompressor.close();
+    }
+
+    private void open() throws IOException {
+        String name = this.filePrefix + String.format("%05d", ++this.sequence) + "." + this.precision.getName() + FILE_SUFFIX;
+        this.partFile = this.directory.resolve(name + PART_SUFFIX);
+        this.channel = FileChannel.open(this.partFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        this.fileSize = 0;
+    }
+
+    private void rotate() throws IOException {
+        if (this.channel == null) {
+            return;
+        }
+
+        try {
+            this.channel.force(false);
+            this.channel.close();
+        } finally {
+            this.channel = null;
+        }
+
+        this.complete(this.partFile);
+    }
+
+    /**
+     * Checks whether the process which has written the part file is still running, the pid is in the file name.
+     * @param partFile the file being written.
+     * @return true if the process is alive or the file name has no pid; otherwise false.
+     */
+    static boolean isOwnerAlive(Path partFile) {
+        String name = partFile.getFileName().toString();
+        if (!name.startsWith(FILE_PREFIX)) {
+            return true;
+        }
+
+        // 'points-<date>-<time>-<pid>-<sequence>...'
+        String[] parts = name.substring(FILE_PREFIX.length()).split("-", 4);
+        if (parts.length < 4) {
+            return true;
+        }
+
+        try {
+            return ProcessHandle.of(Long.parseLong(parts[2])).map(ProcessHandle::isAlive).orElse(false);
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private void complete(Path partFile) throws IOException {
+        String name = partFile.getFileName().toString();
+        Path file = partFile.resolveSibling(name.substring(0, name.length() - PART_SUFFIX.length()));
+        Files.move(partFile, file, StandardCopyOption.ATOMIC_MOVE);
+        this.logger.info("Points have been written to " + file);
+    }
+}
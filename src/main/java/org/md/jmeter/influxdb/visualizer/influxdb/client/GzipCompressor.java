@@ -0,0 +1,70 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.client;
+
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses the write request bodies to the gzip format reusing the deflater and the output buffer.
+ * The instance is not thread safe, it is used by one sending thread at a time.
+ */
+public class GzipCompressor {
+
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int TRAILER_SIZE = 8;
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+    private final CRC32 crc = new CRC32();
+    private byte[] buffer = new byte[64 * 1024];
+
+    /**
+     * Compresses the data to the internal buffer.
+     * @param data the data to compress.
+     * @param length the number of the bytes to compress.
+     * @return the compressed size, the compressed data is in {@link #getBuffer()}.
+     */
+    public int compress(byte[] data, int length) {
+        this.deflater.reset();
+        this.deflater.setInput(data, 0, length);
+        this.deflater.finish();
+        this.crc.reset();
+        this.crc.update(data, 0, length);
+
+        System.arraycopy(HEADER, 0, this.buffer, 0, HEADER.length);
+        int size = HEADER.length;
+        while (!this.deflater.finished()) {
+            if (size == this.buffer.length) {
+                this.buffer = Arrays.copyOf(this.buffer, this.buffer.length << 1);
+            }
+            size += this.deflater.deflate(this.buffer, size, this.buffer.length - size);
+        }
+
+        if (size + TRAILER_SIZE > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, size + TRAILER_SIZE);
+        }
+        size = writeIntLE(this.buffer, size, (int) this.crc.getValue());
+        return writeIntLE(this.buffer, size, length);
+    }
+
+    /**
+     * @return the buffer with the compressed data of the last {@link #compress(byte[], int)} call.
+     */
+    public byte[] getBuffer() {
+        return this.buffer;
+    }
+
+    /**
+     * Releases the deflater.
+     */
+    public void close() {
+        this.deflater.end();
+    }
+
+    private static int writeIntLE(byte[] buffer, int position, int value) {
+        buffer[position] = (byte) value;
+        buffer[position + 1] = (byte) (value >> 8);
+        buffer[position + 2] = (byte) (value >> 16);
+        buffer[position + 3] = (byte) (value >> 24);
+        return position + 4;
+    }
+}
@@ -0,0 +1,128 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.client;
+
+import okhttp3.Credentials;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.md.jmeter.influxdb.visualizer.config.InfluxDBConfig;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Sends the batches as the bodies of the Influx DB /write requests, optionally gzip compressed.
+ * The batches can be sent by the concurrent threads, every send takes the free compressor from the pool.
+ */
+public class HttpLineProtocolTransport implements LineProtocolTransport {
+
+    private static final MediaType LINE_PROTOCOL_MEDIA_TYPE = MediaType.get("text/plain; charset=utf-8");
+
+    /**
+     * The maximum number of the bytes of the error response put to the exception message.
+     */
+    private static final long MAX_ERROR_BODY_SIZE = 1024;
+
+    private final OkHttpClient httpClient;
+    private final HttpUrl writeUrl;
+
+    /**
+     * The value of the basic Authorization header, null if the user is not set;
+     * the credentials are not sent as the query parameters, which are written to the access logs.
+     */
+    private final String authorization;
+
+    /**
+     * Indicates whether the bodies are compressed.
+     */
+    private final boolean gzipEnabled;
+
+    /**
+     * The compressors which are not used by the running sends.
+     */
+    private final Queue<GzipCompressor> gzipCompressors = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates the new instance of the {@link HttpLineProtocolTransport}.
+     * @param influxDBConfig the {@link InfluxDBConfig}.
+     * @param httpClient the {@link OkHttpClient} to send the requests.
+     */
+    public HttpLineProtocolTransport(InfluxDBConfig influxDBConfig, OkHttpClient httpClient) {
+        this(influxDBConfig, influxDBConfig.getInfluxDBURL(), httpClient);
+    }
+
+    /**
+     * Creates the new instance of the {@link HttpLineProtocolTransport} writing to the given Influx DB, e.g. the shard.
+     * @param influxDBConfig the {@link InfluxDBConfig}.
+     * @param influxDBURL the URL of Influx DB.
+     * @param httpClient the {@link OkHttpClient} to send the requests.
+     */
+    public HttpLineProtocolTransport(InfluxDBConfig influxDBConfig, String influxDBURL, OkHttpClient httpClient) {
+        this.httpClient = httpClient;
+        this.gzipEnabled = influxDBConfig.isGzipEnabled();
+
+        this.writeUrl = HttpUrl.get(influxDBURL).newBuilder()
+                .addPathSegment("write")
+                .addQueryParameter("db", influxDBConfig.getInfluxDatabase())
+                .addQueryParameter("rp", influxDBConfig.getInfluxRetentionPolicy())
+                .addQueryParameter("precision", influxDBConfig.getPrecision().getQueryParameter())
+                .build();
+
+        String user = influxDBConfig.getInfluxUser();
+        String password = influxDBConfig.getInfluxPassword();
+        this.authorization = user != null && !user.isEmpty()
+                ? Credentials.basic(user, password != null ? password : "", StandardCharsets.UTF_8)
+                : null;
+    }
+
+    @Override
+    public int send(LineProtocolBuilder batch) throws IOException {
+        Request.Builder request = new Request.Builder().url(this.writeUrl);
+        if (this.authorization != null) {
+            request.header("Authorization", this.authorization);
+        }
+        if (!this.gzipEnabled) {
+            this.execute(request.post(RequestBody.create(batch.getBuffer(), LINE_PROTOCOL_MEDIA_TYPE, 0, batch.getSize())));
+            return batch.getSize();
+        }
+
+        GzipCompressor gzipCompressor = this.gzipCompressors.poll();
+        if (gzipCompressor == null) {
+            gzipCompressor = new GzipCompressor();
+        }
+
+        try {
+            int bodySize = gzipCompressor.compress(batch.getBuffer(), batch.getSize());
+            this.execute(request.header("Content-Encoding", "gzip")
+                    .post(RequestBody.create(gzipCompressor.getBuffer(), LINE_PROTOCOL_MEDIA_TYPE, 0, bodySize)));
+            return bodySize;
+        } finally {
+            this.gzipCompressors.offer(gzipCompressor);
+        }
+    }
+
+    private void execute(Request.Builder request) throws IOException {
+        try (Response response = this.httpClient.newCall(request.build()).execute()) {
+            if (!response.isSuccessful()) {
+                ResponseBody responseBody = response.peekBody(MAX_ERROR_BODY_SIZE);
+                throw new IOException("Influx DB responded with status: " + response.code() + ", response: " + responseBody.string());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        GzipCompressor gzipCompressor;
+        while ((gzipCompressor = this.gzipCompressors.poll()) != null) {
+            gzipCompressor.close();
+        }
+        this.httpClient.dispatcher().executorService().shutdown();
+        this.httpClient.connectionPool().evictAll();
+    }
+}
@@ -1,31 +1,51 @@
 package org.md.jmeter.influxdb.visualizer.influxdb.client;
 
 import org.md.jmeter.influxdb.visualizer.config.InfluxDBConfig;
+import okhttp3.ConnectionPool;
 import okhttp3.OkHttpClient;
 import org.apache.jmeter.visualizers.backend.BackendListenerContext;
-import org.influxdb.BatchOptions;
 import org.influxdb.InfluxDB;
 import org.influxdb.InfluxDBFactory;
-import org.influxdb.dto.Point;
+import org.influxdb.dto.Pong;
 import org.influxdb.dto.Query;
 import org.influxdb.dto.QueryResult;
 import org.influxdb.impl.Preconditions;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolPoint;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.WritePrecision;
 import org.slf4j.Logger;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
  * The client to work with Influx DB 1.8 or less.
+ * The points are encoded as the line protocol into reusable buffers and sent as the HTTP write request bodies
+ * by the {@link WritePipeline}, the Influx DB java client is used for the queries only.
+ * The test does not wait for Influx DB: the readiness is probed in the background and the points are buffered until it responds.
+ * <p>
+ * The points can be sharded to several Influx DB instances, see {@link ShardRouting}. Every shard has its own connection pool,
+ * write pipeline with the buffer and the circuit breaker and readiness probe, so the slow or failed shard does not stall the others.
  *
  *  @author Michael Derevyanko
  */
 public class InfluxDatabaseClient {
 
+    private static final int ONE_MB_IN_BYTES = 1024 * 1024;
+    private static final long PROBE_INITIAL_DELAY_MS = 1000;
+    private static final long PROBE_MAX_DELAY_MS = 30000;
+
     private static org.slf4j.Logger LOGGER;
     private final InfluxDBConfig influxDBConfig;
-    private InfluxDB influxDB;
+    private final List<Shard> shards = new ArrayList<>();
+    private final WriteStatistics writeStatistics = new WriteStatistics();
+    private ShardRouter shardRouter;
+    private ScheduledExecutorService startup;
 
     /**
      * Creates a new instance of the @link InfluxDatabaseClient.
@@ -40,69 +60,260 @@ public class InfluxDatabaseClient {
 
     /**
      * Creates the Influx DB client instance.
+     * @param nodeName the name of the node, the points are routed to the shards by it (see {@link ShardRouting}).
+     */
+    public void setupInfluxClient(String nodeName) {
+
+        List<String> influxDBURLs = this.influxDBConfig.getInfluxDBURLs();
+        for (String influxDBURL : influxDBURLs) {
+            this.shards.add(new Shard(influxDBURL));
+        }
+
+        if (this.shards.size() == 1) {
+            this.shards.get(0).writePipeline = this.createWritePipeline(this.createTransport(), this.createSpillQueue(null), this.getEndpoint());
+        } else {
+            for (int i = 0; i < this.shards.size(); i++) {
+                Shard shard = this.shards.get(i);
+                shard.writePipeline = this.createWritePipeline(this.createHttpTransport(shard), this.createSpillQueue("shard-" + (i + 1)), shard.url);
+            }
+            LOGGER.info("Points are going to be sharded to " + influxDBURLs + " by " + this.influxDBConfig.getShardRouting().getName());
+        }
+
+        this.shardRouter = new ShardRouter(this.influxDBConfig.getShardRouting(), influxDBURLs, nodeName);
+    }
+
+    /**
+     * Creates the {@link WritePipeline} of the shard, the statistics are shared by the shards.
+     * @param transport the {@link LineProtocolTransport}.
+     * @param spillQueue the {@link SpillQueue} or null.
+     * @param endpoint the description of the destination for the logs.
+     * @return the {@link WritePipeline}.
+     */
+    private WritePipeline createWritePipeline(LineProtocolTransport transport, SpillQueue spillQueue, String endpoint) {
+        return new WritePipeline(transport,
+                this.influxDBConfig.getBatchSize(),
+                this.influxDBConfig.getFlushInterval(),
+                this.influxDBConfig.getBufferCapacity(),
+                this.influxDBConfig.getOverflowPolicy(),
+                this.influxDBConfig.getPrecision(),
+                spillQueue,
+                this.influxDBConfig.getSpillReplayRate(),
+                this.influxDBConfig.getWriteStripes(),
+                this.influxDBConfig.isUdpTransport() || this.influxDBConfig.isFileTransport() ? 1 : this.influxDBConfig.getMaxRequests(),
+                new CircuitBreaker(this.influxDBConfig.getCircuitBreakerFailures(),
+                        this.influxDBConfig.getCircuitBreakerBackoff(),
+                        this.influxDBConfig.getCircuitBreakerMaxBackoff()),
+                this.influxDBConfig.getCircuitBreakerFallback(),
+                this.influxDBConfig.getErrorLogInterval(),
+                this.writeStatistics,
+                endpoint,
+                LOGGER);
+    }
+
+    /**
+     * @return the description of the destination of the single (not sharded) write pipeline for the logs.
+     */
+    private String getEndpoint() {
+        if (this.influxDBConfig.isUdpTransport()) {
+            return "udp://" + this.influxDBConfig.getInfluxDBHost() + ":" + this.influxDBConfig.getUdpPort();
+        }
+
+        if (this.influxDBConfig.isFileTransport()) {
+            return this.influxDBConfig.getFileDirectory();
+        }
+
+        return this.influxDBConfig.getInfluxDBURL();
+    }
+
+    /**
+     * Creates the transport selected in the {@link InfluxDBConfig}, the HTTP client is created for the HTTP transport only.
+     * Can be overridden to deliver the points elsewhere, e.g. by the benchmarks.
+     * @return the {@link LineProtocolTransport}.
+     */
+    protected LineProtocolTransport createTransport() {
+
+        if (this.influxDBConfig.isUdpTransport()) {
+            try {
+                LOGGER.info("Points are going to be sent to the influx db UDP listener: " + this.influxDBConfig.getInfluxDBHost() + ":" + this.influxDBConfig.getUdpPort());
+                return new UdpLineProtocolTransport(this.influxDBConfig.getInfluxDBHost(), this.influxDBConfig.getUdpPort(), this.influxDBConfig.getUdpMtu(), this.writeStatistics, LOGGER);
+            }
+            catch (IOException e)
+            {
+                throw new IllegalStateException("Failed to open the UDP channel", e);
+            }
+        }
+
+        if (this.influxDBConfig.isFileTransport()) {
+            try {
+                LOGGER.info("Points are going to be written to the files in " + this.influxDBConfig.getFileDirectory());
+                return new FileLineProtocolTransport(Paths.get(this.influxDBConfig.getFileDirectory()),
+                        (long) this.influxDBConfig.getFileMaxSize() * ONE_MB_IN_BYTES,
+                        this.influxDBConfig.getPrecision(),
+                        LOGGER);
+            }
+            catch (IOException e)
+            {
+                throw new IllegalStateException("Failed to use the points directory: " + this.influxDBConfig.getFileDirectory(), e);
+            }
+        }
+
+        return this.createHttpTransport(this.shards.get(0));
+    }
+
+    /**
+     * Creates the HTTP transport and the query client of the shard, they share the connection pool of the shard.
+     * @param shard the {@link Shard}.
+     * @return the {@link HttpLineProtocolTransport}.
      */
-    public void setupInfluxClient() {
+    private LineProtocolTransport createHttpTransport(Shard shard) {
 
         OkHttpClient.Builder httpClient = new OkHttpClient.Builder()
-                .connectTimeout(1, TimeUnit.MINUTES)
-                .readTimeout(1, TimeUnit.MINUTES)
-                .writeTimeout(1, TimeUnit.MINUTES)
+                .connectTimeout(this.influxDBConfig.getConnectTimeout(), TimeUnit.MILLISECONDS)
+                .readTimeout(this.influxDBConfig.getReadTimeout(), TimeUnit.MILLISECONDS)
+                .writeTimeout(this.influxDBConfig.getWriteTimeout(), TimeUnit.MILLISECONDS)
+                .connectionPool(new ConnectionPool(this.influxDBConfig.getMaxIdleConnections(), this.influxDBConfig.getKeepAlive(), TimeUnit.SECONDS))
                 .retryOnConnectionFailure(true);
 
         // check that secure service is going to be used
         if (this.influxDBConfig.getInfluxUser() != null && !this.influxDBConfig.getInfluxUser().isEmpty()) {
 
             Preconditions.checkNonEmptyString(this.influxDBConfig.getInfluxPassword(), "password");
-            this.influxDB = InfluxDBFactory.connect(this.influxDBConfig.getInfluxDBURL(), this.influxDBConfig.getInfluxUser(), this.influxDBConfig.getInfluxPassword(), httpClient);
+            shard.influxDB = InfluxDBFactory.connect(shard.url, this.influxDBConfig.getInfluxUser(), this.influxDBConfig.getInfluxPassword(), httpClient);
             LOGGER.info("Influx db client has been created to use login and password!");
         }
         else {
-            this.influxDB = InfluxDBFactory.connect(this.influxDBConfig.getInfluxDBURL(), httpClient);
+            shard.influxDB = InfluxDBFactory.connect(shard.url, httpClient);
             LOGGER.info("Influx db client has been created!");
         }
 
-        this.influxDB.enableBatch(BatchOptions.DEFAULTS);
+        return new HttpLineProtocolTransport(this.influxDBConfig, shard.url, httpClient.build());
+    }
+
+    /**
+     * Creates the {@link SpillQueue} if the spill directory is set.
+     * @param shardDirectory the subdirectory of the shard, null if the points are not sharded.
+     * @return the {@link SpillQueue} or null if the spilling is disabled or the directory cannot be used.
+     */
+    private SpillQueue createSpillQueue(String shardDirectory) {
+        if (this.influxDBConfig.getSpillDirectory().isEmpty()) {
+            return null;
+        }
+
+        Path spillDirectory = Paths.get(this.influxDBConfig.getSpillDirectory());
+        if (shardDirectory != null) {
+            spillDirectory = spillDirectory.resolve(shardDirectory);
+        }
+
+        try {
+            SpillQueue spillQueue = new SpillQueue(spillDirectory,
+                    (long) this.influxDBConfig.getSpillMaxSize() * ONE_MB_IN_BYTES,
+                    this.influxDBConfig.getSpillSegmentSize() * ONE_MB_IN_BYTES,
+                    LOGGER);
+            LOGGER.info("Points are going to be spilled to " + spillDirectory + " when influx db does not keep up");
+            return spillQueue;
+        }
+        catch (Exception e)
+        {
+            LOGGER.error("Failed to use the spill directory: " + spillDirectory + ", spilling is disabled", e);
+            return null;
+        }
+    }
+
+    /**
+     * Starts probing Influx DB in the background: once the ping succeeds the database is created if it does not exist
+     * and the buffered points are sent. The probe is retried with the exponential backoff until it succeeds or the client is closed.
+     * Every shard is probed on its own. Skipped for the UDP and the file transports, there is nothing to probe.
+     */
+    public void startReadinessProbe() {
+        if (this.shards.get(0).influxDB == null) {
+            return;
+        }
+
+        this.startup = Executors.newScheduledThreadPool(this.shards.size(), runnable -> {
+            Thread thread = new Thread(runnable, "influxdb-startup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Shard shard : this.shards) {
+            shard.writePipeline.setReady(false);
+            this.startup.execute(() -> this.probe(shard, PROBE_INITIAL_DELAY_MS));
+        }
+    }
+
+    /**
+     * Pings Influx DB of the shard and creates the database, schedules the next attempt on the failure.
+     * @param shard the {@link Shard}.
+     * @param nextDelay the delay of the next attempt in milliseconds.
+     */
+    private void probe(Shard shard, long nextDelay) {
+        try {
+            Pong pong = shard.influxDB.ping();
+            if (!pong.isGood()) {
+                throw new IllegalStateException("Ping is not successful: " + pong);
+            }
+
+            this.createDatabaseIfNotExistent(shard.influxDB);
+            shard.writePipeline.setReady(true);
+            LOGGER.info("Influx db " + pong.getVersion() + " at " + shard.url + " is ready, the buffered points are going to be sent");
+        }
+        catch (Exception e)
+        {
+            LOGGER.warn("Influx db " + shard.url + " is not ready, the points are buffered, next attempt in " + nextDelay + " ms: " + e.getMessage());
+            if (!this.startup.isShutdown()) {
+                this.startup.schedule(() -> this.probe(shard, Math.min(nextDelay * 2, PROBE_MAX_DELAY_MS)), nextDelay, TimeUnit.MILLISECONDS);
+            }
+        }
     }
 
     /**
      * Creates the influxdb instance if it does not exist, the db name used from {@link InfluxDBConfig}.
+     * @param influxDB the {@link InfluxDB} of the shard.
      */
-    public void createDatabaseIfNotExistent() {
-        List<String> dbNames = this.getAllDatabases();
+    private void createDatabaseIfNotExistent(InfluxDB influxDB) {
+        List<String> dbNames = this.getAllDatabases(influxDB);
 
         if (!dbNames.contains(influxDBConfig.getInfluxDatabase())) {
-            this.createDatabase(influxDBConfig.getInfluxDatabase());
+            this.createDatabase(influxDB, influxDBConfig.getInfluxDatabase());
         }
     }
 
     /**
      * Gets all Influx DB names.
-     * @return the list of the DB names.
+     * @param influxDB the {@link InfluxDB} of the shard.
+     * @return the list of the DB names, empty if there are no databases.
      */
-    public List<String> getAllDatabases() {
+    private List<String> getAllDatabases(InfluxDB influxDB) {
 
-        QueryResult result = this.influxDB.query(new Query("SHOW DATABASES"));
+        QueryResult result = influxDB.query(new Query("SHOW DATABASES"));
 
-        List<List<Object>> databaseNames = result.getResults().get(0).getSeries().get(0).getValues();
         List<String> databases = new ArrayList<>();
-        if (databaseNames != null) {
-            for (List<Object> database : databaseNames) {
-                databases.add(database.get(0).toString());
-            }
+        if (result.getResults() == null || result.getResults().isEmpty()) {
+            return databases;
+        }
+
+        // the series are not returned by the server without the databases
+        List<QueryResult.Series> series = result.getResults().get(0).getSeries();
+        if (series == null || series.isEmpty() || series.get(0).getValues() == null) {
+            return databases;
+        }
+
+        for (List<Object> database : series.get(0).getValues()) {
+            databases.add(database.get(0).toString());
         }
         return databases;
     }
 
     /**
      * Creates database.
+     * @param influxDB the {@link InfluxDB} of the shard.
      * @param name the DB name.
      */
-    public void createDatabase(final String name) {
+    private void createDatabase(InfluxDB influxDB, final String name) {
         Preconditions.checkNonEmptyString(name, "name");
         String createDatabaseQueryString = String.format("CREATE DATABASE \"%s\"", name);
 
         try {
-            this.influxDB.query(new Query(createDatabaseQueryString));
+            influxDB.query(new Query(createDatabaseQueryString));
         }
         catch (Exception e)
         {
@@ -111,25 +322,106 @@ public class InfluxDatabaseClient {
     }
 
     /**
-     * Writes the {@link Point}.
-     * @param point the Influxdb {@link Point}.
+     * Writes the {@link LineProtocolPoint} which does not belong to the request, the point is encoded to the current batch
+     * and sent in the background once the batch is full or the flush interval elapsed.
+     * Timestamps must be in nanoseconds, they are written in the configured {@link WritePrecision}.
+     * @param point the {@link LineProtocolPoint}.
+     * @return false if the point has been rejected because the buffer is full and the {@link OverflowPolicy#AGGREGATE} policy is used.
      */
-    public void write(Point point)
+    public boolean write(LineProtocolPoint point)
     {
-        try {
-            this.influxDB.write(influxDBConfig.getInfluxDatabase(), influxDBConfig.getInfluxRetentionPolicy(), point);
-        }
-        catch (Exception e)
-        {
-            LOGGER.error("Failed writing to influx", e);
+        return this.write(point, null);
+    }
+
+    /**
+     * Writes the {@link LineProtocolPoint} of the request to the shard chosen by the {@link ShardRouter}.
+     * @param point the {@link LineProtocolPoint}.
+     * @param requestName the request name of the point, null if the point does not belong to the request.
+     * @return false if the point has been rejected because the buffer is full and the {@link OverflowPolicy#AGGREGATE} policy is used.
+     */
+    public boolean write(LineProtocolPoint point, String requestName)
+    {
+        return this.shards.get(this.shardRouter.route(requestName)).writePipeline.write(point);
+    }
+
+    /**
+     * @return the {@link OverflowPolicy} of the write buffer.
+     */
+    public OverflowPolicy getOverflowPolicy()
+    {
+        return this.influxDBConfig.getOverflowPolicy();
+    }
+
+    /**
+     * @return the {@link WritePrecision} of the timestamps.
+     */
+    public WritePrecision getPrecision()
+    {
+        return this.influxDBConfig.getPrecision();
+    }
+
+    /**
+     * @return the number of the stripes the concurrent writers are spread to.
+     */
+    public int getWriteStripes()
+    {
+        return this.influxDBConfig.getWriteStripes();
+    }
+
+    /**
+     * @return the {@link WriteStatistics} of the write pipeline.
+     */
+    public WriteStatistics getWriteStatistics()
+    {
+        return this.writeStatistics;
+    }
+
+    /**
+     * @return the number of the full batches of all the shards waiting to be sent.
+     */
+    public int getQueuedBatches()
+    {
+        int queuedBatches = 0;
+        for (Shard shard : this.shards) {
+            queuedBatches += shard.writePipeline.getQueuedBatches();
         }
+        return queuedBatches;
     }
 
     /**
-     * Disables batch.
+     * Sends all the buffered points and stops the background writer.
      */
-    public void disableBatch()
+    public void close()
     {
-        this.influxDB.disableBatch();
+        if (this.startup != null) {
+            this.startup.shutdownNow();
+        }
+
+        for (Shard shard : this.shards) {
+            shard.writePipeline.close();
+            if (shard.influxDB != null) {
+                shard.influxDB.close();
+            }
+        }
+        LOGGER.info("Influx db writer has been stopped, points " + this.writeStatistics);
+    }
+
+    /**
+     * The Influx DB instance the points are written to.
+     */
+    private static final class Shard {
+
+        private final String url;
+
+        /**
+         * The query client, null for the UDP and the file transports.
+         */
+        private InfluxDB influxDB;
+
+        private WritePipeline writePipeline;
+
+        private Shard(String url) {
+            this.url = url;
+        }
     }
 }
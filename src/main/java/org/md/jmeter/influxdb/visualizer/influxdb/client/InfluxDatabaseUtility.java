@@ -1,23 +1,63 @@
 package org.md.jmeter.influxdb.visualizer.influxdb.client;
 
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+
+import java.nio.charset.StandardCharsets;
+
 /**
- * The utility to escape values before inserting.
+ * The utility to escape values before inserting, the escaping itself is done by the {@link LineProtocolBuilder}.
  *
  *  @author Michael Derevyanko
  */
 public class InfluxDatabaseUtility {
 
     /**
-     * Updates not supported values.
-     * @param value the string which is going to be updated.
+     * Escapes the tag key or value: ',', '=' and ' ' are escaped by '\\', the line breaks are removed.
+     * The rules are those of {@link LineProtocolBuilder#tag(String, String)}.
+     * @param value the string which is going to be escaped.
      * @return the escaped string.
      */
     public static String getEscapedString(String value) {
+        return new String(LineProtocolBuilder.escapeTag(value), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the number of the chars of the value which fit the limit once encoded to UTF-8, the surrogate pair is never split.
+     * @param value the chars which are going to be truncated.
+     * @param maxBytes the maximum number of the UTF-8 bytes.
+     * @return the number of the chars to keep.
+     */
+    public static int getTruncatedLength(CharSequence value, int maxBytes) {
+        int length = value.length();
+        int bytes = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            int charBytes = c < 0x80 ? 1 : c < 0x800 ? 2 : Character.isHighSurrogate(c) ? 4 : 3;
+            if (bytes + charBytes > maxBytes) {
+                return i;
+            }
+
+            bytes += charBytes;
+            if (charBytes == 4) {
+                i++;
+            }
+        }
+
+        return length;
+    }
+
+    /**
+     * Gets the 64-bit FNV-1a hash of the beginning of the value.
+     * @param value the chars to hash.
+     * @param length the number of the chars to hash.
+     * @return the hash.
+     */
+    public static long getHash(CharSequence value, int length) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
 
-        return value.replace("\n", "")
-                .replace("\r", "")
-                .replace(" ", "\\ ")
-                .replace(",", ",\\ ")
-                .replace("=", "=\\ ");
+        return hash;
     }
 }
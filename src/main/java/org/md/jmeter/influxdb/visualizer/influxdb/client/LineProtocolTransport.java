@@ -0,0 +1,26 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.client;
+
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+
+import java.io.IOException;
+
+/**
+ * Delivers the batches of the encoded points to Influx DB.
+ */
+public interface LineProtocolTransport extends AutoCloseable {
+
+    /**
+     * Sends the batch, the buffer is reused after the method returns.
+     * Called by one thread at a time unless the {@link WritePipeline} has more than one sender.
+     * @param batch the encoded points.
+     * @return the number of the bytes sent, less than the batch size if the batch has been compressed.
+     * @throws IOException if the batch has not been delivered.
+     */
+    int send(LineProtocolBuilder batch) throws IOException;
+
+    /**
+     * Releases the transport resources.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,55 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.client;
+
+/**
+ * Defines what happens with the points when the write buffer is full because Influx DB does not keep up.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Blocks the writing thread until there is the space in the buffer.
+     */
+    BLOCK("block"),
+
+    /**
+     * Drops the oldest buffered batch to accept the new points.
+     */
+    DROP_OLDEST("dropOldest"),
+
+    /**
+     * Drops the new points while the buffer is full.
+     */
+    DROP_NEWEST("dropNewest"),
+
+    /**
+     * Rejects the new points while the buffer is full, rejected samples are aggregated by the listener instead.
+     */
+    AGGREGATE("aggregate");
+
+    private final String name;
+
+    OverflowPolicy(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the name used in the listener parameters.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the policy by the name used in the listener parameters.
+     * @param name the policy name.
+     * @return the {@link OverflowPolicy}.
+     */
+    public static OverflowPolicy fromName(String name) {
+        for (OverflowPolicy policy : values()) {
+            if (policy.name.equalsIgnoreCase(name)) {
+                return policy;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown overflow policy: " + name);
+    }
+}
@@ -0,0 +1,115 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.client;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chooses the Influx DB shard of the point according to the {@link ShardRouting}.
+ * The consistent hash ring has the virtual nodes of every shard named by its URL, the key goes to the first virtual node
+ * at or after its hash; so the same key goes to the same shard on every generator and adding the shard moves about
+ * 1/n of the keys only. The hash is {@link String#hashCode()} spread by the MurmurHash3 finalizer, it is stable across the JVMs.
+ */
+public class ShardRouter {
+
+    /**
+     * The number of the virtual nodes per shard, evens out the share of the keys.
+     */
+    private static final int VIRTUAL_NODES = 160;
+
+    private final ShardRouting routing;
+    private final int shards;
+
+    /**
+     * The sorted hashes of the virtual nodes and the shards they belong to.
+     */
+    private final int[] ringHashes;
+    private final int[] ringShards;
+
+    /**
+     * The shard of the node name, used for all the points by the {@link ShardRouting#NODE_NAME} routing
+     * and for the points without the request name by the {@link ShardRouting#REQUEST_NAME} routing.
+     */
+    private final int nodeShard;
+
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    /**
+     * Creates the new instance of the {@link ShardRouter}.
+     * @param routing the {@link ShardRouting}.
+     * @param shardNames the names of the shards, their URLs.
+     * @param nodeName the name of the node the points are written by.
+     */
+    public ShardRouter(ShardRouting routing, List<String> shardNames, String nodeName) {
+        this.routing = routing;
+        this.shards = shardNames.size();
+
+        long[] ring = new long[this.shards * VIRTUAL_NODES];
+        for (int shard = 0; shard < this.shards; shard++) {
+            for (int node = 0; node < VIRTUAL_NODES; node++) {
+                // the hash in the high bits and the shard in the low ones, so the ring is sorted by the hash
+                int hash = hash(shardNames.get(shard) + "#" + node);
+                ring[shard * VIRTUAL_NODES + node] = ((long) hash << 32) | shard;
+            }
+        }
+        Arrays.sort(ring);
+
+        this.ringHashes = new int[ring.length];
+        this.ringShards = new int[ring.length];
+        for (int i = 0; i < ring.length; i++) {
+            this.ringHashes[i] = (int) (ring[i] >> 32);
+            this.ringShards[i] = (int) ring[i];
+        }
+
+        this.nodeShard = this.getShard(nodeName);
+    }
+
+    /**
+     * Chooses the shard of the point, can be called by the concurrent threads.
+     * @param requestName the request name of the point, null if the point does not belong to the request.
+     * @return the index of the shard.
+     */
+    public int route(String requestName) {
+        if (this.shards == 1) {
+            return 0;
+        }
+
+        switch (this.routing) {
+            case ROUND_ROBIN:
+                return (this.nextShard.getAndIncrement() & Integer.MAX_VALUE) % this.shards;
+            case REQUEST_NAME:
+                return requestName != null ? this.getShard(requestName) : this.nodeShard;
+            case NODE_NAME:
+            default:
+                return this.nodeShard;
+        }
+    }
+
+    /**
+     * Gets the shard of the key on the consistent hash ring.
+     * @param key the key.
+     * @return the index of the shard.
+     */
+    public int getShard(String key) {
+        if (this.shards == 1) {
+            return 0;
+        }
+
+        int index = Arrays.binarySearch(this.ringHashes, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+
+        return this.ringShards[index < this.ringHashes.length ? index : 0];
+    }
+
+    private static int hash(String key) {
+        int hash = key != null ? key.hashCode() : 0;
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
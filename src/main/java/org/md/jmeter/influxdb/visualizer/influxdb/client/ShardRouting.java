@@ -0,0 +1,51 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.client;
+
+/**
+ * Defines how the points are routed to the Influx DB shards.
+ */
+public enum ShardRouting {
+
+    /**
+     * The consistent hash of the request name, all the points of the request go to the same shard from every generator;
+     * the points without the request name are routed by the node name.
+     */
+    REQUEST_NAME("requestName"),
+
+    /**
+     * The consistent hash of the node name, all the points of the generator go to the same shard.
+     */
+    NODE_NAME("nodeName"),
+
+    /**
+     * The points are spread evenly over the shards one by one.
+     */
+    ROUND_ROBIN("roundRobin");
+
+    private final String name;
+
+    ShardRouting(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the name used in the listener parameters.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the routing by the name used in the listener parameters.
+     * @param name the routing name.
+     * @return the {@link ShardRouting}.
+     */
+    public static ShardRouting fromName(String name) {
+        for (ShardRouting routing : values()) {
+            if (routing.name.equalsIgnoreCase(name)) {
+                return routing;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown shard routing: " + name);
+    }
+}
@@ -0,0 +1,447 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.client;
+
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * The disk-backed write-ahead queue of the encoded batches, used when the in-memory buffer is full or the writes fail.
+ * The batches are appended to the memory-mapped segment files and read back in the same order.
+ * <p>
+ * The segment starts with its long sequence number, the order the segments are replayed in by the next run.
+ * The record is 'int length, int points, int CRC32C of the length, the points and the bytes, bytes'; every append is followed
+ * by the zero length marker, so the reader stops at the end of the written data even in the recycled segment with the stale content.
+ * The records of the previous run are replayed up to the first one with the wrong checksum, e.g. torn by the crash.
+ * <p>
+ * The appends go to the page cache, the changed segments are forced to the disk by {@link #force()} every flush interval,
+ * so the appending threads never wait for the disk: the spilled records survive the killed process at once and the OS crash
+ * once they have been forced. The consumed segments are kept mapped and reused with the new sequence number
+ * (the mapped file can be neither renamed nor deleted on Windows), they are deleted when the queue is closed empty.
+ */
+public class SpillQueue {
+
+    private static final String SEGMENT_PREFIX = "spill-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int SEGMENT_HEADER_SIZE = Long.BYTES;
+    private static final int RECORD_HEADER_SIZE = 3 * Integer.BYTES;
+
+    private final Path directory;
+    private final long maxSize;
+    private final int segmentSize;
+    private final Logger logger;
+
+    /**
+     * The segments which have the unread records, the first one is read, the last one is appended to.
+     */
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    /**
+     * The consumed segments which can be reused.
+     */
+    private final Deque<Segment> freeSegments = new ArrayDeque<>();
+
+    private final CRC32C checksum = new CRC32C();
+    private final ByteBuffer checksumHeader = ByteBuffer.allocate(2 * Integer.BYTES);
+
+    private long nextSequence;
+    private long spilledPoints;
+
+    /**
+     * Creates the new instance of the {@link SpillQueue}, the segments left by the previous run are going to be replayed.
+     * @param directory the directory of the segment files.
+     * @param maxSize the maximum disk usage in bytes.
+     * @param segmentSize the size of the segment file in bytes.
+     * @param logger the {@link Logger}.
+     * @throws IOException if the directory cannot be used.
+     */
+    public SpillQueue(Path directory, long maxSize, int segmentSize, Logger logger) throws IOException {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.segmentSize = segmentSize;
+        this.logger = logger;
+
+        Files.createDirectories(directory);
+        this.openExistingSegments();
+    }
+
+    /**
+     * Appends the batch to the tail segment.
+     * @param batch the encoded points.
+     * @return false if the disk usage limit does not allow to append the batch; otherwise true.
+     */
+    public synchronized boolean append(LineProtocolBuilder batch) {
+        int recordSize = RECORD_HEADER_SIZE + batch.getSize();
+
+        try {
+            Segment tail = this.segments.peekLast();
+            if (tail == null || tail.buffer.remaining() < recordSize + Integer.BYTES) {
+                tail = this.takeSegment(recordSize + Integer.BYTES);
+                if (tail == null) {
+                    return false;
+                }
+
+                this.segments.addLast(tail);
+            }
+
+            MappedByteBuffer buffer = tail.buffer;
+            buffer.putInt(batch.getSize());
+            buffer.putInt(batch.getLines());
+            buffer.putInt(this.checksum(batch.getSize(), batch.getLines(), ByteBuffer.wrap(batch.getBuffer(), 0, batch.getSize())));
+            buffer.put(batch.getBuffer(), 0, batch.getSize());
+            buffer.putInt(buffer.position(), 0);
+            tail.dirty = true;
+
+            this.spilledPoints += batch.getLines();
+            return true;
+        } catch (IOException e) {
+            this.logger.error("Failed spilling the points to " + this.directory, e);
+            return false;
+        }
+    }
+
+    /**
+     * Forces the segments changed since the last call to the disk, called by the background writer every flush interval.
+     * The buffers are forced outside the lock, so the threads appending meanwhile do not wait for the disk.
+     */
+    public void force() {
+        List<MappedByteBuffer> dirtyBuffers;
+        synchronized (this) {
+            dirtyBuffers = this.takeDirtyBuffers();
+        }
+
+        for (MappedByteBuffer buffer : dirtyBuffers) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Reads the oldest record to the batch without removing it, see {@link #remove()}.
+     * @param batch the empty batch to read to.
+     * @return false if the queue is empty; otherwise true.
+     */
+    public synchronized boolean peek(LineProtocolBuilder batch) {
+        Segment head = this.getReadableHead();
+        if (head == null) {
+            return false;
+        }
+
+        ByteBuffer reader = head.reader;
+        int length = reader.getInt(reader.position());
+        int lines = reader.getInt(reader.position() + Integer.BYTES);
+
+        ByteBuffer record = reader.duplicate();
+        record.position(reader.position() + RECORD_HEADER_SIZE);
+        batch.append(record, length, lines);
+        return true;
+    }
+
+    /**
+     * Removes the oldest record after it has been delivered.
+     */
+    public synchronized void remove() {
+        Segment head = this.getReadableHead();
+        if (head == null) {
+            return;
+        }
+
+        ByteBuffer reader = head.reader;
+        int length = reader.getInt(reader.position());
+        this.spilledPoints -= reader.getInt(reader.position() + Integer.BYTES);
+        reader.position(reader.position() + RECORD_HEADER_SIZE + length);
+    }
+
+    /**
+     * @return true if there are no records to replay.
+     */
+    public synchronized boolean isEmpty() {
+        return this.getReadableHead() == null;
+    }
+
+    /**
+     * @return the number of the points waiting to be replayed.
+     */
+    public synchronized long getSpilledPoints() {
+        return this.spilledPoints;
+    }
+
+    /**
+     * @return the disk space used by the segment files in bytes.
+     */
+    public synchronized long getDiskUsage() {
+        long usage = 0;
+        for (Segment segment : this.segments) {
+            usage += segment.buffer.capacity();
+        }
+
+        for (Segment segment : this.freeSegments) {
+            usage += segment.buffer.capacity();
+        }
+
+        return usage;
+    }
+
+    /**
+     * Deletes the segment files if all the records have been replayed.
+     * Otherwise the files are kept for the next run, the records of the partially replayed head segment are replayed again,
+     * Influx DB overwrites such duplicates as they have the same series and timestamps.
+     * The emptied file which cannot be deleted while it is mapped (Windows) is reused by the next run.
+     */
+    public synchronized void close() {
+        if (this.getReadableHead() != null) {
+            for (MappedByteBuffer buffer : this.takeDirtyBuffers()) {
+                buffer.force();
+            }
+            return;
+        }
+
+        List<Segment> segments = new ArrayList<>(this.segments);
+        segments.addAll(this.freeSegments);
+        for (Segment segment : segments) {
+            segment.buffer.putInt(SEGMENT_HEADER_SIZE, 0);
+            segment.buffer.force();
+
+            try {
+                Files.deleteIfExists(segment.file);
+            } catch (IOException e) {
+                this.logger.debug("The empty spill segment " + segment.file + " is kept for the next run", e);
+            }
+        }
+
+        this.segments.clear();
+        this.freeSegments.clear();
+    }
+
+    /**
+     * Collects the buffers of the changed segments and marks the segments clean, must be called holding the lock.
+     * @return the buffers to force.
+     */
+    private List<MappedByteBuffer> takeDirtyBuffers() {
+        List<MappedByteBuffer> dirtyBuffers = new ArrayList<>();
+        for (Segment segment : this.segments) {
+            if (segment.dirty) {
+                segment.dirty = false;
+                dirtyBuffers.add(segment.buffer);
+            }
+        }
+
+        for (Segment segment : this.freeSegments) {
+            if (segment.dirty) {
+                segment.dirty = false;
+                dirtyBuffers.add(segment.buffer);
+            }
+        }
+
+        return dirtyBuffers;
+    }
+
+    /**
+     * Gets the head segment which has the record to read, consumed segments are recycled.
+     * @return the head segment or null if there are no records.
+     */
+    private Segment getReadableHead() {
+        while (!this.segments.isEmpty()) {
+            Segment head = this.segments.peekFirst();
+            ByteBuffer reader = head.reader;
+            if (reader.remaining() >= RECORD_HEADER_SIZE && reader.getInt(reader.position()) > 0) {
+                return head;
+            }
+
+            // the tail segment is still appended to
+            if (this.segments.size() == 1 && head.buffer.hasRemaining()) {
+                return null;
+            }
+
+            this.segments.pollFirst();
+            this.recycle(head);
+        }
+
+        return null;
+    }
+
+    /**
+     * Marks the consumed segment empty, so it is not replayed if the run stops before the segment is reused.
+     */
+    private void recycle(Segment segment) {
+        segment.buffer.putInt(SEGMENT_HEADER_SIZE, 0);
+        segment.dirty = true;
+        this.freeSegments.addLast(segment);
+    }
+
+    /**
+     * Takes the free segment large enough for the record or creates the new one.
+     * @param required the number of the bytes of the record and the end marker.
+     * @return the empty segment or null if the disk usage limit does not allow to create it.
+     */
+    private Segment takeSegment(int required) throws IOException {
+        Segment segment = null;
+        for (Iterator<Segment> iterator = this.freeSegments.iterator(); iterator.hasNext(); ) {
+            Segment freeSegment = iterator.next();
+            if (freeSegment.buffer.capacity() - SEGMENT_HEADER_SIZE >= required) {
+                iterator.remove();
+                segment = freeSegment;
+                break;
+            }
+        }
+
+        if (segment == null) {
+            int size = Math.max(this.segmentSize, SEGMENT_HEADER_SIZE + required);
+            if (this.getDiskUsage() + size > this.maxSize) {
+                return null;
+            }
+
+            Path file = this.directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, this.nextSequence, SEGMENT_SUFFIX));
+            segment = this.mapSegment(file, size);
+        }
+
+        // the end marker is written before the sequence, so the half initialized segment is empty
+        segment.buffer.putInt(SEGMENT_HEADER_SIZE, 0);
+        segment.buffer.putLong(0, this.nextSequence++);
+        segment.dirty = true;
+        segment.buffer.position(SEGMENT_HEADER_SIZE);
+        segment.reader.limit(segment.reader.capacity());
+        segment.reader.position(SEGMENT_HEADER_SIZE);
+        return segment;
+    }
+
+    private Segment mapSegment(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            return new Segment(file, buffer);
+        }
+    }
+
+    /**
+     * Maps the segments left by the previous run in the order of their sequence numbers,
+     * they are read from the beginning up to the last valid record and never appended to.
+     */
+    private void openExistingSegments() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        for (Path file : files) {
+            long size = Files.size(file);
+            if (size < SEGMENT_HEADER_SIZE + RECORD_HEADER_SIZE + Integer.BYTES || size > Integer.MAX_VALUE) {
+                this.logger.warn("The spill segment " + file + " has the wrong size, it is skipped");
+                continue;
+            }
+
+            Segment segment = this.mapSegment(file, size);
+            segment.sequence = segment.buffer.getLong(0);
+            segments.add(segment);
+
+            String name = file.getFileName().toString();
+            try {
+                long fileSequence = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                this.nextSequence = Math.max(this.nextSequence, fileSequence + 1);
+            } catch (NumberFormatException e) {
+                // the name is not used when the segment is reused
+            }
+            this.nextSequence = Math.max(this.nextSequence, segment.sequence + 1);
+        }
+
+        segments.sort(Comparator.comparingLong(segment -> segment.sequence));
+        int segmentsToReplay = 0;
+        for (Segment segment : segments) {
+            // the segment is full for appending, the new records go to the new segment
+            segment.buffer.position(segment.buffer.limit());
+            segment.reader.position(SEGMENT_HEADER_SIZE);
+            segment.reader.limit(this.findValidEnd(segment));
+
+            if (segment.reader.hasRemaining()) {
+                this.segments.addLast(segment);
+                segmentsToReplay++;
+            } else {
+                this.freeSegments.addLast(segment);
+            }
+        }
+
+        if (segmentsToReplay > 0) {
+            this.logger.info("Found " + segmentsToReplay + " spill segments of the previous run in " + this.directory + ", they are going to be replayed");
+        }
+    }
+
+    /**
+     * Counts the points of the valid records of the segment.
+     * @return the end of the last valid record, the record after it (if any) is torn or corrupted.
+     */
+    private int findValidEnd(Segment segment) {
+        ByteBuffer buffer = segment.buffer;
+        int position = SEGMENT_HEADER_SIZE;
+        while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                break;
+            }
+
+            int points = buffer.getInt(position + Integer.BYTES);
+            int expectedChecksum = buffer.getInt(position + 2 * Integer.BYTES);
+            long end = (long) position + RECORD_HEADER_SIZE + length;
+            ByteBuffer data = buffer.duplicate();
+            if (length < 0 || points < 0 || end > buffer.capacity()
+                    || this.checksum(length, points, data.limit((int) end).position(position + RECORD_HEADER_SIZE)) != expectedChecksum) {
+                this.logger.warn("The spill segment " + segment.file + " has the corrupted record, e.g. written by the killed run; the rest of the segment is skipped");
+                break;
+            }
+
+            this.spilledPoints += points;
+            position = (int) end;
+        }
+
+        return position;
+    }
+
+    /**
+     * Computes the checksum of the record.
+     * @param length the number of the bytes.
+     * @param points the number of the points.
+     * @param data the bytes, from the position to the limit; the position is moved to the limit.
+     * @return the CRC32C checksum.
+     */
+    private int checksum(int length, int points, ByteBuffer data) {
+        this.checksumHeader.clear();
+        this.checksumHeader.putInt(length).putInt(points).flip();
+
+        this.checksum.reset();
+        this.checksum.update(this.checksumHeader);
+        this.checksum.update(data);
+        return (int) this.checksum.getValue();
+    }
+
+    /**
+     * The segment file with the sequence number, the append position in the buffer and the read position in the reader.
+     * The segment is dirty if it has been changed since it was last forced to the disk.
+     */
+    private static final class Segment {
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private final ByteBuffer reader;
+        private long sequence;
+        private boolean dirty;
+
+        private Segment(Path file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+            this.reader = buffer.duplicate();
+        }
+    }
+}
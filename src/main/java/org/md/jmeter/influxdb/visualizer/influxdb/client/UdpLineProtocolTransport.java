@@ -0,0 +1,105 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.client;
+
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolScanner;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Sends the batches as the datagrams to the Influx DB UDP listener, fire and forget.
+ * The points are packed to the datagrams up to the MTU size, the point is never split between the datagrams.
+ * The channel is non-blocking, the datagram which cannot be sent immediately is dropped and its points are counted
+ * in the {@link WriteStatistics}.
+ */
+public class UdpLineProtocolTransport implements LineProtocolTransport {
+
+    /**
+     * The maximum UDP payload, longer points are dropped.
+     */
+    private static final int MAX_DATAGRAM_SIZE = 65507;
+
+    private final DatagramChannel channel;
+    private final int mtu;
+    private final WriteStatistics statistics;
+    private final Logger logger;
+    private long droppedDatagrams;
+
+    /**
+     * Creates the new instance of the {@link UdpLineProtocolTransport}.
+     * @param host the Influx DB host.
+     * @param port the Influx DB UDP listener port.
+     * @param mtu the maximum datagram payload in bytes.
+     * @param statistics the {@link WriteStatistics} the points of the dropped datagrams are counted in.
+     * @param logger the {@link Logger}.
+     * @throws IOException if the channel cannot be opened.
+     */
+    public UdpLineProtocolTransport(String host, int port, int mtu, WriteStatistics statistics, Logger logger) throws IOException {
+        this.mtu = Math.min(mtu, MAX_DATAGRAM_SIZE);
+        this.statistics = statistics;
+        this.logger = logger;
+        this.channel = DatagramChannel.open();
+        this.channel.configureBlocking(false);
+        this.channel.connect(new InetSocketAddress(host, port));
+    }
+
+    @Override
+    public int send(LineProtocolBuilder batch) throws IOException {
+        byte[] buffer = batch.getBuffer();
+        int size = batch.getSize();
+        ByteBuffer datagram = ByteBuffer.wrap(buffer);
+        int sentBytes = 0;
+
+        int datagramStart = 0;
+        int lineStart = 0;
+        while (lineStart < size) {
+            int lineEnd = LineProtocolScanner.findLineEnd(buffer, lineStart, size);
+            lineEnd = lineEnd >= 0 ? lineEnd + 1 : size;
+
+            // the point does not fit the current datagram, the datagram is sent first
+            if (lineEnd - datagramStart > this.mtu && lineStart > datagramStart) {
+                sentBytes += this.sendDatagram(datagram, datagramStart, lineStart);
+                datagramStart = lineStart;
+            }
+
+            lineStart = lineEnd;
+        }
+
+        if (datagramStart < size) {
+            sentBytes += this.sendDatagram(datagram, datagramStart, size);
+        }
+
+        return sentBytes;
+    }
+
+    private int sendDatagram(ByteBuffer datagram, int start, int end) throws IOException {
+        int sent = 0;
+        if (end - start <= MAX_DATAGRAM_SIZE) {
+            datagram.limit(end).position(start);
+            sent = this.channel.write(datagram);
+        }
+
+        if (sent == 0) {
+            this.droppedDatagrams++;
+            this.statistics.addDatagramDropped(LineProtocolScanner.countLines(datagram.array(), start, end));
+        }
+
+        return sent;
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            this.logger.warn("Failed closing the UDP channel", e);
+        }
+
+        if (this.droppedDatagrams > 0) {
+            this.logger.warn(this.droppedDatagrams + " UDP datagrams have been dropped because the socket buffer was full or the point exceeded the datagram size");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.client;
+
+import org.slf4j.Logger;
+
+/**
+ * The rate limited log of the write errors.
+ * The first error is logged with the stack trace, the next errors are counted and logged as the summary once per interval,
+ * so the failing Influx DB does not flood the JMeter log.
+ */
+public class WriteErrorLog {
+
+    private final Logger logger;
+    private final long interval;
+
+    private long errors;
+    private long points;
+    private String lastError;
+    private long lastLogged;
+
+    /**
+     * Creates the new instance of the {@link WriteErrorLog}.
+     * @param logger the {@link Logger}.
+     * @param interval the minimum time between the logged errors in milliseconds.
+     */
+    public WriteErrorLog(Logger logger, long interval) {
+        this.logger = logger;
+        this.interval = interval;
+        this.lastLogged = -interval;
+    }
+
+    /**
+     * Records the failed write, logs it immediately if nothing has been logged during the interval.
+     * @param message the description of what happened with the points.
+     * @param points the number of the points of the failed write.
+     * @param e the {@link Exception}.
+     * @param now the current time in milliseconds.
+     */
+    public synchronized void error(String message, int points, Exception e, long now) {
+        if (now - this.lastLogged >= this.interval) {
+            this.report(now);
+            this.lastLogged = now;
+            this.logger.error(message + ", points: " + points, e);
+            return;
+        }
+
+        this.errors++;
+        this.points += points;
+        this.lastError = message + ": " + e.getMessage();
+    }
+
+    /**
+     * Logs the summary of the errors recorded since the last logged error if the interval has elapsed.
+     * @param now the current time in milliseconds.
+     */
+    public synchronized void report(long now) {
+        if (this.errors == 0 || now - this.lastLogged < this.interval) {
+            return;
+        }
+
+        this.logSummary();
+        this.lastLogged = now;
+    }
+
+    /**
+     * Logs the summary of the recorded errors regardless of the interval.
+     */
+    public synchronized void close() {
+        if (this.errors > 0) {
+            this.logSummary();
+        }
+    }
+
+    private void logSummary() {
+        this.logger.error(this.errors + " more writes to influx db have failed since the last logged error, points: " + this.points
+                + ", the last error: " + this.lastError);
+        this.errors = 0;
+        this.points = 0;
+        this.lastError = null;
+    }
+}
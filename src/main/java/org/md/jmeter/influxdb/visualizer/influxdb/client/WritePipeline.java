@@ -0,0 +1,582 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.client;
+
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolPoint;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.WritePrecision;
+import org.slf4j.Logger;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The bounded asynchronous write pipeline.
+ * The points are encoded to the current batch of the writing thread stripe; full batches are queued and sent by the single background thread.
+ * The concurrent writers are spread over the stripes by the thread id, so they rarely contend for the same lock;
+ * the partially filled stripe batches are merged to one request every flush interval.
+ * If there is more than one sender, the background thread hands the batches over to the sender threads,
+ * so up to that number of the write requests are in flight; the transport must allow the concurrent sends then.
+ * The queue holds at most 'buffer capacity / batch size' batches, when it is full the {@link OverflowPolicy} is applied.
+ * <p>
+ * If the {@link SpillQueue} is set, the batches which do not fit the queue or fail to be written are spilled to the disk
+ * before the policy is applied; they are forced to the disk by the background writer every flush interval
+ * and replayed at the bounded rate once the writes succeed again.
+ * <p>
+ * Until the pipeline is ready (see {@link #setReady(boolean)}) nothing is sent, the points are buffered the same way as when Influx DB does not keep up.
+ * <p>
+ * The writes go through the {@link CircuitBreaker}: while it is open nothing is sent, the points are buffered or dropped
+ * according to the {@link CircuitBreakerFallback}. The write errors are logged by the rate limited {@link WriteErrorLog}.
+ */
+public class WritePipeline {
+
+    /**
+     * The expected size of the encoded point, used to preallocate the batch buffers.
+     */
+    private static final int EXPECTED_POINT_SIZE = 256;
+
+    private final Logger logger;
+    private final LineProtocolTransport transport;
+    private final int batchSize;
+    private final WritePrecision precision;
+    private final OverflowPolicy overflowPolicy;
+    private final WriteStatistics statistics;
+    private final String endpoint;
+    private final CircuitBreaker circuitBreaker;
+    private final CircuitBreakerFallback circuitBreakerFallback;
+    private final WriteErrorLog errorLog;
+
+    /**
+     * The full batches waiting to be sent.
+     */
+    private final BlockingQueue<LineProtocolBuilder> pendingBatches;
+
+    /**
+     * The sent batches which can be reused.
+     */
+    private final BlockingQueue<LineProtocolBuilder> freeBatches;
+
+    /**
+     * The stripes with the batches the points are currently encoded to.
+     */
+    private final Stripe[] stripes;
+
+    /**
+     * The batch the partially filled stripe batches are merged to, used by the background writer only.
+     */
+    private LineProtocolBuilder mergeBatch;
+
+    private final ScheduledExecutorService writer;
+
+    /**
+     * The threads sending the batches concurrently, null if the batches are sent by the writer thread.
+     */
+    private final ExecutorService senders;
+
+    /**
+     * The number of the senders which can take the next batch, the writer waits for the free sender.
+     */
+    private final Semaphore freeSenders;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    /**
+     * Indicates whether Influx DB is ready to receive the points.
+     */
+    private volatile boolean ready = true;
+
+    /**
+     * The disk queue, null if the spilling is disabled.
+     */
+    private final SpillQueue spillQueue;
+
+    /**
+     * The maximum number of the spilled points replayed per flush interval.
+     */
+    private final long replayPointsPerFlush;
+
+    /**
+     * The buffer the spilled batches are read to, used by the background writer only.
+     */
+    private final LineProtocolBuilder replayBatch;
+
+    /**
+     * Creates the new instance of the {@link WritePipeline} and starts the background writer.
+     * @param transport the {@link LineProtocolTransport} to deliver the batches.
+     * @param batchSize the number of the points which triggers the write.
+     * @param flushInterval the maximum time the points are buffered in milliseconds.
+     * @param bufferCapacity the maximum number of the buffered points.
+     * @param overflowPolicy the {@link OverflowPolicy}.
+     * @param precision the {@link WritePrecision} of the timestamps.
+     * @param spillQueue the {@link SpillQueue} or null to disable the spilling.
+     * @param replayRate the maximum number of the spilled points replayed per second.
+     * @param stripes the number of the stripes the concurrent writers are spread to.
+     * @param senders the maximum number of the concurrent write requests, the transport must be thread safe if it is greater than 1.
+     * @param circuitBreaker the {@link CircuitBreaker} of the writes.
+     * @param circuitBreakerFallback the {@link CircuitBreakerFallback} applied while the breaker is open.
+     * @param errorLogInterval the minimum time between the logged write errors in milliseconds.
+     * @param statistics the {@link WriteStatistics}, shared by the pipelines of the shards.
+     * @param endpoint the description of the destination for the logs.
+     * @param logger the {@link Logger}.
+     */
+    public WritePipeline(LineProtocolTransport transport, int batchSize, int flushInterval, int bufferCapacity, OverflowPolicy overflowPolicy,
+                         WritePrecision precision, SpillQueue spillQueue, int replayRate, int stripes, int senders,
+                         CircuitBreaker circuitBreaker, CircuitBreakerFallback circuitBreakerFallback, int errorLogInterval,
+                         WriteStatistics statistics, String endpoint, Logger logger) {
+        this.transport = transport;
+        this.statistics = statistics;
+        this.endpoint = endpoint;
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.precision = precision;
+        this.spillQueue = spillQueue;
+        this.replayPointsPerFlush = Math.max(1, (long) replayRate * flushInterval / 1000);
+        this.circuitBreaker = circuitBreaker;
+        this.circuitBreakerFallback = circuitBreakerFallback;
+        this.errorLog = new WriteErrorLog(logger, errorLogInterval);
+        this.logger = logger;
+
+        int queueCapacity = Math.max(1, bufferCapacity / batchSize);
+        this.pendingBatches = new ArrayBlockingQueue<>(queueCapacity);
+        this.freeBatches = new ArrayBlockingQueue<>(queueCapacity + stripes + senders);
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe(this.newBatch());
+        }
+        this.mergeBatch = this.newBatch();
+        this.replayBatch = this.newBatch();
+
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "influxdb-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.writer.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+
+        this.freeSenders = new Semaphore(senders);
+        this.senders = senders > 1 ? Executors.newFixedThreadPool(senders, runnable -> {
+            Thread thread = new Thread(runnable, "influxdb-sender");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Encodes the point to the current batch of the calling thread stripe, can be called by the concurrent threads.
+     * @param point the {@link LineProtocolPoint}.
+     * @return false if the point has been rejected by the {@link OverflowPolicy#AGGREGATE} policy; otherwise true.
+     */
+    public boolean write(LineProtocolPoint point) {
+        Stripe stripe = this.stripes[(int) (Thread.currentThread().getId() % this.stripes.length)];
+        LineProtocolBuilder batchToBlockOn;
+
+        synchronized (stripe) {
+            // the batch stays full only if it has been rejected by the aggregate policy
+            if (stripe.batch.getLines() >= this.batchSize) {
+                if (!this.pendingBatches.offer(stripe.batch)) {
+                    this.statistics.addRejected();
+                    return false;
+                }
+
+                stripe.batch = this.takeFreeBatch();
+                this.scheduleDrain();
+            }
+
+            long start = System.nanoTime();
+            try {
+                point.writeTo(stripe.batch);
+            } catch (Exception e) {
+                stripe.batch.discardLine();
+                this.logger.error("Failed encoding the point", e);
+                return true;
+            }
+            this.statistics.addEncoded(System.nanoTime() - start);
+
+            if (stripe.batch.getLines() < this.batchSize) {
+                return true;
+            }
+
+            batchToBlockOn = this.enqueueFullBatch(stripe);
+        }
+
+        if (batchToBlockOn != null) {
+            this.putBlocking(batchToBlockOn);
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the {@link WriteStatistics}.
+     */
+    public WriteStatistics getStatistics() {
+        return this.statistics;
+    }
+
+    /**
+     * @return the {@link CircuitBreaker} of the writes.
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return this.circuitBreaker;
+    }
+
+    /**
+     * @return the number of the batches waiting to be sent.
+     */
+    public int getQueuedBatches() {
+        return this.pendingBatches.size();
+    }
+
+    /**
+     * Sends all the buffered points and stops the background writer.
+     */
+    public void close() {
+        this.writer.shutdown();
+        try {
+            if (!this.writer.awaitTermination(30, TimeUnit.SECONDS)) {
+                this.logger.warn("Influx db writer of " + this.endpoint + " has not been terminated in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (this.senders != null) {
+            this.senders.shutdown();
+            try {
+                if (!this.senders.awaitTermination(30, TimeUnit.SECONDS)) {
+                    this.logger.warn("Influx db senders of " + this.endpoint + " have not been terminated in time");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // the last attempt to send the buffered points even if Influx DB has not been reported as ready,
+        // the batches are spilled or dropped without the attempt if the circuit breaker is open
+        this.ready = true;
+        LineProtocolBuilder batchToSend;
+        while ((batchToSend = this.pendingBatches.poll()) != null) {
+            this.sendAndRecycle(batchToSend);
+        }
+        for (Stripe stripe : this.stripes) {
+            synchronized (stripe) {
+                if (stripe.batch.getLines() > 0) {
+                    this.sendAndRecycle(stripe.batch);
+                    stripe.batch = this.newBatch();
+                }
+            }
+        }
+
+        this.transport.close();
+        this.errorLog.close();
+
+        if (this.spillQueue != null) {
+            if (!this.spillQueue.isEmpty()) {
+                this.logger.warn(this.spillQueue.getSpilledPoints() + " spilled points of " + this.endpoint + " have not been replayed, they are kept on the disk for the next run");
+            }
+            this.spillQueue.close();
+        }
+    }
+
+    /**
+     * Queues the full current batch of the stripe applying the {@link OverflowPolicy}, must be called holding the stripe lock.
+     * @param stripe the {@link Stripe} with the full batch.
+     * @return the batch to put to the queue blocking outside the lock, null if the batch has been handled.
+     */
+    private LineProtocolBuilder enqueueFullBatch(Stripe stripe) {
+        if (this.pendingBatches.offer(stripe.batch)) {
+            stripe.batch = this.takeFreeBatch();
+            this.scheduleDrain();
+            return null;
+        }
+
+        if (this.spillQueue != null && this.spillQueue.append(stripe.batch)) {
+            this.statistics.addSpilled(stripe.batch.getLines());
+            stripe.batch.reset();
+            return null;
+        }
+
+        switch (this.overflowPolicy) {
+            case DROP_NEWEST:
+                this.statistics.addDroppedNewest(stripe.batch.getLines());
+                stripe.batch.reset();
+                return null;
+            case DROP_OLDEST:
+                do {
+                    LineProtocolBuilder oldestBatch = this.pendingBatches.poll();
+                    if (oldestBatch != null) {
+                        this.statistics.addDroppedOldest(oldestBatch.getLines());
+                        this.recycle(oldestBatch);
+                    }
+                } while (!this.pendingBatches.offer(stripe.batch));
+
+                stripe.batch = this.takeFreeBatch();
+                this.scheduleDrain();
+                return null;
+            case AGGREGATE:
+                // the batch is kept full, the next points are rejected until the queue has the space
+                return null;
+            case BLOCK:
+            default:
+                LineProtocolBuilder fullBatch = stripe.batch;
+                stripe.batch = this.takeFreeBatch();
+                return fullBatch;
+        }
+    }
+
+    /**
+     * Sets whether Influx DB is ready to receive the points, the pipeline is ready when created.
+     * The buffered points are sent as soon as the pipeline becomes ready.
+     * @param ready true if the points can be sent; otherwise false to buffer them.
+     */
+    public void setReady(boolean ready) {
+        this.ready = ready;
+        if (ready) {
+            this.scheduleDrain();
+        }
+    }
+
+    /**
+     * @return true if the points are sent; otherwise false if they are buffered until Influx DB is ready.
+     */
+    public boolean isReady() {
+        return this.ready;
+    }
+
+    /**
+     * Puts the full batch to the queue waiting for the space.
+     * @param fullBatch the full batch.
+     */
+    private void putBlocking(LineProtocolBuilder fullBatch) {
+        long start = System.nanoTime();
+        try {
+            this.pendingBatches.put(fullBatch);
+        } catch (InterruptedException e) {
+            this.statistics.addDroppedNewest(fullBatch.getLines());
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        this.statistics.addBlocked(System.nanoTime() - start);
+        this.scheduleDrain();
+    }
+
+    /**
+     * Forces the spilled batches to the disk, sends the queued batches, then the partially filled stripe batches merged to one request,
+     * and replays the spilled batches.
+     */
+    private void flush() {
+        this.errorLog.report(System.currentTimeMillis());
+        if (this.spillQueue != null) {
+            this.spillQueue.force();
+        }
+
+        if (!this.canSend()) {
+            return;
+        }
+
+        this.drain();
+
+        for (Stripe stripe : this.stripes) {
+            synchronized (stripe) {
+                // the full batch is left to the write path, it is either queued or rejected by the aggregate policy
+                int lines = stripe.batch.getLines();
+                if (lines == 0 || lines >= this.batchSize) {
+                    continue;
+                }
+
+                if (this.mergeBatch.getLines() == 0) {
+                    LineProtocolBuilder stripeBatch = stripe.batch;
+                    stripe.batch = this.mergeBatch;
+                    this.mergeBatch = stripeBatch;
+                } else {
+                    this.mergeBatch.append(ByteBuffer.wrap(stripe.batch.getBuffer(), 0, stripe.batch.getSize()), stripe.batch.getSize(), lines);
+                    stripe.batch.reset();
+                }
+            }
+        }
+
+        if (this.mergeBatch.getLines() > 0) {
+            LineProtocolBuilder mergedBatch = this.mergeBatch;
+            this.mergeBatch = this.takeFreeBatch();
+            this.dispatch(mergedBatch);
+        }
+
+        this.replaySpilled();
+    }
+
+    /**
+     * Replays the spilled batches in order until the replay budget of the flush interval is used or the write fails.
+     */
+    private void replaySpilled() {
+        if (this.spillQueue == null) {
+            return;
+        }
+
+        long replayedPoints = 0;
+        while (replayedPoints < this.replayPointsPerFlush && this.pendingBatches.isEmpty()
+                && this.circuitBreaker.allowRequest(System.currentTimeMillis()) && this.spillQueue.peek(this.replayBatch)) {
+            int points = this.replayBatch.getLines();
+            try {
+                this.statistics.addBytes(this.replayBatch.getSize(), this.transport.send(this.replayBatch));
+            } catch (Exception e) {
+                this.onSendFailure();
+                this.logger.debug("Influx db " + this.endpoint + " is not reachable yet, spilled points are kept", e);
+                return;
+            } finally {
+                this.replayBatch.reset();
+            }
+
+            this.onSendSuccess();
+            this.spillQueue.remove();
+            this.statistics.addReplayed(points);
+            replayedPoints += points;
+        }
+    }
+
+    /**
+     * Asks the background writer to send the queued batches once.
+     */
+    private void scheduleDrain() {
+        if (!this.drainScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            this.writer.execute(() -> {
+                this.drainScheduled.set(false);
+                this.drain();
+            });
+        } catch (RejectedExecutionException e) {
+            // the writer has been shut down by close, which sends the queued batches itself
+            this.drainScheduled.set(false);
+        }
+    }
+
+    /**
+     * Sends the queued batches if Influx DB is ready.
+     */
+    private void drain() {
+        // the single consumer: the writer thread or the closing thread once the writer has been terminated
+        while (!this.pendingBatches.isEmpty() && this.canSend()) {
+            this.dispatch(this.pendingBatches.poll());
+        }
+    }
+
+    /**
+     * Sends the batch by the free sender waiting for it, or by the calling thread if there are no senders.
+     * @param batchToSend the batch to send.
+     */
+    private void dispatch(LineProtocolBuilder batchToSend) {
+        if (this.senders == null) {
+            this.sendAndRecycle(batchToSend);
+            return;
+        }
+
+        this.freeSenders.acquireUninterruptibly();
+        try {
+            this.senders.execute(() -> {
+                try {
+                    this.sendAndRecycle(batchToSend);
+                } finally {
+                    this.freeSenders.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the senders have been shut down by close
+            this.freeSenders.release();
+            this.sendAndRecycle(batchToSend);
+        }
+    }
+
+    /**
+     * Checks whether the batches can be taken from the buffer: Influx DB is ready and either the breaker lets the writes through
+     * or the batches are dropped while it is open.
+     * @return true if the batches can be taken from the buffer; otherwise false to keep them buffered.
+     */
+    private boolean canSend() {
+        return this.ready
+                && (this.circuitBreakerFallback == CircuitBreakerFallback.DROP || this.circuitBreaker.allowRequest(System.currentTimeMillis()));
+    }
+
+    private void sendAndRecycle(LineProtocolBuilder batchToSend) {
+        try {
+            if (this.circuitBreaker.allowRequest(System.currentTimeMillis())) {
+                this.send(batchToSend);
+            } else if (this.circuitBreakerFallback == CircuitBreakerFallback.BUFFER && this.spillQueue != null && this.spillQueue.append(batchToSend)) {
+                // the buffered batches are not attempted on close while the breaker is open
+                this.statistics.addSpilled(batchToSend.getLines());
+            } else {
+                this.statistics.addCircuitDropped(batchToSend.getLines());
+            }
+        } finally {
+            this.recycle(batchToSend);
+        }
+    }
+
+    private void send(LineProtocolBuilder batchToSend) {
+        long start = System.nanoTime();
+        try {
+            this.statistics.addBytes(batchToSend.getSize(), this.transport.send(batchToSend));
+        } catch (Exception e) {
+            this.onSendFailure();
+            if (this.spillQueue != null && this.spillQueue.append(batchToSend)) {
+                this.statistics.addSpilled(batchToSend.getLines());
+                this.errorLog.error("Failed writing to influx " + this.endpoint + ", the points have been spilled to the disk", batchToSend.getLines(), e, System.currentTimeMillis());
+            } else {
+                this.statistics.addFailed(batchToSend.getLines());
+                this.errorLog.error("Failed writing to influx " + this.endpoint, batchToSend.getLines(), e, System.currentTimeMillis());
+            }
+            return;
+        }
+
+        this.onSendSuccess();
+        this.statistics.addSent(batchToSend.getLines(), System.nanoTime() - start);
+        this.statistics.addWritten(batchToSend.getLines());
+    }
+
+    private void onSendSuccess() {
+        if (this.circuitBreaker.onSuccess()) {
+            this.logger.info("Influx db " + this.endpoint + " has recovered, the circuit breaker has been closed");
+        }
+    }
+
+    private void onSendFailure() {
+        long now = System.currentTimeMillis();
+        if (this.circuitBreaker.onFailure(now)) {
+            this.logger.warn("The circuit breaker of " + this.endpoint + " has been opened after " + this.circuitBreaker.getConsecutiveFailures() + " failed writes, the points are "
+                    + (this.circuitBreakerFallback == CircuitBreakerFallback.DROP ? "dropped" : "buffered")
+                    + ", the next attempt in " + this.circuitBreaker.getRetryDelay(now) + " ms");
+        }
+    }
+
+    private LineProtocolBuilder takeFreeBatch() {
+        LineProtocolBuilder freeBatch = this.freeBatches.poll();
+        return freeBatch != null ? freeBatch : this.newBatch();
+    }
+
+    private void recycle(LineProtocolBuilder usedBatch) {
+        usedBatch.reset();
+        this.freeBatches.offer(usedBatch);
+    }
+
+    private LineProtocolBuilder newBatch() {
+        return new LineProtocolBuilder(this.batchSize * EXPECTED_POINT_SIZE, this.precision);
+    }
+
+    /**
+     * The stripe of the write buffer, the batch is guarded by the stripe lock.
+     */
+    private static final class Stripe {
+        private LineProtocolBuilder batch;
+
+        private Stripe(LineProtocolBuilder batch) {
+            this.batch = batch;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.client;
+
+import org.md.jmeter.influxdb.visualizer.monitoring.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the write pipeline, every decision taken about the points is counted.
+ * The timings of the point encoding and the batch sending and the batch sizes are recorded to the histograms.
+ */
+public class WriteStatistics {
+
+    private final LongAdder writtenPoints = new LongAdder();
+    private final LongAdder failedPoints = new LongAdder();
+    private final LongAdder droppedOldestPoints = new LongAdder();
+    private final LongAdder droppedNewestPoints = new LongAdder();
+    private final LongAdder rejectedPoints = new LongAdder();
+    private final LongAdder circuitDroppedPoints = new LongAdder();
+    private final LongAdder datagramDroppedPoints = new LongAdder();
+    private final LongAdder blockedWrites = new LongAdder();
+    private final LongAdder blockedNanos = new LongAdder();
+    private final LongAdder spilledPoints = new LongAdder();
+    private final LongAdder replayedPoints = new LongAdder();
+    private final LongAdder payloadBytes = new LongAdder();
+    private final LongAdder wireBytes = new LongAdder();
+    private final LatencyHistogram encodeTime = new LatencyHistogram();
+    private final LatencyHistogram sendTime = new LatencyHistogram();
+    private final LatencyHistogram batchPoints = new LatencyHistogram();
+
+    void addWritten(int points) {
+        this.writtenPoints.add(points);
+    }
+
+    void addFailed(int points) {
+        this.failedPoints.add(points);
+    }
+
+    void addDroppedOldest(int points) {
+        this.droppedOldestPoints.add(points);
+    }
+
+    void addDroppedNewest(int points) {
+        this.droppedNewestPoints.add(points);
+    }
+
+    void addRejected() {
+        this.rejectedPoints.increment();
+    }
+
+    void addCircuitDropped(int points) {
+        this.circuitDroppedPoints.add(points);
+    }
+
+    void addDatagramDropped(int points) {
+        this.datagramDroppedPoints.add(points);
+    }
+
+    void addBlocked(long nanos) {
+        this.blockedWrites.increment();
+        this.blockedNanos.add(nanos);
+    }
+
+    void addSpilled(int points) {
+        this.spilledPoints.add(points);
+    }
+
+    void addReplayed(int points) {
+        this.replayedPoints.add(points);
+    }
+
+    void addBytes(int payload, int wire) {
+        this.payloadBytes.add(payload);
+        this.wireBytes.add(wire);
+    }
+
+    void addEncoded(long nanos) {
+        this.encodeTime.record(nanos);
+    }
+
+    void addSent(int points, long nanos) {
+        this.batchPoints.record(points);
+        this.sendTime.record(nanos);
+    }
+
+    /**
+     * @return the number of the points delivered to Influx DB.
+     */
+    public long getWrittenPoints() {
+        return this.writtenPoints.sum();
+    }
+
+    /**
+     * @return the number of the points which have not been delivered because of the write errors.
+     */
+    public long getFailedPoints() {
+        return this.failedPoints.sum();
+    }
+
+    /**
+     * @return the number of the buffered points dropped by the {@link OverflowPolicy#DROP_OLDEST} policy.
+     */
+    public long getDroppedOldestPoints() {
+        return this.droppedOldestPoints.sum();
+    }
+
+    /**
+     * @return the number of the new points dropped by the {@link OverflowPolicy#DROP_NEWEST} policy.
+     */
+    public long getDroppedNewestPoints() {
+        return this.droppedNewestPoints.sum();
+    }
+
+    /**
+     * @return the number of the points rejected by the {@link OverflowPolicy#AGGREGATE} policy.
+     */
+    public long getRejectedPoints() {
+        return this.rejectedPoints.sum();
+    }
+
+    /**
+     * @return the number of the points dropped while the {@link CircuitBreaker} was open.
+     */
+    public long getCircuitDroppedPoints() {
+        return this.circuitDroppedPoints.sum();
+    }
+
+    /**
+     * @return the number of the points of the datagrams dropped by the {@link UdpLineProtocolTransport},
+     * the pipeline counts them as written too.
+     */
+    public long getDatagramDroppedPoints() {
+        return this.datagramDroppedPoints.sum();
+    }
+
+    /**
+     * @return the number of the writes blocked by the {@link OverflowPolicy#BLOCK} policy.
+     */
+    public long getBlockedWrites() {
+        return this.blockedWrites.sum();
+    }
+
+    /**
+     * @return the total time the writes have been blocked in nanoseconds.
+     */
+    public long getBlockedNanos() {
+        return this.blockedNanos.sum();
+    }
+
+    /**
+     * @return the number of the points spilled to the disk.
+     */
+    public long getSpilledPoints() {
+        return this.spilledPoints.sum();
+    }
+
+    /**
+     * @return the number of the spilled points replayed to Influx DB.
+     */
+    public long getReplayedPoints() {
+        return this.replayedPoints.sum();
+    }
+
+    /**
+     * @return the number of the line protocol bytes delivered, before the compression.
+     */
+    public long getPayloadBytes() {
+        return this.payloadBytes.sum();
+    }
+
+    /**
+     * @return the number of the request body bytes sent on the wire, after the compression.
+     */
+    public long getWireBytes() {
+        return this.wireBytes.sum();
+    }
+
+    /**
+     * @return the histogram of the point encoding time in nanoseconds.
+     */
+    public LatencyHistogram getEncodeTime() {
+        return this.encodeTime;
+    }
+
+    /**
+     * @return the histogram of the batch write request time in nanoseconds, including the compression.
+     */
+    public LatencyHistogram getSendTime() {
+        return this.sendTime;
+    }
+
+    /**
+     * @return the histogram of the number of the points per sent batch.
+     */
+    public LatencyHistogram getBatchPoints() {
+        return this.batchPoints;
+    }
+
+    @Override
+    public String toString() {
+        return "written: " + this.getWrittenPoints()
+                + ", failed: " + this.getFailedPoints()
+                + ", dropped oldest: " + this.getDroppedOldestPoints()
+                + ", dropped newest: " + this.getDroppedNewestPoints()
+                + ", rejected to aggregation: " + this.getRejectedPoints()
+                + ", dropped by open circuit: " + this.getCircuitDroppedPoints()
+                + ", dropped UDP datagrams: " + this.getDatagramDroppedPoints()
+                + ", blocked writes: " + this.getBlockedWrites()
+                + " (" + this.getBlockedNanos() / 1000000 + " ms)"
+                + ", spilled: " + this.getSpilledPoints()
+                + ", replayed: " + this.getReplayedPoints()
+                + "; bytes before compression: " + this.getPayloadBytes()
+                + ", on the wire: " + this.getWireBytes();
+    }
+}
@@ -0,0 +1,331 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes InfluxDB line protocol straight into the reusable UTF-8 byte buffer.
+ * Neither fields are boxed nor the intermediate strings are created, the buffer is reused after {@link #reset()}.
+ * <p>
+ * The point is written as: {@link #measurement(String)}, zero or more {@link #tag(String, String)} calls,
+ * one or more field calls and {@link #timestamp(long)} that terminates the line.
+ * The timestamps are passed in nanoseconds and written in the {@link WritePrecision} of the builder.
+ */
+public class LineProtocolBuilder {
+
+    private static final int DEFAULT_CAPACITY = 64 * 1024;
+
+    private static final int ESCAPE_MEASUREMENT = 0;
+    private static final int ESCAPE_TAG = 1;
+    private static final int ESCAPE_FIELD_STRING = 2;
+
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes();
+
+    private final TimeUnit precision;
+
+    private byte[] buffer;
+    private int size;
+    private int lines;
+    private int lineStart;
+    private boolean firstField;
+
+    /**
+     * Creates the new instance of the {@link LineProtocolBuilder} with the default capacity.
+     */
+    public LineProtocolBuilder() {
+        this(DEFAULT_CAPACITY, WritePrecision.NANOSECONDS);
+    }
+
+    /**
+     * Creates the new instance of the {@link LineProtocolBuilder}.
+     * @param capacity the initial buffer capacity in bytes.
+     * @param precision the {@link WritePrecision} of the written timestamps.
+     */
+    public LineProtocolBuilder(int capacity, WritePrecision precision) {
+        this.buffer = new byte[Math.max(capacity, 16)];
+        this.precision = precision.getTimeUnit();
+    }
+
+    /**
+     * Starts the new point.
+     * @param measurement the measurement name.
+     * @return this builder.
+     */
+    public LineProtocolBuilder measurement(String measurement) {
+        this.lineStart = this.size;
+        this.firstField = true;
+        this.appendEscaped(measurement, ESCAPE_MEASUREMENT);
+        return this;
+    }
+
+    /**
+     * Starts the new point with the already encoded series key, see {@link #copySeriesKey()}.
+     * @param seriesKey the encoded measurement and tags.
+     * @return this builder.
+     */
+    public LineProtocolBuilder seriesKey(byte[] seriesKey) {
+        this.lineStart = this.size;
+        this.firstField = true;
+        this.ensureCapacity(seriesKey.length);
+        System.arraycopy(seriesKey, 0, this.buffer, this.size, seriesKey.length);
+        this.size += seriesKey.length;
+        return this;
+    }
+
+    /**
+     * Copies the encoded series key of the current point, must be called after the tags and before the fields.
+     * @return the encoded measurement and tags.
+     */
+    public byte[] copySeriesKey() {
+        return Arrays.copyOfRange(this.buffer, this.lineStart, this.size);
+    }
+
+    /**
+     * Adds the tag, the tag is skipped if the value is null or empty.
+     * Tags should be added sorted by key, that is the order InfluxDB stores them.
+     * @param key the tag key.
+     * @param value the tag value.
+     * @return this builder.
+     */
+    public LineProtocolBuilder tag(String key, String value) {
+        if (value == null || value.isEmpty()) {
+            return this;
+        }
+
+        this.append((byte) ',');
+        this.appendEscaped(key, ESCAPE_TAG);
+        this.append((byte) '=');
+        this.appendEscaped(value, ESCAPE_TAG);
+        return this;
+    }
+
+    /**
+     * Adds the tag taking the escaped value from the cache, the tag is skipped if the value is null or empty.
+     * @param key the tag key.
+     * @param value the tag value.
+     * @param cache the {@link TagValueCache} of the escaped values.
+     * @return this builder.
+     */
+    public LineProtocolBuilder tag(String key, String value, TagValueCache cache) {
+        if (value == null || value.isEmpty()) {
+            return this;
+        }
+
+        byte[] escapedValue = cache.getEscaped(value);
+        this.append((byte) ',');
+        this.appendEscaped(key, ESCAPE_TAG);
+        this.append((byte) '=');
+        this.ensureCapacity(escapedValue.length);
+        System.arraycopy(escapedValue, 0, this.buffer, this.size, escapedValue.length);
+        this.size += escapedValue.length;
+        return this;
+    }
+
+    /**
+     * Escapes and encodes the tag key or value the same way as {@link #tag(String, String)}.
+     * @param value the tag key or value.
+     * @return the escaped UTF-8 bytes.
+     */
+    public static byte[] escapeTag(String value) {
+        LineProtocolBuilder builder = new LineProtocolBuilder(value.length() * 3, WritePrecision.NANOSECONDS);
+        builder.appendEscaped(value, ESCAPE_TAG);
+        return Arrays.copyOf(builder.buffer, builder.size);
+    }
+
+    /**
+     * Adds the integer field.
+     * @param key the field key.
+     * @param value the field value.
+     * @return this builder.
+     */
+    public LineProtocolBuilder field(String key, long value) {
+        this.startField(key);
+        this.appendLong(value);
+        this.append((byte) 'i');
+        return this;
+    }
+
+    /**
+     * Adds the string field.
+     * @param key the field key.
+     * @param value the field value, null is written as the empty string.
+     * @return this builder.
+     */
+    public LineProtocolBuilder field(String key, String value) {
+        return this.field(key, value, value != null ? value.length() : 0);
+    }
+
+    /**
+     * Adds the string field using the beginning of the value, e.g. the reusable buffer of the decoded chars.
+     * @param key the field key.
+     * @param value the field value, null is written as the empty string.
+     * @param length the number of the chars of the value to write.
+     * @return this builder.
+     */
+    public LineProtocolBuilder field(String key, CharSequence value, int length) {
+        this.startField(key);
+        this.append((byte) '"');
+        if (value != null) {
+            this.appendEscaped(value, length, ESCAPE_FIELD_STRING);
+        }
+        this.append((byte) '"');
+        return this;
+    }
+
+    /**
+     * Adds the timestamp and terminates the point.
+     * @param time the timestamp in nanoseconds, it is truncated to the precision of the builder.
+     */
+    public void timestamp(long time) {
+        this.append((byte) ' ');
+        this.appendLong(this.precision.convert(time, TimeUnit.NANOSECONDS));
+        this.append((byte) '\n');
+        this.lines++;
+        this.lineStart = this.size;
+    }
+
+    /**
+     * Discards the point which has been started but not terminated by {@link #timestamp(long)},
+     * the terminated points are kept.
+     */
+    public void discardLine() {
+        this.size = this.lineStart;
+    }
+
+    /**
+     * Appends the already encoded points, e.g. read back from the disk.
+     * @param source the buffer with the encoded points, its position is moved by the length.
+     * @param length the number of the bytes.
+     * @param lines the number of the points.
+     */
+    public void append(ByteBuffer source, int length, int lines) {
+        this.ensureCapacity(length);
+        source.get(this.buffer, this.size, length);
+        this.size += length;
+        this.lines += lines;
+        this.lineStart = this.size;
+    }
+
+    /**
+     * Clears the buffer keeping its capacity.
+     */
+    public void reset() {
+        this.size = 0;
+        this.lines = 0;
+        this.lineStart = 0;
+    }
+
+    /**
+     * @return the number of the terminated points.
+     */
+    public int getLines() {
+        return this.lines;
+    }
+
+    /**
+     * @return the number of the written bytes.
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Gets the backing array, valid bytes are in range [0, {@link #getSize()}).
+     * @return the backing array.
+     */
+    public byte[] getBuffer() {
+        return this.buffer;
+    }
+
+    private void startField(String key) {
+        this.append(this.firstField ? (byte) ' ' : (byte) ',');
+        this.firstField = false;
+        this.appendEscaped(key, ESCAPE_TAG);
+        this.append((byte) '=');
+    }
+
+    private void appendLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            this.ensureCapacity(MIN_LONG.length);
+            System.arraycopy(MIN_LONG, 0, this.buffer, this.size, MIN_LONG.length);
+            this.size += MIN_LONG.length;
+            return;
+        }
+
+        this.ensureCapacity(20);
+        if (value < 0) {
+            this.buffer[this.size++] = '-';
+            value = -value;
+        }
+
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+
+        int position = this.size + digits;
+        do {
+            this.buffer[--position] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+
+        this.size += digits;
+    }
+
+    private void appendEscaped(String value, int mode) {
+        this.appendEscaped(value, value.length(), mode);
+    }
+
+    private void appendEscaped(CharSequence value, int length, int mode) {
+        // the worst case is 3 bytes per char: the BMP char, the escaped ASCII char takes 2 and the surrogate pair 4 per 2 chars
+        this.ensureCapacity(length * 3);
+
+        byte[] bytes = this.buffer;
+        int position = this.size;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (mode == ESCAPE_FIELD_STRING) {
+                    if (c == '"' || c == '\\') {
+                        bytes[position++] = '\\';
+                    }
+                } else if (c == '\n' || c == '\r') {
+                    continue;
+                } else if (c == ',' || c == ' ' || (c == '=' && mode == ESCAPE_TAG)) {
+                    bytes[position++] = '\\';
+                }
+                bytes[position++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[position++] = (byte) (0xC0 | (c >> 6));
+                bytes[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[position++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                bytes[position++] = '?';
+            } else {
+                bytes[position++] = (byte) (0xE0 | (c >> 12));
+                bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        this.size = position;
+    }
+
+    private void append(byte value) {
+        this.ensureCapacity(1);
+        this.buffer[this.size++] = value;
+    }
+
+    private void ensureCapacity(int additional) {
+        int required = this.size + additional;
+        if (required > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(required, this.buffer.length << 1));
+        }
+    }
+}
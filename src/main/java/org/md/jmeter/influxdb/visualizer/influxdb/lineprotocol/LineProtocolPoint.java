@@ -0,0 +1,14 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol;
+
+/**
+ * The point which is able to encode itself as the line protocol.
+ */
+@FunctionalInterface
+public interface LineProtocolPoint {
+
+    /**
+     * Writes the point to the builder, the point must be terminated by {@link LineProtocolBuilder#timestamp(long)}.
+     * @param builder the {@link LineProtocolBuilder}.
+     */
+    void writeTo(LineProtocolBuilder builder);
+}
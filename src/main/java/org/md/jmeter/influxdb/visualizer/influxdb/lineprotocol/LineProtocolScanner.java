@@ -0,0 +1,56 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol;
+
+/**
+ * Finds the ends of the points in the encoded line protocol, e.g. to split the batch or to count its points.
+ * The string field values keep the raw line breaks (e.g. the response headers of the failed sample),
+ * so the point ends with the line break which is neither escaped nor inside the quoted string field.
+ */
+public final class LineProtocolScanner {
+
+    private LineProtocolScanner() {
+    }
+
+    /**
+     * Finds the line break terminating the point.
+     * @param buffer the encoded points.
+     * @param start the start of the point.
+     * @param end the end of the data.
+     * @return the index of the line break or -1 if the point is not terminated before the end.
+     */
+    public static int findLineEnd(byte[] buffer, int start, int end) {
+        boolean fields = false;
+        boolean quoted = false;
+        for (int i = start; i < end; i++) {
+            byte b = buffer[i];
+            if (b == '\\') {
+                i++;
+            } else if (quoted) {
+                quoted = b != '"';
+            } else if (b == '\n') {
+                return i;
+            } else if (b == ' ') {
+                fields = true;
+            } else if (b == '"' && fields) {
+                quoted = true;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Counts the points terminated before the end.
+     * @param buffer the encoded points.
+     * @param start the start of the first point.
+     * @param end the end of the data.
+     * @return the number of the terminated points.
+     */
+    public static int countLines(byte[] buffer, int start, int end) {
+        int lines = 0;
+        for (int lineEnd = findLineEnd(buffer, start, end); lineEnd >= 0; lineEnd = findLineEnd(buffer, lineEnd + 1, end)) {
+            lines++;
+        }
+
+        return lines;
+    }
+}
@@ -0,0 +1,65 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The bounded cache of the encoded series keys (the measurement and the sorted escaped tags) by the request name and the response code.
+ * The key is encoded once per series and then copied to the buffer as is, see {@link LineProtocolBuilder#seriesKey(byte[])}.
+ * <p>
+ * The lookup neither locks nor allocates. When the number of the keys reaches the limit, all the keys are evicted
+ * and the cache is filled again by the series which are still in use.
+ */
+public class SeriesKeyCache {
+
+    private final int maxSize;
+    private final Map<String, Map<String, byte[]>> keys = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Creates the new instance of the {@link SeriesKeyCache}.
+     * @param maxSize the maximum number of the cached series keys.
+     */
+    public SeriesKeyCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the encoded series key.
+     * @param requestName the request name.
+     * @param responseCode the response code.
+     * @return the encoded series key or null if it is not cached.
+     */
+    public byte[] get(String requestName, String responseCode) {
+        Map<String, byte[]> responseCodes = this.keys.get(nullToEmpty(requestName));
+        return responseCodes != null ? responseCodes.get(nullToEmpty(responseCode)) : null;
+    }
+
+    /**
+     * Caches the encoded series key.
+     * @param requestName the request name.
+     * @param responseCode the response code.
+     * @param seriesKey the encoded series key, must not be modified.
+     */
+    public void put(String requestName, String responseCode, byte[] seriesKey) {
+        if (this.size.incrementAndGet() > this.maxSize) {
+            this.clear();
+            this.size.incrementAndGet();
+        }
+
+        this.keys.computeIfAbsent(nullToEmpty(requestName), name -> new ConcurrentHashMap<>()).put(nullToEmpty(responseCode), seriesKey);
+    }
+
+    /**
+     * Removes all the cached keys.
+     */
+    public void clear() {
+        this.keys.clear();
+        this.size.set(0);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
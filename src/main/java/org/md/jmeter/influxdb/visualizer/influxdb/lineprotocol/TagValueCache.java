@@ -0,0 +1,48 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The bounded cache of the escaped UTF-8 encoded tag values, e.g. the request names and the response codes.
+ * The hot values are escaped and encoded once and then copied to the buffer as is, see {@link LineProtocolBuilder#tag(String, String, TagValueCache)}.
+ */
+public class TagValueCache {
+
+    private final int maxSize;
+    private final Map<String, byte[]> values = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the new instance of the {@link TagValueCache}.
+     * @param maxSize the maximum number of the cached values; values above the limit are escaped every time.
+     */
+    public TagValueCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the escaped UTF-8 encoded value.
+     * @param value the tag value.
+     * @return the escaped value bytes, must not be modified.
+     */
+    public byte[] getEscaped(String value) {
+        byte[] escaped = this.values.get(value);
+        if (escaped != null) {
+            return escaped;
+        }
+
+        escaped = LineProtocolBuilder.escapeTag(value);
+        if (this.values.size() < this.maxSize) {
+            this.values.put(value, escaped);
+        }
+
+        return escaped;
+    }
+
+    /**
+     * Removes all the cached values.
+     */
+    public void clear() {
+        this.values.clear();
+    }
+}
@@ -0,0 +1,70 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The precision of the timestamps in the write requests, the coarser precision makes the payload smaller.
+ */
+public enum WritePrecision {
+
+    /**
+     * Nanoseconds.
+     */
+    NANOSECONDS("ns", "ns", TimeUnit.NANOSECONDS),
+
+    /**
+     * Microseconds.
+     */
+    MICROSECONDS("us", "u", TimeUnit.MICROSECONDS),
+
+    /**
+     * Milliseconds.
+     */
+    MILLISECONDS("ms", "ms", TimeUnit.MILLISECONDS);
+
+    private final String name;
+    private final String queryParameter;
+    private final TimeUnit timeUnit;
+
+    WritePrecision(String name, String queryParameter, TimeUnit timeUnit) {
+        this.name = name;
+        this.queryParameter = queryParameter;
+        this.timeUnit = timeUnit;
+    }
+
+    /**
+     * @return the name used in the listener parameters.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return the value of the 'precision' parameter of the Influx DB write request.
+     */
+    public String getQueryParameter() {
+        return this.queryParameter;
+    }
+
+    /**
+     * @return the {@link TimeUnit} of the timestamps.
+     */
+    public TimeUnit getTimeUnit() {
+        return this.timeUnit;
+    }
+
+    /**
+     * Gets the precision by the name used in the listener parameters.
+     * @param name the precision name.
+     * @return the {@link WritePrecision}.
+     */
+    public static WritePrecision fromName(String name) {
+        for (WritePrecision precision : values()) {
+            if (precision.name.equalsIgnoreCase(name)) {
+                return precision;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown write precision: " + name);
+    }
+}
@@ -0,0 +1,566 @@
+package org.md.jmeter.influxdb.visualizer.loader;
+
+import okhttp3.OkHttpClient;
+import org.apache.jmeter.assertions.AssertionResult;
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.visualizers.backend.BackendListenerContext;
+import org.md.jmeter.influxdb.visualizer.config.InfluxDBConfig;
+import org.md.jmeter.influxdb.visualizer.config.RequestMeasurement;
+import org.md.jmeter.influxdb.visualizer.influxdb.client.HttpLineProtocolTransport;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.SeriesKeyCache;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.TagValueCache;
+import org.md.jmeter.influxdb.visualizer.result.ErrorBodyCache;
+import org.md.jmeter.influxdb.visualizer.result.SampleResultPointContext;
+import org.md.jmeter.influxdb.visualizer.result.SampleResultPointProvider;
+import org.md.jmeter.influxdb.visualizer.result.SampleTimestampGenerator;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Imports the JMeter CSV result files (JTL) to the {@link RequestMeasurement} measurement, e.g.:
+ * <pre>
+ * java -cp jmeter-plugin-influxdb-listener.jar org.md.jmeter.influxdb.visualizer.loader.JtlImporter influxDBHost=localhost testName=Checkout results.jtl
+ * </pre>
+ * The arguments are the listener parameters ('key=value') and the files, the file must have the header and the timeStamp in milliseconds
+ * (the JMeter defaults). The rows are converted to the {@link SampleResult} and written by the {@link SampleResultPointProvider},
+ * so the points are the same as written by the listener during the test; the runId defaults to the file name.
+ * <p>
+ * The file is memory mapped and split to the chunks parsed in parallel, every chunk starts at the first row after the chunk boundary
+ * and ends with the row crossing the next boundary. The quoted values may have the line breaks (e.g. the failure message),
+ * so the quotes of every chunk are counted first: the parity of the quotes before the chunk tells whether its boundary is inside
+ * the quoted value, the doubled quotes inside the quoted value keep the parity. The rows are sent in the large batches,
+ * one request at a time per thread.
+ */
+public class JtlImporter {
+
+    /**
+     * Parameter key for the number of the chunks parsed in parallel.
+     */
+    public static final String KEY_THREADS = "importerThreads";
+
+    /**
+     * Parameter key for the number of the points per write request.
+     */
+    public static final String KEY_BATCH_SIZE = "importerBatchSize";
+
+    /**
+     * Parameter key for the column delimiter.
+     */
+    public static final String KEY_DELIMITER = "importerDelimiter";
+
+    /**
+     * Parameter key for the sample time in the timeStamp column: 'start' (the JMeter default) or 'end'.
+     */
+    public static final String KEY_TIME_STAMP = "importerTimeStamp";
+
+    /**
+     * Default number of the chunks parsed in parallel.
+     */
+    public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Default number of the points per write request.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 10000;
+
+    private static final String KEY_TEST_NAME = "testName";
+    private static final String KEY_NODE_NAME = "nodeName";
+    private static final String KEY_RUN_ID = "runId";
+    private static final String KEY_TIMESTAMP_SOURCE = "timestampSource";
+    private static final String TIME_STAMP_START = "start";
+    private static final String TIME_STAMP_END = "end";
+
+    /**
+     * Default size of the chunk parsed by one thread in bytes.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 32 * 1024 * 1024;
+
+    private static final int MAX_CACHED_TAG_VALUES = 10000;
+    private static final int MAX_CACHED_SERIES_KEYS = 10000;
+
+    private final BackendListenerContext context;
+    private final InfluxDBConfig influxDBConfig;
+    private final OkHttpClient httpClient;
+    private final int threads;
+    private final int batchSize;
+    private final int chunkSize;
+    private final int retries;
+    private final byte delimiter;
+    private final boolean timeStampAtStart;
+    private final boolean useStartTime;
+    private final TagValueCache tagValueCache = new TagValueCache(MAX_CACHED_TAG_VALUES);
+
+    private final LongAdder importedRows = new LongAdder();
+    private final LongAdder sentBytes = new LongAdder();
+
+    /**
+     * Creates the new instance of the {@link JtlImporter}.
+     * @param parameters the listener parameters, the Influx DB host and database default to 'localhost' and 'jmeter', the requests are gzip compressed.
+     */
+    public JtlImporter(Map<String, String> parameters) {
+        this(parameters, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates the new instance of the {@link JtlImporter} with the given chunk size, e.g. small to test the chunk boundaries.
+     * @param parameters the listener parameters.
+     * @param chunkSize the size of the chunk parsed by one thread in bytes.
+     */
+    JtlImporter(Map<String, String> parameters, int chunkSize) {
+        this.chunkSize = chunkSize;
+        Map<String, String> importerParameters = new HashMap<>(parameters);
+        importerParameters.putIfAbsent(InfluxDBConfig.KEY_INFLUX_DB_HOST, "localhost");
+        importerParameters.putIfAbsent(InfluxDBConfig.KEY_INFLUX_DB_DATABASE, InfluxDBConfig.DEFAULT_DATABASE);
+        importerParameters.putIfAbsent(InfluxDBConfig.KEY_GZIP, "true");
+
+        this.context = new BackendListenerContext(importerParameters);
+        this.influxDBConfig = new InfluxDBConfig(this.context);
+        this.threads = LineProtocolLoader.getPositiveIntParameter(this.context, KEY_THREADS, DEFAULT_THREADS);
+        this.batchSize = LineProtocolLoader.getPositiveIntParameter(this.context, KEY_BATCH_SIZE, DEFAULT_BATCH_SIZE);
+        this.retries = Math.max(0, this.context.getIntParameter(LineProtocolLoader.KEY_RETRIES, LineProtocolLoader.DEFAULT_RETRIES));
+        this.httpClient = LineProtocolLoader.createHttpClient(this.influxDBConfig, this.threads);
+
+        String delimiter = this.context.getParameter(KEY_DELIMITER, ",");
+        if ("\\t".equals(delimiter)) {
+            delimiter = "\t";
+        }
+        if (delimiter.length() != 1) {
+            throw new IllegalArgumentException(KEY_DELIMITER + " must be one character!");
+        }
+        this.delimiter = (byte) delimiter.charAt(0);
+
+        // the timeStamp column is the sample start time by default, the points are stamped with the end time as by the listener
+        this.timeStampAtStart = isStart(this.context, KEY_TIME_STAMP, TIME_STAMP_START);
+        this.useStartTime = isStart(this.context, KEY_TIMESTAMP_SOURCE, TIME_STAMP_END);
+    }
+
+    /**
+     * Imports the file, the chunks of the file are parsed and sent in parallel.
+     * @param file the JMeter CSV result file.
+     * @return the number of the imported rows.
+     * @throws IOException if the file cannot be read or the points have not been written.
+     * @throws InterruptedException if the thread has been interrupted.
+     */
+    public long importFile(Path file) throws IOException, InterruptedException {
+        long importedRows = this.importedRows.sum();
+        String fileName = file.getFileName().toString();
+        String runId = this.context.getParameter(KEY_RUN_ID, fileName.contains(".") ? fileName.substring(0, fileName.lastIndexOf('.')) : fileName);
+        TimeUnit precision = this.influxDBConfig.getPrecision().getTimeUnit();
+        SeriesKeyCache seriesKeyCache = new SeriesKeyCache(MAX_CACHED_SERIES_KEYS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+        try (FileChannel channel = FileChannel.open(file)) {
+            long size = channel.size();
+            ChunkImporter headerReader = new ChunkImporter(file, runId, new SampleTimestampGenerator(precision, this.useStartTime), seriesKeyCache);
+            long headerEnd = headerReader.readHeader(channel);
+
+            // every row is stamped from its own time by the generator of its chunk, the rows of the same label and millisecond
+            // in the different chunks get the different sub-millisecond ticks as the generators start at the evenly spread sequences
+            long chunks = (size - headerEnd + this.chunkSize - 1) / this.chunkSize;
+            long ticksPerMillisecond = Math.max(1, precision.convert(1, TimeUnit.MILLISECONDS));
+
+            List<Future<Long>> quoteCounts = new ArrayList<>();
+            for (long chunkStart = headerEnd; chunkStart < size; chunkStart += this.chunkSize) {
+                long start = chunkStart;
+                long end = Math.min(size, chunkStart + this.chunkSize);
+                quoteCounts.add(executor.submit(() -> countQuotes(channel, start, end)));
+            }
+
+            boolean[] quotedStarts = new boolean[quoteCounts.size()];
+            long quotes = 0;
+            for (int i = 0; i < quotedStarts.length; i++) {
+                quotedStarts[i] = (quotes & 1) != 0;
+                quotes += quoteCounts.get(i).get();
+            }
+
+            List<Future<?>> results = new ArrayList<>();
+            for (long chunkStart = headerEnd; chunkStart < size; chunkStart += this.chunkSize) {
+                long start = chunkStart;
+                long end = Math.min(size, chunkStart + this.chunkSize);
+                boolean quotedStart = quotedStarts[(int) ((start - headerEnd) / this.chunkSize)];
+                long firstSequence = (start - headerEnd) / this.chunkSize * ticksPerMillisecond / chunks;
+                SampleTimestampGenerator timestampGenerator = new SampleTimestampGenerator(precision, this.useStartTime, firstSequence);
+                ChunkImporter chunkImporter = new ChunkImporter(file, runId, timestampGenerator, seriesKeyCache);
+                chunkImporter.columns = headerReader.columns;
+                results.add(executor.submit(() -> {
+                    chunkImporter.importChunk(channel, start, end, start == headerEnd, quotedStart);
+                    return null;
+                }));
+            }
+
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed importing " + file, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return this.importedRows.sum() - importedRows;
+    }
+
+    /**
+     * Counts the quotes of the chunk.
+     * @return the number of the quotes.
+     */
+    private static long countQuotes(FileChannel channel, long start, long end) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        long quotes = 0;
+        for (int i = 0; i < buffer.limit(); i++) {
+            if (buffer.get(i) == '"') {
+                quotes++;
+            }
+        }
+
+        return quotes;
+    }
+
+    /**
+     * Imports the JMeter CSV result files to Influx DB.
+     * @param args the listener parameters ('key=value') and the files.
+     * @throws Exception if the files cannot be imported.
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> parameters = new HashMap<>();
+        List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0 && !Paths.get(arg).toFile().exists()) {
+                parameters.put(arg.substring(0, separator), arg.substring(separator + 1));
+            } else {
+                files.add(Paths.get(arg));
+            }
+        }
+
+        if (files.isEmpty()) {
+            System.err.println("Usage: java -cp jmeter-plugin-influxdb-listener.jar " + JtlImporter.class.getName() + " [" + InfluxDBConfig.KEY_INFLUX_DB_HOST
+                    + "=localhost] [" + InfluxDBConfig.KEY_INFLUX_DB_DATABASE + "=jmeter] [" + KEY_TEST_NAME + "=Test] [" + KEY_NODE_NAME + "=Test-Node] ["
+                    + KEY_RUN_ID + "=<file name>] [" + KEY_THREADS + "=" + DEFAULT_THREADS + "] [" + KEY_BATCH_SIZE + "=" + DEFAULT_BATCH_SIZE + "] ["
+                    + KEY_DELIMITER + "=,] [" + KEY_TIME_STAMP + "=start] [other listener parameters] <files>");
+            System.exit(2);
+        }
+
+        JtlImporter importer = new JtlImporter(parameters);
+        long start = System.nanoTime();
+        for (Path file : files) {
+            System.out.println(file + ": " + importer.importFile(file) + " rows have been imported");
+        }
+        importer.httpClient.connectionPool().evictAll();
+
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        long rows = importer.importedRows.sum();
+        System.out.println(rows + " rows (" + importer.sentBytes.sum() + " bytes on the wire) have been imported in " + millis + " ms, " + rows * 1000 / millis + " rows/s");
+    }
+
+    private static boolean isStart(BackendListenerContext context, String key, String defaultValue) {
+        String value = context.getParameter(key, defaultValue);
+        if (TIME_STAMP_START.equalsIgnoreCase(value)) {
+            return true;
+        }
+
+        if (TIME_STAMP_END.equalsIgnoreCase(value)) {
+            return false;
+        }
+
+        throw new IllegalArgumentException(key + " must be " + TIME_STAMP_START + " or " + TIME_STAMP_END + "!");
+    }
+
+    /**
+     * The column indexes of the file, -1 if the column is not saved.
+     */
+    private static final class Columns {
+        private int timeStamp = -1;
+        private int elapsed = -1;
+        private int label = -1;
+        private int responseCode = -1;
+        private int success = -1;
+        private int failureMessage = -1;
+        private int bytes = -1;
+        private int sentBytes = -1;
+        private int url = -1;
+        private int latency = -1;
+        private int connect = -1;
+    }
+
+    /**
+     * Parses the rows of the chunk and sends the points, the instance is used by one thread.
+     */
+    private final class ChunkImporter {
+
+        private final Path file;
+        private final SampleTimestampGenerator timestampGenerator;
+        private final SampleResultPointProvider pointProvider;
+        private final SampleResultPointContext pointContext;
+
+        private Columns columns;
+
+        // the current row: the unquoted values and their bounds
+        private byte[] row = new byte[1024];
+        private int[] valueStarts = new int[32];
+        private int[] valueEnds = new int[32];
+        private int values;
+
+        private ChunkImporter(Path file, String runId, SampleTimestampGenerator timestampGenerator, SeriesKeyCache seriesKeyCache) {
+            this.file = file;
+            this.timestampGenerator = timestampGenerator;
+            this.pointContext = new SampleResultPointContext();
+            this.pointContext.setRunId(runId);
+            this.pointContext.setTestName(context.getParameter(KEY_TEST_NAME, "Test"));
+            this.pointContext.setNodeName(context.getParameter(KEY_NODE_NAME, "Test-Node"));
+            this.pointContext.setPrecisionToSet(timestampGenerator.getPrecision());
+            this.pointContext.setErrorBodyCache(new ErrorBodyCache(0));
+            this.pointContext.setTagValueCache(tagValueCache);
+            this.pointContext.setSeriesKeyCache(seriesKeyCache);
+            this.pointProvider = new SampleResultPointProvider(this.pointContext);
+        }
+
+        /**
+         * Reads the header row.
+         * @return the position of the first row.
+         */
+        private long readHeader(FileChannel channel) throws IOException {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), 64 * 1024));
+            int end = this.parseRow(buffer, 0, buffer.limit());
+
+            this.columns = new Columns();
+            for (int i = 0; i < this.values; i++) {
+                String name = this.getString(i);
+                switch (name) {
+                    case "timeStamp": this.columns.timeStamp = i; break;
+                    case "elapsed": this.columns.elapsed = i; break;
+                    case "label": this.columns.label = i; break;
+                    case "responseCode": this.columns.responseCode = i; break;
+                    case "success": this.columns.success = i; break;
+                    case "failureMessage": this.columns.failureMessage = i; break;
+                    case "bytes": this.columns.bytes = i; break;
+                    case "sentBytes": this.columns.sentBytes = i; break;
+                    case "URL": this.columns.url = i; break;
+                    case "Latency": this.columns.latency = i; break;
+                    case "Connect": this.columns.connect = i; break;
+                    default: break;
+                }
+            }
+
+            if (this.columns.timeStamp < 0 || this.columns.elapsed < 0 || this.columns.label < 0) {
+                throw new IOException(this.file + ": the header with the timeStamp, elapsed and label columns is required");
+            }
+
+            return end;
+        }
+
+        /**
+         * Imports the rows starting in the chunk.
+         * @param quotedStart true if the chunk starts inside the quoted value.
+         */
+        private void importChunk(FileChannel channel, long start, long end, boolean firstChunk, boolean quotedStart)
+                throws IOException, InterruptedException {
+            // the chunk is mapped up to the end of the file, so the row crossing the chunk end is read from the same buffer
+            long mappedStart = firstChunk ? start : start - 1;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, mappedStart, Math.min(channel.size() - mappedStart, Integer.MAX_VALUE));
+            int chunkEnd = (int) (end - mappedStart);
+            int limit = buffer.limit();
+
+            int position = 0;
+            if (!firstChunk) {
+                // the row started in the previous chunk belongs to it, it ends with the first line break outside the quoted value
+                boolean quoted = quotedStart ^ (buffer.get(0) == '"');
+                while (position < limit) {
+                    byte b = buffer.get(position++);
+                    if (b == '"') {
+                        quoted = !quoted;
+                    } else if (b == '\n' && !quoted) {
+                        break;
+                    }
+                }
+            }
+
+            HttpLineProtocolTransport transport = new HttpLineProtocolTransport(influxDBConfig, httpClient);
+            LineProtocolBuilder batch = new LineProtocolBuilder(batchSize * 256, influxDBConfig.getPrecision());
+            try {
+                while (position < chunkEnd && position < limit) {
+                    position = this.parseRow(buffer, position, limit);
+                    if (this.values <= 1 && this.valueEnds[0] == 0) {
+                        continue;
+                    }
+
+                    this.writePoint(batch);
+                    if (batch.getLines() >= batchSize) {
+                        this.send(transport, batch);
+                    }
+                }
+
+                if (batch.getLines() > 0) {
+                    this.send(transport, batch);
+                }
+            } finally {
+                transport.close();
+            }
+        }
+
+        private void send(HttpLineProtocolTransport transport, LineProtocolBuilder batch) throws IOException, InterruptedException {
+            sentBytes.add(LineProtocolLoader.send(transport, batch, retries, this.file));
+            importedRows.add(batch.getLines());
+            batch.reset();
+        }
+
+        /**
+         * Converts the current row to the {@link SampleResult} and writes its point.
+         */
+        private void writePoint(LineProtocolBuilder batch) throws IOException {
+            long timeStamp;
+            long elapsed;
+            try {
+                timeStamp = this.getLong(this.columns.timeStamp);
+                elapsed = this.getLong(this.columns.elapsed);
+            } catch (NumberFormatException e) {
+                throw new IOException(this.file + ": the timeStamp must be in milliseconds (jmeter.save.saveservice.timestamp_format=ms): " + e.getMessage());
+            }
+
+            long startTime = timeStampAtStart ? timeStamp : timeStamp - elapsed;
+            SampleResult sampleResult = SampleResult.createTestSample(startTime, startTime + elapsed);
+            sampleResult.setSampleLabel(this.getString(this.columns.label));
+            sampleResult.setResponseCode(this.getString(this.columns.responseCode));
+            sampleResult.setBytes(this.getLong(this.columns.bytes));
+            sampleResult.setSentBytes(this.getLong(this.columns.sentBytes));
+            sampleResult.setLatency(this.getLong(this.columns.latency));
+            sampleResult.setConnectTime(this.getLong(this.columns.connect));
+
+            boolean successful = this.columns.success < 0 || "true".equalsIgnoreCase(this.getString(this.columns.success));
+            sampleResult.setSuccessful(successful);
+            if (!successful) {
+                // the failure message is saved by JMeter from the first failed assertion, the same as read by the listener
+                String failureMessage = this.getString(this.columns.failureMessage);
+                if (!failureMessage.isEmpty()) {
+                    AssertionResult assertionResult = new AssertionResult("");
+                    assertionResult.setFailure(true);
+                    assertionResult.setFailureMessage(failureMessage);
+                    sampleResult.addAssertionResult(assertionResult);
+                }
+                this.setUrl(sampleResult);
+            }
+
+            this.pointContext.setSampleResult(sampleResult);
+            this.pointContext.setTimeToSet(this.timestampGenerator.getTimestamp(sampleResult));
+            this.pointProvider.writeTo(batch);
+        }
+
+        private void setUrl(SampleResult sampleResult) {
+            String url = this.getString(this.columns.url);
+            if (url.isEmpty() || "null".equals(url)) {
+                return;
+            }
+
+            try {
+                sampleResult.setURL(new java.net.URL(url));
+            } catch (java.net.MalformedURLException e) {
+                // the URL is the failure detail only
+            }
+        }
+
+        /**
+         * Parses the row starting at the position, the quoted values are unquoted.
+         * @return the position of the next row.
+         */
+        private int parseRow(MappedByteBuffer buffer, int position, int limit) {
+            int length = 0;
+            boolean quoted = false;
+            this.values = 0;
+            this.valueStarts[0] = 0;
+
+            while (position < limit) {
+                byte b = buffer.get(position++);
+                if (quoted) {
+                    if (b != '"') {
+                        length = this.append(length, b);
+                    } else if (position < limit && buffer.get(position) == '"') {
+                        length = this.append(length, b);
+                        position++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (b == '"') {
+                    quoted = true;
+                } else if (b == delimiter) {
+                    this.endValue(length);
+                } else if (b == '\n') {
+                    break;
+                } else if (b != '\r') {
+                    length = this.append(length, b);
+                }
+            }
+
+            this.endValue(length);
+            return position;
+        }
+
+        private int append(int length, byte b) {
+            if (length == this.row.length) {
+                this.row = Arrays.copyOf(this.row, length << 1);
+            }
+            this.row[length] = b;
+            return length + 1;
+        }
+
+        private void endValue(int length) {
+            if (this.values + 1 == this.valueStarts.length) {
+                this.valueStarts = Arrays.copyOf(this.valueStarts, this.valueStarts.length << 1);
+                this.valueEnds = Arrays.copyOf(this.valueEnds, this.valueEnds.length << 1);
+            }
+            this.valueEnds[this.values++] = length;
+            this.valueStarts[this.values] = length;
+        }
+
+        private String getString(int column) {
+            if (column < 0 || column >= this.values) {
+                return "";
+            }
+
+            return new String(this.row, this.valueStarts[column], this.valueEnds[column] - this.valueStarts[column], StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Parses the number without creating the string.
+         * @return the value, 0 if the column is not saved or empty.
+         */
+        private long getLong(int column) {
+            if (column < 0 || column >= this.values) {
+                return 0;
+            }
+
+            long value = 0;
+            int start = this.valueStarts[column];
+            int end = this.valueEnds[column];
+            boolean negative = start < end && this.row[start] == '-';
+            for (int i = negative ? start + 1 : start; i < end; i++) {
+                int digit = this.row[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new NumberFormatException("'" + this.getString(column) + "' is not a number");
+                }
+                value = value * 10 + digit;
+            }
+
+            return negative ? -value : value;
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package org.md.jmeter.influxdb.visualizer.loader;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import org.apache.jmeter.visualizers.backend.BackendListenerContext;
+import org.md.jmeter.influxdb.visualizer.config.InfluxDBConfig;
+import org.md.jmeter.influxdb.visualizer.influxdb.client.FileLineProtocolTransport;
+import org.md.jmeter.influxdb.visualizer.influxdb.client.HttpLineProtocolTransport;
+import org.md.jmeter.influxdb.visualizer.influxdb.client.LineProtocolTransport;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolScanner;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.WritePrecision;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Loads the line protocol files written by the {@link FileLineProtocolTransport} to Influx DB, the Main-Class of the plugin jar, e.g.:
+ * <pre>
+ * java -jar jmeter-plugin-influxdb-listener.jar influxDBHost=localhost influxDBDatabase=jmeter loaderThreads=4 /path/to/points
+ * </pre>
+ * The arguments are the listener parameters ('key=value') and the files or the directories with the files.
+ * The files are loaded in parallel, one file per thread, in the large batches.
+ * <p>
+ * The number of the loaded points of the file is stored to the '.progress' file after every batch, so the interrupted load
+ * is resumed from the next batch; the loaded file is marked with the '.loaded' file and skipped by the next runs.
+ */
+public class LineProtocolLoader {
+
+    /**
+     * Parameter key for the number of the files loaded in parallel.
+     */
+    public static final String KEY_THREADS = "loaderThreads";
+
+    /**
+     * Parameter key for the number of the points per write request.
+     */
+    public static final String KEY_BATCH_SIZE = "loaderBatchSize";
+
+    /**
+     * Parameter key for the number of the retries of the failed write request.
+     */
+    public static final String KEY_RETRIES = "loaderRetries";
+
+    /**
+     * Default number of the files loaded in parallel.
+     */
+    public static final int DEFAULT_THREADS = Math.min(8, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Default number of the points per write request.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 10000;
+
+    /**
+     * Default number of the retries of the failed write request.
+     */
+    public static final int DEFAULT_RETRIES = 5;
+
+    static final String PROGRESS_SUFFIX = ".progress";
+    static final String LOADED_SUFFIX = ".loaded";
+
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+    private static final long MAX_RETRY_DELAY = 30000;
+
+    private final BackendListenerContext context;
+    private final InfluxDBConfig influxDBConfig;
+    private final OkHttpClient httpClient;
+    private final int threads;
+    private final int batchSize;
+    private final int retries;
+
+    private final LongAdder loadedPoints = new LongAdder();
+    private final LongAdder loadedBytes = new LongAdder();
+
+    /**
+     * Creates the new instance of the {@link LineProtocolLoader}.
+     * @param parameters the listener parameters, the Influx DB host and database default to 'localhost' and 'jmeter', the requests are gzip compressed.
+     */
+    public LineProtocolLoader(Map<String, String> parameters) {
+        Map<String, String> loaderParameters = new HashMap<>(parameters);
+        loaderParameters.putIfAbsent(InfluxDBConfig.KEY_INFLUX_DB_HOST, "localhost");
+        loaderParameters.putIfAbsent(InfluxDBConfig.KEY_INFLUX_DB_DATABASE, InfluxDBConfig.DEFAULT_DATABASE);
+        loaderParameters.putIfAbsent(InfluxDBConfig.KEY_GZIP, "true");
+
+        this.context = new BackendListenerContext(loaderParameters);
+        this.influxDBConfig = new InfluxDBConfig(this.context);
+        this.threads = getPositiveIntParameter(this.context, KEY_THREADS, DEFAULT_THREADS);
+        this.batchSize = getPositiveIntParameter(this.context, KEY_BATCH_SIZE, DEFAULT_BATCH_SIZE);
+        this.retries = this.context.getIntParameter(KEY_RETRIES, DEFAULT_RETRIES);
+        if (this.retries < 0) {
+            throw new IllegalArgumentException(KEY_RETRIES + " must not be negative!");
+        }
+
+        this.httpClient = createHttpClient(this.influxDBConfig, this.threads);
+    }
+
+    /**
+     * Loads the files in parallel, the files marked as loaded are skipped.
+     * @param files the files or the directories with the files.
+     * @return true if all the files have been loaded; otherwise false.
+     * @throws IOException if the directory cannot be listed.
+     * @throws InterruptedException if the thread has been interrupted.
+     */
+    public boolean load(List<Path> files) throws IOException, InterruptedException {
+        List<Path> filesToLoad = new ArrayList<>();
+        for (Path file : files) {
+            if (Files.isDirectory(file)) {
+                try (Stream<Path> directoryFiles = Files.list(file)) {
+                    filesToLoad.addAll(directoryFiles.filter(path -> path.getFileName().toString().endsWith(FileLineProtocolTransport.FILE_SUFFIX))
+                            .sorted()
+                            .collect(Collectors.toList()));
+                }
+            } else {
+                filesToLoad.add(file);
+            }
+        }
+        filesToLoad.removeIf(file -> Files.exists(getSibling(file, LOADED_SUFFIX)));
+        System.out.println(filesToLoad.size() + " files are going to be loaded to " + this.influxDBConfig.getInfluxDBURL() + "/" + this.influxDBConfig.getInfluxDatabase());
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+        boolean loaded = true;
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (Path file : filesToLoad) {
+                results.add(executor.submit(() -> this.loadFile(file)));
+            }
+
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    System.out.println(filesToLoad.get(i) + ": " + results.get(i).get() + " points have been loaded");
+                } catch (ExecutionException e) {
+                    loaded = false;
+                    System.err.println(filesToLoad.get(i) + ": failed, the next run resumes from the last loaded batch: " + e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            this.httpClient.connectionPool().evictAll();
+        }
+
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        System.out.println(this.loadedPoints.sum() + " points (" + this.loadedBytes.sum() + " bytes on the wire) have been loaded in "
+                + millis + " ms, " + this.loadedPoints.sum() * 1000 / millis + " points/s");
+        return loaded;
+    }
+
+    /**
+     * Loads the file from the point after the last loaded batch.
+     * @param file the file written by the {@link FileLineProtocolTransport}.
+     * @return the number of the points loaded by this call.
+     * @throws IOException if the file cannot be read or the points have not been written.
+     * @throws InterruptedException if the thread has been interrupted.
+     */
+    long loadFile(Path file) throws IOException, InterruptedException {
+        WritePrecision precision = FileLineProtocolTransport.getPrecision(file);
+        if (precision == null) {
+            precision = this.influxDBConfig.getPrecision();
+        }
+
+        InfluxDBConfig fileConfig = new InfluxDBConfig(this.context);
+        fileConfig.setPrecision(precision);
+        HttpLineProtocolTransport transport = new HttpLineProtocolTransport(fileConfig, this.httpClient);
+
+        Path progressFile = getSibling(file, PROGRESS_SUFFIX);
+        long skippedLines = Files.exists(progressFile) ? Long.parseLong(new String(Files.readAllBytes(progressFile), StandardCharsets.US_ASCII).trim()) : 0;
+        long resumedLines = skippedLines;
+        long loadedLines = skippedLines;
+        LineProtocolBuilder batch = new LineProtocolBuilder(this.batchSize * 256, precision);
+
+        try (InputStream input = new GZIPInputStream(Channels.newInputStream(FileChannel.open(file)), 64 * 1024)) {
+            byte[] buffer = new byte[READ_BUFFER_SIZE];
+            int limit = 0;
+            boolean endOfFile = false;
+            while (!endOfFile) {
+                int read;
+                try {
+                    read = input.read(buffer, limit, buffer.length - limit);
+                } catch (EOFException e) {
+                    System.err.println(file + ": the last batch is truncated, it has been written by the killed run");
+                    read = -1;
+                }
+
+                if (read < 0) {
+                    endOfFile = true;
+                } else {
+                    limit += read;
+                }
+
+                // the complete points are added to the batch, the incomplete last point is kept for the next read;
+                // the line breaks of the string fields do not end the point
+                int lineStart = 0;
+                int regionStart = 0;
+                int regionLines = 0;
+                int lineEnd;
+                while ((lineEnd = LineProtocolScanner.findLineEnd(buffer, lineStart, limit)) >= 0) {
+                    lineStart = lineEnd + 1;
+                    if (skippedLines > 0) {
+                        skippedLines--;
+                        regionStart = lineStart;
+                        continue;
+                    }
+
+                    regionLines++;
+                    if (batch.getLines() + regionLines == this.batchSize) {
+                        batch.append(ByteBuffer.wrap(buffer, regionStart, lineStart - regionStart), lineStart - regionStart, regionLines);
+                        loadedLines = this.send(transport, batch, file, progressFile, loadedLines);
+                        regionStart = lineStart;
+                        regionLines = 0;
+                    }
+                }
+
+                if (regionLines > 0) {
+                    batch.append(ByteBuffer.wrap(buffer, regionStart, lineStart - regionStart), lineStart - regionStart, regionLines);
+                }
+
+                System.arraycopy(buffer, lineStart, buffer, 0, limit - lineStart);
+                limit -= lineStart;
+                if (limit == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length << 1);
+                }
+            }
+
+            if (batch.getLines() > 0) {
+                loadedLines = this.send(transport, batch, file, progressFile, loadedLines);
+            }
+        } finally {
+            transport.close();
+        }
+
+        Files.write(getSibling(file, LOADED_SUFFIX), Long.toString(loadedLines).getBytes(StandardCharsets.US_ASCII));
+        Files.deleteIfExists(progressFile);
+        return loadedLines - resumedLines;
+    }
+
+    /**
+     * Loads the line protocol files to Influx DB.
+     * @param args the listener parameters ('key=value') and the files or the directories with the files.
+     * @throws Exception if the files cannot be loaded.
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> parameters = new HashMap<>();
+        List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0 && !Files.exists(Paths.get(arg))) {
+                parameters.put(arg.substring(0, separator), arg.substring(separator + 1));
+            } else {
+                files.add(Paths.get(arg));
+            }
+        }
+
+        if (files.isEmpty()) {
+            System.err.println("Usage: java -jar jmeter-plugin-influxdb-listener.jar [" + InfluxDBConfig.KEY_INFLUX_DB_HOST + "=localhost] ["
+                    + InfluxDBConfig.KEY_INFLUX_DB_DATABASE + "=jmeter] [" + KEY_THREADS + "=" + DEFAULT_THREADS + "] ["
+                    + KEY_BATCH_SIZE + "=" + DEFAULT_BATCH_SIZE + "] [" + KEY_RETRIES + "=" + DEFAULT_RETRIES + "] [other listener parameters] <files or directories>");
+            System.exit(2);
+        }
+
+        System.exit(new LineProtocolLoader(parameters).load(files) ? 0 : 1);
+    }
+
+    /**
+     * Creates the HTTP client of the write requests.
+     * @param influxDBConfig the {@link InfluxDBConfig} with the timeouts.
+     * @param threads the number of the threads sending the requests.
+     * @return the {@link OkHttpClient}.
+     */
+    static OkHttpClient createHttpClient(InfluxDBConfig influxDBConfig, int threads) {
+        return new OkHttpClient.Builder()
+                .connectTimeout(influxDBConfig.getConnectTimeout(), TimeUnit.MILLISECONDS)
+                .readTimeout(influxDBConfig.getReadTimeout(), TimeUnit.MILLISECONDS)
+                .writeTimeout(influxDBConfig.getWriteTimeout(), TimeUnit.MILLISECONDS)
+                .connectionPool(new ConnectionPool(threads, influxDBConfig.getKeepAlive(), TimeUnit.SECONDS))
+                .retryOnConnectionFailure(true)
+                .build();
+    }
+
+    /**
+     * Sends the batch retrying with the exponential backoff.
+     * @param transport the {@link LineProtocolTransport}.
+     * @param batch the batch to send.
+     * @param retries the number of the retries.
+     * @param source the file the points have been read from, used in the messages.
+     * @return the number of the bytes sent.
+     * @throws IOException if the batch has not been written after the retries.
+     * @throws InterruptedException if the thread has been interrupted.
+     */
+    static int send(LineProtocolTransport transport, LineProtocolBuilder batch, int retries, Path source) throws IOException, InterruptedException {
+        long delay = 1000;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return transport.send(batch);
+            } catch (IOException e) {
+                if (attempt >= retries) {
+                    throw e;
+                }
+
+                System.err.println(source + ": failed writing " + batch.getLines() + " points, retrying in " + delay + " ms: " + e.getMessage());
+                Thread.sleep(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+                delay = Math.min(MAX_RETRY_DELAY, delay * 2);
+            }
+        }
+    }
+
+    /**
+     * Sends the batch and stores the progress of the file.
+     * @return the number of the loaded points of the file.
+     */
+    private long send(HttpLineProtocolTransport transport, LineProtocolBuilder batch, Path file, Path progressFile, long loadedLines)
+            throws IOException, InterruptedException {
+        this.loadedBytes.add(send(transport, batch, this.retries, file));
+
+        loadedLines += batch.getLines();
+        this.loadedPoints.add(batch.getLines());
+        batch.reset();
+
+        Path progressPart = getSibling(progressFile, ".tmp");
+        Files.write(progressPart, Long.toString(loadedLines).getBytes(StandardCharsets.US_ASCII));
+        Files.move(progressPart, progressFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return loadedLines;
+    }
+
+    private static Path getSibling(Path file, String suffix) {
+        return file.resolveSibling(file.getFileName() + suffix);
+    }
+
+    /**
+     * Gets the integer parameter which must be greater than 0.
+     * @param context the {@link BackendListenerContext}
+     * @param key the parameter key.
+     * @param defaultValue the default value.
+     * @return the parameter value.
+     */
+    static int getPositiveIntParameter(BackendListenerContext context, String key, int defaultValue) {
+        int value = context.getIntParameter(key, defaultValue);
+        if (value <= 0) {
+            throw new IllegalArgumentException(key + " must be greater than 0!");
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,180 @@
+package org.md.jmeter.influxdb.visualizer.monitoring;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+/**
+ * The health of the JVM running JMeter read from the platform MXBeans: the garbage collections, the heap, the CPU, the threads and the allocation rate.
+ * The counters are turned to the values of the interval between the {@link #update()} calls, which must be called by the single thread.
+ */
+public class GeneratorHealth {
+
+    private final List<GarbageCollectorMXBean> garbageCollectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final OperatingSystemMXBean operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final boolean allocationSupported;
+
+    private long lastUpdateNanos;
+    private long lastGcCount;
+    private long lastGcTime;
+    private long lastAllocatedBytes;
+
+    private long allocationRate = -1;
+    private long gcCount;
+    private long gcTime;
+    private long heapCommitted;
+    private long heapMax;
+    private long heapUsed;
+    private long processCpu = -1;
+    private long systemCpu = -1;
+    private long threadCount;
+
+    /**
+     * Creates the new instance of the {@link GeneratorHealth} and takes the initial values of the counters.
+     */
+    public GeneratorHealth() {
+        this.allocationSupported = this.threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) this.threads).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) this.threads).isThreadAllocatedMemoryEnabled();
+
+        this.lastUpdateNanos = System.nanoTime();
+        this.lastGcCount = this.getTotalGcCount();
+        this.lastGcTime = this.getTotalGcTime();
+        this.lastAllocatedBytes = this.getTotalAllocatedBytes();
+    }
+
+    /**
+     * Reads the current values, the garbage collections and the allocation rate are calculated for the interval since the previous call.
+     */
+    public void update() {
+        long now = System.nanoTime();
+        long intervalNanos = Math.max(1, now - this.lastUpdateNanos);
+        this.lastUpdateNanos = now;
+
+        long totalGcCount = this.getTotalGcCount();
+        long totalGcTime = this.getTotalGcTime();
+        this.gcCount = Math.max(0, totalGcCount - this.lastGcCount);
+        this.gcTime = Math.max(0, totalGcTime - this.lastGcTime);
+        this.lastGcCount = totalGcCount;
+        this.lastGcTime = totalGcTime;
+
+        if (this.allocationSupported) {
+            long totalAllocatedBytes = this.getTotalAllocatedBytes();
+            // the bytes of the finished threads are not counted anymore, the rate is not negative
+            this.allocationRate = Math.max(0, (long) ((totalAllocatedBytes - this.lastAllocatedBytes) * 1e9 / intervalNanos));
+            this.lastAllocatedBytes = totalAllocatedBytes;
+        }
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        this.heapCommitted = heap.getCommitted();
+        this.heapMax = heap.getMax();
+        this.heapUsed = heap.getUsed();
+
+        if (this.operatingSystem instanceof com.sun.management.OperatingSystemMXBean) {
+            com.sun.management.OperatingSystemMXBean operatingSystem = (com.sun.management.OperatingSystemMXBean) this.operatingSystem;
+            this.processCpu = toPercent(operatingSystem.getProcessCpuLoad());
+            this.systemCpu = toPercent(operatingSystem.getSystemCpuLoad());
+        }
+
+        this.threadCount = this.threads.getThreadCount();
+    }
+
+    /**
+     * @return the bytes allocated per second, -1 if not supported.
+     */
+    public long getAllocationRate() {
+        return this.allocationRate;
+    }
+
+    /**
+     * @return the number of the garbage collections in the interval.
+     */
+    public long getGcCount() {
+        return this.gcCount;
+    }
+
+    /**
+     * @return the time spent in the garbage collections in the interval in milliseconds.
+     */
+    public long getGcTime() {
+        return this.gcTime;
+    }
+
+    /**
+     * @return the committed heap in bytes.
+     */
+    public long getHeapCommitted() {
+        return this.heapCommitted;
+    }
+
+    /**
+     * @return the maximum heap in bytes, -1 if not defined.
+     */
+    public long getHeapMax() {
+        return this.heapMax;
+    }
+
+    /**
+     * @return the used heap in bytes.
+     */
+    public long getHeapUsed() {
+        return this.heapUsed;
+    }
+
+    /**
+     * @return the CPU usage of the JVM process in percent, -1 if not supported.
+     */
+    public long getProcessCpu() {
+        return this.processCpu;
+    }
+
+    /**
+     * @return the CPU usage of the system in percent, -1 if not supported.
+     */
+    public long getSystemCpu() {
+        return this.systemCpu;
+    }
+
+    /**
+     * @return the number of the live threads.
+     */
+    public long getThreadCount() {
+        return this.threadCount;
+    }
+
+    private long getTotalGcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean garbageCollector : this.garbageCollectors) {
+            total += Math.max(0, garbageCollector.getCollectionCount());
+        }
+        return total;
+    }
+
+    private long getTotalGcTime() {
+        long total = 0;
+        for (GarbageCollectorMXBean garbageCollector : this.garbageCollectors) {
+            total += Math.max(0, garbageCollector.getCollectionTime());
+        }
+        return total;
+    }
+
+    private long getTotalAllocatedBytes() {
+        if (!this.allocationSupported) {
+            return 0;
+        }
+
+        long total = 0;
+        for (long allocatedBytes : ((com.sun.management.ThreadMXBean) this.threads).getThreadAllocatedBytes(this.threads.getAllThreadIds())) {
+            total += Math.max(0, allocatedBytes);
+        }
+        return total;
+    }
+
+    private static long toPercent(double load) {
+        return load < 0 ? -1 : Math.round(load * 100);
+    }
+}
@@ -0,0 +1,52 @@
+package org.md.jmeter.influxdb.visualizer.monitoring;
+
+import org.md.jmeter.influxdb.visualizer.config.GeneratorMeasurement;
+import org.md.jmeter.influxdb.visualizer.config.GeneratorMeasurement.Fields;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The provider of the load generator health line protocol point based on the updated {@link GeneratorHealth}.
+ */
+public class GeneratorHealthPointProvider {
+
+    private final String runId;
+    private final String testName;
+    private final String nodeName;
+
+    /**
+     * Creates the new instance of the {@link GeneratorHealthPointProvider}.
+     * @param runId the run id.
+     * @param testName the test name.
+     * @param nodeName the node name.
+     */
+    public GeneratorHealthPointProvider(String runId, String testName, String nodeName) {
+        this.runId = runId;
+        this.testName = testName;
+        this.nodeName = nodeName;
+    }
+
+    /**
+     * Writes the point of the last interval, tags and fields are written sorted by the key.
+     * @param builder the {@link LineProtocolBuilder} to write to.
+     * @param health the updated {@link GeneratorHealth}.
+     * @param timeMillis the time of the update in milliseconds.
+     */
+    public void writePoint(LineProtocolBuilder builder, GeneratorHealth health, long timeMillis) {
+        builder.measurement(GeneratorMeasurement.MEASUREMENT_NAME)
+                .tag(GeneratorMeasurement.Tags.NODE_NAME, this.nodeName)
+                .tag(GeneratorMeasurement.Tags.RUN_ID, this.runId)
+                .tag(GeneratorMeasurement.Tags.TEST_NAME, this.testName)
+                .field(Fields.ALLOCATION_RATE, health.getAllocationRate())
+                .field(Fields.GC_COUNT, health.getGcCount())
+                .field(Fields.GC_TIME, health.getGcTime())
+                .field(Fields.HEAP_COMMITTED, health.getHeapCommitted())
+                .field(Fields.HEAP_MAX, health.getHeapMax())
+                .field(Fields.HEAP_USED, health.getHeapUsed())
+                .field(Fields.PROCESS_CPU, health.getProcessCpu())
+                .field(Fields.SYSTEM_CPU, health.getSystemCpu())
+                .field(Fields.THREAD_COUNT, health.getThreadCount())
+                .timestamp(TimeUnit.MILLISECONDS.toNanos(timeMillis));
+    }
+}
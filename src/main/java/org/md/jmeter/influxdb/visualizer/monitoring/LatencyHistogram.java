@@ -0,0 +1,146 @@
+package org.md.jmeter.influxdb.visualizer.monitoring;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The low-overhead log-linear histogram of the non-negative values, e.g. the stage timings in nanoseconds.
+ * Values below 16 have own buckets, every next power of two is split to 8 buckets, so the percentiles are within 12.5%.
+ * Recording is a few atomic increments without the locks and the allocations; {@link #snapshot()} takes and resets the values.
+ */
+public class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 16;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int FIRST_EXPONENT = 4;
+    private static final int BUCKETS = LINEAR_BUCKETS + (63 - FIRST_EXPONENT) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records the value.
+     * @param value the value, negative values are recorded as 0.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        this.buckets.incrementAndGet(getBucket(value));
+        this.count.increment();
+        this.sum.add(value);
+        this.max.accumulate(value);
+    }
+
+    /**
+     * Takes the values recorded since the previous snapshot and resets the histogram.
+     * The values recorded concurrently with the snapshot are counted either in this or in the next one.
+     * @return the {@link Snapshot}.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = this.buckets.getAndSet(i, 0);
+        }
+
+        return new Snapshot(counts, this.count.sumThenReset(), this.sum.sumThenReset(), this.max.getThenReset());
+    }
+
+    private static int getBucket(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exponent - FIRST_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long getBucketUpperBound(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+
+        int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + FIRST_EXPONENT;
+        long subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * The values of the histogram taken by {@link #snapshot()}.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * @return the number of the recorded values.
+         */
+        public long getCount() {
+            return this.count;
+        }
+
+        /**
+         * @return the sum of the recorded values.
+         */
+        public long getSum() {
+            return this.sum;
+        }
+
+        /**
+         * @return the average value, 0 if there are no values.
+         */
+        public long getMean() {
+            return this.count > 0 ? this.sum / this.count : 0;
+        }
+
+        /**
+         * @return the maximum value, 0 if there are no values.
+         */
+        public long getMax() {
+            return this.max;
+        }
+
+        /**
+         * Gets the percentile, the upper bound of the bucket is returned.
+         * @param percentile the percentile in range 0..100.
+         * @return the percentile value, 0 if there are no values.
+         */
+        public long getPercentile(double percentile) {
+            long total = 0;
+            for (long bucketCount : this.counts) {
+                total += bucketCount;
+            }
+
+            if (total == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for (int i = 0; i < this.counts.length; i++) {
+                seen += this.counts[i];
+                if (seen >= rank) {
+                    return Math.min(getBucketUpperBound(i), this.max);
+                }
+            }
+
+            return this.max;
+        }
+    }
+}
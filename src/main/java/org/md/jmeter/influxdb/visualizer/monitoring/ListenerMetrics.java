@@ -0,0 +1,232 @@
+package org.md.jmeter.influxdb.visualizer.monitoring;
+
+import org.md.jmeter.influxdb.visualizer.influxdb.client.WriteStatistics;
+
+/**
+ * The listener own metrics: the stage timings, the batch sizes, the queue depth, the lost points and the sample lag.
+ * The listener records the values on the sample path, {@link #report(WriteStatistics, int)} takes the values of the last interval
+ * every second; they are written to the listener measurement and exposed by {@link ListenerMetricsMBean}.
+ */
+public class ListenerMetrics implements ListenerMetricsMBean {
+
+    private static final LatencyHistogram.Snapshot EMPTY_SNAPSHOT = new LatencyHistogram().snapshot();
+
+    private final LatencyHistogram filterTime = new LatencyHistogram();
+    private final LatencyHistogram writeTime = new LatencyHistogram();
+    private final LatencyHistogram sampleLag = new LatencyHistogram();
+
+    private volatile LatencyHistogram.Snapshot filterTimeSnapshot = EMPTY_SNAPSHOT;
+    private volatile LatencyHistogram.Snapshot writeTimeSnapshot = EMPTY_SNAPSHOT;
+    private volatile LatencyHistogram.Snapshot sampleLagSnapshot = EMPTY_SNAPSHOT;
+    private volatile LatencyHistogram.Snapshot encodeTimeSnapshot = EMPTY_SNAPSHOT;
+    private volatile LatencyHistogram.Snapshot sendTimeSnapshot = EMPTY_SNAPSHOT;
+    private volatile LatencyHistogram.Snapshot batchPointsSnapshot = EMPTY_SNAPSHOT;
+
+    private volatile long queuedBatches;
+    private volatile long writtenPoints;
+    private volatile long droppedPoints;
+    private volatile long failedPoints;
+    private volatile long rejectedPoints;
+    private volatile long spilledPoints;
+
+    private volatile long totalWrittenPoints;
+    private volatile long totalDroppedPoints;
+    private volatile long totalFailedPoints;
+    private volatile long totalRejectedPoints;
+    private volatile long totalSpilledPoints;
+
+    /**
+     * Records the sampler filter time.
+     * @param nanos the time in nanoseconds.
+     */
+    public void addFilterTime(long nanos) {
+        this.filterTime.record(nanos);
+    }
+
+    /**
+     * Records the time to hand the point over to the write buffer.
+     * @param nanos the time in nanoseconds.
+     */
+    public void addWriteTime(long nanos) {
+        this.writeTime.record(nanos);
+    }
+
+    /**
+     * Records the time between the sample end and its processing.
+     * @param millis the lag in milliseconds.
+     */
+    public void addSampleLag(long millis) {
+        this.sampleLag.record(millis);
+    }
+
+    /**
+     * Takes the values of the interval since the previous call, must be called by the single reporting thread.
+     * @param writeStatistics the {@link WriteStatistics} of the write pipeline.
+     * @param queuedBatches the number of the full batches waiting to be sent.
+     */
+    public void report(WriteStatistics writeStatistics, int queuedBatches) {
+        this.filterTimeSnapshot = this.filterTime.snapshot();
+        this.writeTimeSnapshot = this.writeTime.snapshot();
+        this.sampleLagSnapshot = this.sampleLag.snapshot();
+        this.encodeTimeSnapshot = writeStatistics.getEncodeTime().snapshot();
+        this.sendTimeSnapshot = writeStatistics.getSendTime().snapshot();
+        this.batchPointsSnapshot = writeStatistics.getBatchPoints().snapshot();
+        this.queuedBatches = queuedBatches;
+
+        // the points of the dropped datagrams have been counted as written by the pipeline
+        long written = writeStatistics.getWrittenPoints() - writeStatistics.getDatagramDroppedPoints();
+        long dropped = writeStatistics.getDroppedOldestPoints() + writeStatistics.getDroppedNewestPoints() + writeStatistics.getCircuitDroppedPoints()
+                + writeStatistics.getDatagramDroppedPoints();
+        long failed = writeStatistics.getFailedPoints();
+        long rejected = writeStatistics.getRejectedPoints();
+        long spilled = writeStatistics.getSpilledPoints();
+
+        this.writtenPoints = written - this.totalWrittenPoints;
+        this.droppedPoints = dropped - this.totalDroppedPoints;
+        this.failedPoints = failed - this.totalFailedPoints;
+        this.rejectedPoints = rejected - this.totalRejectedPoints;
+        this.spilledPoints = spilled - this.totalSpilledPoints;
+
+        this.totalWrittenPoints = written;
+        this.totalDroppedPoints = dropped;
+        this.totalFailedPoints = failed;
+        this.totalRejectedPoints = rejected;
+        this.totalSpilledPoints = spilled;
+    }
+
+    /**
+     * @return the sampler filter time of the last interval in nanoseconds.
+     */
+    public LatencyHistogram.Snapshot getFilterTime() {
+        return this.filterTimeSnapshot;
+    }
+
+    /**
+     * @return the point encoding time of the last interval in nanoseconds.
+     */
+    public LatencyHistogram.Snapshot getEncodeTime() {
+        return this.encodeTimeSnapshot;
+    }
+
+    /**
+     * @return the time to hand the point over to the write buffer of the last interval in nanoseconds.
+     */
+    public LatencyHistogram.Snapshot getWriteTime() {
+        return this.writeTimeSnapshot;
+    }
+
+    /**
+     * @return the write request time of the last interval in nanoseconds.
+     */
+    public LatencyHistogram.Snapshot getSendTime() {
+        return this.sendTimeSnapshot;
+    }
+
+    /**
+     * @return the number of the points per batch sent in the last interval.
+     */
+    public LatencyHistogram.Snapshot getBatchPoints() {
+        return this.batchPointsSnapshot;
+    }
+
+    /**
+     * @return the sample lag of the last interval in milliseconds.
+     */
+    public LatencyHistogram.Snapshot getSampleLag() {
+        return this.sampleLagSnapshot;
+    }
+
+    /**
+     * @return the number of the points rejected to the aggregation in the last interval.
+     */
+    public long getRejectedPoints() {
+        return this.rejectedPoints;
+    }
+
+    /**
+     * @return the number of the points spilled to the disk in the last interval.
+     */
+    public long getSpilledPoints() {
+        return this.spilledPoints;
+    }
+
+    @Override
+    public long getSamples() {
+        return this.sampleLagSnapshot.getCount();
+    }
+
+    @Override
+    public long getSampleLagAvg() {
+        return this.sampleLagSnapshot.getMean();
+    }
+
+    @Override
+    public long getSampleLagMax() {
+        return this.sampleLagSnapshot.getMax();
+    }
+
+    @Override
+    public long getFilterTimeP99() {
+        return this.filterTimeSnapshot.getPercentile(99);
+    }
+
+    @Override
+    public long getEncodeTimeP99() {
+        return this.encodeTimeSnapshot.getPercentile(99);
+    }
+
+    @Override
+    public long getWriteTimeP99() {
+        return this.writeTimeSnapshot.getPercentile(99);
+    }
+
+    @Override
+    public long getSendTimeAvg() {
+        return this.sendTimeSnapshot.getMean();
+    }
+
+    @Override
+    public long getSendTimeP99() {
+        return this.sendTimeSnapshot.getPercentile(99);
+    }
+
+    @Override
+    public long getBatches() {
+        return this.batchPointsSnapshot.getCount();
+    }
+
+    @Override
+    public long getBatchPointsAvg() {
+        return this.batchPointsSnapshot.getMean();
+    }
+
+    @Override
+    public long getQueuedBatches() {
+        return this.queuedBatches;
+    }
+
+    @Override
+    public long getWrittenPoints() {
+        return this.writtenPoints;
+    }
+
+    @Override
+    public long getDroppedPoints() {
+        return this.droppedPoints;
+    }
+
+    @Override
+    public long getFailedPoints() {
+        return this.failedPoints;
+    }
+
+    @Override
+    public long getTotalWrittenPoints() {
+        return this.totalWrittenPoints;
+    }
+
+    @Override
+    public long getTotalLostPoints() {
+        return this.totalDroppedPoints + this.totalFailedPoints;
+    }
+}
@@ -0,0 +1,88 @@
+package org.md.jmeter.influxdb.visualizer.monitoring;
+
+/**
+ * The JMX view of the listener own metrics, the values are of the last reported second unless stated otherwise.
+ * The timings are in nanoseconds, the sample lag is in milliseconds.
+ */
+public interface ListenerMetricsMBean {
+
+    /**
+     * @return the number of the processed samples.
+     */
+    long getSamples();
+
+    /**
+     * @return the average time between the sample end and its processing.
+     */
+    long getSampleLagAvg();
+
+    /**
+     * @return the maximum time between the sample end and its processing.
+     */
+    long getSampleLagMax();
+
+    /**
+     * @return the 99th percentile of the sampler filter time.
+     */
+    long getFilterTimeP99();
+
+    /**
+     * @return the 99th percentile of the point encoding time.
+     */
+    long getEncodeTimeP99();
+
+    /**
+     * @return the 99th percentile of the time to hand the point over to the write buffer, including the encoding.
+     */
+    long getWriteTimeP99();
+
+    /**
+     * @return the average time of the write request.
+     */
+    long getSendTimeAvg();
+
+    /**
+     * @return the 99th percentile of the write request time.
+     */
+    long getSendTimeP99();
+
+    /**
+     * @return the number of the sent batches.
+     */
+    long getBatches();
+
+    /**
+     * @return the average number of the points per sent batch.
+     */
+    long getBatchPointsAvg();
+
+    /**
+     * @return the number of the full batches waiting to be sent.
+     */
+    long getQueuedBatches();
+
+    /**
+     * @return the number of the points delivered to Influx DB.
+     */
+    long getWrittenPoints();
+
+    /**
+     * @return the number of the points dropped by the overflow policy.
+     */
+    long getDroppedPoints();
+
+    /**
+     * @return the number of the points not delivered because of the write errors.
+     */
+    long getFailedPoints();
+
+    /**
+     * @return the total number of the points delivered to Influx DB since the test start.
+     */
+    long getTotalWrittenPoints();
+
+    /**
+     * @return the total number of the dropped and failed points since the test start.
+     */
+    long getTotalLostPoints();
+}
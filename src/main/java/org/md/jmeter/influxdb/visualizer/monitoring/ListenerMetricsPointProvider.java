@@ -0,0 +1,73 @@
+package org.md.jmeter.influxdb.visualizer.monitoring;
+
+import org.md.jmeter.influxdb.visualizer.config.ListenerMeasurement;
+import org.md.jmeter.influxdb.visualizer.config.ListenerMeasurement.Fields;
+import org.md.jmeter.influxdb.visualizer.config.ListenerMeasurement.Statistics;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The provider of the listener own metrics line protocol point based on the reported {@link ListenerMetrics}.
+ */
+public class ListenerMetricsPointProvider {
+
+    private final String runId;
+    private final String testName;
+    private final String nodeName;
+
+    /**
+     * Creates the new instance of the {@link ListenerMetricsPointProvider}.
+     * @param runId the run id.
+     * @param testName the test name.
+     * @param nodeName the node name.
+     */
+    public ListenerMetricsPointProvider(String runId, String testName, String nodeName) {
+        this.runId = runId;
+        this.testName = testName;
+        this.nodeName = nodeName;
+    }
+
+    /**
+     * Writes the point of the last reported interval, tags and fields are written sorted by the key.
+     * @param builder the {@link LineProtocolBuilder} to write to.
+     * @param metrics the reported {@link ListenerMetrics}.
+     * @param timeMillis the time of the report in milliseconds.
+     */
+    public void writePoint(LineProtocolBuilder builder, ListenerMetrics metrics, long timeMillis) {
+        LatencyHistogram.Snapshot batchPoints = metrics.getBatchPoints();
+
+        builder.measurement(ListenerMeasurement.MEASUREMENT_NAME)
+                .tag(ListenerMeasurement.Tags.NODE_NAME, this.nodeName)
+                .tag(ListenerMeasurement.Tags.RUN_ID, this.runId)
+                .tag(ListenerMeasurement.Tags.TEST_NAME, this.testName)
+                .field(Fields.BATCH_POINTS_AVG, batchPoints.getMean())
+                .field(Fields.BATCH_POINTS_MAX, batchPoints.getMax())
+                .field(Fields.BATCHES, batchPoints.getCount())
+                .field(Fields.DROPPED_POINTS, metrics.getDroppedPoints());
+        writeStatistics(builder, Fields.ENCODE_TIME, metrics.getEncodeTime());
+        builder.field(Fields.FAILED_POINTS, metrics.getFailedPoints());
+        writeStatistics(builder, Fields.FILTER_TIME, metrics.getFilterTime());
+        builder.field(Fields.QUEUED_BATCHES, metrics.getQueuedBatches())
+                .field(Fields.REJECTED_POINTS, metrics.getRejectedPoints());
+        writeStatistics(builder, Fields.SAMPLE_LAG, metrics.getSampleLag());
+        builder.field(Fields.SAMPLES, metrics.getSamples());
+        writeStatistics(builder, Fields.SEND_TIME, metrics.getSendTime());
+        builder.field(Fields.SPILLED_POINTS, metrics.getSpilledPoints());
+        writeStatistics(builder, Fields.WRITE_TIME, metrics.getWriteTime());
+        builder.field(Fields.WRITTEN_POINTS, metrics.getWrittenPoints())
+                .timestamp(TimeUnit.MILLISECONDS.toNanos(timeMillis));
+    }
+
+    /**
+     * Writes average, max and 99th percentile of the histogram.
+     * @param builder the {@link LineProtocolBuilder}.
+     * @param prefix the field name prefix.
+     * @param snapshot the {@link LatencyHistogram.Snapshot}.
+     */
+    private static void writeStatistics(LineProtocolBuilder builder, String prefix, LatencyHistogram.Snapshot snapshot) {
+        builder.field(prefix + Statistics.AVG, snapshot.getMean())
+                .field(prefix + Statistics.MAX, snapshot.getMax())
+                .field(prefix + Statistics.P99, snapshot.getPercentile(99));
+    }
+}
@@ -0,0 +1,168 @@
+package org.md.jmeter.influxdb.visualizer.result;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.md.jmeter.influxdb.visualizer.monitoring.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Downsamples the raw samples to the points per second budget.
+ * The failed samples and the slowest successful samples (above the percentile of the previous second of the label) are always kept,
+ * the rest of the successful samples are kept evenly at the rate of the label.
+ * Every second {@link #adjust()} spreads the budget left by the kept failures and outliers over the labels:
+ * the labels below the fair share keep every sample, the busier labels share the rest.
+ * <p>
+ * The kept point carries the weight: the sample itself and the samples of the label skipped before it,
+ * so the sum of the weights is the number of the samples; only the samples skipped after the last kept point of the label are not counted.
+ */
+public class AdaptiveSampler {
+
+    /**
+     * The maximum number of the tracked labels, the tracking starts over when the limit is reached.
+     */
+    static final int MAX_TRACKED_LABELS = 10000;
+
+    private final int budget;
+    private final double outlierPercentile;
+    private final Map<String, LabelSampler> labelSamplers = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the new instance of the {@link AdaptiveSampler}.
+     * @param budget the number of the points per second to keep.
+     * @param outlierPercentile the percentile of the response time of the label, the slower samples are always kept.
+     */
+    public AdaptiveSampler(int budget, double outlierPercentile) {
+        this.budget = budget;
+        this.outlierPercentile = outlierPercentile;
+    }
+
+    /**
+     * Decides whether to keep the sample, can be called by the concurrent threads.
+     * @param sampleResult the {@link SampleResult}.
+     * @return the weight of the point to write: the number of the samples it represents; 0 if the sample is skipped.
+     */
+    public long sample(SampleResult sampleResult) {
+        return this.getLabelSampler(sampleResult.getSampleLabel()).sample(sampleResult);
+    }
+
+    /**
+     * Adjusts the rates of the labels to the budget by the samples of the last second, must be called every second.
+     */
+    public void adjust() {
+        List<LabelSampler> labelSamplers = new ArrayList<>(this.labelSamplers.values());
+        long remainingBudget = this.budget;
+        for (LabelSampler labelSampler : labelSamplers) {
+            labelSampler.close(this.outlierPercentile);
+            remainingBudget -= labelSampler.keptOutOfRate;
+        }
+
+        // the water filling: the quiet labels take what they need, the busy labels split the rest evenly
+        labelSamplers.sort(Comparator.comparingLong(labelSampler -> labelSampler.sampledCount));
+        for (int i = 0; i < labelSamplers.size(); i++) {
+            LabelSampler labelSampler = labelSamplers.get(i);
+            double share = Math.max(0, remainingBudget) / (double) (labelSamplers.size() - i);
+            long count = labelSampler.sampledCount;
+            if (count <= share) {
+                labelSampler.setRate(1);
+                remainingBudget -= count;
+            } else {
+                labelSampler.setRate(share / count);
+                remainingBudget -= (long) share;
+            }
+        }
+    }
+
+    /**
+     * Forgets the labels.
+     */
+    public void clear() {
+        this.labelSamplers.clear();
+    }
+
+    private LabelSampler getLabelSampler(String label) {
+        LabelSampler labelSampler = this.labelSamplers.get(label);
+        if (labelSampler != null) {
+            return labelSampler;
+        }
+
+        if (this.labelSamplers.size() >= MAX_TRACKED_LABELS) {
+            this.labelSamplers.clear();
+        }
+
+        LabelSampler newLabelSampler = new LabelSampler();
+        labelSampler = this.labelSamplers.putIfAbsent(label, newLabelSampler);
+        return labelSampler != null ? labelSampler : newLabelSampler;
+    }
+
+    /**
+     * The sampling state of the label, guarded by the instance lock.
+     */
+    private static final class LabelSampler {
+
+        private final LatencyHistogram responseTimes = new LatencyHistogram();
+
+        private double rate = 1;
+        private double credit;
+        private long outlierThreshold = Long.MAX_VALUE;
+        private long skipped;
+
+        // the samples of the current second
+        private long currentKeptOutOfRate;
+        private long currentSampledCount;
+
+        // the samples of the last closed second, used by the adjust only
+        private long keptOutOfRate;
+        private long sampledCount;
+
+        private synchronized long sample(SampleResult sampleResult) {
+            if (sampleResult.getErrorCount() > 0) {
+                this.currentKeptOutOfRate++;
+                return 1;
+            }
+
+            long responseTime = sampleResult.getTime();
+            this.responseTimes.record(responseTime);
+
+            if (responseTime > this.outlierThreshold) {
+                this.currentKeptOutOfRate++;
+                return this.keep();
+            }
+
+            this.currentSampledCount++;
+            this.credit += this.rate;
+            if (this.credit >= 1) {
+                this.credit -= 1;
+                return this.keep();
+            }
+
+            this.skipped++;
+            return 0;
+        }
+
+        private long keep() {
+            long weight = this.skipped + 1;
+            this.skipped = 0;
+            return weight;
+        }
+
+        private synchronized void close(double outlierPercentile) {
+            LatencyHistogram.Snapshot snapshot = this.responseTimes.snapshot();
+            if (snapshot.getCount() > 0) {
+                this.outlierThreshold = snapshot.getPercentile(outlierPercentile);
+            }
+
+            this.keptOutOfRate = this.currentKeptOutOfRate;
+            this.sampledCount = this.currentSampledCount;
+            this.currentKeptOutOfRate = 0;
+            this.currentSampledCount = 0;
+        }
+
+        private synchronized void setRate(double rate) {
+            this.rate = rate;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.md.jmeter.influxdb.visualizer.result;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The bounded LRU set of the error body hashes which have been written recently.
+ * The repeated body is not written again, the point references the earlier one by the hash.
+ */
+public class ErrorBodyCache {
+
+    private final Map<Long, Boolean> hashes;
+
+    /**
+     * Creates the new instance of the {@link ErrorBodyCache}.
+     * @param capacity the maximum number of the remembered hashes, 0 disables the deduplication.
+     */
+    public ErrorBodyCache(int capacity) {
+        this.hashes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return this.size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Checks whether the body with the hash has been written recently and remembers the hash.
+     * @param hash the body hash.
+     * @return true if the body has been written recently; otherwise false.
+     */
+    public synchronized boolean isWritten(long hash) {
+        return this.hashes.put(hash, Boolean.TRUE) != null;
+    }
+
+    /**
+     * Forgets all the hashes.
+     */
+    public synchronized void clear() {
+        this.hashes.clear();
+    }
+}
@@ -0,0 +1,83 @@
+package org.md.jmeter.influxdb.visualizer.result;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decodes the beginning of the response body to the reusable char buffer, the rest of the body is never decoded.
+ * The body is decoded with the charset of the sample, the binary bodies (by the data type or the content type) are skipped.
+ * The instance is not thread safe, every consumer thread uses its own one.
+ */
+public class ResponseBodyDecoder {
+
+    private final Map<String, CharsetDecoder> decoders = new HashMap<>();
+    private CharBuffer chars = CharBuffer.allocate(0);
+
+    /**
+     * Decodes the beginning of the response body.
+     * @param sampleResult the {@link SampleResult}.
+     * @param maxBytes the maximum number of the bytes of the body to decode.
+     * @return the decoded chars valid until the next call, empty if the body is binary or empty.
+     */
+    public CharSequence decode(SampleResult sampleResult, int maxBytes) {
+        this.chars.clear();
+
+        byte[] responseData = sampleResult.getResponseData();
+        if (responseData == null || responseData.length == 0 || maxBytes <= 0 || isBinary(sampleResult)) {
+            return this.chars.flip();
+        }
+
+        // the charset never decodes more chars than bytes
+        if (this.chars.capacity() < maxBytes) {
+            this.chars = CharBuffer.allocate(maxBytes);
+        }
+
+        CharsetDecoder decoder = this.getDecoder(sampleResult.getDataEncodingWithDefault());
+        decoder.reset();
+        // the body is cut, the incomplete char at the end is left undecoded instead of being replaced
+        decoder.decode(ByteBuffer.wrap(responseData, 0, Math.min(responseData.length, maxBytes)), this.chars, false);
+        return this.chars.flip();
+    }
+
+    /**
+     * Checks whether the response body is binary.
+     * @param sampleResult the {@link SampleResult}.
+     * @return true if the body is binary; otherwise false.
+     */
+    public static boolean isBinary(SampleResult sampleResult) {
+        if (SampleResult.BINARY.equals(sampleResult.getDataType())) {
+            return true;
+        }
+
+        String contentType = sampleResult.getContentType();
+        return contentType != null && !contentType.isEmpty() && SampleResult.isBinaryType(contentType);
+    }
+
+    private CharsetDecoder getDecoder(String charsetName) {
+        CharsetDecoder decoder = this.decoders.get(charsetName);
+        if (decoder == null) {
+            decoder = getCharset(charsetName).newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            this.decoders.put(charsetName, decoder);
+        }
+
+        return decoder;
+    }
+
+    private static Charset getCharset(String charsetName) {
+        try {
+            return Charset.forName(charsetName);
+        } catch (RuntimeException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+}
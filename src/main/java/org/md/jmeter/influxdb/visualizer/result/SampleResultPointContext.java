@@ -1,23 +1,32 @@
 package org.md.jmeter.influxdb.visualizer.result;
 
 import org.apache.jmeter.samplers.SampleResult;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.SeriesKeyCache;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.TagValueCache;
 
 import java.util.concurrent.TimeUnit;
 
 /**
- * The data object with parameters to create Result {@link org.influxdb.dto.Point}.
+ * The data object with parameters to create the requests point, the instance is reused for every sample.
  *
  * @author Michael Derevyanko
  */
 public class SampleResultPointContext {
 
     private long timeToSet;
+    private long weight = 1;
     private TimeUnit precisionToSet;
     private SampleResult sampleResult;
+    private String parentLabel;
+    private int depth;
     private String nodeName;
     private String runId;
     private String testName;
     boolean errorBodyToBeSaved;
+    private int errorDetailsMaxSize;
+    private ErrorBodyCache errorBodyCache;
+    private TagValueCache tagValueCache;
+    private SeriesKeyCache seriesKeyCache;
 
     /**
      * Checks whether the body of the failed repose is going to be saved.
@@ -35,6 +44,70 @@ public class SampleResultPointContext {
         this.errorBodyToBeSaved = flag;
     }
 
+    /**
+     * Gets the maximum size of the error details field (body, headers, URL, sampler data) in UTF-8 bytes.
+     * @return the maximum size in bytes.
+     */
+    public int getErrorDetailsMaxSize() {
+        return this.errorDetailsMaxSize;
+    }
+
+    /**
+     * Sets the maximum size of the error details field.
+     * @param errorDetailsMaxSize the maximum size in bytes.
+     */
+    public void setErrorDetailsMaxSize(int errorDetailsMaxSize) {
+        this.errorDetailsMaxSize = errorDetailsMaxSize;
+    }
+
+    /**
+     * Gets the cache of the recently written error bodies.
+     * @return the {@link ErrorBodyCache}.
+     */
+    public ErrorBodyCache getErrorBodyCache() {
+        return this.errorBodyCache;
+    }
+
+    /**
+     * Sets the cache of the recently written error bodies.
+     * @param errorBodyCache the {@link ErrorBodyCache}.
+     */
+    public void setErrorBodyCache(ErrorBodyCache errorBodyCache) {
+        this.errorBodyCache = errorBodyCache;
+    }
+
+    /**
+     * Gets the cache of the escaped request names and response codes.
+     * @return the {@link TagValueCache}.
+     */
+    public TagValueCache getTagValueCache() {
+        return this.tagValueCache;
+    }
+
+    /**
+     * Sets the cache of the escaped request names and response codes.
+     * @param tagValueCache the {@link TagValueCache}.
+     */
+    public void setTagValueCache(TagValueCache tagValueCache) {
+        this.tagValueCache = tagValueCache;
+    }
+
+    /**
+     * Gets the cache of the encoded series keys of the OK points.
+     * @return the {@link SeriesKeyCache}.
+     */
+    public SeriesKeyCache getSeriesKeyCache() {
+        return this.seriesKeyCache;
+    }
+
+    /**
+     * Sets the cache of the encoded series keys of the OK points.
+     * @param seriesKeyCache the {@link SeriesKeyCache}.
+     */
+    public void setSeriesKeyCache(SeriesKeyCache seriesKeyCache) {
+        this.seriesKeyCache = seriesKeyCache;
+    }
+
     /**
      * Gets the run id, set in jmeter option.
      * @return returns run id.
@@ -84,7 +157,7 @@ public class SampleResultPointContext {
     }
 
     /**
-     * Gets the time frame of the further {@link org.influxdb.dto.Point}.
+     * Gets the time frame of the further point.
      * @return time represented in number.
      */
     public long getTimeToSet() {
@@ -92,13 +165,61 @@ public class SampleResultPointContext {
     }
 
     /**
-     * Sets time of the further {@link org.influxdb.dto.Point}.
+     * Sets time of the further point.
      * @param timeToSet the time represented in number.
      */
     public void setTimeToSet(long timeToSet) {
         this.timeToSet = timeToSet;
     }
 
+    /**
+     * Gets the label of the parent sample of the sub sample.
+     * @return the parent label, null for the top level sample.
+     */
+    public String getParentLabel() {
+        return this.parentLabel;
+    }
+
+    /**
+     * Sets the label of the parent sample of the sub sample.
+     * @param parentLabel the parent label, null for the top level sample.
+     */
+    public void setParentLabel(String parentLabel) {
+        this.parentLabel = parentLabel;
+    }
+
+    /**
+     * Gets the depth of the sub sample.
+     * @return the depth, 0 for the top level sample.
+     */
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /**
+     * Sets the depth of the sub sample.
+     * @param depth the depth, 0 for the top level sample.
+     */
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    /**
+     * Gets the weight of the further point, the number of the samples it represents.
+     * @return the weight.
+     */
+    public long getWeight() {
+        return this.weight;
+    }
+
+    /**
+     * Sets the weight of the further point.
+     * @param weight the number of the samples the point represents.
+     */
+    public void setWeight(long weight) {
+        this.weight = weight;
+    }
+
     /**
      * Gets the time precision to set.
      * @return the time.
@@ -1,19 +1,25 @@
 package org.md.jmeter.influxdb.visualizer.result;
 
+import org.apache.jmeter.samplers.SampleResult;
 import org.md.jmeter.influxdb.visualizer.influxdb.client.InfluxDatabaseUtility;
 import org.md.jmeter.influxdb.visualizer.config.RequestMeasurement;
-import org.influxdb.dto.Point;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolPoint;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.SeriesKeyCache;
 
 /**
- * The provider of the Influxdb {@link Point} based on the sample result.
+ * The provider of the requests line protocol point based on the sample result.
+ * The instance is reused for every sample, the current sample is taken from the {@link SampleResultPointContext}.
+ * The instance is not thread safe, every consumer thread uses its own one.
  *
  * @author Michael Derevyanko
  */
-public class SampleResultPointProvider {
+public class SampleResultPointProvider implements LineProtocolPoint {
+
+    private static final String[] DEPTHS = {"", "1", "2", "3", "4", "5", "6", "7", "8", "9"};
 
     private final SampleResultPointContext sampleResultContext;
-    private final String assertionFailureMessage;
-    private Point errorPoint;
+    private final ResponseBodyDecoder responseBodyDecoder = new ResponseBodyDecoder();
 
     /**
      * Creates the new instance of the {@link SampleResultPointProvider}.
@@ -21,102 +27,204 @@ public class SampleResultPointProvider {
      */
     public SampleResultPointProvider(SampleResultPointContext sampleResultContext) {
         this.sampleResultContext = sampleResultContext;
+    }
 
-        this.assertionFailureMessage = this.sampleResultContext.getSampleResult().getFirstAssertionFailureMessage();
+    /**
+     * @return the {@link SampleResultPointContext} the current sample is taken from.
+     */
+    public SampleResultPointContext getSampleResultContext() {
+        return this.sampleResultContext;
     }
 
     /**
-     * Gets {@link Point}, returns the OK or KO jmeter point, depends from the sample result.
-     * @return {@link Point} to save.
+     * Writes the OK or KO jmeter point, depends from the sample result.
+     * @param builder the {@link LineProtocolBuilder} to write to.
      */
-    public Point getPoint() {
+    @Override
+    public void writeTo(LineProtocolBuilder builder) {
+
+        String assertionFailureMessage = this.sampleResultContext.getSampleResult().getFirstAssertionFailureMessage();
 
-        if (this.assertionFailureMessage == null) {
-            return this.getOKPointBuilder()
-                    .build();
+        if (assertionFailureMessage == null) {
+            this.writeOKPoint(builder);
         } else {
-            return this.getErrorPoint();
+            this.writeErrorPoint(builder, assertionFailureMessage);
         }
     }
 
     /**
-     * Gets KO jmeter {@link Point}, saves the assertion message and response error body - depends from the settings.
-     * @return KO jmeter {@link Point}.
+     * Writes KO jmeter point, saves the assertion message and the failure details - depends from the settings.
+     * The failure details are written as the fields truncated to the configured size, so they never create new series.
+     * @param builder the {@link LineProtocolBuilder} to write to.
+     * @param assertionFailureMessage the first assertion failure message.
      */
-    private Point getErrorPoint() {
+    private void writeErrorPoint(LineProtocolBuilder builder, String assertionFailureMessage) {
 
-        if (this.sampleResultContext.isErrorBodyToBeSaved()) {
-            this.errorPoint = this.getOKPointBuilder()
-                    .tag(RequestMeasurement.Tags.ERROR_MSG, this.assertionFailureMessage)
-                    .tag(RequestMeasurement.Tags.ERROR_RESPONSE_BODY, this.getErrorBody())
-                    .tag(RequestMeasurement.Tags.ERROR_RESPONSE_HEADERS, InfluxDatabaseUtility.getEscapedString(this.sampleResultContext.getSampleResult().getResponseHeaders()))
-                    .tag(RequestMeasurement.Tags.ERROR_REQUEST_HEADERS, InfluxDatabaseUtility.getEscapedString(this.sampleResultContext.getSampleResult().getRequestHeaders()))
-                    .tag(RequestMeasurement.Tags.ERROR_REQUEST_URL, InfluxDatabaseUtility.getEscapedString(this.sampleResultContext.getSampleResult().getUrlAsString()))
-                    .tag(RequestMeasurement.Tags.SAMPLER_DATA, getSamplerData())
-                    .build();
+        SampleResult sampleResult = this.sampleResultContext.getSampleResult();
+        builder.measurement(RequestMeasurement.MEASUREMENT_NAME)
+                .tag(RequestMeasurement.Tags.DEPTH, this.getDepth())
+                .tag(RequestMeasurement.Tags.ERROR_MSG, assertionFailureMessage)
+                .tag(RequestMeasurement.Tags.NODE_NAME, this.sampleResultContext.getNodeName())
+                .tag(RequestMeasurement.Tags.PARENT_REQUEST_NAME, this.sampleResultContext.getParentLabel(), this.sampleResultContext.getTagValueCache())
+                .tag(RequestMeasurement.Tags.REQUEST_NAME, sampleResult.getSampleLabel(), this.sampleResultContext.getTagValueCache())
+                .tag(RequestMeasurement.Tags.RESULT_CODE, sampleResult.getResponseCode(), this.sampleResultContext.getTagValueCache())
+                .tag(RequestMeasurement.Tags.RUN_ID, this.sampleResultContext.getRunId())
+                .tag(RequestMeasurement.Tags.TEST_NAME, this.sampleResultContext.getTestName());
 
+        this.writeFields(builder);
 
+        if (this.sampleResultContext.isErrorBodyToBeSaved()) {
+            this.writeErrorBody(builder);
+            this.writeTruncatedField(builder, RequestMeasurement.Fields.ERROR_RESPONSE_HEADERS, sampleResult.getResponseHeaders());
+            this.writeTruncatedField(builder, RequestMeasurement.Fields.ERROR_REQUEST_HEADERS, sampleResult.getRequestHeaders());
+            this.writeTruncatedField(builder, RequestMeasurement.Fields.ERROR_REQUEST_URL, sampleResult.getUrlAsString());
+            this.writeTruncatedField(builder, RequestMeasurement.Fields.SAMPLER_DATA, this.getSamplerData());
         }
 
-        if (!this.sampleResultContext.isErrorBodyToBeSaved()) {
-            this.errorPoint = this.getOKPointBuilder()
-                    .tag(RequestMeasurement.Tags.ERROR_MSG, this.assertionFailureMessage)
-                    .build();
+        builder.timestamp(this.getTimestamp());
+    }
 
+    /**
+     * Writes the truncated error body and its hash, the body itself is skipped if the same body has been written recently.
+     * Only the beginning of the response data is decoded, the binary body is not decoded at all.
+     * @param builder the {@link LineProtocolBuilder} to write to.
+     */
+    private void writeErrorBody(LineProtocolBuilder builder)
+    {
+        CharSequence errorBody = this.getErrorBody();
+        int length = InfluxDatabaseUtility.getTruncatedLength(errorBody, this.sampleResultContext.getErrorDetailsMaxSize());
+        long hash = InfluxDatabaseUtility.getHash(errorBody, length);
+
+        builder.field(RequestMeasurement.Fields.ERROR_RESPONSE_BODY_HASH, hash);
+        if (!this.sampleResultContext.getErrorBodyCache().isWritten(hash)) {
+            builder.field(RequestMeasurement.Fields.ERROR_RESPONSE_BODY, errorBody, length);
         }
+    }
 
-        return this.errorPoint;
+    /**
+     * Writes the string field truncated to the configured size.
+     * @param builder the {@link LineProtocolBuilder} to write to.
+     * @param key the field key.
+     * @param value the field value, the null or empty value is skipped.
+     */
+    private void writeTruncatedField(LineProtocolBuilder builder, String key, String value)
+    {
+        if (value != null && !value.isEmpty()) {
+            builder.field(key, value, InfluxDatabaseUtility.getTruncatedLength(value, this.sampleResultContext.getErrorDetailsMaxSize()));
+        }
     }
 
     /**
      * Gets error body.
-     * @return returns body of the failed response.
+     * @return returns the beginning of the body of the failed response.
      */
-    private String getErrorBody()
+    private CharSequence getErrorBody()
     {
-        String errorBody = this.sampleResultContext.getSampleResult().getResponseDataAsString();
-        if(errorBody != null && !errorBody.isEmpty())
+        SampleResult sampleResult = this.sampleResultContext.getSampleResult();
+        if (ResponseBodyDecoder.isBinary(sampleResult))
         {
-            return  InfluxDatabaseUtility.getEscapedString(errorBody);
+            return "ErrorBodyIsBinary";
+        }
+
+        CharSequence errorBody = this.responseBodyDecoder.decode(sampleResult, this.sampleResultContext.getErrorDetailsMaxSize());
+        if(errorBody.length() > 0)
+        {
+            return errorBody;
         }
 
         return "ErrorBodyIsEmpty";
     }
 
     /**
-     * Gets error body.
-     * @return returns body of the failed response.
+     * Gets sampler data.
+     * @return returns the sampler data of the failed request.
      */
     private String getSamplerData()
     {
         String samplerData =  this.sampleResultContext.getSampleResult().getSamplerData();
         if(samplerData != null && !samplerData.isEmpty())
         {
-            return  InfluxDatabaseUtility.getEscapedString(samplerData);
+            return samplerData;
         }
 
         return "SamplerDataIsEmpty";
     }
 
     /**
-     * Builds the OK jmeter {@link Point}.
-     * @return OK jmeter {@link Point}.
+     * Writes the OK jmeter point, tags are written sorted by the key.
+     * The encoded series key of the top level sample is cached per request name and response code, so the tags are encoded once per series.
+     * @param builder the {@link LineProtocolBuilder} to write to.
      */
-    private Point.Builder getOKPointBuilder() {
+    private void writeOKPoint(LineProtocolBuilder builder) {
 
-        return Point.measurement(RequestMeasurement.MEASUREMENT_NAME).time(this.sampleResultContext.getTimeToSet(), this.sampleResultContext.getPrecisionToSet())
-                .tag(RequestMeasurement.Tags.REQUEST_NAME, this.sampleResultContext.getSampleResult().getSampleLabel())
-                .tag(RequestMeasurement.Tags.RUN_ID, this.sampleResultContext.getRunId())
-                .tag(RequestMeasurement.Tags.TEST_NAME, this.sampleResultContext.getTestName())
+        SampleResult sampleResult = this.sampleResultContext.getSampleResult();
+
+        if (this.sampleResultContext.getDepth() > 0) {
+            this.writeOKTags(builder, sampleResult);
+        } else {
+            SeriesKeyCache seriesKeyCache = this.sampleResultContext.getSeriesKeyCache();
+            byte[] seriesKey = seriesKeyCache.get(sampleResult.getSampleLabel(), sampleResult.getResponseCode());
+
+            if (seriesKey != null) {
+                builder.seriesKey(seriesKey);
+            } else {
+                this.writeOKTags(builder, sampleResult);
+                seriesKeyCache.put(sampleResult.getSampleLabel(), sampleResult.getResponseCode(), builder.copySeriesKey());
+            }
+        }
+
+        this.writeFields(builder);
+        builder.timestamp(this.getTimestamp());
+    }
+
+    /**
+     * Starts the OK jmeter point, the parent request name and the depth are written for the sub samples only.
+     * @param builder the {@link LineProtocolBuilder} to write to.
+     * @param sampleResult the {@link SampleResult}.
+     */
+    private void writeOKTags(LineProtocolBuilder builder, SampleResult sampleResult) {
+        builder.measurement(RequestMeasurement.MEASUREMENT_NAME)
+                .tag(RequestMeasurement.Tags.DEPTH, this.getDepth())
                 .tag(RequestMeasurement.Tags.NODE_NAME, this.sampleResultContext.getNodeName())
-                .tag(RequestMeasurement.Tags.RESULT_CODE, this.sampleResultContext.getSampleResult().getResponseCode())
-                .addField(RequestMeasurement.Fields.ERROR_COUNT, this.sampleResultContext.getSampleResult().getErrorCount())
-                .addField(RequestMeasurement.Fields.REQUEST_COUNT, this.sampleResultContext.getSampleResult().getSampleCount())
-                .addField(RequestMeasurement.Fields.RECEIVED_BYTES, this.sampleResultContext.getSampleResult().getBytesAsLong())
-                .addField(RequestMeasurement.Fields.SENT_BYTES, this.sampleResultContext.getSampleResult().getSentBytes())
-                .addField(RequestMeasurement.Fields.RESPONSE_TIME, this.sampleResultContext.getSampleResult().getTime())
-                .addField(RequestMeasurement.Fields.LATENCY, this.sampleResultContext.getSampleResult().getLatency())
-                .addField(RequestMeasurement.Fields.CONNECT_TIME, this.sampleResultContext.getSampleResult().getConnectTime())
-                .addField(RequestMeasurement.Fields.PROCESSING_TIME, this.sampleResultContext.getSampleResult().getLatency() - this.sampleResultContext.getSampleResult().getConnectTime());
+                .tag(RequestMeasurement.Tags.PARENT_REQUEST_NAME, this.sampleResultContext.getParentLabel(), this.sampleResultContext.getTagValueCache())
+                .tag(RequestMeasurement.Tags.REQUEST_NAME, sampleResult.getSampleLabel(), this.sampleResultContext.getTagValueCache())
+                .tag(RequestMeasurement.Tags.RESULT_CODE, sampleResult.getResponseCode(), this.sampleResultContext.getTagValueCache())
+                .tag(RequestMeasurement.Tags.RUN_ID, this.sampleResultContext.getRunId())
+                .tag(RequestMeasurement.Tags.TEST_NAME, this.sampleResultContext.getTestName());
+    }
+
+    /**
+     * Gets the depth tag value.
+     * @return the depth of the sub sample, the empty string (the tag is skipped) for the top level sample.
+     */
+    private String getDepth() {
+        int depth = this.sampleResultContext.getDepth();
+        return depth < DEPTHS.length ? DEPTHS[depth] : Integer.toString(depth);
+    }
+
+    /**
+     * Gets the point timestamp in nanoseconds.
+     * @return the timestamp.
+     */
+    private long getTimestamp() {
+        return this.sampleResultContext.getPrecisionToSet().toNanos(this.sampleResultContext.getTimeToSet());
+    }
+
+    /**
+     * Writes the numeric fields of the jmeter point sorted by the key.
+     * @param builder the {@link LineProtocolBuilder} to write to.
+     */
+    private void writeFields(LineProtocolBuilder builder) {
+
+        SampleResult sampleResult = this.sampleResultContext.getSampleResult();
+        builder.field(RequestMeasurement.Fields.CONNECT_TIME, sampleResult.getConnectTime())
+                .field(RequestMeasurement.Fields.REQUEST_COUNT, sampleResult.getSampleCount())
+                .field(RequestMeasurement.Fields.ERROR_COUNT, sampleResult.getErrorCount())
+                .field(RequestMeasurement.Fields.LATENCY, sampleResult.getLatency())
+                .field(RequestMeasurement.Fields.PROCESSING_TIME, sampleResult.getLatency() - sampleResult.getConnectTime())
+                .field(RequestMeasurement.Fields.RECEIVED_BYTES, sampleResult.getBytesAsLong())
+                .field(RequestMeasurement.Fields.RESPONSE_TIME, sampleResult.getTime())
+                .field(RequestMeasurement.Fields.SENT_BYTES, sampleResult.getSentBytes())
+                .field(RequestMeasurement.Fields.WEIGHT, this.sampleResultContext.getWeight());
     }
 }
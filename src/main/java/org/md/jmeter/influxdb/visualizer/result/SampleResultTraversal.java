@@ -0,0 +1,34 @@
+package org.md.jmeter.influxdb.visualizer.result;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+/**
+ * Walks the sample result and its sub results depth first, the parent is visited before its sub results.
+ * The samples are visited in place, no intermediate list is created.
+ */
+public final class SampleResultTraversal {
+
+    private SampleResultTraversal() {
+    }
+
+    /**
+     * Visits the sample result and its sub results down to the depth.
+     * @param sampleResult the top level {@link SampleResult}.
+     * @param maxDepth the depth of the deepest visited sub results, 0 visits the top level sample only.
+     * @param visitor the {@link SampleResultVisitor}.
+     */
+    public static void traverse(SampleResult sampleResult, int maxDepth, SampleResultVisitor visitor) {
+        visit(sampleResult, null, 0, maxDepth, visitor);
+    }
+
+    private static void visit(SampleResult sampleResult, SampleResult parent, int depth, int maxDepth, SampleResultVisitor visitor) {
+        visitor.visit(sampleResult, parent, depth);
+        if (depth >= maxDepth) {
+            return;
+        }
+
+        for (SampleResult subResult : sampleResult.getSubResults()) {
+            visit(subResult, sampleResult, depth + 1, maxDepth, visitor);
+        }
+    }
+}
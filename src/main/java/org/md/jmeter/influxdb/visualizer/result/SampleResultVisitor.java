@@ -0,0 +1,18 @@
+package org.md.jmeter.influxdb.visualizer.result;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+/**
+ * Visits the sample results and their sub results walked by the {@link SampleResultTraversal}.
+ */
+@FunctionalInterface
+public interface SampleResultVisitor {
+
+    /**
+     * Visits the sample result.
+     * @param sampleResult the {@link SampleResult}.
+     * @param parent the parent {@link SampleResult}, null for the top level sample.
+     * @param depth the depth of the sample, 0 for the top level sample.
+     */
+    void visit(SampleResult sampleResult, SampleResult parent, int depth);
+}
@@ -0,0 +1,163 @@
+package org.md.jmeter.influxdb.visualizer.result;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the unique timestamps of the request points from the sample start or end time.
+ * Influx DB overwrites the points of the same series with the same timestamp, so the samples of the label within the same
+ * millisecond get the different sub-millisecond ticks: the label counts its samples of every millisecond, the tick is the count
+ * (plus the first sequence) modulo the ticks per millisecond. The counts of the last {@value #RECENT_MILLISECONDS} milliseconds
+ * of the label are kept, so the samples reported slightly out of order by the concurrent threads are counted exactly;
+ * the samples older than that (e.g. the start time of the long request) take the ticks of the upper half of the millisecond
+ * from the running count of the label. The timestamp never leaves the millisecond of the sample, the samples of the label
+ * in the same millisecond collide only if the millisecond has more samples than the half of its ticks
+ * (one million for the nanosecond precision, one thousand for the microsecond one).
+ * The labels are counted under their own locks, the samples of the different labels never contend.
+ * <p>
+ * The millisecond precision has no room for the sub-millisecond ticks, the samples of the label in the same millisecond overwrite each other.
+ */
+public class SampleTimestampGenerator {
+
+    /**
+     * The maximum number of the tracked labels, one of the labels is evicted when the limit is reached.
+     */
+    static final int MAX_TRACKED_LABELS = 10000;
+
+    /**
+     * The number of the last milliseconds of the label the samples are counted for, the power of two.
+     */
+    static final int RECENT_MILLISECONDS = 16;
+
+    private final TimeUnit precision;
+    private final boolean useStartTime;
+    private final long ticksPerMillisecond;
+    private final long firstSequence;
+    private final Map<String, LabelSequence> sequences = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the new instance of the {@link SampleTimestampGenerator}.
+     * @param precision the precision of the generated timestamps.
+     * @param useStartTime true to use the sample start time; otherwise the sample end time is used.
+     */
+    public SampleTimestampGenerator(TimeUnit precision, boolean useStartTime) {
+        this(precision, useStartTime, 0);
+    }
+
+    /**
+     * Creates the new instance of the {@link SampleTimestampGenerator} with the given first sequence number of every millisecond of the label,
+     * e.g. the generators of the parts of the file imported in parallel start at the different sub-millisecond ticks.
+     * @param precision the precision of the generated timestamps.
+     * @param useStartTime true to use the sample start time; otherwise the sample end time is used.
+     * @param firstSequence the first sequence number of every millisecond of the label.
+     */
+    public SampleTimestampGenerator(TimeUnit precision, boolean useStartTime, long firstSequence) {
+        this.precision = precision;
+        this.useStartTime = useStartTime;
+        this.ticksPerMillisecond = Math.max(1, precision.convert(1, TimeUnit.MILLISECONDS));
+        this.firstSequence = firstSequence;
+    }
+
+    /**
+     * Gets the unique timestamp of the sample within its label.
+     * @param sampleResult the {@link SampleResult}.
+     * @return the timestamp in the precision of the generator.
+     */
+    public long getTimestamp(SampleResult sampleResult) {
+        long sampleTime = this.useStartTime ? sampleResult.getStartTime() : sampleResult.getEndTime();
+        long timestamp = this.precision.convert(sampleTime, TimeUnit.MILLISECONDS);
+        if (this.ticksPerMillisecond == 1) {
+            return timestamp;
+        }
+
+        long sequence = this.getSequence(sampleResult.getSampleLabel(), sampleTime).next(sampleTime);
+        return timestamp + Math.floorMod(sequence, this.ticksPerMillisecond);
+    }
+
+    /**
+     * @return the precision of the generated timestamps.
+     */
+    public TimeUnit getPrecision() {
+        return this.precision;
+    }
+
+    /**
+     * Forgets the sequences of the labels.
+     */
+    public void clear() {
+        this.sequences.clear();
+    }
+
+    private LabelSequence getSequence(String label, long millisecond) {
+        LabelSequence sequence = this.sequences.get(label);
+        if (sequence != null) {
+            return sequence;
+        }
+
+        if (this.sequences.size() >= MAX_TRACKED_LABELS) {
+            // the labels without the recent samples are forgotten, their next samples are in the other milliseconds anyway;
+            // the active label is evicted only if all the labels are active, it restarts the counts of its recent milliseconds
+            if (!this.sequences.values().removeIf(labelSequence -> labelSequence.isIdle(millisecond))) {
+                Iterator<String> labels = this.sequences.keySet().iterator();
+                if (labels.hasNext()) {
+                    this.sequences.remove(labels.next());
+                }
+            }
+        }
+
+        LabelSequence newSequence = new LabelSequence();
+        sequence = this.sequences.putIfAbsent(label, newSequence);
+        return sequence != null ? sequence : newSequence;
+    }
+
+    /**
+     * The sample counts of the recent milliseconds of the label, the millisecond is counted in the slot of its lowest bits.
+     */
+    private final class LabelSequence {
+        private final long[] milliseconds = new long[RECENT_MILLISECONDS];
+        private final long[] counts = new long[RECENT_MILLISECONDS];
+        private long latestMillisecond = Long.MIN_VALUE;
+        private long lateCount;
+
+        private LabelSequence() {
+            Arrays.fill(this.milliseconds, Long.MIN_VALUE);
+        }
+
+        /**
+         * Counts the sample.
+         * @param millisecond the millisecond of the sample.
+         * @return the sequence number of the sample within the millisecond.
+         */
+        private synchronized long next(long millisecond) {
+            this.latestMillisecond = Math.max(this.latestMillisecond, millisecond);
+
+            int slot = (int) (millisecond & (RECENT_MILLISECONDS - 1));
+            if (this.milliseconds[slot] == millisecond) {
+                return firstSequence + this.counts[slot]++;
+            }
+
+            // the slot keeps the latest millisecond of its bits, the older one has not been counted yet
+            if (this.milliseconds[slot] < millisecond) {
+                this.milliseconds[slot] = millisecond;
+                this.counts[slot] = 1;
+                return firstSequence;
+            }
+
+            // the count of the millisecond has been replaced by the later one
+            long halfTicks = ticksPerMillisecond / 2;
+            return firstSequence + halfTicks + Math.floorMod(this.lateCount++, halfTicks);
+        }
+
+        /**
+         * @return true if the label has no samples in the recent milliseconds before the given one.
+         */
+        private synchronized boolean isIdle(long millisecond) {
+            return this.latestMillisecond < millisecond - RECENT_MILLISECONDS;
+        }
+    }
+}
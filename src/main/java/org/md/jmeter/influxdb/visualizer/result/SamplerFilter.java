@@ -0,0 +1,115 @@
+package org.md.jmeter.influxdb.visualizer.result;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether the sample is going to be saved by its label.
+ * The include and exclude lists are either the regular expressions or the lists of the labels separated by ';'.
+ * The regular expressions are compiled once and the decisions are cached per label,
+ * so the regex is evaluated only for the first sample with the label.
+ */
+public class SamplerFilter {
+
+    /**
+     * The maximum number of the cached decisions; labels above the limit are matched every time.
+     */
+    static final int MAX_CACHED_LABELS = 10000;
+
+    private static final String SEPARATOR = ";";
+    private static final String MATCH_ALL_REGEX = ".*";
+
+    private final boolean acceptAll;
+    private final boolean includeAll;
+    private final Pattern includePattern;
+    private final Set<String> includeLabels;
+    private final Pattern excludePattern;
+    private final Set<String> excludeLabels;
+    private final Map<String, Boolean> decisions = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the new instance of the {@link SamplerFilter}.
+     * @param includeList the samplers to save, the regex or the list separated by ';'.
+     * @param excludeList the samplers to skip even if they are included, the regex or the list separated by ';'; empty to skip nothing.
+     * @param useRegex true if the lists are the regular expressions.
+     */
+    public SamplerFilter(String includeList, String excludeList, boolean useRegex) {
+        boolean includeAll = useRegex && (MATCH_ALL_REGEX.equals(includeList) || "^.*$".equals(includeList));
+        boolean excludeNothing = excludeList == null || excludeList.isEmpty();
+
+        if (useRegex) {
+            this.includePattern = includeAll ? null : Pattern.compile(includeList);
+            this.includeLabels = Collections.emptySet();
+            this.excludePattern = excludeNothing ? null : Pattern.compile(excludeList);
+            this.excludeLabels = Collections.emptySet();
+        } else {
+            this.includePattern = null;
+            this.includeLabels = toLabels(includeList);
+            this.excludePattern = null;
+            this.excludeLabels = excludeNothing ? Collections.emptySet() : toLabels(excludeList);
+        }
+
+        this.includeAll = includeAll;
+        this.acceptAll = includeAll && excludeNothing;
+    }
+
+    /**
+     * Checks whether the sample with the label is going to be saved.
+     * @param label the sample label.
+     * @return true to save the sample; otherwise false.
+     */
+    public boolean accept(String label) {
+        if (this.acceptAll) {
+            return true;
+        }
+
+        Boolean decision = this.decisions.get(label);
+        if (decision != null) {
+            return decision;
+        }
+
+        boolean accepted = this.isIncluded(label) && !this.isExcluded(label);
+        if (this.decisions.size() < MAX_CACHED_LABELS) {
+            this.decisions.put(label, accepted);
+        }
+
+        return accepted;
+    }
+
+    /**
+     * Clears the cached decisions.
+     */
+    public void clear() {
+        this.decisions.clear();
+    }
+
+    private boolean isIncluded(String label) {
+        if (this.includeAll) {
+            return true;
+        }
+
+        if (this.includePattern != null) {
+            return this.includePattern.matcher(label).matches();
+        }
+
+        return this.includeLabels.contains(label);
+    }
+
+    private boolean isExcluded(String label) {
+        if (this.excludePattern != null) {
+            return this.excludePattern.matcher(label).matches();
+        }
+
+        return this.excludeLabels.contains(label);
+    }
+
+    private static Set<String> toLabels(String list) {
+        Set<String> labels = new HashSet<>();
+        Collections.addAll(labels, list.split(SEPARATOR));
+        return labels;
+    }
+}
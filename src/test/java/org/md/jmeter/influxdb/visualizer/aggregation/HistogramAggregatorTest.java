@@ -0,0 +1,47 @@
+package org.md.jmeter.influxdb.visualizer.aggregation;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistogramAggregatorTest {
+
+    @Test
+    void mergesHistogramsOfAllThreads() throws InterruptedException {
+        HistogramAggregator aggregator = new HistogramAggregator(4);
+        List<Thread> threads = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            threads.add(new Thread(() -> {
+                for (int i = 1; i <= 1000; i++) {
+                    aggregator.add(createSample("request " + i % 2, i));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Map<String, ResponseTimeHistogram> histograms = aggregator.drain();
+        assertEquals(2, histograms.size());
+        assertEquals(4000, histograms.get("request 0").getCount());
+        assertEquals(1000, histograms.get("request 0").getMax());
+        assertEquals(4000, histograms.get("request 1").getCount());
+        assertEquals(999, histograms.get("request 1").getMax());
+        assertTrue(aggregator.drain().isEmpty());
+    }
+
+    private static SampleResult createSample(String label, long time) {
+        SampleResult sampleResult = SampleResult.createTestSample(1000, 1000 + time);
+        sampleResult.setSampleLabel(label);
+        return sampleResult;
+    }
+}
@@ -0,0 +1,59 @@
+package org.md.jmeter.influxdb.visualizer.aggregation;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HistogramMergerTest {
+
+    @Test
+    void mergesHistogramsByQuotedRequestName() throws IOException {
+        String first = createHistogram(10, 20).encode();
+        String second = createHistogram(30).encode();
+        String csv = "name,tags,time,requestName,histogram\n"
+                + "requestsHistogram,,1,\"search, \"\"all\"\"\"," + first + "\n"
+                + "\n"
+                + "requestsHistogram,,2,\"multi\nline\"," + second + "\n"
+                + "requestsHistogram,,3,\"search, \"\"all\"\"\"," + second + "\n";
+
+        HistogramMerger merger = new HistogramMerger();
+        merger.read(new BufferedReader(new StringReader(csv)));
+
+        assertEquals("requestName,count,p50,p90,p95,p99,max\n"
+                + "\"multi\nline\",1,30,30,30,30,30\n"
+                + "\"search, \"\"all\"\"\",3,20,30,30,30,30\n"
+                + "TOTAL,4,20,30,30,30,30\n", print(merger));
+    }
+
+    @Test
+    void mergesHistogramsWithoutHeader() throws IOException {
+        String csv = createHistogram(10).encode() + "\n" + createHistogram(20, 30).encode() + "\n";
+
+        HistogramMerger merger = new HistogramMerger();
+        merger.read(new BufferedReader(new StringReader(csv)));
+
+        assertEquals("requestName,count,p50,p90,p95,p99,max\nTOTAL,3,20,30,30,30,30\n", print(merger));
+    }
+
+    private static ResponseTimeHistogram createHistogram(long... values) {
+        ResponseTimeHistogram histogram = new ResponseTimeHistogram();
+        for (long value : values) {
+            histogram.record(value);
+        }
+
+        return histogram;
+    }
+
+    private static String print(HistogramMerger merger) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        merger.print(new PrintStream(output, true, StandardCharsets.UTF_8));
+        return output.toString(StandardCharsets.UTF_8).replace(System.lineSeparator(), "\n");
+    }
+}
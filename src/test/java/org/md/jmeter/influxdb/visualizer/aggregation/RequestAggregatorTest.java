@@ -0,0 +1,67 @@
+package org.md.jmeter.influxdb.visualizer.aggregation;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestAggregatorTest {
+
+    @Test
+    void mergesWindowsOfAllThreads() throws InterruptedException {
+        RequestAggregator aggregator = new RequestAggregator(4);
+        List<Thread> threads = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            threads.add(new Thread(() -> {
+                for (int i = 1; i <= 1000; i++) {
+                    aggregator.add(createSample("request", i % 10 == 0 ? "500" : "200", i));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Map<String, RequestWindow> windows = new HashMap<>();
+        for (RequestWindow window : aggregator.drain()) {
+            assertEquals("request", window.getRequestName());
+            windows.put(window.getResponseCode(), window);
+        }
+
+        assertEquals(2, windows.size());
+        RequestWindow ok = windows.get("200");
+        assertEquals(7200, ok.getCount());
+        assertEquals(0, ok.getErrorCount());
+        assertEquals(7200 * 100, ok.getReceivedBytes());
+        assertEquals(7200, ok.getResponseTime().getCount());
+        assertEquals(1, ok.getResponseTime().getMin());
+        assertEquals(999, ok.getResponseTime().getMax());
+
+        RequestWindow failed = windows.get("500");
+        assertEquals(800, failed.getCount());
+        assertEquals(800, failed.getErrorCount());
+        assertEquals(8 * (10 + 1000) * 100 / 2, failed.getResponseTime().getSum());
+        assertEquals(10, failed.getResponseTime().getMin());
+        assertEquals(1000, failed.getResponseTime().getMax());
+
+        assertTrue(aggregator.drain().isEmpty());
+    }
+
+    private static SampleResult createSample(String label, String responseCode, long time) {
+        SampleResult sampleResult = SampleResult.createTestSample(1000, 1000 + time);
+        sampleResult.setSampleLabel(label);
+        sampleResult.setResponseCode(responseCode);
+        sampleResult.setSuccessful("200".equals(responseCode));
+        sampleResult.setBytes(100L);
+        return sampleResult;
+    }
+}
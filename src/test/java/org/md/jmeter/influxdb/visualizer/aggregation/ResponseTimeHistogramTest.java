@@ -0,0 +1,127 @@
+package org.md.jmeter.influxdb.visualizer.aggregation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseTimeHistogramTest {
+
+    private static final double[] PERCENTILES = {1, 25, 50, 75, 90, 95, 99, 99.9, 100};
+
+    @Test
+    void keepsSmallValuesExact() {
+        ResponseTimeHistogram histogram = new ResponseTimeHistogram();
+        for (int value = 1; value <= 50; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(50, histogram.getCount());
+        assertEquals(50, histogram.getMax());
+        assertEquals(25, histogram.getPercentile(50));
+        assertEquals(45, histogram.getPercentile(90));
+        assertEquals(50, histogram.getPercentile(100));
+    }
+
+    @Test
+    void keepsPercentilesWithinBucketPrecision() {
+        Random random = new Random(1);
+        long[] values = new long[100000];
+        ResponseTimeHistogram histogram = new ResponseTimeHistogram();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 16);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double percentile : PERCENTILES) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long estimate = histogram.getPercentile(percentile);
+            assertTrue(estimate >= exact && estimate <= exact * 1.032, "p" + percentile + ": " + estimate + " != " + exact);
+        }
+        assertEquals(values[values.length - 1], histogram.getMax());
+    }
+
+    @Test
+    void recordsNegativeValueAsZero() {
+        ResponseTimeHistogram histogram = new ResponseTimeHistogram();
+        histogram.record(-5);
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(100));
+    }
+
+    @Test
+    void decodesEncodedHistogram() {
+        ResponseTimeHistogram histogram = createHistogram(new Random(2), 10000);
+        histogram.record(0);
+        histogram.record(Long.MAX_VALUE);
+
+        ResponseTimeHistogram decoded = ResponseTimeHistogram.decode(histogram.encode());
+
+        assertSameDistribution(histogram, decoded);
+        assertEquals(histogram.encode(), decoded.encode());
+    }
+
+    @Test
+    void decodesEmptyHistogram() {
+        ResponseTimeHistogram decoded = ResponseTimeHistogram.decode(new ResponseTimeHistogram().encode());
+
+        assertEquals(0, decoded.getCount());
+        assertEquals(0, decoded.getMax());
+        assertEquals(0, decoded.getPercentile(99));
+    }
+
+    @Test
+    void mergesToSameHistogramAsRecordedByOneNode() {
+        Random random = new Random(3);
+        ResponseTimeHistogram total = new ResponseTimeHistogram();
+        ResponseTimeHistogram merged = new ResponseTimeHistogram();
+        for (int node = 0; node < 5; node++) {
+            ResponseTimeHistogram histogram = new ResponseTimeHistogram();
+            for (int i = 0; i < 1000 * (node + 1); i++) {
+                long value = (long) Math.exp(random.nextDouble() * (8 + node));
+                histogram.record(value);
+                total.record(value);
+            }
+
+            merged.merge(ResponseTimeHistogram.decode(histogram.encode()));
+        }
+
+        assertSameDistribution(total, merged);
+        assertEquals(total.encode(), merged.encode());
+    }
+
+    @Test
+    void rejectsInvalidEncoding() {
+        assertThrows(IllegalArgumentException.class, () -> ResponseTimeHistogram.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> ResponseTimeHistogram.decode(""));
+        assertThrows(IllegalArgumentException.class, () -> ResponseTimeHistogram.decode("Ag"));
+
+        // the version, the max and the index of the bucket without its count
+        String truncated = Base64.getUrlEncoder().withoutPadding().encodeToString(new byte[] {1, 10, 11});
+        assertThrows(IllegalArgumentException.class, () -> ResponseTimeHistogram.decode(truncated));
+    }
+
+    private static ResponseTimeHistogram createHistogram(Random random, int values) {
+        ResponseTimeHistogram histogram = new ResponseTimeHistogram();
+        for (int i = 0; i < values; i++) {
+            histogram.record((long) Math.exp(random.nextDouble() * 12));
+        }
+
+        return histogram;
+    }
+
+    private static void assertSameDistribution(ResponseTimeHistogram expected, ResponseTimeHistogram actual) {
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getMax(), actual.getMax());
+        for (double percentile : PERCENTILES) {
+            assertEquals(expected.getPercentile(percentile), actual.getPercentile(percentile), "p" + percentile);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private static final long INITIAL_BACKOFF = 1000;
+    private static final long MAX_BACKOFF = 5000;
+
+    @Test
+    void staysClosedBelowThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker(3, INITIAL_BACKOFF, MAX_BACKOFF);
+
+        assertFalse(breaker.onFailure(0));
+        assertFalse(breaker.onFailure(0));
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(2, breaker.getConsecutiveFailures());
+        assertTrue(breaker.allowRequest(0));
+        assertEquals(0, breaker.getRetryDelay(0));
+    }
+
+    @Test
+    void successResetsConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(3, INITIAL_BACKOFF, MAX_BACKOFF);
+        breaker.onFailure(0);
+        breaker.onFailure(0);
+
+        assertFalse(breaker.onSuccess());
+        assertFalse(breaker.onFailure(0));
+        assertFalse(breaker.onFailure(0));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void opensAtThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker(3, INITIAL_BACKOFF, MAX_BACKOFF);
+        breaker.onFailure(0);
+        breaker.onFailure(0);
+
+        assertTrue(breaker.onFailure(100));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest(100));
+        assertRetryDelay(breaker, 100, INITIAL_BACKOFF);
+
+        // the writes failed while the breaker is open do not reopen it
+        assertFalse(breaker.onFailure(100));
+    }
+
+    @Test
+    void switchesToHalfOpenAfterRetryTime() {
+        CircuitBreaker breaker = new CircuitBreaker(1, INITIAL_BACKOFF, MAX_BACKOFF);
+        breaker.onFailure(0);
+        long retryAt = breaker.getRetryDelay(0);
+
+        assertFalse(breaker.allowRequest(retryAt - 1));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(breaker.allowRequest(retryAt));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertEquals(0, breaker.getRetryDelay(retryAt));
+    }
+
+    @Test
+    void doublesBackoffUpToMaximumAfterFailedProbe() {
+        CircuitBreaker breaker = new CircuitBreaker(1, INITIAL_BACKOFF, MAX_BACKOFF);
+        long now = 0;
+        breaker.onFailure(now);
+        assertRetryDelay(breaker, now, INITIAL_BACKOFF);
+
+        long[] backoffs = {2000, 4000, MAX_BACKOFF, MAX_BACKOFF};
+        for (long backoff : backoffs) {
+            now += breaker.getRetryDelay(now);
+            assertTrue(breaker.allowRequest(now));
+            assertTrue(breaker.onFailure(now));
+            assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+            assertRetryDelay(breaker, now, backoff);
+        }
+    }
+
+    @Test
+    void successResetsBackoff() {
+        CircuitBreaker breaker = new CircuitBreaker(1, INITIAL_BACKOFF, MAX_BACKOFF);
+        long now = 0;
+        breaker.onFailure(now);
+        for (int i = 0; i < 3; i++) {
+            now += breaker.getRetryDelay(now);
+            breaker.allowRequest(now);
+            breaker.onFailure(now);
+        }
+
+        now += breaker.getRetryDelay(now);
+        assertTrue(breaker.allowRequest(now));
+        assertTrue(breaker.onSuccess());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getConsecutiveFailures());
+
+        assertTrue(breaker.onFailure(now));
+        assertRetryDelay(breaker, now, INITIAL_BACKOFF);
+    }
+
+    /**
+     * The backoff is randomized by up to a half.
+     */
+    private static void assertRetryDelay(CircuitBreaker breaker, long now, long backoff) {
+        long delay = breaker.getRetryDelay(now);
+        assertTrue(delay >= backoff / 2 && delay <= backoff, "the retry delay " + delay + " is out of the backoff " + backoff);
+    }
+}
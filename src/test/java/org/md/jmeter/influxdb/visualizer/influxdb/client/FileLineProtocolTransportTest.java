@@ -0,0 +1,88 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.client;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.WritePrecision;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileLineProtocolTransportTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileLineProtocolTransportTest.class);
+
+    /**
+     * The pid above the maximum of the operating systems, so the process is never alive.
+     */
+    private static final long DEAD_PID = Integer.MAX_VALUE;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesCompletedFileOnClose() throws IOException {
+        FileLineProtocolTransport transport = new FileLineProtocolTransport(this.directory, 1 << 20, WritePrecision.MICROSECONDS, LOGGER);
+        transport.send(createBatch("first"));
+        transport.send(createBatch("second"));
+        assertTrue(this.listFiles().get(0).getFileName().toString().endsWith(FileLineProtocolTransport.PART_SUFFIX));
+        transport.close();
+
+        List<Path> files = this.listFiles();
+        assertEquals(1, files.size());
+        assertEquals(WritePrecision.MICROSECONDS, FileLineProtocolTransport.getPrecision(files.get(0)));
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(files.get(0)))) {
+            assertEquals(toString(createBatch("first")) + toString(createBatch("second")), new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void completesPartFilesOfDeadProcesses() throws IOException {
+        String deadFile = "points-20240101-120000-" + DEAD_PID + "-00001.ns" + FileLineProtocolTransport.FILE_SUFFIX;
+        String liveFile = "points-20240101-120000-" + ProcessHandle.current().pid() + "-00001.ns" + FileLineProtocolTransport.FILE_SUFFIX;
+        Files.createFile(this.directory.resolve(deadFile + FileLineProtocolTransport.PART_SUFFIX));
+        Files.createFile(this.directory.resolve(liveFile + FileLineProtocolTransport.PART_SUFFIX));
+
+        new FileLineProtocolTransport(this.directory, 1 << 20, WritePrecision.NANOSECONDS, LOGGER).close();
+
+        assertTrue(Files.exists(this.directory.resolve(deadFile)));
+        assertTrue(Files.exists(this.directory.resolve(liveFile + FileLineProtocolTransport.PART_SUFFIX)));
+        assertFalse(Files.exists(this.directory.resolve(liveFile)));
+    }
+
+    @Test
+    void treatsUnknownPartFilesAsOwned() {
+        assertTrue(FileLineProtocolTransport.isOwnerAlive(this.directory.resolve("other.lp.gz.part")));
+        assertTrue(FileLineProtocolTransport.isOwnerAlive(this.directory.resolve("points-20240101-120000-x-00001.ns.lp.gz.part")));
+        assertFalse(FileLineProtocolTransport.isOwnerAlive(this.directory.resolve("points-20240101-120000-" + DEAD_PID + "-00001.ns.lp.gz.part")));
+    }
+
+    private List<Path> listFiles() throws IOException {
+        try (Stream<Path> files = Files.list(this.directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static LineProtocolBuilder createBatch(String requestName) {
+        LineProtocolBuilder batch = new LineProtocolBuilder();
+        batch.measurement("requestsRaw").tag("requestName", requestName).field("errorMessage", "line\nbreak").timestamp(1000);
+        return batch;
+    }
+
+    private static String toString(LineProtocolBuilder batch) {
+        return new String(batch.getBuffer(), 0, batch.getSize(), StandardCharsets.UTF_8);
+    }
+}
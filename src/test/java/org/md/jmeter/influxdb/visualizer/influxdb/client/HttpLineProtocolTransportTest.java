@@ -0,0 +1,112 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.client;
+
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import org.apache.jmeter.visualizers.backend.BackendListenerContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.md.jmeter.influxdb.visualizer.config.InfluxDBConfig;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpLineProtocolTransportTest {
+
+    private final AtomicReference<String> authorization = new AtomicReference<>();
+    private final AtomicReference<String> query = new AtomicReference<>();
+    private final AtomicReference<String> body = new AtomicReference<>();
+    private HttpServer server;
+    private int status = 204;
+    private byte[] response = new byte[0];
+
+    @BeforeEach
+    void startServer() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/write", exchange -> {
+            this.authorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            this.query.set(exchange.getRequestURI().getRawQuery());
+            this.body.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(this.status, this.response.length == 0 ? -1 : this.response.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(this.response);
+            }
+        });
+        this.server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        this.server.stop(0);
+    }
+
+    @Test
+    void sendsCredentialsInAuthorizationHeader() throws IOException {
+        try (HttpLineProtocolTransport transport = this.createTransport("user", "pass:word")) {
+            transport.send(createBatch());
+        }
+
+        String credentials = Base64.getEncoder().encodeToString("user:pass:word".getBytes(StandardCharsets.UTF_8));
+        assertEquals("Basic " + credentials, this.authorization.get());
+        for (String parameter : this.query.get().split("&")) {
+            assertFalse(parameter.startsWith("u=") || parameter.startsWith("p="), parameter);
+        }
+        assertEquals("requestsRaw,requestName=login count=1i 1000\n", this.body.get());
+    }
+
+    @Test
+    void sendsNoAuthorizationHeaderWithoutUser() throws IOException {
+        try (HttpLineProtocolTransport transport = this.createTransport(null, null)) {
+            transport.send(createBatch());
+        }
+
+        assertNull(this.authorization.get());
+    }
+
+    @Test
+    void capsErrorBody() throws IOException {
+        this.status = 400;
+        this.response = new byte[100000];
+        Arrays.fill(this.response, (byte) 'x');
+
+        try (HttpLineProtocolTransport transport = this.createTransport(null, null)) {
+            IOException exception = assertThrows(IOException.class, () -> transport.send(createBatch()));
+            assertTrue(exception.getMessage().contains("status: 400"), exception.getMessage());
+            assertTrue(exception.getMessage().length() < 2000, "the message length is " + exception.getMessage().length());
+        }
+    }
+
+    private HttpLineProtocolTransport createTransport(String user, String password) {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put(InfluxDBConfig.KEY_INFLUX_DB_HOST, "localhost");
+        parameters.put(InfluxDBConfig.KEY_INFLUX_DB_PORT, Integer.toString(this.server.getAddress().getPort()));
+        parameters.put(InfluxDBConfig.KEY_INFLUX_DB_DATABASE, "jmeter");
+        parameters.put(InfluxDBConfig.KEY_GZIP, "false");
+        if (user != null) {
+            parameters.put(InfluxDBConfig.KEY_INFLUX_DB_USER, user);
+            parameters.put(InfluxDBConfig.KEY_INFLUX_DB_PASSWORD, password);
+        }
+
+        return new HttpLineProtocolTransport(new InfluxDBConfig(new BackendListenerContext(parameters)), new OkHttpClient());
+    }
+
+    private static LineProtocolBuilder createBatch() {
+        LineProtocolBuilder batch = new LineProtocolBuilder();
+        batch.measurement("requestsRaw").tag("requestName", "login").field("count", 1).timestamp(1000);
+        return batch;
+    }
+}
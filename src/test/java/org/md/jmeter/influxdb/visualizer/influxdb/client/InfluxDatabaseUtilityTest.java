@@ -0,0 +1,23 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InfluxDatabaseUtilityTest {
+
+    @Test
+    void escapesTagValue() {
+        assertEquals("a\\,b\\ c\\=d", InfluxDatabaseUtility.getEscapedString("a,b c=d"));
+        assertEquals("linebreak", InfluxDatabaseUtility.getEscapedString("line\r\nbreak"));
+        assertEquals("\u20ac\"", InfluxDatabaseUtility.getEscapedString("\u20ac\""));
+    }
+
+    @Test
+    void truncatesToUtf8Bytes() {
+        assertEquals(3, InfluxDatabaseUtility.getTruncatedLength("abc", 10));
+        assertEquals(2, InfluxDatabaseUtility.getTruncatedLength("ab\u20ac", 4));
+        assertEquals(1, InfluxDatabaseUtility.getTruncatedLength("a\ud83d\ude00", 4));
+        assertEquals(3, InfluxDatabaseUtility.getTruncatedLength("a\ud83d\ude00", 5));
+    }
+}
@@ -0,0 +1,107 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardRouterTest {
+
+    private static final List<String> SHARDS = Arrays.asList("http://influx-1:8086", "http://influx-2:8086", "http://influx-3:8086", "http://influx-4:8086");
+    private static final int KEYS = 20000;
+
+    @Test
+    void routesEverythingToSingleShard() {
+        ShardRouter router = new ShardRouter(ShardRouting.ROUND_ROBIN, Collections.singletonList("http://influx:8086"), "node");
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, router.route("request " + i));
+            assertEquals(0, router.getShard("request " + i));
+        }
+    }
+
+    @Test
+    void spreadsRequestNamesEvenly() {
+        ShardRouter router = new ShardRouter(ShardRouting.REQUEST_NAME, SHARDS, "node");
+
+        int[] keys = new int[SHARDS.size()];
+        for (int i = 0; i < KEYS; i++) {
+            keys[router.route("request " + i)]++;
+        }
+
+        for (int shard = 0; shard < SHARDS.size(); shard++) {
+            double share = keys[shard] / (double) KEYS;
+            assertTrue(share > 0.2 && share < 0.3, "the share of the shard " + shard + " is " + share);
+        }
+    }
+
+    @Test
+    void routesSameRequestNameToSameShardOnEveryNode() {
+        ShardRouter router = new ShardRouter(ShardRouting.REQUEST_NAME, SHARDS, "node-1");
+        ShardRouter otherRouter = new ShardRouter(ShardRouting.REQUEST_NAME, SHARDS, "node-2");
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(router.route("request " + i), router.route("request " + i));
+            assertEquals(router.route("request " + i), otherRouter.route("request " + i));
+        }
+    }
+
+    @Test
+    void movesOnlyKeysOfAddedShard() {
+        ShardRouter router = new ShardRouter(ShardRouting.REQUEST_NAME, SHARDS, "node");
+        List<String> shards = new ArrayList<>(SHARDS);
+        shards.add("http://influx-5:8086");
+        ShardRouter extendedRouter = new ShardRouter(ShardRouting.REQUEST_NAME, shards, "node");
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            int shard = router.route("request " + i);
+            int extendedShard = extendedRouter.route("request " + i);
+            if (shard != extendedShard) {
+                assertEquals(4, extendedShard, "the key moved between the old shards");
+                moved++;
+            }
+        }
+
+        double movedShare = moved / (double) KEYS;
+        assertTrue(movedShare > 0.15 && movedShare < 0.25, "the moved share is " + movedShare);
+    }
+
+    @Test
+    void routesByNodeName() {
+        ShardRouter router = new ShardRouter(ShardRouting.NODE_NAME, SHARDS, "node");
+        int nodeShard = router.getShard("node");
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(nodeShard, router.route("request " + i));
+        }
+        assertEquals(nodeShard, new ShardRouter(ShardRouting.REQUEST_NAME, SHARDS, "node").route(null));
+    }
+
+    @Test
+    void routesRoundRobin() {
+        ShardRouter router = new ShardRouter(ShardRouting.ROUND_ROBIN, SHARDS, "node");
+
+        int[] points = new int[SHARDS.size()];
+        for (int i = 0; i < 4000; i++) {
+            points[router.route("request")]++;
+        }
+
+        for (int shard = 0; shard < SHARDS.size(); shard++) {
+            assertEquals(1000, points[shard]);
+        }
+    }
+
+    @Test
+    void parsesRoutingName() {
+        assertEquals(ShardRouting.REQUEST_NAME, ShardRouting.fromName("requestname"));
+        assertEquals(ShardRouting.ROUND_ROBIN, ShardRouting.fromName(ShardRouting.ROUND_ROBIN.getName()));
+        assertThrows(IllegalArgumentException.class, () -> ShardRouting.fromName("random"));
+    }
+}
@@ -0,0 +1,203 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.client;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpillQueueTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpillQueueTest.class);
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysInOrder() throws IOException {
+        SpillQueue queue = this.openQueue();
+        List<String> batches = appendBatches(queue, 0, 100);
+
+        assertEquals(200, queue.getSpilledPoints());
+        assertTrue(queue.getDiskUsage() > SEGMENT_SIZE, "the batches must span several segments");
+        assertEquals(batches, replay(queue));
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.getSpilledPoints());
+    }
+
+    @Test
+    void replaysAfterRestart() throws IOException {
+        SpillQueue queue = this.openQueue();
+        List<String> batches = appendBatches(queue, 0, 100);
+        queue.close();
+
+        SpillQueue reopenedQueue = this.openQueue();
+        assertEquals(200, reopenedQueue.getSpilledPoints());
+        assertEquals(batches, replay(reopenedQueue));
+    }
+
+    @Test
+    void replaysUnreadRecordsAfterRestart() throws IOException {
+        SpillQueue queue = this.openQueue();
+        List<String> batches = appendBatches(queue, 0, 100);
+        LineProtocolBuilder batch = new LineProtocolBuilder();
+        for (int i = 0; i < 40; i++) {
+            assertTrue(queue.peek(batch));
+            queue.remove();
+            batch.reset();
+        }
+        queue.close();
+
+        // the records of the partially replayed head segment are replayed again, the consumed segments are not
+        List<String> replayedBatches = replay(this.openQueue());
+        assertTrue(replayedBatches.size() >= 60 && replayedBatches.size() < 100, "replayed " + replayedBatches.size());
+        assertEquals(batches.subList(100 - replayedBatches.size(), 100), replayedBatches);
+    }
+
+    @Test
+    void replaysForcedRecordsWithoutClose() throws IOException {
+        SpillQueue queue = this.openQueue();
+        List<String> batches = appendBatches(queue, 0, 100);
+        replay(queue);
+        batches.addAll(appendBatches(queue, 100, 10));
+        queue.force();
+
+        // the run killed after the flush: the consumed segments are marked empty, the tail segment is replayed again
+        List<String> replayedBatches = replay(this.openQueue());
+        assertTrue(replayedBatches.size() >= 10 && replayedBatches.size() < 110, "replayed " + replayedBatches.size());
+        assertEquals(batches.subList(110 - replayedBatches.size(), 110), replayedBatches);
+    }
+
+    @Test
+    void appendsAfterRestart() throws IOException {
+        SpillQueue queue = this.openQueue();
+        List<String> batches = appendBatches(queue, 0, 10);
+        queue.close();
+
+        SpillQueue reopenedQueue = this.openQueue();
+        batches.addAll(appendBatches(reopenedQueue, 10, 10));
+        reopenedQueue.close();
+
+        assertEquals(batches, replay(this.openQueue()));
+    }
+
+    @Test
+    void skipsCorruptedRecord() throws IOException {
+        SpillQueue queue = new SpillQueue(this.directory, 1 << 20, 1 << 16, LOGGER);
+        List<String> batches = appendBatches(queue, 0, 3);
+        queue.close();
+
+        // the byte of the second record, e.g. torn by the crash
+        Path segment = this.getSegmentFiles().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(length, Long.BYTES);
+            long secondRecord = Long.BYTES + 3 * Integer.BYTES + length.flip().getInt();
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), secondRecord + 3 * Integer.BYTES + 1);
+        }
+
+        SpillQueue reopenedQueue = new SpillQueue(this.directory, 1 << 20, 1 << 16, LOGGER);
+        assertEquals(2, reopenedQueue.getSpilledPoints());
+        assertEquals(batches.subList(0, 1), replay(reopenedQueue));
+    }
+
+    @Test
+    void rejectsBatchOverMaxSize() throws IOException {
+        SpillQueue queue = new SpillQueue(this.directory, 2 * SEGMENT_SIZE, SEGMENT_SIZE, LOGGER);
+        int appended = 0;
+        while (queue.append(createBatch(appended))) {
+            appended++;
+        }
+
+        assertTrue(appended > 0);
+        assertTrue(queue.getDiskUsage() <= 2 * SEGMENT_SIZE, "the disk usage is " + queue.getDiskUsage());
+        assertEquals(2L * appended, queue.getSpilledPoints());
+
+        // the consumed segment is reused
+        replay(queue);
+        assertTrue(queue.append(createBatch(appended)));
+        assertTrue(queue.getDiskUsage() <= 2 * SEGMENT_SIZE, "the disk usage is " + queue.getDiskUsage());
+    }
+
+    @Test
+    void deletesSegmentsWhenClosedEmpty() throws IOException {
+        SpillQueue queue = this.openQueue();
+        appendBatches(queue, 0, 100);
+        replay(queue);
+        queue.close();
+
+        assertTrue(this.getSegmentFiles().isEmpty());
+        assertTrue(this.openQueue().isEmpty());
+    }
+
+    @Test
+    void keepsSegmentsWhenClosedWithRecords() throws IOException {
+        SpillQueue queue = this.openQueue();
+        appendBatches(queue, 0, 1);
+        queue.close();
+
+        assertFalse(this.getSegmentFiles().isEmpty());
+    }
+
+    private SpillQueue openQueue() throws IOException {
+        return new SpillQueue(this.directory, 1 << 20, SEGMENT_SIZE, LOGGER);
+    }
+
+    private List<Path> getSegmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(this.directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> appendBatches(SpillQueue queue, int first, int count) {
+        List<String> batches = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            LineProtocolBuilder batch = createBatch(i);
+            assertTrue(queue.append(batch));
+            batches.add(toString(batch));
+        }
+
+        return batches;
+    }
+
+    private static List<String> replay(SpillQueue queue) {
+        List<String> batches = new ArrayList<>();
+        LineProtocolBuilder batch = new LineProtocolBuilder();
+        while (queue.peek(batch)) {
+            assertEquals(2, batch.getLines());
+            batches.add(toString(batch));
+            queue.remove();
+            batch.reset();
+        }
+
+        return batches;
+    }
+
+    private static LineProtocolBuilder createBatch(int index) {
+        LineProtocolBuilder batch = new LineProtocolBuilder();
+        batch.measurement("requestsRaw").tag("requestName", "request " + index).field("responseTime", index).timestamp(index);
+        batch.measurement("requestsRaw").tag("requestName", "request " + index).field("errorMessage", "line\nbreak").timestamp(index + 1);
+        return batch;
+    }
+
+    private static String toString(LineProtocolBuilder batch) {
+        return new String(batch.getBuffer(), 0, batch.getSize(), StandardCharsets.UTF_8);
+    }
+}
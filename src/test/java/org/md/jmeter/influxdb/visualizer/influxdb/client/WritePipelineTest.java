@@ -0,0 +1,208 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.client;
+
+import org.junit.jupiter.api.Test;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolPoint;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.WritePrecision;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WritePipelineTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WritePipelineTest.class);
+    private static final int BATCH_SIZE = 2;
+
+    /**
+     * The capacity of two queued batches.
+     */
+    private static final int BUFFER_CAPACITY = 2 * BATCH_SIZE;
+
+    /**
+     * The flush interval longer than any test, so only the full batches and close send the points.
+     */
+    private static final int FLUSH_INTERVAL = 60_000;
+
+    private final RecordingTransport transport = new RecordingTransport();
+    private final WriteStatistics statistics = new WriteStatistics();
+
+    @Test
+    void buffersUntilReady() throws InterruptedException {
+        WritePipeline pipeline = this.createPipeline(OverflowPolicy.DROP_NEWEST);
+        pipeline.setReady(false);
+        writePoints(pipeline, 0, 3);
+
+        assertFalse(pipeline.isReady());
+        assertEquals(1, pipeline.getQueuedBatches());
+        assertTrue(this.transport.getBatches().isEmpty());
+
+        pipeline.setReady(true);
+        this.transport.awaitBatches(1);
+        assertEquals(List.of(encode(0, 2)), this.transport.getBatches());
+        assertEquals(0, pipeline.getQueuedBatches());
+
+        pipeline.close();
+        assertEquals(List.of(encode(0, 2), encode(2, 1)), this.transport.getBatches());
+        assertEquals(3, this.statistics.getWrittenPoints());
+    }
+
+    @Test
+    void sendsPartialBatchOnClose() {
+        WritePipeline pipeline = this.createPipeline(OverflowPolicy.BLOCK);
+        writePoints(pipeline, 0, 1);
+        pipeline.close();
+
+        assertEquals(List.of(encode(0, 1)), this.transport.getBatches());
+        assertEquals(1, this.statistics.getWrittenPoints());
+        assertTrue(this.transport.isClosed());
+    }
+
+    @Test
+    void sendsBufferedPointsOnCloseWhenNotReady() {
+        WritePipeline pipeline = this.createPipeline(OverflowPolicy.BLOCK);
+        pipeline.setReady(false);
+        writePoints(pipeline, 0, 5);
+        pipeline.close();
+
+        assertEquals(List.of(encode(0, 2), encode(2, 2), encode(4, 1)), this.transport.getBatches());
+        assertEquals(5, this.statistics.getWrittenPoints());
+    }
+
+    @Test
+    void dropsNewestBatchesWhenFull() {
+        WritePipeline pipeline = this.createPipeline(OverflowPolicy.DROP_NEWEST);
+        pipeline.setReady(false);
+        writePoints(pipeline, 0, 8);
+        pipeline.close();
+
+        assertEquals(List.of(encode(0, 2), encode(2, 2)), this.transport.getBatches());
+        assertEquals(4, this.statistics.getWrittenPoints());
+        assertEquals(4, this.statistics.getDroppedNewestPoints());
+        assertEquals(0, this.statistics.getDroppedOldestPoints());
+    }
+
+    @Test
+    void dropsOldestBatchesWhenFull() {
+        WritePipeline pipeline = this.createPipeline(OverflowPolicy.DROP_OLDEST);
+        pipeline.setReady(false);
+        writePoints(pipeline, 0, 8);
+        pipeline.close();
+
+        assertEquals(List.of(encode(4, 2), encode(6, 2)), this.transport.getBatches());
+        assertEquals(4, this.statistics.getWrittenPoints());
+        assertEquals(4, this.statistics.getDroppedOldestPoints());
+        assertEquals(0, this.statistics.getDroppedNewestPoints());
+    }
+
+    @Test
+    void rejectsPointsWhenFullWithAggregatePolicy() {
+        WritePipeline pipeline = this.createPipeline(OverflowPolicy.AGGREGATE);
+        pipeline.setReady(false);
+        writePoints(pipeline, 0, 6);
+
+        // the third batch is kept full, the next points are rejected to be aggregated by the caller
+        assertFalse(pipeline.write(createPoint(6)));
+        assertFalse(pipeline.write(createPoint(7)));
+        pipeline.close();
+
+        assertEquals(List.of(encode(0, 2), encode(2, 2), encode(4, 2)), this.transport.getBatches());
+        assertEquals(6, this.statistics.getWrittenPoints());
+        assertEquals(2, this.statistics.getRejectedPoints());
+    }
+
+    @Test
+    void blocksWriterWhenFull() throws InterruptedException {
+        WritePipeline pipeline = this.createPipeline(OverflowPolicy.BLOCK);
+        pipeline.setReady(false);
+        writePoints(pipeline, 0, 4);
+
+        Thread writer = new Thread(() -> writePoints(pipeline, 4, 2));
+        writer.start();
+        while (writer.getState() != Thread.State.WAITING) {
+            assertTrue(writer.isAlive(), "the writer must wait for the space in the queue");
+            Thread.sleep(1);
+        }
+        assertEquals(2, pipeline.getQueuedBatches());
+
+        pipeline.setReady(true);
+        writer.join(10_000);
+        assertFalse(writer.isAlive());
+        pipeline.close();
+
+        assertEquals(List.of(encode(0, 2), encode(2, 2), encode(4, 2)), this.transport.getBatches());
+        assertEquals(6, this.statistics.getWrittenPoints());
+        assertEquals(1, this.statistics.getBlockedWrites());
+        assertEquals(0, this.statistics.getDroppedNewestPoints());
+    }
+
+    private WritePipeline createPipeline(OverflowPolicy overflowPolicy) {
+        return new WritePipeline(this.transport, BATCH_SIZE, FLUSH_INTERVAL, BUFFER_CAPACITY, overflowPolicy, WritePrecision.MILLISECONDS,
+                null, 1000, 1, 1, new CircuitBreaker(5, 1000, 1000), CircuitBreakerFallback.BUFFER, 1000,
+                this.statistics, "test", LOGGER);
+    }
+
+    private static void writePoints(WritePipeline pipeline, int first, int count) {
+        for (int i = first; i < first + count; i++) {
+            assertTrue(pipeline.write(createPoint(i)));
+        }
+    }
+
+    private static LineProtocolPoint createPoint(int index) {
+        return builder -> builder.measurement("requestsRaw").tag("requestName", "request " + index).field("responseTime", index).timestamp(index);
+    }
+
+    private static String encode(int first, int count) {
+        LineProtocolBuilder batch = new LineProtocolBuilder(1024, WritePrecision.MILLISECONDS);
+        for (int i = first; i < first + count; i++) {
+            createPoint(i).writeTo(batch);
+        }
+
+        return new String(batch.getBuffer(), 0, batch.getSize(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The transport which keeps the sent batches, like the benchmark transport it never fails.
+     */
+    private static class RecordingTransport implements LineProtocolTransport {
+
+        private final List<String> batches = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        @Override
+        public int send(LineProtocolBuilder batch) {
+            this.batches.add(new String(batch.getBuffer(), 0, batch.getSize(), StandardCharsets.UTF_8));
+            return batch.getSize();
+        }
+
+        @Override
+        public void close() {
+            this.closed.set(true);
+        }
+
+        private List<String> getBatches() {
+            synchronized (this.batches) {
+                return new ArrayList<>(this.batches);
+            }
+        }
+
+        private boolean isClosed() {
+            return this.closed.get();
+        }
+
+        private void awaitBatches(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (this.batches.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+        }
+    }
+}
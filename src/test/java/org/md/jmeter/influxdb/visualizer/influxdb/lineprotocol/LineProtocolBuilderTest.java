@@ -0,0 +1,132 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LineProtocolBuilderTest {
+
+    @Test
+    void writesPoint() {
+        LineProtocolBuilder builder = new LineProtocolBuilder();
+        builder.measurement("requestsRaw").tag("requestName", "login").tag("empty", "").field("count", 1).field("error", "").timestamp(1000);
+
+        assertEquals("requestsRaw,requestName=login count=1i,error=\"\" 1000\n", toString(builder));
+        assertEquals(1, builder.getLines());
+    }
+
+    @Test
+    void truncatesTimestampToPrecision() {
+        LineProtocolBuilder builder = new LineProtocolBuilder(16, WritePrecision.MILLISECONDS);
+        builder.measurement("m").field("f", Long.MIN_VALUE).timestamp(1_234_567_890L);
+
+        assertEquals("m f=" + Long.MIN_VALUE + "i 1234\n", toString(builder));
+    }
+
+    @Test
+    void discardsStartedPoint() {
+        LineProtocolBuilder builder = new LineProtocolBuilder();
+        builder.measurement("m").field("f", 1).timestamp(1);
+        builder.measurement("m").tag("t", "v").field("f", 2);
+        builder.discardLine();
+
+        assertEquals("m f=1i 1\n", toString(builder));
+        assertEquals(1, builder.getLines());
+    }
+
+    @Test
+    void keepsTerminatedPointOnDiscard() {
+        LineProtocolBuilder builder = new LineProtocolBuilder();
+        builder.measurement("m").field("f", 1).timestamp(1);
+        builder.measurement("m").field("f", 2).timestamp(2);
+        builder.discardLine();
+
+        assertEquals("m f=1i 1\nm f=2i 2\n", toString(builder));
+        assertEquals(2, builder.getLines());
+    }
+
+    @Test
+    void discardsStartedSeriesKeyPoint() {
+        LineProtocolBuilder builder = new LineProtocolBuilder();
+        builder.measurement("m").tag("t", "v");
+        byte[] seriesKey = builder.copySeriesKey();
+        builder.field("f", 1).timestamp(1);
+        builder.seriesKey(seriesKey).field("f", 2);
+        builder.discardLine();
+        builder.seriesKey(seriesKey).field("f", 3).timestamp(3);
+
+        assertEquals("m,t=v f=1i 1\nm,t=v f=3i 3\n", toString(builder));
+        assertEquals(2, builder.getLines());
+    }
+
+    @Test
+    void resetsBuffer() {
+        LineProtocolBuilder builder = new LineProtocolBuilder();
+        builder.measurement("m").field("f", 1).timestamp(1);
+        builder.reset();
+        builder.measurement("m").field("f", 2);
+        builder.discardLine();
+
+        assertEquals(0, builder.getSize());
+        assertEquals(0, builder.getLines());
+    }
+
+    @Test
+    void growsBuffer() {
+        LineProtocolBuilder builder = new LineProtocolBuilder(16, WritePrecision.NANOSECONDS);
+        String value = "x".repeat(1000);
+        builder.measurement("m").field("f", value).timestamp(1);
+
+        assertEquals("m f=\"" + value + "\" 1\n", toString(builder));
+    }
+
+    @Test
+    void escapesMeasurementTagsAndFieldKeys() {
+        LineProtocolBuilder builder = new LineProtocolBuilder();
+        builder.measurement("my measurement,x=1").tag("tag key=", "a,b c=d").field("field key=", 1).timestamp(1);
+
+        assertEquals("my\\ measurement\\,x=1,tag\\ key\\==a\\,b\\ c\\=d field\\ key\\==1i 1\n", toString(builder));
+    }
+
+    @Test
+    void removesLineBreaksFromTags() {
+        LineProtocolBuilder builder = new LineProtocolBuilder();
+        builder.measurement("m\r\n").tag("t", "line\r\nbreak").field("f", 1).timestamp(1);
+
+        assertEquals("m,t=linebreak f=1i 1\n", toString(builder));
+    }
+
+    @Test
+    void escapesStringField() {
+        LineProtocolBuilder builder = new LineProtocolBuilder();
+        builder.measurement("m").field("f", "say \"hi\", C:\\ = ok\nnext").timestamp(1);
+
+        assertEquals("m f=\"say \\\"hi\\\", C:\\\\ = ok\nnext\" 1\n", toString(builder));
+    }
+
+    @Test
+    void encodesUtf8() {
+        LineProtocolBuilder builder = new LineProtocolBuilder();
+        builder.measurement("m").tag("t", "\u00e9\u20ac\ud83d\ude00 \ud800").field("f", "\u00e9\u20ac\ud83d\ude00").timestamp(1);
+
+        assertEquals("m,t=\u00e9\u20ac\ud83d\ude00\\ ? f=\"\u00e9\u20ac\ud83d\ude00\" 1\n", toString(builder));
+    }
+
+    @Test
+    void escapesTagValueTheSameWayAsTag() {
+        String value = "a,b c=d\n\u20ac";
+        LineProtocolBuilder builder = new LineProtocolBuilder();
+        builder.measurement("m").tag("t", value);
+        LineProtocolBuilder cachedBuilder = new LineProtocolBuilder();
+        cachedBuilder.measurement("m").tag("t", value, new TagValueCache(10));
+
+        assertEquals("m,t=" + new String(LineProtocolBuilder.escapeTag(value), StandardCharsets.UTF_8), toString(builder));
+        assertEquals(toString(builder), toString(cachedBuilder));
+    }
+
+    private static String toString(LineProtocolBuilder builder) {
+        return new String(builder.getBuffer(), 0, builder.getSize(), StandardCharsets.UTF_8);
+    }
+}
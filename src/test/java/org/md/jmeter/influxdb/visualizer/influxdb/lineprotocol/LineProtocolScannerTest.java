@@ -0,0 +1,33 @@
+package org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LineProtocolScannerTest {
+
+    @Test
+    void findsLineBreakOutsideStringField() {
+        LineProtocolBuilder builder = new LineProtocolBuilder();
+        builder.measurement("m").tag("t", "a\"b").field("error", "line\nbreak \"quoted\\\"\n").field("f", 1).timestamp(1);
+        builder.measurement("m").field("f", 2).timestamp(2);
+        byte[] buffer = builder.getBuffer();
+
+        int lineEnd = LineProtocolScanner.findLineEnd(buffer, 0, builder.getSize());
+        assertEquals("m,t=a\"b error=\"line\nbreak \\\"quoted\\\\\\\"\n\",f=1i 1", new String(buffer, 0, lineEnd, StandardCharsets.UTF_8));
+        assertEquals(builder.getSize() - 1, LineProtocolScanner.findLineEnd(buffer, lineEnd + 1, builder.getSize()));
+        assertEquals(2, LineProtocolScanner.countLines(buffer, 0, builder.getSize()));
+    }
+
+    @Test
+    void ignoresUnterminatedPoint() {
+        LineProtocolBuilder builder = new LineProtocolBuilder();
+        builder.measurement("m").field("f", 1).timestamp(1);
+        builder.measurement("m").field("error", "line\nbreak");
+
+        assertEquals(1, LineProtocolScanner.countLines(builder.getBuffer(), 0, builder.getSize()));
+        assertEquals(-1, LineProtocolScanner.findLineEnd(builder.getBuffer(), "m f=1i 1\n".length(), builder.getSize()));
+    }
+}
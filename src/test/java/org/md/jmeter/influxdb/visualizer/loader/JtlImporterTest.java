@@ -0,0 +1,130 @@
+package org.md.jmeter.influxdb.visualizer.loader;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.md.jmeter.influxdb.visualizer.config.InfluxDBConfig;
+import org.md.jmeter.influxdb.visualizer.config.RequestMeasurement;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolScanner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JtlImporterTest {
+
+    private static final int CHUNK_SIZE = 200;
+    private static final int ROWS = 60;
+    private static final long TIME_STAMP = 1000;
+    private static final String HEADER = "timeStamp,elapsed,label,responseCode,success,failureMessage,bytes\n";
+
+    private final List<String> points = Collections.synchronizedList(new ArrayList<>());
+    private HttpServer server;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/write", exchange -> {
+            try (InputStream input = "gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))
+                    ? new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody()) {
+                byte[] body = input.readAllBytes();
+                int start = 0;
+                int end;
+                while ((end = LineProtocolScanner.findLineEnd(body, start, body.length)) >= 0) {
+                    this.points.add(new String(body, start, end - start, StandardCharsets.UTF_8));
+                    start = end + 1;
+                }
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        this.server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        this.server.stop(0);
+    }
+
+    @Test
+    void importsMultiLineValuesAcrossChunkBoundaries() throws IOException, InterruptedException {
+        StringBuilder content = new StringBuilder(HEADER);
+        List<String> failureMessages = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            if (i % 2 == 0) {
+                content.append(TIME_STAMP).append(",0,request,200,true,,100\n");
+            } else {
+                String failureMessage = "Assertion " + i + " failed:\n\"expected\" but was\r\n\"actual\"";
+                failureMessages.add(failureMessage);
+                content.append(TIME_STAMP).append(",0,request,500,false,\"").append(failureMessage.replace("\"", "\"\"")).append("\",100\n");
+            }
+        }
+        Path file = this.directory.resolve("results.jtl");
+        Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+
+        // the rows of every chunk, a row belongs to the chunk it starts in
+        byte[] bytes = Files.readAllBytes(file);
+        int chunks = (bytes.length - HEADER.length() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int[] chunkRows = new int[chunks];
+        int quotedBoundaries = 0;
+        boolean quoted = false;
+        int rowStart = HEADER.length();
+        for (int i = HEADER.length(); i < bytes.length; i++) {
+            if (quoted && (i - HEADER.length()) % CHUNK_SIZE == 0) {
+                quotedBoundaries++;
+            }
+            if (bytes[i] == '"') {
+                quoted = !quoted;
+            } else if (bytes[i] == '\n' && !quoted) {
+                chunkRows[(rowStart - HEADER.length()) / CHUNK_SIZE]++;
+                rowStart = i + 1;
+            }
+        }
+        assertTrue(quotedBoundaries > 0, "the chunk boundaries must cross the quoted values");
+
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put(InfluxDBConfig.KEY_INFLUX_DB_PORT, String.valueOf(this.server.getAddress().getPort()));
+        parameters.put(InfluxDBConfig.KEY_PRECISION, "us");
+        parameters.put(JtlImporter.KEY_THREADS, "4");
+        JtlImporter importer = new JtlImporter(parameters, CHUNK_SIZE);
+        assertEquals(ROWS, importer.importFile(file));
+        assertEquals(ROWS, this.points.size());
+
+        // the generator of every chunk starts at its own sub-millisecond tick, so the same label and millisecond never collide
+        List<Long> expectedTimestamps = new ArrayList<>();
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            for (int row = 0; row < chunkRows[chunk]; row++) {
+                expectedTimestamps.add(TIME_STAMP * 1000 + chunk * 1000L / chunks + row);
+            }
+        }
+        List<Long> timestamps = new ArrayList<>();
+        for (String point : this.points) {
+            timestamps.add(Long.parseLong(point.substring(point.lastIndexOf(' ') + 1)));
+        }
+        Collections.sort(timestamps);
+        assertEquals(expectedTimestamps, timestamps);
+
+        for (String failureMessage : failureMessages) {
+            String tag = RequestMeasurement.Tags.ERROR_MSG + "=" + new String(LineProtocolBuilder.escapeTag(failureMessage), StandardCharsets.UTF_8) + ",";
+            assertEquals(1, this.points.stream().filter(point -> point.contains(tag)).count(), tag);
+        }
+    }
+}
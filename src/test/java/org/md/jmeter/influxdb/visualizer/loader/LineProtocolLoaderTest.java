@@ -0,0 +1,148 @@
+package org.md.jmeter.influxdb.visualizer.loader;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.md.jmeter.influxdb.visualizer.config.InfluxDBConfig;
+import org.md.jmeter.influxdb.visualizer.influxdb.client.FileLineProtocolTransport;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolBuilder;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.LineProtocolScanner;
+import org.md.jmeter.influxdb.visualizer.influxdb.lineprotocol.WritePrecision;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LineProtocolLoaderTest {
+
+    private static final int POINTS = 10;
+    private static final int BATCH_SIZE = 3;
+
+    private final List<String> points = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger acceptedRequests = new AtomicInteger(Integer.MAX_VALUE);
+    private HttpServer server;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/write", exchange -> {
+            try (InputStream input = "gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))
+                    ? new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody()) {
+                byte[] body = input.readAllBytes();
+                if (this.acceptedRequests.getAndDecrement() <= 0) {
+                    exchange.sendResponseHeaders(503, -1);
+                    exchange.close();
+                    return;
+                }
+
+                int start = 0;
+                int end;
+                while ((end = LineProtocolScanner.findLineEnd(body, start, body.length)) >= 0) {
+                    this.points.add(new String(body, start, end - start + 1, StandardCharsets.UTF_8));
+                    start = end + 1;
+                }
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        this.server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        this.server.stop(0);
+    }
+
+    @Test
+    void resumesFromNextBatch() throws IOException, InterruptedException {
+        Path file = this.writeFile();
+        Path progressFile = file.resolveSibling(file.getFileName() + LineProtocolLoader.PROGRESS_SUFFIX);
+        Path loadedFile = file.resolveSibling(file.getFileName() + LineProtocolLoader.LOADED_SUFFIX);
+
+        // the load stops after two batches, e.g. the database has gone down
+        this.acceptedRequests.set(2);
+        assertThrows(IOException.class, () -> this.createLoader().loadFile(file));
+        assertEquals(String.valueOf(2 * BATCH_SIZE), new String(Files.readAllBytes(progressFile), StandardCharsets.US_ASCII));
+        assertFalse(Files.exists(loadedFile));
+
+        this.acceptedRequests.set(Integer.MAX_VALUE);
+        assertEquals(POINTS - 2 * BATCH_SIZE, this.createLoader().loadFile(file));
+
+        assertEquals(createPoints(0, POINTS), this.points);
+        assertEquals(String.valueOf(POINTS), new String(Files.readAllBytes(loadedFile), StandardCharsets.US_ASCII));
+        assertFalse(Files.exists(progressFile));
+    }
+
+    @Test
+    void skipsLoadedFiles() throws IOException, InterruptedException {
+        this.writeFile();
+
+        assertTrue(this.createLoader().load(List.of(this.directory)));
+        assertTrue(this.createLoader().load(List.of(this.directory)));
+        assertEquals(createPoints(0, POINTS), this.points);
+    }
+
+    private LineProtocolLoader createLoader() {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put(InfluxDBConfig.KEY_INFLUX_DB_PORT, String.valueOf(this.server.getAddress().getPort()));
+        parameters.put(LineProtocolLoader.KEY_BATCH_SIZE, String.valueOf(BATCH_SIZE));
+        parameters.put(LineProtocolLoader.KEY_RETRIES, "0");
+        parameters.put(LineProtocolLoader.KEY_THREADS, "1");
+        return new LineProtocolLoader(parameters);
+    }
+
+    /**
+     * Writes the points one batch at a time, so the file has the gzip member per point.
+     */
+    private Path writeFile() throws IOException {
+        FileLineProtocolTransport transport = new FileLineProtocolTransport(this.directory, 1 << 20, WritePrecision.NANOSECONDS,
+                LoggerFactory.getLogger(LineProtocolLoaderTest.class));
+        for (int i = 0; i < POINTS; i++) {
+            transport.send(createBatch(i));
+        }
+        transport.close();
+
+        try (Stream<Path> files = Files.list(this.directory)) {
+            return files.collect(Collectors.toList()).get(0);
+        }
+    }
+
+    private static List<String> createPoints(int first, int count) {
+        List<String> points = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            LineProtocolBuilder batch = createBatch(i);
+            points.add(new String(batch.getBuffer(), 0, batch.getSize(), StandardCharsets.UTF_8));
+        }
+
+        return points;
+    }
+
+    private static LineProtocolBuilder createBatch(int index) {
+        LineProtocolBuilder batch = new LineProtocolBuilder();
+        batch.measurement("requestsRaw").tag("requestName", "request " + index).field("errorMessage", "line\nbreak " + index).timestamp(index);
+        return batch;
+    }
+}
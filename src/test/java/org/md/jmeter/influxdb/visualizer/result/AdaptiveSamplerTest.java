@@ -0,0 +1,114 @@
+package org.md.jmeter.influxdb.visualizer.result;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveSamplerTest {
+
+    private static final int BUDGET = 100;
+    private static final int PERIODS = 5;
+    private static final int BUSY_SAMPLES = 1000;
+    private static final int QUIET_SAMPLES = 10;
+    private static final long OUTLIER_TIME = 10_000;
+
+    @Test
+    void keepsErrorsAndOutliersAndCountsSkippedSamples() {
+        AdaptiveSampler sampler = new AdaptiveSampler(BUDGET, 99);
+        Map<String, LabelCounts> counts = new HashMap<>();
+
+        for (int period = 0; period < PERIODS; period++) {
+            long busyKept = 0;
+            for (int i = 0; i < BUSY_SAMPLES; i++) {
+                boolean error = i % 50 == 7;
+                boolean outlier = i % 250 == 42;
+                long weight = sample(sampler, counts, "busy", outlier ? OUTLIER_TIME : 10 + i % 90, error);
+
+                if (error) {
+                    assertEquals(1, weight, "the error must be kept with its own weight");
+                }
+                if (outlier && period > 0) {
+                    assertTrue(weight > 0, "the outlier must be kept once the percentile is known");
+                }
+                if (weight > 0) {
+                    busyKept++;
+                }
+            }
+
+            for (int i = 0; i < QUIET_SAMPLES; i++) {
+                long weight = sample(sampler, counts, "quiet", 20, false);
+                if (period > 0) {
+                    assertEquals(1, weight, "the label below the fair share keeps every sample");
+                }
+            }
+
+            if (period > 0) {
+                // the errors and outliers of the busy label and at most the budget of the rate sampled points
+                long expected = BUSY_SAMPLES / 50 + BUSY_SAMPLES / 250 + BUDGET;
+                assertTrue(busyKept <= expected, "kept " + busyKept + " busy samples");
+            }
+            sampler.adjust();
+        }
+
+        for (Map.Entry<String, LabelCounts> entry : counts.entrySet()) {
+            LabelCounts labelCounts = entry.getValue();
+            assertEquals(labelCounts.samples - labelCounts.skippedAfterLastKept, labelCounts.weights, entry.getKey());
+        }
+        assertTrue(counts.get("busy").kept < PERIODS * BUSY_SAMPLES / 2, "the busy label must be downsampled");
+        assertEquals(PERIODS * BUSY_SAMPLES / 50, counts.get("busy").errors);
+    }
+
+    @Test
+    void keepsEverySampleUnderBudget() {
+        AdaptiveSampler sampler = new AdaptiveSampler(BUDGET, 99);
+        for (int period = 0; period < PERIODS; period++) {
+            for (int i = 0; i < BUDGET / 2; i++) {
+                assertEquals(1, sampler.sample(createSample("request", 10 + i, false)));
+            }
+            sampler.adjust();
+        }
+    }
+
+    private static long sample(AdaptiveSampler sampler, Map<String, LabelCounts> counts, String label, long responseTime, boolean error) {
+        long weight = sampler.sample(createSample(label, responseTime, error));
+
+        LabelCounts labelCounts = counts.computeIfAbsent(label, key -> new LabelCounts());
+        labelCounts.samples++;
+        labelCounts.weights += weight;
+        if (weight > 0) {
+            labelCounts.kept++;
+        }
+        if (error) {
+            labelCounts.errors += weight;
+        } else if (weight > 0) {
+            labelCounts.skippedAfterLastKept = 0;
+        } else {
+            labelCounts.skippedAfterLastKept++;
+        }
+
+        return weight;
+    }
+
+    private static SampleResult createSample(String label, long responseTime, boolean error) {
+        SampleResult sampleResult = SampleResult.createTestSample(1000, 1000 + responseTime);
+        sampleResult.setSampleLabel(label);
+        sampleResult.setSuccessful(!error);
+        return sampleResult;
+    }
+
+    /**
+     * The samples of the label and the weights of the kept points, the errors carry only their own weight.
+     */
+    private static final class LabelCounts {
+        private long samples;
+        private long weights;
+        private long kept;
+        private long errors;
+        private long skippedAfterLastKept;
+    }
+}
@@ -0,0 +1,120 @@
+package org.md.jmeter.influxdb.visualizer.result;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SampleTimestampGeneratorTest {
+
+    @Test
+    void keepsTimestampsInMillisecondOfSample() {
+        SampleTimestampGenerator generator = new SampleTimestampGenerator(TimeUnit.NANOSECONDS, false);
+
+        Set<Long> timestamps = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            long endTime = 5000 - i % 3;
+            long timestamp = generator.getTimestamp(createSample("request", endTime));
+            assertEquals(endTime, TimeUnit.NANOSECONDS.toMillis(timestamp));
+            timestamps.add(timestamp);
+        }
+
+        assertEquals(1000, timestamps.size());
+    }
+
+    @Test
+    void usesStartTime() {
+        SampleTimestampGenerator generator = new SampleTimestampGenerator(TimeUnit.MICROSECONDS, true);
+
+        assertEquals(4000_000, generator.getTimestamp(createSample("request", 5000)));
+        assertEquals(4000_001, generator.getTimestamp(createSample("request", 5000)));
+        assertEquals(4000_000, generator.getTimestamp(createSample("other", 5000)));
+    }
+
+    @Test
+    void keepsMillisecondPrecision() {
+        SampleTimestampGenerator generator = new SampleTimestampGenerator(TimeUnit.MILLISECONDS, false);
+
+        assertEquals(5000, generator.getTimestamp(createSample("request", 5000)));
+        assertEquals(5000, generator.getTimestamp(createSample("request", 5000)));
+    }
+
+    @Test
+    void startsAtFirstSequence() {
+        SampleTimestampGenerator generator = new SampleTimestampGenerator(TimeUnit.MICROSECONDS, false, 999);
+
+        assertEquals(5000_999, generator.getTimestamp(createSample("request", 5000)));
+        assertEquals(5000_000, generator.getTimestamp(createSample("request", 5000)));
+    }
+
+    @Test
+    void restartsSequenceEveryMillisecond() {
+        SampleTimestampGenerator generator = new SampleTimestampGenerator(TimeUnit.MICROSECONDS, false, 999);
+
+        assertEquals(5000_999, generator.getTimestamp(createSample("request", 5000)));
+        assertEquals(5001_999, generator.getTimestamp(createSample("request", 5001)));
+        assertEquals(5001_000, generator.getTimestamp(createSample("request", 5001)));
+        assertEquals(5000_000, generator.getTimestamp(createSample("request", 5000)));
+    }
+
+    @Test
+    void keepsTimestampsUniqueAcrossBusyMilliseconds() {
+        SampleTimestampGenerator generator = new SampleTimestampGenerator(TimeUnit.MICROSECONDS, false);
+
+        // the samples of the other milliseconds do not move the sequence of the millisecond
+        long first = generator.getTimestamp(createSample("request", 5000));
+        for (int i = 0; i < 1000; i++) {
+            generator.getTimestamp(createSample("request", 5001 + i % 3));
+        }
+        long second = generator.getTimestamp(createSample("request", 5000));
+
+        assertEquals(5000_000, first);
+        assertEquals(5000_001, second);
+    }
+
+    @Test
+    void stampsLateSamplesInUpperHalfOfMillisecond() {
+        SampleTimestampGenerator generator = new SampleTimestampGenerator(TimeUnit.MICROSECONDS, true);
+
+        assertEquals(4000_000, generator.getTimestamp(createSample("request", 5000)));
+        assertEquals(4000_000 + SampleTimestampGenerator.RECENT_MILLISECONDS * 1000,
+                generator.getTimestamp(createSample("request", 5000 + SampleTimestampGenerator.RECENT_MILLISECONDS)));
+
+        // the count of the millisecond has been replaced, e.g. by the start time of the long request
+        assertEquals(4000_500, generator.getTimestamp(createSample("request", 5000)));
+        assertEquals(4000_501, generator.getTimestamp(createSample("request", 5000)));
+    }
+
+    @Test
+    void evictsIdleLabelsOverLabelLimit() {
+        SampleTimestampGenerator generator = new SampleTimestampGenerator(TimeUnit.MICROSECONDS, false);
+        for (int i = 0; i < SampleTimestampGenerator.MAX_TRACKED_LABELS - 1; i++) {
+            generator.getTimestamp(createSample("idle " + i, 1000));
+        }
+        assertEquals(5000_000, generator.getTimestamp(createSample("active", 5000)));
+
+        // the new label evicts the idle labels, the active one keeps its sequence
+        assertEquals(5000_000, generator.getTimestamp(createSample("new", 5000)));
+        assertEquals(5000_001, generator.getTimestamp(createSample("active", 5000)));
+    }
+
+    @Test
+    void keepsStampingOverLabelLimit() {
+        SampleTimestampGenerator generator = new SampleTimestampGenerator(TimeUnit.NANOSECONDS, false);
+        for (int i = 0; i < SampleTimestampGenerator.MAX_TRACKED_LABELS * 2; i++) {
+            long timestamp = generator.getTimestamp(createSample("request " + i, 5000));
+            assertTrue(timestamp >= 5_000_000_000L && timestamp < 5_001_000_000L);
+        }
+    }
+
+    private static SampleResult createSample(String label, long endTime) {
+        SampleResult sampleResult = SampleResult.createTestSample(endTime - 1000, endTime);
+        sampleResult.setSampleLabel(label);
+        return sampleResult;
+    }
+}
@@ -0,0 +1,75 @@
+package org.md.jmeter.influxdb.visualizer.result;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SamplerFilterTest {
+
+    @Test
+    void includesByRegex() {
+        SamplerFilter filter = new SamplerFilter("login.*|checkout", "", true);
+
+        assertTrue(filter.accept("login page"));
+        assertTrue(filter.accept("checkout"));
+        assertFalse(filter.accept("my login"), "the regex must match the whole label");
+        assertFalse(filter.accept("checkout 2"));
+    }
+
+    @Test
+    void excludesByRegex() {
+        SamplerFilter filter = new SamplerFilter("login.*", ".*static.*", true);
+
+        assertTrue(filter.accept("login page"));
+        assertFalse(filter.accept("login static image"));
+        assertFalse(filter.accept("static image"));
+    }
+
+    @Test
+    void includesAndExcludesByList() {
+        SamplerFilter filter = new SamplerFilter("login;checkout;a.b", "checkout", false);
+
+        assertTrue(filter.accept("login"));
+        assertTrue(filter.accept("a.b"));
+        assertFalse(filter.accept("checkout"), "the excluded label must be skipped even if it is included");
+        assertFalse(filter.accept("axb"), "the list labels must not be the regular expressions");
+        assertFalse(filter.accept("login page"));
+    }
+
+    @Test
+    void acceptsAllWithoutMatching() {
+        // the label is not even looked up, so no label is rejected
+        assertTrue(new SamplerFilter(".*", "", true).accept(null));
+        assertTrue(new SamplerFilter("^.*$", null, true).accept(null));
+    }
+
+    @Test
+    void excludesWithMatchAllInclude() {
+        SamplerFilter filter = new SamplerFilter(".*", "health;ping", true);
+
+        assertTrue(filter.accept("login"));
+        assertTrue(filter.accept("health"), "the exclude list is the regex in the regex mode");
+        assertFalse(filter.accept("health;ping"));
+
+        filter = new SamplerFilter(".*", "health|ping", true);
+        assertFalse(filter.accept("health"));
+        assertFalse(filter.accept("ping"));
+    }
+
+    @Test
+    void keepsDecidingPastCacheLimit() {
+        SamplerFilter filter = new SamplerFilter("request [0-9]*[02468]", "request 0", true);
+
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < SamplerFilter.MAX_CACHED_LABELS * 2; i++) {
+                assertEquals(i % 2 == 0 && i != 0, filter.accept("request " + i), "request " + i);
+            }
+        }
+
+        filter.clear();
+        assertFalse(filter.accept("request 0"));
+        assertTrue(filter.accept("request 2"));
+    }
+}